@@ -0,0 +1,14 @@
+package com.bankportal.gateway.accesslog;
+
+/**
+ * One access log line. Field order is the JSON field order.
+ */
+public record AccessLogEntry(String timestamp,
+                             String method,
+                             String path,
+                             String route,
+                             int status,
+                             double durationMs,
+                             String clientIp,
+                             boolean sampled) {
+}
@@ -0,0 +1,25 @@
+package com.bankportal.gateway.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Structured access log settings, bound from {@code gateway.access-log.*}
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+
+    /** Fraction of successful, fast requests that are logged; errors and slow requests always are */
+    private double sampleRate = 0.1;
+
+    /** Requests at least this slow are always logged */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /** Entries waiting for the writer; when full, entries are dropped and counted */
+    private int bufferCapacity = 8192;
+}
@@ -0,0 +1,87 @@
+package com.bankportal.gateway.accesslog;
+
+import com.bankportal.common.util.MpscRingBuffer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes access log entries as JSON lines to the "access-log" logger from a
+ * background thread.
+ *
+ * Entries are handed over through a lock-free ring buffer, so the Netty
+ * event loop never formats JSON or waits on an appender. If the writer
+ * can't keep up, entries are dropped and counted in
+ * gateway.access-log.dropped.
+ */
+@Component
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogWriter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("access-log");
+    private static final Logger log = LoggerFactory.getLogger(AccessLogWriter.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int BATCH_SIZE = 512;
+
+    private final MpscRingBuffer<AccessLogEntry> buffer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Counter droppedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AccessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) {
+        this.buffer = new MpscRingBuffer<>(properties.getBufferCapacity());
+        this.droppedCounter = Counter.builder("gateway.access-log.dropped")
+                .description("Access log entries discarded because the writer fell behind")
+                .register(meterRegistry);
+        meterRegistry.gauge("gateway.access-log.buffer.size", buffer, MpscRingBuffer::size);
+        this.writer = new Thread(this::writeLoop, "access-log-writer");
+        this.writer.setDaemon(true);
+        if (properties.isEnabled()) {
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Queue an entry without blocking
+     */
+    public void submit(AccessLogEntry entry) {
+        if (!buffer.offer(entry)) {
+            droppedCounter.increment();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer.isAlive()) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void writeLoop() {
+        while (running || buffer.size() > 0) {
+            if (buffer.drain(this::write, BATCH_SIZE) == 0 && running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(AccessLogEntry entry) {
+        try {
+            accessLog.info(objectMapper.writeValueAsString(entry));
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to format access log entry", e);
+        }
+    }
+}
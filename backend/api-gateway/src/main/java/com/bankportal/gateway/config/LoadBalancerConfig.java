@@ -0,0 +1,13 @@
+package com.bankportal.gateway.config;
+
+import com.bankportal.gateway.loadbalancer.LeastOutstandingLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Balances lb:// routes by least outstanding requests instead of round robin
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LeastOutstandingLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
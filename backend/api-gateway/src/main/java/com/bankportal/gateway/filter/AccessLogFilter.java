@@ -0,0 +1,140 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.accesslog.AccessLogEntry;
+import com.bankportal.gateway.accesslog.AccessLogProperties;
+import com.bankportal.gateway.accesslog.AccessLogWriter;
+import com.bankportal.gateway.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Times every routed request, including ones rejected by the rate limiter or
+ * authentication, and records it twice: in the gateway.requests timer
+ * (percentile histogram, tagged by route, method and status) and, for a
+ * sample of requests plus every error and slow request, in the structured
+ * access log.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    /** nginx's code for a client that went away before the response */
+    private static final int CLIENT_CLOSED_REQUEST = 499;
+    private static final String ERROR_STATUS_ATTR = AccessLogFilter.class.getName() + ".errorStatus";
+    private static final Set<String> STANDARD_METHODS = Arrays.stream(HttpMethod.values())
+            .map(HttpMethod::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final AccessLogWriter accessLogWriter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final String clientIpHeader;
+    private final ConcurrentHashMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public AccessLogFilter(AccessLogWriter accessLogWriter,
+                           AccessLogProperties properties,
+                           RateLimitProperties rateLimitProperties,
+                           MeterRegistry meterRegistry) {
+        this.accessLogWriter = accessLogWriter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.isEnabled();
+        this.sampleRate = properties.getSampleRate();
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.clientIpHeader = rateLimitProperties.getClientIpHeader();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startedAt = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnError(error -> exchange.getAttributes().put(ERROR_STATUS_ATTR, statusOf(error)))
+                .doFinally(signal -> complete(exchange, signal, System.nanoTime() - startedAt));
+    }
+
+    @Override
+    public int getOrder() {
+        // Outside the rate limiter so its 429s are counted too
+        return -300;
+    }
+
+    private void complete(ServerWebExchange exchange, SignalType signal, long elapsedNanos) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        int status = status(exchange, signal);
+
+        String method = STANDARD_METHODS.contains(request.getMethod().name()) ? request.getMethod().name() : "OTHER";
+        timers.computeIfAbsent(new TimerKey(routeId, method, status), this::timer)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (!enabled) {
+            return;
+        }
+        boolean sampled = status < 400 && elapsedNanos < slowThresholdNanos;
+        if (sampled && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        accessLogWriter.submit(new AccessLogEntry(
+                Instant.now().toString(),
+                method,
+                request.getPath().value(),
+                routeId,
+                status,
+                elapsedNanos / 1_000_000.0,
+                RateLimitFilter.clientIp(request, clientIpHeader),
+                sampled));
+    }
+
+    private int status(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return CLIENT_CLOSED_REQUEST;
+        }
+        Integer errorStatus = exchange.getAttribute(ERROR_STATUS_ATTR);
+        if (errorStatus != null) {
+            return errorStatus;
+        }
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        return statusCode != null ? statusCode.value() : 200;
+    }
+
+    private static int statusOf(Throwable error) {
+        return error instanceof ResponseStatusException statusException
+                ? statusException.getStatusCode().value()
+                : 500;
+    }
+
+    private Timer timer(TimerKey key) {
+        return Timer.builder("gateway.requests")
+                .description("Gateway request latency, from routing to response")
+                .tag("route", key.route())
+                .tag("method", key.method())
+                .tag("status", String.valueOf(key.status()))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record TimerKey(String route, String method, int status) {
+    }
+}
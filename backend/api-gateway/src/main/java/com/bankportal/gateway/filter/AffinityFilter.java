@@ -0,0 +1,116 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.loadbalancer.LeastOutstandingLoadBalancer;
+import com.bankportal.gateway.loadbalancer.LoadBalancingProperties;
+import com.bankportal.gateway.ratelimit.RateLimitProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sends registration and every login step for an email to the same
+ * auth-service instance.
+ *
+ * Emailed OTP codes (with auth.otp.store=memory), lockout counters and TOTP
+ * replay state live in each instance's memory, so login, send-otp and
+ * verify-otp for one email must not be spread across instances. Registration
+ * goes to the same instance so its email filter already holds the new email
+ * when the first login arrives. For the
+ * affinity paths this filter sets a header to a digest of the body's "email"
+ * field, which {@link LeastOutstandingLoadBalancer} hashes to pick the
+ * instance. A client-supplied header is always replaced or dropped, so
+ * clients can't spread one email's attempts across instances.
+ */
+@Component
+public class AffinityFilter implements GlobalFilter, Ordered {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final List<PathPattern> affinityPaths;
+    private final int maxBodyBytes;
+
+    public AffinityFilter(LoadBalancingProperties loadBalancing, RateLimitProperties rateLimit) {
+        this.affinityPaths = loadBalancing.getAffinityPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+        this.maxBodyBytes = rateLimit.getMaxBodyBytes();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!matches(request.getPath().pathWithinApplication())) {
+            if (request.getHeaders().containsKey(LeastOutstandingLoadBalancer.AFFINITY_HEADER)) {
+                return chain.filter(withAffinity(exchange, request, null));
+            }
+            return chain.filter(exchange);
+        }
+
+        // The rate limiter has usually read the body already
+        String email = exchange.getAttribute(RateLimitFilter.LOGIN_EMAIL_ATTR);
+        if (email != null) {
+            return chain.filter(withAffinity(exchange, request, email));
+        }
+        if (request.getHeaders().getContentLength() > maxBodyBytes) {
+            return RateLimitFilter.payloadTooLarge(exchange);
+        }
+        return DataBufferUtils.join(request.getBody(), maxBodyBytes)
+                .map(RateLimitFilter::drain)
+                .defaultIfEmpty(EMPTY_BODY)
+                .flatMap(body -> {
+                    String bodyEmail;
+                    try {
+                        bodyEmail = RateLimitFilter.extractEmail(body);
+                    } catch (IllegalArgumentException e) {
+                        return RateLimitFilter.duplicateField(exchange);
+                    }
+                    return chain.filter(withAffinity(exchange,
+                            new RateLimitFilter.ReplayedBodyRequest(request, body), bodyEmail));
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> RateLimitFilter.payloadTooLarge(exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        // After the rate limiter, which may already have read the email
+        return -150;
+    }
+
+    private boolean matches(PathContainer path) {
+        for (PathPattern pattern : affinityPaths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The exchange with the affinity header set from the email, or removed when it is null.
+     * The digest keeps the header ASCII and the same on every gateway.
+     */
+    private static ServerWebExchange withAffinity(ServerWebExchange exchange, ServerHttpRequest request, String email) {
+        return exchange.mutate()
+                .request(request.mutate().headers(headers -> {
+                    headers.remove(LeastOutstandingLoadBalancer.AFFINITY_HEADER);
+                    if (email != null) {
+                        headers.set(LeastOutstandingLoadBalancer.AFFINITY_HEADER,
+                                UUID.nameUUIDFromBytes(email.getBytes(StandardCharsets.UTF_8)).toString());
+                    }
+                }).build())
+                .build();
+    }
+}
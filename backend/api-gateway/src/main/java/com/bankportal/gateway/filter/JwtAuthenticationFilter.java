@@ -0,0 +1,139 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.security.RevocationMirror;
+import com.bankportal.gateway.security.TokenVerifier;
+import com.bankportal.gateway.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Authenticates proxied requests at the edge.
+ *
+ * Bearer tokens are verified locally against the auth-service JWKS, so a
+ * request with a missing or bad token is answered 401 here and never
+ * reaches a backend. Tokens revoked by logout are rejected from a local
+ * mirror of the revocation set. Verified claims are forwarded as X-User-* headers;
+ * any such headers sent by the client are stripped first.
+ */
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String USER_MFA_HEADER = "X-User-Mfa";
+    public static final String TOKEN_ID_HEADER = "X-Token-Id";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"error\":\"Authentication required\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final TokenVerifier tokenVerifier;
+    private final RevocationMirror revocationMirror;
+    private final List<PathPattern> publicPaths;
+
+    public JwtAuthenticationFilter(TokenVerifier tokenVerifier,
+                                   RevocationMirror revocationMirror,
+                                   @Value("${gateway.auth.public-paths}") List<String> publicPaths) {
+        this.tokenVerifier = tokenVerifier;
+        this.revocationMirror = revocationMirror;
+        this.publicPaths = publicPaths.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        if (isPublic(request.getPath().pathWithinApplication())) {
+            return chain.filter(withoutIdentityHeaders(exchange));
+        }
+
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return unauthorized(exchange);
+        }
+
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        // The chain completes empty, so the 401 fallback must come before it, not after
+        return tokenVerifier.verify(token)
+                .filter(verified -> !revocationMirror.isRevoked(verified.tokenId()))
+                .map(verified -> withIdentityHeaders(exchange, verified))
+                .switchIfEmpty(Mono.defer(() -> unauthorized(exchange).then(Mono.empty())))
+                .flatMap(chain::filter);
+    }
+
+    @Override
+    public int getOrder() {
+        return -100;
+    }
+
+    private boolean isPublic(PathContainer path) {
+        for (PathPattern pattern : publicPaths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ServerWebExchange withoutIdentityHeaders(ServerWebExchange exchange) {
+        return exchange.mutate()
+                .request(builder -> builder.headers(JwtAuthenticationFilter::removeIdentityHeaders))
+                .build();
+    }
+
+    private static ServerWebExchange withIdentityHeaders(ServerWebExchange exchange, VerifiedToken token) {
+        return exchange.mutate()
+                .request(builder -> builder.headers(headers -> {
+                    removeIdentityHeaders(headers);
+                    headers.set(USER_ID_HEADER, token.userId());
+                    if (token.email() != null) {
+                        headers.set(USER_EMAIL_HEADER, token.email());
+                    }
+                    if (token.role() != null) {
+                        headers.set(USER_ROLE_HEADER, token.role());
+                    }
+                    headers.set(USER_MFA_HEADER, String.valueOf(token.mfaVerified()));
+                    if (token.tokenId() != null) {
+                        headers.set(TOKEN_ID_HEADER, token.tokenId());
+                    }
+                }))
+                .build();
+    }
+
+    private static void removeIdentityHeaders(HttpHeaders headers) {
+        headers.remove(USER_ID_HEADER);
+        headers.remove(USER_EMAIL_HEADER);
+        headers.remove(USER_ROLE_HEADER);
+        headers.remove(USER_MFA_HEADER);
+        headers.remove(TOKEN_ID_HEADER);
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory().wrap(UNAUTHORIZED_BODY);
+        return response.writeWith(Mono.just(body));
+    }
+}
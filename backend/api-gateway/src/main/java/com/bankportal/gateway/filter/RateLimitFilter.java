@@ -0,0 +1,287 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.ratelimit.RateLimitProperties;
+import com.bankportal.gateway.ratelimit.RateLimiter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects abusive clients with 429 before anything is proxied.
+ *
+ * Each configured route can limit requests per client IP and per login email
+ * (the "email" field of the JSON body). The IP check needs nothing but the
+ * socket address, so credential-stuffing traffic is turned away on the Netty
+ * event loop without reading the body, calling a backend or running Argon2.
+ * The email check reads the (small, size-capped) body once and replays it
+ * downstream; a body repeating a top-level field gets 400.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    /** Exchange attribute holding the login email once the body has been read, for {@link AffinityFilter} */
+    static final String LOGIN_EMAIL_ATTR = RateLimitFilter.class.getName() + ".loginEmail";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_BODY =
+            "{\"error\":\"Request body too large\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DUPLICATE_FIELD_BODY =
+            "{\"error\":\"Duplicate field in request body\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final List<LimitedRoute> routes;
+    private final int maxBodyBytes;
+    private final String clientIpHeader;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.maxBodyBytes = properties.getMaxBodyBytes();
+        this.clientIpHeader = properties.getClientIpHeader();
+        this.routes = properties.isEnabled()
+                ? properties.getRoutes().stream()
+                        .map(route -> new LimitedRoute(route, properties.getMaxTrackedKeys(), meterRegistry))
+                        .toList()
+                : List.of();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (routes.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        LimitedRoute route = match(request.getPath().pathWithinApplication());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        if (route.perIp != null) {
+            long waitNanos = route.perIp.tryAcquire(clientIp(request));
+            if (waitNanos > 0) {
+                route.ipRejections.increment();
+                return tooManyRequests(exchange, waitNanos);
+            }
+        }
+        if (route.perEmail == null) {
+            return chain.filter(exchange);
+        }
+        return limitByEmail(exchange, chain, route);
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of authentication so rejected requests cost as little as possible
+        return -200;
+    }
+
+    private Mono<Void> limitByEmail(ServerWebExchange exchange, GatewayFilterChain chain, LimitedRoute route) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getHeaders().getContentLength() > maxBodyBytes) {
+            return payloadTooLarge(exchange);
+        }
+        return DataBufferUtils.join(request.getBody(), maxBodyBytes)
+                .map(RateLimitFilter::drain)
+                .defaultIfEmpty(EMPTY_BODY)
+                .flatMap(body -> {
+                    String email;
+                    try {
+                        email = extractEmail(body);
+                    } catch (IllegalArgumentException e) {
+                        return duplicateField(exchange);
+                    }
+                    if (email != null) {
+                        exchange.getAttributes().put(LOGIN_EMAIL_ATTR, email);
+                        long waitNanos = route.perEmail.tryAcquire(email);
+                        if (waitNanos > 0) {
+                            route.emailRejections.increment();
+                            return tooManyRequests(exchange, waitNanos);
+                        }
+                    }
+                    return chain.filter(exchange.mutate().request(new ReplayedBodyRequest(request, body)).build());
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> payloadTooLarge(exchange));
+    }
+
+    private LimitedRoute match(PathContainer path) {
+        for (LimitedRoute route : routes) {
+            for (PathPattern pattern : route.paths) {
+                if (pattern.matches(path)) {
+                    return route;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String clientIp(ServerHttpRequest request) {
+        return clientIp(request, clientIpHeader);
+    }
+
+    /**
+     * Client address from the trusted proxy header when configured, else the socket address
+     */
+    static String clientIp(ServerHttpRequest request, String clientIpHeader) {
+        if (!clientIpHeader.isEmpty()) {
+            String forwarded = request.getHeaders().getFirst(clientIpHeader);
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    static byte[] drain(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Top-level "email" string of a JSON object, normalised for use as a key; null if absent or not JSON.
+     * The whole object is read: the backend binds the last of repeated fields, so a body repeating one
+     * could otherwise be limited under one email and checked against another.
+     *
+     * @throws IllegalArgumentException if a top-level field appears more than once
+     */
+    static String extractEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Set<String> fields = new HashSet<>();
+            String email = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (!fields.add(field)) {
+                    throw new IllegalArgumentException("Duplicate field " + field);
+                }
+                JsonToken value = parser.nextToken();
+                if ("email".equals(field) && value == JsonToken.VALUE_STRING) {
+                    email = parser.getText().trim();
+                }
+                parser.skipChildren();
+            }
+            return email == null || email.isEmpty() ? null : email.toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Mono<Void> tooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return reject(response, HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_BODY);
+    }
+
+    static Mono<Void> payloadTooLarge(ServerWebExchange exchange) {
+        return reject(exchange.getResponse(), HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE_BODY);
+    }
+
+    static Mono<Void> duplicateField(ServerWebExchange exchange) {
+        return reject(exchange.getResponse(), HttpStatus.BAD_REQUEST, DUPLICATE_FIELD_BODY);
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, HttpStatus status, byte[] body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static final class LimitedRoute {
+        private final List<PathPattern> paths;
+        private final RateLimiter perIp;
+        private final RateLimiter perEmail;
+        private final Counter ipRejections;
+        private final Counter emailRejections;
+
+        private LimitedRoute(RateLimitProperties.Route route, long maxKeys, MeterRegistry meterRegistry) {
+            this.paths = route.getPaths().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            this.perIp = limiter(route.getPerIp(), maxKeys);
+            this.perEmail = limiter(route.getPerEmail(), maxKeys);
+            this.ipRejections = rejections(meterRegistry, route.getId(), "ip");
+            this.emailRejections = rejections(meterRegistry, route.getId(), "email");
+        }
+
+        private static RateLimiter limiter(RateLimitProperties.Limit limit, long maxKeys) {
+            return limit == null || limit.getRequests() <= 0
+                    ? null
+                    : new RateLimiter(limit.getRequests(), limit.getPeriod(), maxKeys);
+        }
+
+        private static Counter rejections(MeterRegistry registry, String route, String key) {
+            return Counter.builder("gateway.ratelimit.rejected")
+                    .description("Requests answered 429 by the edge rate limiter")
+                    .tag("route", route == null ? "unnamed" : route)
+                    .tag("key", key)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Request whose body was already read for the email; replays the same bytes downstream
+     */
+    static final class ReplayedBodyRequest extends ServerHttpRequestDecorator {
+        private final byte[] body;
+
+        ReplayedBodyRequest(ServerHttpRequest delegate, byte[] body) {
+            super(delegate);
+            this.body = body;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return body.length == 0
+                    ? Flux.empty()
+                    : Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.loadbalancer.UpstreamRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Counts requests in flight to the instance the load balancer picked and
+ * reports how each one ended, feeding least-outstanding balancing and
+ * outlier ejection. Connection errors, response timeouts and 5xx answers
+ * count as failures; a client hanging up counts as neither.
+ */
+@Component
+public class UpstreamTrackingFilter implements GlobalFilter, Ordered {
+
+    private final UpstreamRegistry upstreamRegistry;
+
+    public UpstreamTrackingFilter(UpstreamRegistry upstreamRegistry) {
+        this.upstreamRegistry = upstreamRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance instance = response.getServer();
+        upstreamRegistry.started(instance);
+        return chain.filter(exchange)
+                .doFinally(signal -> upstreamRegistry.completed(instance, failed(exchange, signal)));
+    }
+
+    @Override
+    public int getOrder() {
+        // Right after the instance is chosen
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+
+    private static boolean failed(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.ON_ERROR) {
+            return true;
+        }
+        if (signal == SignalType.CANCEL) {
+            return false;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError();
+    }
+}
@@ -0,0 +1,147 @@
+package com.bankportal.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices balancer: picks two instances at random and sends the
+ * request to the one with fewer requests in flight from this gateway.
+ *
+ * Auth-service latency is dominated by Argon2 on a bounded pool, so a node
+ * with a long queue stays slow for a while; round robin keeps feeding it its
+ * share regardless. Comparing in-flight counts steers away from it, and
+ * sampling two rather than taking the global minimum keeps several gateways
+ * from all herding onto the same idle node. Ejected instances are skipped
+ * unless every instance is ejected, in which case all are used.
+ *
+ * Requests carrying {@link #AFFINITY_HEADER} go to the instance with the
+ * highest rendezvous hash for the key, so every gateway sends a key to the
+ * same instance, and only the keys of an instance that leaves or is ejected
+ * move elsewhere. The load still bounds the choice: an instance with at least
+ * {@code affinityLoadFactor} times the mean in-flight count (and at least
+ * {@code affinityMinInFlight}) is passed over for the key's next instance in
+ * hash order. A few hot keys then can't pile Argon2 work onto one node, at
+ * the cost of their per-instance state (see the affinity-paths property)
+ * while the node is overloaded.
+ */
+public class LeastOutstandingLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /** Set by the gateway only; see {@code AffinityFilter} */
+    public static final String AFFINITY_HEADER = "X-Affinity-Key";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final UpstreamRegistry upstreamRegistry;
+    private final double affinityLoadFactor;
+    private final int affinityMinInFlight;
+
+    public LeastOutstandingLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                        UpstreamRegistry upstreamRegistry,
+                                        LoadBalancingProperties properties) {
+        this.suppliers = suppliers;
+        this.upstreamRegistry = upstreamRegistry;
+        this.affinityLoadFactor = properties.getAffinityLoadFactor();
+        this.affinityMinInFlight = properties.getAffinityMinInFlight();
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String affinityKey = affinityKey(request);
+        return supplier.get(request).next().map(instances -> choose(instances, affinityKey));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, String affinityKey) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        long now = System.nanoTime();
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!upstreamRegistry.stats(instance).isEjected(now)) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = instances;
+        }
+        int count = candidates.size();
+        if (count == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+        if (affinityKey != null) {
+            return new DefaultResponse(boundedRendezvous(candidates, affinityKey));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(inFlight(b) < inFlight(a) ? b : a);
+    }
+
+    private static String affinityKey(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null) {
+            return context.getClientRequest().getHeaders().getFirst(AFFINITY_HEADER);
+        }
+        return null;
+    }
+
+    /**
+     * The first instance in the key's rendezvous order that isn't overloaded. Walking the order,
+     * rather than sampling, keeps a spilled key on one fallback instance while the overload lasts.
+     */
+    private ServiceInstance boundedRendezvous(List<ServiceInstance> candidates, String key) {
+        long keyHash = mix(key.hashCode());
+        List<ServiceInstance> ranked = new ArrayList<>(candidates);
+        ranked.sort((a, b) -> Long.compareUnsigned(score(keyHash, b), score(keyHash, a)));
+        if (affinityLoadFactor <= 0) {
+            return ranked.get(0);
+        }
+        long total = 0;
+        for (ServiceInstance instance : ranked) {
+            total += inFlight(instance);
+        }
+        double bound = Math.max(affinityMinInFlight, affinityLoadFactor * total / ranked.size());
+        for (ServiceInstance instance : ranked) {
+            if (inFlight(instance) < bound) {
+                return instance;
+            }
+        }
+        // Every instance is at the bound: no better choice than the key's own
+        return ranked.get(0);
+    }
+
+    private static long score(long keyHash, ServiceInstance instance) {
+        return mix(keyHash ^ instance.getUri().toString().hashCode());
+    }
+
+    /**
+     * SplitMix64 finaliser, so nearby inputs give unrelated scores
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private int inFlight(ServiceInstance instance) {
+        return upstreamRegistry.stats(instance).inFlight.get();
+    }
+}
@@ -0,0 +1,36 @@
+package com.bankportal.gateway.loadbalancer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Passive outlier ejection and login affinity for load-balanced routes,
+ * bound from {@code gateway.load-balancing.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.load-balancing")
+public class LoadBalancingProperties {
+
+    /** Consecutive failures (errors, timeouts, 5xx) that eject an instance */
+    private int consecutiveFailures = 5;
+
+    /** Ejection time for a first ejection; doubles with each repeat, up to maxEjectionTime */
+    private Duration baseEjectionTime = Duration.ofSeconds(10);
+
+    private Duration maxEjectionTime = Duration.ofMinutes(2);
+
+    /** Paths whose requests go to the instance chosen by the body's "email" field */
+    private List<String> affinityPaths = List.of("/api/auth/register", "/api/auth/login", "/api/auth/verify-otp", "/api/auth/send-otp");
+
+    /**
+     * An affinity request passes over an instance with at least this many times the mean in-flight
+     * count for the key's next instance; 0 always sends a key to its own instance
+     */
+    private double affinityLoadFactor = 1.5;
+
+    /** In-flight count below which an affinity request is never passed over, however low the mean */
+    private int affinityMinInFlight = 4;
+}
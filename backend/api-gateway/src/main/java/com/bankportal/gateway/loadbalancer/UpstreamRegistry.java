@@ -0,0 +1,103 @@
+package com.bankportal.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-flight request counts and passive health for every upstream instance.
+ *
+ * Counts are kept by this gateway alone, from the requests it proxies, so
+ * they need no cooperation from the instances or the discovery server.
+ * An instance that fails {@code consecutiveFailures} times in a row is
+ * ejected from balancing for the base ejection time, doubled for each
+ * further ejection without a success in between.
+ */
+@Component
+@EnableConfigurationProperties(LoadBalancingProperties.class)
+public class UpstreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamRegistry.class);
+    /** Instances that left discovery are forgotten after this long without traffic */
+    private static final Duration IDLE_EXPIRY = Duration.ofMinutes(10);
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final int consecutiveFailures;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, UpstreamStats> stats = Caffeine.newBuilder()
+            .expireAfterAccess(IDLE_EXPIRY)
+            .build();
+
+    public UpstreamRegistry(LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+        this.consecutiveFailures = Math.max(1, properties.getConsecutiveFailures());
+        this.baseEjectionNanos = properties.getBaseEjectionTime().toNanos();
+        this.maxEjectionNanos = properties.getMaxEjectionTime().toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    UpstreamStats stats(ServiceInstance instance) {
+        return stats.get(key(instance), this::create);
+    }
+
+    /**
+     * A request is about to be sent to the instance
+     */
+    public void started(ServiceInstance instance) {
+        stats(instance).inFlight.incrementAndGet();
+    }
+
+    /**
+     * A request sent to the instance has finished
+     *
+     * @param failed The instance errored, timed out or answered 5xx
+     */
+    public void completed(ServiceInstance instance, boolean failed) {
+        UpstreamStats upstream = stats(instance);
+        upstream.inFlight.decrementAndGet();
+        if (!failed) {
+            upstream.consecutiveFailures.set(0);
+            if (!upstream.isEjected(System.nanoTime())) {
+                upstream.ejections.set(0);
+            }
+            return;
+        }
+        if (upstream.consecutiveFailures.incrementAndGet() < consecutiveFailures) {
+            return;
+        }
+        // Only the request that crossed the threshold ejects; the count restarts for when it returns
+        upstream.consecutiveFailures.set(0);
+        int shift = Math.min(upstream.ejections.getAndIncrement(), MAX_BACKOFF_SHIFT);
+        long ejectionNanos = Math.min(baseEjectionNanos << shift, maxEjectionNanos);
+        upstream.ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+        meterRegistry.counter("gateway.upstream.ejections", "instance", upstream.instance).increment();
+        log.warn("Ejected upstream {} for {} ms after {} consecutive failures",
+                upstream.instance, ejectionNanos / 1_000_000, consecutiveFailures);
+    }
+
+    private UpstreamStats create(String key) {
+        // Reads through the cache so an instance that expires and comes back keeps one gauge
+        Gauge.builder("gateway.upstream.in-flight", stats, cache -> {
+                    UpstreamStats upstream = cache.getIfPresent(key);
+                    return upstream != null ? upstream.inFlight.get() : 0;
+                })
+                .description("Requests proxied to the instance and not yet completed")
+                .tag("instance", key)
+                .register(meterRegistry);
+        return new UpstreamStats(key);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bankportal.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load and health of one upstream instance as seen by this gateway
+ */
+final class UpstreamStats {
+
+    final String instance;
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger consecutiveFailures = new AtomicInteger();
+    /** Ejections in a row without a success in between; sets the next ejection time */
+    final AtomicInteger ejections = new AtomicInteger();
+    volatile long ejectedUntilNanos;
+
+    UpstreamStats(String instance) {
+        this.instance = instance;
+    }
+
+    boolean isEjected(long nowNanos) {
+        return ejectedUntilNanos - nowNanos > 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.bankportal.gateway.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limits applied at the edge, bound from {@code gateway.rate-limit.*}.
+ * Routes are matched in order; the first route whose path patterns match wins.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Upper bound on keys tracked per limit; past it, least-recent buckets are evicted and their limits reset */
+    private long maxTrackedKeys = 100_000;
+
+    /** Largest request body read to find the login email; larger bodies get 413 */
+    private int maxBodyBytes = 4096;
+
+    /** Header carrying the client IP when behind a trusted proxy; empty uses the socket address */
+    private String clientIpHeader = "";
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String id;
+        private List<String> paths = new ArrayList<>();
+        private Limit perIp;
+        /** Keyed by the "email" field of the JSON request body */
+        private Limit perEmail;
+    }
+
+    @Data
+    public static class Limit {
+        private int requests;
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bankportal.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, per-key rate limiter allowing {@code requests} per {@code period}.
+ *
+ * Each key holds a single "theoretical arrival time" (the generic cell rate
+ * algorithm): a sliding-window token bucket whose whole state is one long,
+ * updated with compare-and-set. A request is allowed while the bucket is less
+ * than one period ahead of the clock, so up to {@code requests} can burst
+ * back-to-back and the budget refills continuously after that.
+ *
+ * Buckets live in a bounded cache. Expiry after one idle period loses
+ * nothing, since the bucket would be full again by then. Size eviction is
+ * different: once more than {@code maxKeys} keys are active within a period,
+ * least-recently used buckets are dropped while still partly spent, and those
+ * keys get a fresh budget. Size {@code maxKeys} above the number of distinct
+ * keys expected per period; an attacker rotating through more keys than that
+ * can reset limits for keys it is not using.
+ */
+public final class RateLimiter {
+
+    private final long periodNanos;
+    private final long intervalNanos;
+    private final long origin = System.nanoTime();
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(int requests, Duration period, long maxKeys) {
+        if (requests < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit needs at least one request per positive period");
+        }
+        this.periodNanos = period.toNanos();
+        this.intervalNanos = Math.max(1, periodNanos / requests);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .build();
+    }
+
+    /**
+     * Take one permit for the key
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a permit frees up
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+        long now = System.nanoTime() - origin; // non-negative, so a fresh bucket (0) reads as full
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > periodNanos) {
+                return ahead - periodNanos;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
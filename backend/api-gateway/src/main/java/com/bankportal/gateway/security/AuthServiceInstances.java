@@ -0,0 +1,44 @@
+package com.bankportal.gateway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The auth-service instances, from the discovery sources the load balancer
+ * uses (the simple-discovery list, and Eureka when enabled), so every
+ * instance that issues tokens has its keys and revocations picked up.
+ */
+@Component
+public class AuthServiceInstances {
+
+    private static final Logger logger = Logger.getLogger(AuthServiceInstances.class.getName());
+
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final String serviceId;
+
+    public AuthServiceInstances(ReactiveDiscoveryClient discoveryClient,
+                                @Value("${gateway.auth.service-id:auth-service}") String serviceId) {
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * The path on each instance currently known
+     */
+    public Flux<String> uris(String path) {
+        return discoveryClient.getInstances(serviceId)
+                .map(instance -> {
+                    String base = instance.getUri().toString();
+                    return (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + path;
+                })
+                .onErrorResume(e -> {
+                    logger.log(Level.WARNING, "Failed to list " + serviceId + " instances", e);
+                    return Flux.empty();
+                });
+    }
+}
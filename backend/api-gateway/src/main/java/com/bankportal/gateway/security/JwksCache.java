@@ -0,0 +1,152 @@
+package com.bankportal.gateway.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Locally cached verification keys fetched from the JWKS endpoint of every
+ * auth-service instance (see {@link AuthServiceInstances}).
+ *
+ * Keys are refreshed in the background on a fixed interval. A token signed with
+ * an unknown key id triggers an early refresh, throttled so a flood of forged
+ * key ids cannot turn into a flood of JWKS requests.
+ */
+@Component
+public class JwksCache {
+
+    private static final Logger logger = Logger.getLogger(JwksCache.class.getName());
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+    private static final String JWKS_PATH = "/api/auth/.well-known/jwks.json";
+
+    private final WebClient webClient;
+    private final AuthServiceInstances authService;
+    private final List<String> jwksUris;
+    private final Duration refreshInterval;
+    private final long minRefreshGapMillis;
+
+    private final AtomicLong lastRefreshAt = new AtomicLong();
+    private volatile Map<String, JWSVerifier> verifiers = Collections.emptyMap();
+    private volatile Mono<Map<String, JWSVerifier>> inFlightRefresh;
+    private Disposable refreshSubscription;
+
+    public JwksCache(WebClient.Builder webClientBuilder,
+                     AuthServiceInstances authService,
+                     @Value("${gateway.auth.jwks-uris:}") List<String> jwksUris,
+                     @Value("${gateway.auth.jwks-refresh-seconds:300}") long refreshSeconds,
+                     @Value("${gateway.auth.jwks-min-refresh-gap-seconds:10}") long minRefreshGapSeconds) {
+        this.webClient = webClientBuilder.build();
+        this.authService = authService;
+        this.jwksUris = jwksUris.stream().filter(uri -> !uri.isBlank()).toList();
+        this.refreshInterval = Duration.ofSeconds(refreshSeconds);
+        this.minRefreshGapMillis = minRefreshGapSeconds * 1000;
+    }
+
+    @PostConstruct
+    public void start() {
+        refreshSubscription = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> refresh().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshSubscription != null) {
+            refreshSubscription.dispose();
+        }
+    }
+
+    /**
+     * Verifier for a key id. Unknown ids trigger a throttled refresh before giving up.
+     */
+    public Mono<JWSVerifier> verifierFor(String keyId) {
+        if (keyId == null) {
+            return Mono.empty();
+        }
+        JWSVerifier verifier = verifiers.get(keyId);
+        if (verifier != null) {
+            return Mono.just(verifier);
+        }
+        long now = System.currentTimeMillis();
+        long last = lastRefreshAt.get();
+        if (now - last < minRefreshGapMillis || !lastRefreshAt.compareAndSet(last, now)) {
+            Mono<Map<String, JWSVerifier>> pending = inFlightRefresh;
+            return pending == null
+                    ? Mono.empty()
+                    : pending.flatMap(keys -> Mono.justOrEmpty(keys.get(keyId)));
+        }
+        return refresh().flatMap(keys -> Mono.justOrEmpty(keys.get(keyId)));
+    }
+
+    /**
+     * Fetch every instance's JWKS, and any configured explicitly, and swap in the merged key map
+     */
+    private Mono<Map<String, JWSVerifier>> refresh() {
+        lastRefreshAt.set(System.currentTimeMillis());
+        Mono<Map<String, JWSVerifier>> refresh = authService.uris(JWKS_PATH)
+                .concatWith(Flux.fromIterable(jwksUris))
+                .distinct()
+                .flatMap(this::fetch)
+                .collectList()
+                .map(sets -> {
+                    Map<String, JWSVerifier> merged = new HashMap<>();
+                    sets.forEach(merged::putAll);
+                    if (!merged.isEmpty()) {
+                        verifiers = Collections.unmodifiableMap(merged);
+                    }
+                    return verifiers;
+                })
+                .doFinally(signal -> inFlightRefresh = null)
+                .cache();
+        inFlightRefresh = refresh;
+        return refresh;
+    }
+
+    private Mono<Map<String, JWSVerifier>> fetch(String uri) {
+        return webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(FETCH_TIMEOUT)
+                .map(JwksCache::toVerifiers)
+                .onErrorResume(e -> {
+                    logger.log(Level.WARNING, "Failed to refresh JWKS from " + uri, e);
+                    return Mono.empty();
+                });
+    }
+
+    private static Map<String, JWSVerifier> toVerifiers(String json) {
+        try {
+            Map<String, JWSVerifier> keys = new HashMap<>();
+            for (JWK jwk : JWKSet.parse(json).getKeys()) {
+                if (jwk instanceof ECKey ecKey && jwk.getKeyID() != null) {
+                    keys.put(jwk.getKeyID(), new ECDSAVerifier(ecKey));
+                }
+            }
+            return keys;
+        } catch (ParseException | JOSEException e) {
+            throw new IllegalStateException("Invalid JWKS document", e);
+        }
+    }
+}
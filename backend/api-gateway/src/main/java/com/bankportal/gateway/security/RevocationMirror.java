@@ -0,0 +1,117 @@
+package com.bankportal.gateway.security;
+
+import com.bankportal.common.security.RevocationSet;
+import com.bankportal.common.security.RevokedToken;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local copy of the revoked-token set, kept current by polling the
+ * revocation feed of every auth-service instance (see {@link AuthServiceInstances}).
+ *
+ * The per-request check is a Bloom filter probe against local memory, so
+ * revocation adds no network hop to proxied requests. Revocations reach the
+ * gateway within one poll interval. The feeds answer only requests carrying
+ * the auth-service internal secret; startup fails without it, since the
+ * gateway would otherwise accept logged-out tokens until they expire.
+ */
+@Component
+public class RevocationMirror {
+
+    private static final Logger logger = Logger.getLogger(RevocationMirror.class.getName());
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+    private static final String FEED_PATH = "/internal/revocations";
+    private static final String SECRET_HEADER = "X-Internal-Secret";
+
+    private final WebClient webClient;
+    private final AuthServiceInstances authService;
+    private final List<String> feedUris;
+    private final Duration pollInterval;
+    private final RevocationSet revoked;
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+    private Disposable pollSubscription;
+    private Disposable purgeSubscription;
+
+    public RevocationMirror(WebClient.Builder webClientBuilder,
+                            AuthServiceInstances authService,
+                            @Value("${gateway.auth.revocation-feed-uris:}") List<String> feedUris,
+                            @Value("${gateway.auth.internal-secret:}") String internalSecret,
+                            @Value("${gateway.auth.revocation-poll-interval-ms:500}") long pollIntervalMillis,
+                            @Value("${gateway.auth.token-ttl-seconds:900}") long tokenTtlSeconds) {
+        if (internalSecret == null || internalSecret.isBlank()) {
+            throw new IllegalStateException("gateway.auth.internal-secret (INTERNAL_API_SECRET) must be set to "
+                    + "auth-service's auth.internal.secret");
+        }
+        this.webClient = webClientBuilder.defaultHeader(SECRET_HEADER, internalSecret.strip()).build();
+        this.authService = authService;
+        this.feedUris = feedUris.stream().filter(uri -> !uri.isBlank()).toList();
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+        this.revoked = new RevocationSet(Math.max(1000, tokenTtlSeconds * 1000 / 4), 10000, 0.01);
+    }
+
+    @PostConstruct
+    public void start() {
+        pollSubscription = Flux.interval(Duration.ZERO, pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> authService.uris(FEED_PATH)
+                        .concatWith(Flux.fromIterable(feedUris))
+                        .distinct()
+                        .concatMap(this::poll)
+                        .then())
+                .subscribe();
+        // Tokens that have expired anyway no longer need to be remembered
+        purgeSubscription = Flux.interval(Duration.ofMinutes(1))
+                .subscribe(tick -> revoked.purgeExpired());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pollSubscription != null) {
+            pollSubscription.dispose();
+        }
+        if (purgeSubscription != null) {
+            purgeSubscription.dispose();
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revoked.isRevoked(tokenId);
+    }
+
+    private Mono<Void> poll(String uri) {
+        long since = cursors.getOrDefault(uri, 0L);
+        return webClient.get()
+                .uri(uri + "?since={since}", since)
+                .retrieve()
+                .bodyToMono(Feed.class)
+                .timeout(FETCH_TIMEOUT)
+                .doOnNext(feed -> {
+                    feed.tokens().forEach(revoked::add);
+                    cursors.put(uri, feed.cursor());
+                    if (feed.reset()) {
+                        revoked.purgeExpired();
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.log(Level.FINE, "Failed to poll revocations from " + uri, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private record Feed(long cursor, boolean reset, List<RevokedToken> tokens) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.bankportal.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies access tokens against the cached JWKS.
+ *
+ * Tokens that pass are kept in a bounded cache until their own expiry, so a
+ * client sending the same token on every request pays for the signature check
+ * once. The cache is keyed by the full compact token, never by the signature
+ * alone, so a cached entry can't be replayed with a different payload.
+ */
+@Component
+public class TokenVerifier {
+
+    private final JwksCache jwksCache;
+    private final String issuer;
+    private final Cache<String, VerifiedToken> verified;
+
+    public TokenVerifier(JwksCache jwksCache,
+                         @Value("${gateway.auth.issuer:bank-portal-auth}") String issuer,
+                         @Value("${gateway.auth.verified-cache-size:50000}") long cacheSize) {
+        this.jwksCache = jwksCache;
+        this.issuer = issuer;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /**
+     * Verify a compact token. Completes empty when the token is invalid or expired.
+     */
+    public Mono<VerifiedToken> verify(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.getIfPresent(token);
+        if (cached != null) {
+            return cached.isExpired(now) ? Mono.empty() : Mono.just(cached);
+        }
+
+        SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(token);
+        } catch (ParseException e) {
+            return Mono.empty();
+        }
+        if (!JWSAlgorithm.ES256.equals(jwt.getHeader().getAlgorithm())) {
+            return Mono.empty();
+        }
+
+        return jwksCache.verifierFor(jwt.getHeader().getKeyID())
+                // Signature math is CPU-bound; keep it off the event loop
+                .publishOn(Schedulers.parallel())
+                .flatMap(verifier -> {
+                    try {
+                        return jwt.verify(verifier) ? Mono.justOrEmpty(toVerifiedToken(jwt)) : Mono.empty();
+                    } catch (JOSEException e) {
+                        return Mono.empty();
+                    }
+                })
+                .doOnNext(result -> verified.put(token, result));
+    }
+
+    public long cachedTokenCount() {
+        return verified.estimatedSize();
+    }
+
+    private VerifiedToken toVerifiedToken(SignedJWT jwt) {
+        try {
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            Date expiry = claims.getExpirationTime();
+            if (!issuer.equals(claims.getIssuer()) || expiry == null
+                    || expiry.getTime() <= System.currentTimeMillis() || claims.getSubject() == null) {
+                return null;
+            }
+            List<String> methods = claims.getStringListClaim("amr");
+            return new VerifiedToken(
+                    claims.getJWTID(),
+                    claims.getSubject(),
+                    claims.getStringClaim("email"),
+                    claims.getStringClaim("role"),
+                    methods != null && methods.contains("otp"),
+                    expiry.getTime());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
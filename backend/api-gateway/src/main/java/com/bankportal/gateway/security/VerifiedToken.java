@@ -0,0 +1,23 @@
+package com.bankportal.gateway.security;
+
+/**
+ * Claims the gateway forwards for a token whose signature has been checked.
+ *
+ * @param tokenId      jti, used for revocation checks
+ * @param userId       sub
+ * @param email        email claim
+ * @param role         role claim
+ * @param mfaVerified  whether the token was issued after a second factor
+ * @param expiresAtMillis exp, in epoch milliseconds
+ */
+public record VerifiedToken(String tokenId,
+                            String userId,
+                            String email,
+                            String role,
+                            boolean mfaVerified,
+                            long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
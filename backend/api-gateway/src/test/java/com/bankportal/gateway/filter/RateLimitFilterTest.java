@@ -0,0 +1,101 @@
+package com.bankportal.gateway.filter;
+
+import com.bankportal.gateway.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitFilterTest {
+
+    @Test
+    void extractsTheNormalisedTopLevelEmail() {
+        assertThat(RateLimitFilter.extractEmail(bytes("{\"password\":\"x\",\"email\":\" Ada@Example.COM \"}")))
+                .isEqualTo("ada@example.com");
+        assertThat(RateLimitFilter.extractEmail(bytes("{\"user\":{\"email\":\"a@x\"}}"))).isNull();
+        assertThat(RateLimitFilter.extractEmail(bytes("{\"email\":42}"))).isNull();
+        assertThat(RateLimitFilter.extractEmail(bytes("not json"))).isNull();
+        assertThat(RateLimitFilter.extractEmail(new byte[0])).isNull();
+    }
+
+    @Test
+    void rejectsRepeatedTopLevelFields() {
+        assertThatThrownBy(() -> RateLimitFilter.extractEmail(
+                bytes("{\"email\":\"random-1@x\",\"email\":\"victim@x\",\"password\":\"p\"}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimitFilter.extractEmail(
+                bytes("{\"email\":\"a@x\",\"password\":\"p\",\"password\":\"q\"}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Escaped names are the same field once decoded
+        assertThatThrownBy(() -> RateLimitFilter.extractEmail(
+                bytes("{\"email\":\"random-1@x\",\"em\\u0061il\":\"victim@x\"}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void answersBadRequestToARepeatedEmailWithoutCallingTheBackend() {
+        RateLimitFilter filter = new RateLimitFilter(loginLimit(5), new SimpleMeterRegistry());
+        AtomicInteger forwarded = new AtomicInteger();
+
+        MockServerWebExchange exchange = login("{\"email\":\"random-1@x\",\"email\":\"victim@x\",\"password\":\"p\"}");
+        filter.filter(exchange, e -> {
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        }).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    @Test
+    void limitsEachEmailAndRecordsItForAffinity() {
+        RateLimitFilter filter = new RateLimitFilter(loginLimit(2), new SimpleMeterRegistry());
+        AtomicInteger forwarded = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange exchange = login("{\"email\":\"Victim@x\",\"password\":\"guess-" + i + "\"}");
+            filter.filter(exchange, e -> {
+                forwarded.incrementAndGet();
+                return Mono.empty();
+            }).block();
+            if (i < 2) {
+                assertThat((String) exchange.getAttribute(RateLimitFilter.LOGIN_EMAIL_ATTR)).isEqualTo("victim@x");
+            } else {
+                assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            }
+        }
+        assertThat(forwarded).hasValue(2);
+    }
+
+    private static RateLimitProperties loginLimit(int requestsPerEmail) {
+        RateLimitProperties.Limit perEmail = new RateLimitProperties.Limit();
+        perEmail.setRequests(requestsPerEmail);
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setId("login");
+        route.setPaths(List.of("/api/auth/login"));
+        route.setPerEmail(perEmail);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        return properties;
+    }
+
+    private static MockServerWebExchange login(String body) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,137 @@
+package com.bankportal.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeastOutstandingLoadBalancerTest {
+
+    private static final List<ServiceInstance> INSTANCES = IntStream.rangeClosed(1, 3)
+            .mapToObj(i -> (ServiceInstance) new DefaultServiceInstance("auth-" + i, "auth-service", "10.0.0." + i, 8081, false))
+            .toList();
+
+    private final UpstreamRegistry registry = new UpstreamRegistry(new LoadBalancingProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void sendsAKeyToTheSameInstanceUnderLightLoad() {
+        LeastOutstandingLoadBalancer balancer = balancer(new LoadBalancingProperties());
+        ServiceInstance pinned = choose(balancer, "key-1");
+        load(pinned, 3); // below affinity-min-in-flight
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(choose(balancer, "key-1")).isEqualTo(pinned);
+        }
+        Set<ServiceInstance> used = new HashSet<>();
+        for (int key = 0; key < 100; key++) {
+            used.add(choose(balancer, "key-" + key));
+        }
+        assertThat(used).hasSize(3);
+    }
+
+    @Test
+    void passesOverAnOverloadedInstanceForTheKeysNextOne() {
+        LeastOutstandingLoadBalancer balancer = balancer(new LoadBalancingProperties());
+        ServiceInstance pinned = choose(balancer, "hot@example.com");
+        load(pinned, 10);
+        ServiceInstance other = INSTANCES.stream().filter(instance -> instance != pinned).findFirst().orElseThrow();
+        load(other, 2);
+
+        // 10 in flight against a mean of 4: past 1.5 times the mean
+        ServiceInstance spilled = choose(balancer, "hot@example.com");
+        assertThat(spilled).isNotEqualTo(pinned);
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer, "hot@example.com")).isEqualTo(spilled);
+        }
+
+        unload(pinned, 8);
+        assertThat(choose(balancer, "hot@example.com")).isEqualTo(pinned);
+    }
+
+    @Test
+    void aLoadFactorOfZeroAlwaysPins() {
+        LoadBalancingProperties properties = new LoadBalancingProperties();
+        properties.setAffinityLoadFactor(0);
+        LeastOutstandingLoadBalancer balancer = balancer(properties);
+        ServiceInstance pinned = choose(balancer, "hot@example.com");
+        load(pinned, 100);
+
+        assertThat(choose(balancer, "hot@example.com")).isEqualTo(pinned);
+    }
+
+    @Test
+    void staysOnTheKeysInstanceWhenEveryInstanceIsBusy() {
+        LeastOutstandingLoadBalancer balancer = balancer(new LoadBalancingProperties());
+        ServiceInstance pinned = choose(balancer, "hot@example.com");
+        INSTANCES.forEach(instance -> load(instance, 20));
+
+        assertThat(choose(balancer, "hot@example.com")).isEqualTo(pinned);
+    }
+
+    @Test
+    void requestsWithoutAKeyGoToTheLessLoadedInstance() {
+        LeastOutstandingLoadBalancer balancer = new LeastOutstandingLoadBalancer(
+                suppliers(INSTANCES.subList(0, 2)), registry, new LoadBalancingProperties());
+        load(INSTANCES.get(0), 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(balancer.choose(request(null)).block().getServer()).isEqualTo(INSTANCES.get(1));
+        }
+    }
+
+    private LeastOutstandingLoadBalancer balancer(LoadBalancingProperties properties) {
+        return new LeastOutstandingLoadBalancer(suppliers(INSTANCES), registry, properties);
+    }
+
+    private static ServiceInstance choose(LeastOutstandingLoadBalancer balancer, String key) {
+        return balancer.choose(request(key)).block().getServer();
+    }
+
+    private void load(ServiceInstance instance, int requests) {
+        for (int i = 0; i < requests; i++) {
+            registry.started(instance);
+        }
+    }
+
+    private void unload(ServiceInstance instance, int requests) {
+        for (int i = 0; i < requests; i++) {
+            registry.completed(instance, false);
+        }
+    }
+
+    private static ObjectProvider<ServiceInstanceListSupplier> suppliers(
+            List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from("auth-service",
+                instances.toArray(ServiceInstance[]::new));
+        return new StaticListableBeanFactory(Map.of("supplier", supplier)).getBeanProvider(ServiceInstanceListSupplier.class);
+    }
+
+    private static Request<RequestDataContext> request(String affinityKey) {
+        HttpHeaders headers = new HttpHeaders();
+        if (affinityKey != null) {
+            headers.set(LeastOutstandingLoadBalancer.AFFINITY_HEADER, affinityKey);
+        }
+        return new DefaultRequest<>(new RequestDataContext(new RequestData(HttpMethod.POST,
+                URI.create("http://auth-service/api/auth/login"), headers, new LinkedMultiValueMap<>(), Map.of())));
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankportal.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsABurstOfRequestsThenRejects() {
+        RateLimiter limiter = new RateLimiter(5, Duration.ofMinutes(1), 1000);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        }
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(12).toNanos());
+    }
+
+    @Test
+    void keysHaveSeparateBudgets() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofMinutes(1), 1000);
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+    }
+
+    @Test
+    void refillsContinuously() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(2, Duration.ofMillis(200), 1000);
+        assertThat(limiter.tryAcquire("k")).isZero();
+        assertThat(limiter.tryAcquire("k")).isZero();
+        assertThat(limiter.tryAcquire("k")).isPositive();
+        Thread.sleep(150);
+        assertThat(limiter.tryAcquire("k")).isZero();
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBudget() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100, Duration.ofMinutes(1), 1000);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(allowed.get()).isBetween(100, 101);
+    }
+
+    @Test
+    void rejectsAnEmptyLimit() {
+        assertThatThrownBy(() -> new RateLimiter(0, Duration.ofMinutes(1), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(1, Duration.ZERO, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
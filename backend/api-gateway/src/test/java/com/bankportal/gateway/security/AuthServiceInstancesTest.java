@@ -0,0 +1,35 @@
+package com.bankportal.gateway.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.simple.reactive.SimpleReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.reactive.SimpleReactiveDiscoveryProperties;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthServiceInstancesTest {
+
+    @Test
+    void appendsThePathToEveryDiscoveredInstance() {
+        SimpleReactiveDiscoveryProperties properties = new SimpleReactiveDiscoveryProperties();
+        properties.setInstances(Map.of(
+                "auth-service", List.of(instance("auth-service", "http://10.0.0.1:8081"),
+                        instance("auth-service", "http://10.0.0.2:8081/")),
+                "transaction-service", List.of(instance("transaction-service", "http://10.0.0.9:8082"))));
+        AuthServiceInstances instances = new AuthServiceInstances(new SimpleReactiveDiscoveryClient(properties), "auth-service");
+
+        assertThat(instances.uris("/internal/revocations").collectList().block()).containsExactlyInAnyOrder(
+                "http://10.0.0.1:8081/internal/revocations", "http://10.0.0.2:8081/internal/revocations");
+    }
+
+    private static DefaultServiceInstance instance(String serviceId, String uri) {
+        DefaultServiceInstance instance = new DefaultServiceInstance();
+        instance.setServiceId(serviceId);
+        instance.setUri(URI.create(uri));
+        return instance;
+    }
+}
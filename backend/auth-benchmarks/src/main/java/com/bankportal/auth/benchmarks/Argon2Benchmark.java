@@ -0,0 +1,60 @@
+package com.bankportal.auth.benchmarks;
+
+import de.mkammerer.argon2.Argon2;
+import de.mkammerer.argon2.Argon2Factory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw Argon2 cost at several parameter sets, formatted as "iterations,memoryKiB,parallelism".
+ * The 10,65536,1 set is the original hard-coded policy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Argon2Benchmark {
+    
+    private static final char[] PASSWORD = "Str0ng!Passw0rd#2024".toCharArray();
+    
+    @Param({"2,19456,1", "3,65536,1", "10,65536,1", "4,65536,4"})
+    public String parameters;
+    
+    private final Argon2 argon2 = Argon2Factory.create();
+    private int iterations;
+    private int memoryKib;
+    private int parallelism;
+    private String encoded;
+    
+    @Setup
+    public void setUp() {
+        String[] parts = parameters.split(",");
+        iterations = Integer.parseInt(parts[0]);
+        memoryKib = Integer.parseInt(parts[1]);
+        parallelism = Integer.parseInt(parts[2]);
+        encoded = argon2.hash(iterations, memoryKib, parallelism, PASSWORD);
+    }
+    
+    @Benchmark
+    public String hash() {
+        return argon2.hash(iterations, memoryKib, parallelism, PASSWORD);
+    }
+    
+    @Benchmark
+    public boolean verify() {
+        return argon2.verify(encoded, PASSWORD);
+    }
+}
@@ -0,0 +1,76 @@
+package com.bankportal.auth.benchmarks;
+
+import com.bankportal.auth.audit.AuditEventType;
+import com.bankportal.auth.audit.AuditLog;
+import com.bankportal.auth.audit.AuditQuery;
+import com.bankportal.auth.service.BenchmarkAuthServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording an audit event on the request thread, and of paging one
+ * user's events out of a log holding many users' events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+    
+    @Param({"200000"})
+    public int loggedEvents;
+    
+    @Param({"10000"})
+    public int users;
+    
+    private AuditLog auditLog;
+    private AuditQuery userQuery;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        auditLog = BenchmarkAuthServices.auditLog();
+        for (int i = 0; i < loggedEvents; i++) {
+            auditLog.record(AuditEventType.LOGIN_SUCCESS, (long) (i % users) + 1, "user" + (i % users) + "@example.com");
+            if (i % 32768 == 0) {
+                Thread.sleep(20); // let the writer keep up so nothing is dropped
+            }
+        }
+        Thread.sleep(500);
+        userQuery = new AuditQuery((long) users / 2, 0, Long.MAX_VALUE, 0, 1000);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        auditLog.stop();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        auditLog.record(AuditEventType.LOGIN_FAILURE, 42L, "someone@example.com");
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long queryOneUser() {
+        long[] count = {0};
+        auditLog.query(userQuery, event -> ++count[0] > 0);
+        return count[0];
+    }
+}
@@ -0,0 +1,198 @@
+package com.bankportal.auth.benchmarks;
+
+import com.bankportal.auth.cache.UserCredentials;
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.repository.UserRepository;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Map-backed stand-in for {@link UserRepository}.
+ *
+ * Only the methods the auth flows call are implemented; everything else
+ * throws so a benchmark can't silently measure a no-op. Entities are copied
+ * in and out, like detached JPA entities, so concurrent callers don't share
+ * mutable state. An optional per-call delay stands in for the round trip to
+ * the remote database.
+ */
+public final class InMemoryUserRepository {
+    
+    private InMemoryUserRepository() {
+    }
+    
+    public static UserRepository create() {
+        return create(Duration.ZERO);
+    }
+    
+    public static UserRepository create(Duration roundTrip) {
+        return create(roundTrip, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Repository whose calls each hold one of {@code connections} permits for the round trip,
+     * like requests sharing a connection pool
+     */
+    public static UserRepository create(Duration roundTrip, int connections) {
+        long roundTripNanos = roundTrip.toNanos();
+        Semaphore pool = new Semaphore(connections);
+        Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+        
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class || roundTripNanos == 0) {
+                        return invoke(usersByEmail, ids, proxy, method, args);
+                    }
+                    pool.acquireUninterruptibly();
+                    try {
+                        LockSupport.parkNanos(roundTripNanos);
+                        return invoke(usersByEmail, ids, proxy, method, args);
+                    } finally {
+                        pool.release();
+                    }
+                });
+    }
+    
+    private static Object invoke(Map<String, User> usersByEmail, AtomicLong ids, Object proxy, Method method,
+                                 Object[] args) {
+        return switch (method.getName()) {
+            case "findByEmail" -> Optional.ofNullable(usersByEmail.get((String) args[0])).map(InMemoryUserRepository::copy);
+            case "findCredentialsByEmail" -> Optional.ofNullable(usersByEmail.get((String) args[0]))
+                    .map(UserCredentials::from);
+            case "existsByEmail" -> usersByEmail.containsKey((String) args[0]);
+            case "findById" -> usersByEmail.values().stream()
+                    .filter(user -> user.getId().equals(args[0]))
+                    .findFirst()
+                    .map(InMemoryUserRepository::copy);
+            case "save" -> {
+                User user = (User) args[0];
+                if (user.getId() == null) {
+                    user.setId(ids.incrementAndGet());
+                    user.setCreatedAt(LocalDateTime.now());
+                }
+                user.setUpdatedAt(LocalDateTime.now());
+                usersByEmail.put(user.getEmail(), copy(user));
+                yield user;
+            }
+            case "issueOtp" -> issueOtp(usersByEmail, args);
+            case "attemptOtp" -> attemptOtp(usersByEmail, args);
+            case "findOtpColumnsByEmail" -> Optional.ofNullable(usersByEmail.get((String) args[0]))
+                    .map(InMemoryUserRepository::otpColumns);
+            case "count" -> (long) usersByEmail.size();
+            case "streamAllEmails" -> usersByEmail.keySet().stream();
+            case "findEmailsCreatedSince" -> usersByEmail.values().stream()
+                    .filter(user -> !user.getCreatedAt().isBefore((LocalDateTime) args[0]))
+                    .map(User::getEmail)
+                    .toList();
+            case "toString" -> "InMemoryUserRepository" + usersByEmail.keySet();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+    
+    /**
+     * Same conditions as the SQL statement, applied atomically to the stored row
+     */
+    private static int issueOtp(Map<String, User> usersByEmail, Object[] args) {
+        LocalDateTime now = (LocalDateTime) args[3];
+        boolean enforceCooldown = (Boolean) args[4];
+        LocalDateTime cooldownStart = (LocalDateTime) args[5];
+        int[] updated = new int[1];
+        usersByEmail.computeIfPresent((String) args[0], (email, user) -> {
+            boolean unlocked = user.getOtpLockedUntil() == null || user.getOtpLockedUntil().isBefore(now);
+            boolean cooledDown = !enforceCooldown || user.getLastOtpRequest() == null
+                    || !user.getLastOtpRequest().isAfter(cooldownStart);
+            if (unlocked && cooledDown) {
+                user.setOtpCode((String) args[1]);
+                user.setOtpExpiry((LocalDateTime) args[2]);
+                user.setOtpAttempts(0);
+                user.setOtpLockedUntil(null);
+                user.setLastOtpRequest(now);
+                updated[0] = 1;
+            }
+            return user;
+        });
+        return updated[0];
+    }
+    
+    private static Optional<UserRepository.OtpAttempt> attemptOtp(Map<String, User> usersByEmail, Object[] args) {
+        String code = (String) args[1];
+        LocalDateTime now = (LocalDateTime) args[2];
+        int maxAttempts = (Integer) args[3];
+        UserRepository.OtpAttempt[] outcome = new UserRepository.OtpAttempt[1];
+        usersByEmail.computeIfPresent((String) args[0], (email, user) -> {
+            boolean unlocked = user.getOtpLockedUntil() == null || user.getOtpLockedUntil().isBefore(now);
+            if (user.getOtpCode() == null || user.getOtpExpiry().isBefore(now) || !unlocked) {
+                return user;
+            }
+            boolean verified = user.getOtpCode().equals(code);
+            int attempts = verified ? 0 : (user.getOtpLockedUntil() != null ? 1 : user.getOtpAttempts() + 1);
+            user.setOtpAttempts(attempts);
+            user.setOtpLockedUntil(!verified && attempts >= maxAttempts ? (LocalDateTime) args[4] : null);
+            if (verified) {
+                user.setOtpCode(null);
+                user.setOtpExpiry(null);
+            }
+            outcome[0] = new UserRepository.OtpAttempt() {
+                @Override
+                public boolean getVerified() {
+                    return verified;
+                }
+                
+                @Override
+                public int getAttempts() {
+                    return attempts;
+                }
+            };
+            return user;
+        });
+        return Optional.ofNullable(outcome[0]);
+    }
+    
+    private static UserRepository.OtpColumns otpColumns(User user) {
+        String code = user.getOtpCode();
+        LocalDateTime expiry = user.getOtpExpiry();
+        LocalDateTime lockedUntil = user.getOtpLockedUntil();
+        LocalDateTime lastRequest = user.getLastOtpRequest();
+        return new UserRepository.OtpColumns() {
+            @Override
+            public String getOtpCode() {
+                return code;
+            }
+            
+            @Override
+            public LocalDateTime getOtpExpiry() {
+                return expiry;
+            }
+            
+            @Override
+            public LocalDateTime getOtpLockedUntil() {
+                return lockedUntil;
+            }
+            
+            @Override
+            public LocalDateTime getLastOtpRequest() {
+                return lastRequest;
+            }
+        };
+    }
+    
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bankportal.auth.benchmarks;
+
+import com.bankportal.auth.util.PasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password policy checks run on every register and strength keystroke.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordValidatorBenchmark {
+    
+    @Param({"Str0ng!Passw0rd#2024", "weakpass", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"})
+    public String password;
+    
+    private List<String> batch;
+    
+    @Setup
+    public void setUp() {
+        batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(i % 3 == 0 ? password : password + i);
+        }
+    }
+    
+    @Benchmark
+    public PasswordValidator.ValidationResult validate() {
+        return PasswordValidator.validate(password);
+    }
+    
+    @Benchmark
+    public int calculateStrength() {
+        return PasswordValidator.calculateStrength(password);
+    }
+    
+    @Benchmark
+    public String getStrengthLabel() {
+        return PasswordValidator.getStrengthLabel(password);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public List<PasswordValidator.ValidationResult> validateAll() {
+        return PasswordValidator.validateAll(batch);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankportal.auth.benchmarks;
+
+import com.bankportal.common.security.RevocationSet;
+import com.bankportal.common.security.RevokedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request revocation check, as done by the gateway and TokenService.verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevocationSetBenchmark {
+    
+    @Param({"1000", "100000"})
+    public int revokedCount;
+    
+    private RevocationSet revocationSet;
+    private String liveTokenId;
+    private String revokedTokenId;
+    
+    @Setup
+    public void setUp() {
+        long ttlMillis = TimeUnit.MINUTES.toMillis(15);
+        revocationSet = new RevocationSet(ttlMillis / 4, revokedCount / 4 + 1, 0.01);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < revokedCount; i++) {
+            revokedTokenId = UUID.randomUUID().toString();
+            revocationSet.add(new RevokedToken(revokedTokenId, now + (i % ttlMillis) + 60_000));
+        }
+        liveTokenId = UUID.randomUUID().toString();
+    }
+    
+    @Benchmark
+    public boolean notRevoked() {
+        return revocationSet.isRevoked(liveTokenId);
+    }
+    
+    @Benchmark
+    public boolean revoked() {
+        return revocationSet.isRevoked(revokedTokenId);
+    }
+}
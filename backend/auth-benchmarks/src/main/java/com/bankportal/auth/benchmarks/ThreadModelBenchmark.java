@@ -0,0 +1,109 @@
+package com.bankportal.auth.benchmarks;
+
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second for DB-bound request handling on platform vs virtual threads.
+ *
+ * Each invocation serves a burst of concurrent requests. A request is a
+ * credential lookup that holds one of dbPoolSize connections for the
+ * database round trip, the shape of a login cache miss against the remote
+ * pooler. "platform" is a fixed pool the size of Tomcat's default (200);
+ * "virtual" is one virtual thread per request, bounded only by the pool.
+ *
+ * Virtual threads need a Java 21 runtime. The executor is created
+ * reflectively so the module still builds on 17; on an older runtime the
+ * "virtual" cases fail at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+    
+    private static final int CONCURRENT_REQUESTS = 1000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int USERS = 1000;
+    
+    @Param({"platform", "virtual"})
+    public String threads;
+    
+    @Param({"50", "400"})
+    public int dbPoolSize;
+    
+    @Param({"20000"})
+    public int dbRoundTripMicros;
+    
+    private ExecutorService executor;
+    private UserRepository userRepository;
+    
+    @Setup
+    public void setUp() throws Exception {
+        executor = "virtual".equals(threads)
+                ? (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null)
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        
+        userRepository = InMemoryUserRepository.create(Duration.ofNanos(dbRoundTripMicros * 1000L), dbPoolSize);
+        List<Future<User>> inserts = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail(email(i));
+            user.setName("User " + i);
+            user.setPassword("unused");
+            inserts.add(executor.submit(() -> userRepository.save(user)));
+        }
+        for (Future<User> insert : inserts) {
+            insert.get();
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public int burst() throws Exception {
+        List<Future<Boolean>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            String email = email(i % USERS);
+            responses.add(executor.submit(() -> userRepository.findCredentialsByEmail(email).isPresent()));
+        }
+        int found = 0;
+        for (Future<Boolean> response : responses) {
+            if (response.get()) {
+                found++;
+            }
+        }
+        return found;
+    }
+    
+    private static String email(int i) {
+        return "user-" + i + "@example.com";
+    }
+}
@@ -0,0 +1,100 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.exception.AuthError;
+import com.bankportal.auth.exception.AuthException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failure path from throw to response body, as most requests take it under credential stuffing.
+ *
+ * legacy* is the old path: a new RuntimeException with a stack trace, and a
+ * HashMap body serialized per request. The others throw {@link AuthException}
+ * and take the body from {@link AuthErrorResponses}. callDepth puts the
+ * catch that many frames down the stack, since filling in a stack trace costs
+ * in proportion to depth; a servlet request thread is over a hundred deep.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthFailureBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuthErrorResponses errorResponses = new AuthErrorResponses(objectMapper);
+
+    @Param({"1", "120"})
+    public int callDepth;
+
+    @Benchmark
+    public byte[] legacyInvalidCredentials() {
+        return belowFrames(callDepth, Failure.LEGACY);
+    }
+
+    @Benchmark
+    public byte[] invalidCredentials() {
+        return belowFrames(callDepth, Failure.SHARED);
+    }
+
+    @Benchmark
+    public byte[] invalidOtpWithAttemptsLeft() {
+        return belowFrames(callDepth, Failure.PER_REQUEST);
+    }
+
+    private enum Failure { LEGACY, SHARED, PER_REQUEST }
+
+    /**
+     * The controller's catch, depth frames down the stack
+     */
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private byte[] belowFrames(int depth, Failure failure) {
+        if (depth > 1) {
+            return belowFrames(depth - 1, failure);
+        }
+        try {
+            fail(failure);
+            throw new IllegalStateException("Expected a failure");
+        } catch (AuthException e) {
+            return errorResponses.of(e).getBody();
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            try {
+                return objectMapper.writeValueAsBytes(error);
+            } catch (JsonProcessingException jsonException) {
+                throw new IllegalStateException(jsonException);
+            }
+        }
+    }
+
+    /**
+     * The service method that refuses the request
+     */
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static void fail(Failure failure) {
+        switch (failure) {
+            case LEGACY -> throw new RuntimeException("Invalid email or password");
+            case SHARED -> throw AuthException.of(AuthError.INVALID_CREDENTIALS);
+            case PER_REQUEST -> throw new AuthException(AuthError.OTP_INVALID, "Invalid OTP code. 3 attempt(s) remaining.");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bankportal.auth.otp;
+
+import com.bankportal.auth.benchmarks.InMemoryUserRepository;
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.repository.UserRepository;
+import com.bankportal.auth.service.BenchmarkAuthServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP round trips (issue, then verify with the right code) per second.
+ *
+ * "jpa" keeps the state on the users row, one conditional UPDATE per
+ * transition. "memory" is the in-process store. dbRoundTripMicros simulates the latency
+ * to the remote pooler; the in-memory store never pays it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpStoreBenchmark {
+    
+    private static final int USERS = 10_000;
+    
+    @Param({"memory", "jpa"})
+    public String store;
+    
+    @Param({"0", "2000"})
+    public int dbRoundTripMicros;
+    
+    private OtpStateStore otpStateStore;
+    
+    @Setup
+    public void setUp() {
+        OtpPolicy policy = new OtpPolicy(300, 0, 3, 15);
+        if ("memory".equals(store)) {
+            otpStateStore = new InMemoryOtpStateStore(policy);
+            return;
+        }
+        
+        UserRepository userRepository = InMemoryUserRepository.create(Duration.ofNanos(dbRoundTripMicros * 1000L));
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail(email(i));
+            user.setName("OTP User " + i);
+            user.setPassword("unused");
+            userRepository.save(user);
+        }
+        JpaOtpStateStore jpaStore = new JpaOtpStateStore();
+        ReflectionTestUtils.setField(jpaStore, "userRepository", userRepository);
+        ReflectionTestUtils.setField(jpaStore, "policy", policy);
+        ReflectionTestUtils.setField(jpaStore, "readRouting", BenchmarkAuthServices.readRouting());
+        otpStateStore = jpaStore;
+    }
+    
+    @Benchmark
+    public OtpStateStore.VerifyResult issueAndVerify() {
+        String email = email(ThreadLocalRandom.current().nextInt(USERS));
+        otpStateStore.issue(email, "123456", false);
+        return otpStateStore.verify(email, "123456");
+    }
+    
+    private static String email(int i) {
+        return "otp-user-" + i + "@example.com";
+    }
+}
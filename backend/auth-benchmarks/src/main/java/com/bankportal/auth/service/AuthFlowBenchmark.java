@@ -0,0 +1,149 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.benchmarks.InMemoryUserRepository;
+import com.bankportal.auth.dto.AuthResponse;
+import com.bankportal.auth.dto.LoginRequest;
+import com.bankportal.auth.dto.RegisterRequest;
+import com.bankportal.auth.dto.VerifyOtpRequest;
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.otp.InMemoryOtpStateStore;
+import com.bankportal.auth.otp.OtpStateStore;
+import com.bankportal.auth.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end login and verify-otp flows against the in-memory repository.
+ *
+ * Argon2 runs through the real hashing pool with the policy given by
+ * hashIterations/hashMemoryKib, so the flow overhead around the hash is visible.
+ * Failed logins for an unknown email and for a wrong password should cost
+ * the same; a gap between them is a timing side channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthFlowBenchmark {
+    
+    private static final String PASSWORD = "Str0ng!Passw0rd#2024";
+    private static final String PLAIN_EMAIL = "plain@example.com";
+    private static final String MFA_EMAIL = "mfa@example.com";
+    private static final String OTP_CODE = "123456";
+    
+    @Param({"1"})
+    public int hashIterations;
+    
+    @Param({"8192"})
+    public int hashMemoryKib;
+    
+    /** Simulated round trip to the remote database, per repository call */
+    @Param({"0"})
+    public int dbRoundTripMicros;
+    
+    private PasswordHashingService hashingService;
+    private AuthService authService;
+    private OtpStateStore otpStateStore;
+    private LoginRequest plainLogin;
+    private LoginRequest mfaLogin;
+    private LoginRequest unknownEmailLogin;
+    private LoginRequest wrongPasswordLogin;
+    private VerifyOtpRequest verifyOtp;
+    
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = InMemoryUserRepository.create(Duration.ofNanos(dbRoundTripMicros * 1000L));
+        hashingService = BenchmarkAuthServices.hashingService(hashIterations, hashMemoryKib);
+        otpStateStore = new InMemoryOtpStateStore(BenchmarkAuthServices.otpPolicy());
+        authService = BenchmarkAuthServices.authService(userRepository, hashingService, otpStateStore);
+        
+        authService.register(registerRequest(PLAIN_EMAIL));
+        authService.register(registerRequest(MFA_EMAIL));
+        User mfaUser = userRepository.findByEmail(MFA_EMAIL).orElseThrow();
+        mfaUser.setMfaEnabled(true);
+        mfaUser.setMfaMethod("sms");
+        userRepository.save(mfaUser);
+        
+        plainLogin = loginRequest(PLAIN_EMAIL);
+        mfaLogin = loginRequest(MFA_EMAIL);
+        unknownEmailLogin = loginRequest("nobody@example.com");
+        wrongPasswordLogin = loginRequest(PLAIN_EMAIL);
+        wrongPasswordLogin.setPassword("Wr0ng!Passw0rd#2024");
+        verifyOtp = new VerifyOtpRequest();
+        verifyOtp.setEmail(MFA_EMAIL);
+        verifyOtp.setCode(OTP_CODE);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        hashingService.shutdown();
+    }
+    
+    @Benchmark
+    public AuthResponse login() {
+        return authService.login(plainLogin);
+    }
+    
+    @Benchmark
+    public AuthResponse loginWithMfa() {
+        return authService.login(mfaLogin);
+    }
+    
+    @Benchmark
+    public String loginUnknownEmail() {
+        return failedLogin(unknownEmailLogin);
+    }
+    
+    @Benchmark
+    public String loginWrongPassword() {
+        return failedLogin(wrongPasswordLogin);
+    }
+    
+    @Benchmark
+    public AuthResponse verifyOtp() {
+        // Re-arm the OTP that the previous invocation consumed
+        otpStateStore.issue(MFA_EMAIL, OTP_CODE, false);
+        return authService.verifyOtp(verifyOtp);
+    }
+    
+    private String failedLogin(LoginRequest request) {
+        try {
+            authService.login(request);
+            throw new IllegalStateException("Login unexpectedly succeeded");
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+    
+    private static RegisterRequest registerRequest(String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setName("Benchmark User");
+        request.setEmail(email);
+        request.setPassword(PASSWORD);
+        return request;
+    }
+    
+    private static LoginRequest loginRequest(String email) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword(PASSWORD);
+        return request;
+    }
+}
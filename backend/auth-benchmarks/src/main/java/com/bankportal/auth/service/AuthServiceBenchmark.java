@@ -0,0 +1,86 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.benchmarks.InMemoryUserRepository;
+import com.bankportal.auth.dto.AuthResponse;
+import com.bankportal.auth.dto.UserDto;
+import com.bankportal.auth.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request helpers in AuthService: OTP and token generation, DTO mapping and response serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthServiceBenchmark {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PasswordHashingService hashingService;
+    private AuthService authService;
+    private User user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        hashingService = BenchmarkAuthServices.hashingService(1, 8192);
+        authService = BenchmarkAuthServices.authService(InMemoryUserRepository.create(), hashingService);
+        
+        user = new User();
+        user.setId(42L);
+        user.setEmail("jane.doe@example.com");
+        user.setName("Jane Doe");
+        user.setRole("user");
+        user.setMfaEnabled(true);
+        user.setMfaMethod("sms");
+        user.setCreatedAt(LocalDateTime.of(2024, 3, 15, 10, 30));
+        token = authService.generateToken(user, false);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        hashingService.shutdown();
+    }
+    
+    @Benchmark
+    public String generateOtp() {
+        return authService.generateOtp();
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return authService.generateToken(user, false);
+    }
+    
+    @Benchmark
+    public UserDto convertToDto() {
+        return authService.convertToDto(user);
+    }
+    
+    @Benchmark
+    public byte[] convertAndSerializeResponse() throws Exception {
+        AuthResponse response = AuthResponse.builder()
+                .token(token)
+                .user(authService.convertToDto(user))
+                .mfaRequired(false)
+                .message("Login successful")
+                .build();
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
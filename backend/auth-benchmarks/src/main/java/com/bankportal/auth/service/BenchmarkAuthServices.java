@@ -0,0 +1,123 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.audit.AuditLog;
+import com.bankportal.auth.cache.InProcessUserCacheInvalidationBus;
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.bankportal.auth.datasource.ReadRouting;
+import com.bankportal.auth.otp.InMemoryOtpStateStore;
+import com.bankportal.auth.otp.OtpPolicy;
+import com.bankportal.auth.otp.OtpStateStore;
+import com.bankportal.auth.repository.UserRepository;
+import com.bankportal.auth.security.InProcessRevocationBroadcaster;
+import com.bankportal.auth.security.JwtKeyRing;
+import com.bankportal.auth.security.PeerJwksCache;
+import com.bankportal.auth.security.TokenRevocationService;
+import com.bankportal.auth.security.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Wires auth services by hand, outside a Spring context.
+ *
+ * Lives in the service package so benchmarks can reach AuthService's
+ * package-private helpers.
+ */
+public final class BenchmarkAuthServices {
+    
+    private BenchmarkAuthServices() {
+    }
+    
+    /**
+     * Hashing service with a fixed, cheap policy so flow benchmarks aren't dominated by Argon2
+     */
+    public static PasswordHashingService hashingService(int iterations, int memoryKib) {
+        return new PasswordHashingService(memoryKib, iterations, 1, 0,
+                4096, 0, 1024, 1, new SimpleMeterRegistry());
+    }
+    
+    public static TokenRevocationService revocationService() {
+        TokenRevocationService revocationService = new TokenRevocationService(900, 10000);
+        ReflectionTestUtils.setField(revocationService, "broadcaster", new InProcessRevocationBroadcaster());
+        ReflectionTestUtils.setField(revocationService, "feedCapacity", 1024);
+        revocationService.init();
+        return revocationService;
+    }
+    
+    public static TokenService tokenService(TokenRevocationService revocationService) {
+        TokenService tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "keyRing", new JwtKeyRing(900));
+        ReflectionTestUtils.setField(tokenService, "peerKeys", new PeerJwksCache(List.of(), 10));
+        ReflectionTestUtils.setField(tokenService, "revocationService", revocationService);
+        ReflectionTestUtils.setField(tokenService, "issuer", "bank-portal-auth");
+        ReflectionTestUtils.setField(tokenService, "ttlSeconds", 900L);
+        return tokenService;
+    }
+    
+    /**
+     * Membership filter built from the repository's current contents
+     */
+    public static EmailMembershipFilter emailFilter(UserRepository userRepository) {
+        EmailMembershipFilter filter = new EmailMembershipFilter(userRepository,
+                TransactionOperations.withoutTransaction(), new InProcessUserCacheInvalidationBus(List.of()), true, 10000, 0.01, 60, 60, new SimpleMeterRegistry());
+        filter.refresh();
+        return filter;
+    }
+    
+    public static UserCredentialCache userCredentialCache(UserRepository userRepository) {
+        return new UserCredentialCache(userRepository, new InProcessUserCacheInvalidationBus(List.of()), readRouting(),
+                10000, 300, new SimpleMeterRegistry());
+    }
+    
+    /**
+     * Every read on the single benchmark database
+     */
+    public static ReadRouting readRouting() {
+        return new ReadRouting("primary", 5);
+    }
+    
+    /**
+     * Audit log writing to a fresh temporary directory, with its writer thread running
+     */
+    public static AuditLog auditLog() {
+        try {
+            AuditLog auditLog = new AuditLog(true, Files.createTempDirectory("audit-bench").toString(),
+                    16, 4, 65536, 1024, 1000, new SimpleMeterRegistry());
+            auditLog.start();
+            return auditLog;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public static OtpPolicy otpPolicy() {
+        return new OtpPolicy(300, 60, 3, 15);
+    }
+    
+    public static AuthService authService(UserRepository userRepository, PasswordHashingService hashingService) {
+        return authService(userRepository, hashingService, new InMemoryOtpStateStore(otpPolicy()));
+    }
+    
+    public static AuthService authService(UserRepository userRepository, PasswordHashingService hashingService,
+                                          OtpStateStore otpStateStore) {
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authService, "passwordHashingService", hashingService);
+        TokenRevocationService revocationService = revocationService();
+        ReflectionTestUtils.setField(authService, "tokenService", tokenService(revocationService));
+        ReflectionTestUtils.setField(authService, "tokenRevocationService", revocationService);
+        ReflectionTestUtils.setField(authService, "otpStateStore", otpStateStore);
+        ReflectionTestUtils.setField(authService, "otpPolicy", otpPolicy());
+        ReflectionTestUtils.setField(authService, "emailMembershipFilter", emailFilter(userRepository));
+        ReflectionTestUtils.setField(authService, "userCredentialCache", userCredentialCache(userRepository));
+        ReflectionTestUtils.setField(authService, "auditLog", auditLog());
+        ReflectionTestUtils.setField(authService, "phaseMetrics", new AuthPhaseMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(authService, "readRouting", readRouting());
+        return authService;
+    }
+}
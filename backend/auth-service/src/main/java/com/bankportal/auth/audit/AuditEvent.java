@@ -0,0 +1,14 @@
+package com.bankportal.auth.audit;
+
+/**
+ * One audit log entry
+ *
+ * @param sequence Position in the log, assigned when the event is written (0 until then)
+ * @param timestampMillis When the event happened
+ * @param userId The user, or 0 when the email matched no account
+ * @param email The email the request named, if any
+ * @param ipAddress Client address as seen by the service, if the event came from a request
+ */
+public record AuditEvent(long sequence, long timestampMillis, AuditEventType type, long userId,
+                         String email, String ipAddress) {
+}
@@ -0,0 +1,49 @@
+package com.bankportal.auth.audit;
+
+/**
+ * Authentication events recorded in the audit log. The code is what gets
+ * stored, so existing codes must never change meaning; add new types with
+ * new codes.
+ */
+public enum AuditEventType {
+    REGISTER(1, true),
+    LOGIN_SUCCESS(2, true),
+    LOGIN_FAILURE(3, false),
+    OTP_SENT(4, true),
+    OTP_VERIFIED(5, true),
+    OTP_FAILURE(6, false),
+    LOCKOUT(7, false),
+    LOGOUT(8, true),
+    TOTP_ENROLLED(9, true);
+    
+    private static final AuditEventType[] BY_CODE = new AuditEventType[16];
+    
+    static {
+        for (AuditEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+    
+    private final byte code;
+    private final boolean success;
+    
+    AuditEventType(int code, boolean success) {
+        this.code = (byte) code;
+        this.success = success;
+    }
+    
+    public byte code() {
+        return code;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    /**
+     * @return The type stored under the code, or null for a code this version doesn't know
+     */
+    public static AuditEventType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
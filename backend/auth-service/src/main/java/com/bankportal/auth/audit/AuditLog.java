@@ -0,0 +1,227 @@
+package com.bankportal.auth.audit;
+
+import com.bankportal.common.util.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Server-side log of authentication events.
+ *
+ * {@link #record} only allocates the event and offers it to a lock-free ring
+ * buffer, so it adds no I/O or locking to the request path. A single writer
+ * thread drains the buffer in batches into the {@link AuditSegmentStore}.
+ * If the writer falls behind (a slow disk stalls page faults on the mapped
+ * segment) the buffer fills and further events are dropped and counted in
+ * auth.audit.dropped; requests are never held up.
+ */
+@Service
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final MpscRingBuffer<AuditEvent> buffer;
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    private AuditSegmentStore store;
+    private Thread writer;
+    private volatile boolean running;
+    private boolean failing;
+
+    public AuditLog(@Value("${auth.audit.enabled:true}") boolean enabled,
+                    @Value("${auth.audit.directory:data/audit}") String directory,
+                    @Value("${auth.audit.segment-size-mb:64}") int segmentSizeMb,
+                    @Value("${auth.audit.max-segments:32}") int maxSegments,
+                    @Value("${auth.audit.buffer-capacity:65536}") int bufferCapacity,
+                    @Value("${auth.audit.batch-size:1024}") int batchSize,
+                    @Value("${auth.audit.flush-interval-ms:1000}") long flushIntervalMillis,
+                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = Math.toIntExact(segmentSizeMb * 1024L * 1024L);
+        this.maxSegments = maxSegments;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+
+        this.droppedCounter = Counter.builder("auth.audit.dropped")
+                .description("Audit events discarded because the buffer was full")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("auth.audit.written")
+                .description("Audit events appended to the log")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("auth.audit.failed")
+                .description("Audit events lost to write errors")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("auth.audit.batch.time")
+                .description("Time to append and commit one drained batch")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.audit.buffer.size", buffer, MpscRingBuffer::size);
+        meterRegistry.gauge("auth.audit.segments", this, audit -> audit.store == null ? 0 : audit.store.segmentCount());
+        meterRegistry.gauge("auth.audit.size.bytes", this, audit -> audit.store == null ? 0 : audit.store.committedBytes());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            store = new AuditSegmentStore(directory, segmentBytes, maxSegments);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open audit log in " + directory.toAbsolutePath(), e);
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Audit log open in {} at sequence {}", directory.toAbsolutePath(), store.lastSequence());
+    }
+
+    /**
+     * Drain what is buffered, then seal and flush the active segment
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        writer = null;
+    }
+
+    /**
+     * Record an event without blocking. The client address is taken from the current request, if any.
+     *
+     * @param userId The user, or null when the email matched no account
+     * @param email The email the request named
+     */
+    public void record(AuditEventType type, Long userId, String email) {
+        if (!enabled) {
+            return;
+        }
+        AuditEvent event = new AuditEvent(0, System.currentTimeMillis(), type,
+                userId != null ? userId : 0, email, clientAddress());
+        if (!buffer.offer(event)) {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * Visit committed events matching the query, oldest first, until the visitor returns false
+     * or {@code query.limit()} events have been visited
+     *
+     * @return Cursor for the next page: the sequence of the last event visited, or the end of
+     *         the log if the limit wasn't reached
+     */
+    public long query(AuditQuery query, Predicate<AuditEvent> visitor) {
+        if (store == null) {
+            return query.afterSequence();
+        }
+        long end = store.lastSequence();
+        long[] cursor = {end};
+        int[] remaining = {query.limit()};
+        store.scan(query, end, event -> {
+            if (remaining[0] <= 0) {
+                return false;
+            }
+            remaining[0]--;
+            cursor[0] = event.sequence();
+            return visitor.test(event) && remaining[0] > 0;
+        });
+        return remaining[0] > 0 ? Math.max(end, query.afterSequence()) : cursor[0];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (running || buffer.size() > 0) {
+            long started = System.nanoTime();
+            int drained = buffer.drain(this::append, batchSize);
+            if (drained > 0) {
+                store.commit();
+                batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                dirty = true;
+            }
+            if (dirty && System.nanoTime() - lastForce >= flushIntervalNanos) {
+                store.force();
+                lastForce = System.nanoTime();
+                dirty = false;
+            }
+            if (drained == 0 && running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            log.warn("Failed to seal audit segment", e);
+        }
+    }
+
+    private void append(AuditEvent event) {
+        try {
+            store.append(event);
+            writtenCounter.increment();
+            if (failing) {
+                failing = false;
+                log.info("Audit log writes recovered");
+            }
+        } catch (IOException | RuntimeException e) {
+            failedCounter.increment();
+            if (!failing) {
+                failing = true; // log once per run of failures; auth.audit.failed counts them all
+                log.warn("Failed to append audit event", e);
+            }
+        }
+    }
+
+    /**
+     * The address the gateway appended to X-Forwarded-For, else the peer address
+     */
+    private static String clientAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isBlank()) {
+            return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankportal.auth.audit;
+
+/**
+ * Filter and page for reading the audit log
+ *
+ * @param userId Only this user's events, or null for all
+ * @param fromMillis Earliest timestamp, inclusive
+ * @param toMillis Latest timestamp, exclusive
+ * @param afterSequence Cursor: only events after this sequence (0 for the start of the log)
+ * @param limit Most events to return
+ */
+public record AuditQuery(Long userId, long fromMillis, long toMillis, long afterSequence, int limit) {
+}
@@ -0,0 +1,382 @@
+package com.bankportal.auth.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the audit log: a fixed-size memory-mapped region holding
+ * records back to back, plus a sparse index with one entry per block of
+ * {@value #BLOCK_RECORDS} records.
+ *
+ * Record layout (big-endian):
+ * <pre>
+ *   int   length           whole record, including this field and the checksum
+ *   long  sequence
+ *   long  timestampMillis
+ *   long  userId
+ *   byte  type code
+ *   byte  email length     then the email, UTF-8, at most 255 bytes
+ *   byte  ip length        then the address, UTF-8, at most 255 bytes
+ *   int   CRC32C           of everything between length and checksum
+ * </pre>
+ * A zero length marks the end of the data. Each index entry holds the
+ * block's sequence range, byte range, timestamp range and a 256-bit Bloom
+ * filter of its user ids, so a query by user or time skips most blocks
+ * without touching them.
+ *
+ * Written by the single audit writer thread only; readers see records up
+ * to the last {@link #commit()}.
+ */
+final class AuditSegment {
+
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+    static final int BLOCK_RECORDS = 64;
+
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 8 + 1 + 1 + 1;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int MAX_FIELD_BYTES = 255;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 4 + 8 + 8 + 4 * 8;
+
+    /** Sparse index entry for a run of consecutive records */
+    record Block(long firstSequence, long lastSequence, int startOffset, int endOffset,
+                 long minTimestamp, long maxTimestamp, long[] users) {
+
+        boolean mightContainUser(long userId) {
+            long hash = mix(userId);
+            int first = (int) hash & 255;
+            int second = (int) (hash >>> 8) & 255;
+            return (users[first >>> 6] & (1L << first)) != 0 && (users[second >>> 6] & (1L << second)) != 0;
+        }
+    }
+
+    final long baseSequence;
+    final Path logFile;
+    final Path indexFile;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    // Published to readers
+    private volatile int committedOffset;
+    private volatile long committedSequence;
+    private volatile Block[] blocks = new Block[64];
+    private volatile int blockCount;
+
+    // Writer state
+    private int writeOffset;
+    private long lastSequence;
+    private int openRecords;
+    private int openStartOffset;
+    private long openFirstSequence;
+    private long openMinTimestamp;
+    private long openMaxTimestamp;
+    private long[] openUsers = new long[4];
+
+    private AuditSegment(Path directory, long baseSequence, int sizeBytes) throws IOException {
+        this.baseSequence = baseSequence;
+        this.logFile = directory.resolve(fileName(baseSequence, LOG_SUFFIX));
+        this.indexFile = directory.resolve(fileName(baseSequence, INDEX_SUFFIX));
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel; the file is sparse until written
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(sizeBytes, channel.size()));
+        }
+        this.lastSequence = baseSequence - 1;
+        this.committedSequence = baseSequence - 1;
+    }
+
+    static AuditSegment create(Path directory, long baseSequence, int sizeBytes) throws IOException {
+        return new AuditSegment(directory, baseSequence, sizeBytes);
+    }
+
+    /**
+     * Open an existing segment. A sealed segment loads its index file when it has one; the
+     * active segment (or one without a usable index) is scanned up to its last intact record.
+     */
+    static AuditSegment open(Path directory, long baseSequence, int sizeBytes, boolean active) throws IOException {
+        AuditSegment segment = new AuditSegment(directory, baseSequence, sizeBytes);
+        if (active || !segment.loadIndex()) {
+            segment.recover();
+        }
+        return segment;
+    }
+
+    static String fileName(long baseSequence, String suffix) {
+        return String.format("%020d%s", baseSequence, suffix);
+    }
+
+    /**
+     * Append one record. Not visible to readers until {@link #commit()}.
+     *
+     * @return false if the segment is full
+     */
+    boolean append(long sequence, AuditEvent event) {
+        byte[] email = truncate(event.email());
+        byte[] ip = truncate(event.ipAddress());
+        int length = HEADER_BYTES + email.length + ip.length + CHECKSUM_BYTES;
+        if (writeOffset + length + 4 > buffer.capacity()) {
+            return false; // keep room for the zero end marker
+        }
+        int offset = writeOffset;
+        buffer.putInt(offset, length);
+        buffer.putLong(offset + 4, sequence);
+        buffer.putLong(offset + 12, event.timestampMillis());
+        buffer.putLong(offset + 20, event.userId());
+        buffer.put(offset + 28, event.type().code());
+        buffer.put(offset + 29, (byte) email.length);
+        buffer.put(offset + 30, (byte) ip.length);
+        buffer.put(offset + HEADER_BYTES, email);
+        buffer.put(offset + HEADER_BYTES + email.length, ip);
+        buffer.putInt(offset + length - CHECKSUM_BYTES, checksum(offset, length));
+
+        indexRecord(sequence, offset, length, event.timestampMillis(), event.userId());
+        return true;
+    }
+
+    /**
+     * Make appended records visible to readers
+     */
+    void commit() {
+        committedOffset = writeOffset;
+        committedSequence = lastSequence;
+    }
+
+    /**
+     * Write dirty pages to disk
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Close the last block and persist the index. Called when the segment is rotated out or the log closes.
+     */
+    void seal() throws IOException {
+        closeBlock();
+        commit();
+        ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_BYTES);
+        Block[] snapshot = blocks;
+        for (int i = 0; i < blockCount; i++) {
+            Block block = snapshot[i];
+            index.putLong(block.firstSequence()).putLong(block.lastSequence())
+                    .putInt(block.startOffset()).putInt(block.endOffset())
+                    .putLong(block.minTimestamp()).putLong(block.maxTimestamp());
+            for (long word : block.users()) {
+                index.putLong(word);
+            }
+        }
+        Files.write(indexFile, index.array());
+    }
+
+    long nextSequence() {
+        return lastSequence + 1;
+    }
+
+    long committedSequence() {
+        return committedSequence;
+    }
+
+    int committedBytes() {
+        return committedOffset;
+    }
+
+    void delete() throws IOException {
+        // Readers still holding the mapping can finish; the pages go away with it
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(logFile);
+    }
+
+    /**
+     * Visit committed records that match the query, in sequence order, up to and including
+     * {@code lastSequence}
+     *
+     * @return false once the visitor has asked to stop
+     */
+    boolean scan(AuditQuery query, long lastSequence, Predicate<AuditEvent> visitor) {
+        int endOffset = committedOffset;
+        long endSequence = Math.min(committedSequence, lastSequence);
+        if (endSequence <= query.afterSequence()) {
+            return true;
+        }
+        // Count first: closeBlock publishes the array first, so this array holds at least count blocks
+        int count = blockCount;
+        Block[] snapshot = blocks;
+        int tailOffset = 0;
+        for (int i = 0; i < count; i++) {
+            Block block = snapshot[i];
+            tailOffset = block.endOffset();
+            if (block.lastSequence() <= query.afterSequence() || block.firstSequence() > endSequence
+                    || block.maxTimestamp() < query.fromMillis() || block.minTimestamp() >= query.toMillis()
+                    || (query.userId() != null && !block.mightContainUser(query.userId()))) {
+                continue;
+            }
+            if (!scanRange(block.startOffset(), block.endOffset(), query, endSequence, visitor)) {
+                return false;
+            }
+        }
+        // Records after the last indexed block
+        return scanRange(tailOffset, endOffset, query, endSequence, visitor);
+    }
+
+    private boolean scanRange(int from, int to, AuditQuery query, long endSequence, Predicate<AuditEvent> visitor) {
+        int offset = from;
+        while (offset < to) {
+            int length = buffer.getInt(offset);
+            long sequence = buffer.getLong(offset + 4);
+            if (sequence > endSequence) {
+                return true;
+            }
+            long timestamp = buffer.getLong(offset + 12);
+            long userId = buffer.getLong(offset + 20);
+            if (sequence > query.afterSequence()
+                    && timestamp >= query.fromMillis() && timestamp < query.toMillis()
+                    && (query.userId() == null || query.userId() == userId)
+                    && !visitor.test(decode(offset, sequence, timestamp, userId))) {
+                return false;
+            }
+            offset += length;
+        }
+        return true;
+    }
+
+    private AuditEvent decode(int offset, long sequence, long timestamp, long userId) {
+        AuditEventType type = AuditEventType.fromCode(buffer.get(offset + 28));
+        int emailLength = Byte.toUnsignedInt(buffer.get(offset + 29));
+        int ipLength = Byte.toUnsignedInt(buffer.get(offset + 30));
+        return new AuditEvent(sequence, timestamp, type, userId,
+                readString(offset + HEADER_BYTES, emailLength),
+                readString(offset + HEADER_BYTES + emailLength, ipLength));
+    }
+
+    private String readString(int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find the end of the intact records, rebuilding the index on the way, and clear anything
+     * after it (a record torn by a crash)
+     */
+    private void recover() {
+        int offset = 0;
+        while (offset + HEADER_BYTES + CHECKSUM_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < HEADER_BYTES + CHECKSUM_BYTES || offset + length > buffer.capacity()
+                    || buffer.getInt(offset + length - CHECKSUM_BYTES) != checksum(offset, length)) {
+                break;
+            }
+            indexRecord(buffer.getLong(offset + 4), offset, length,
+                    buffer.getLong(offset + 12), buffer.getLong(offset + 20));
+            offset += length;
+        }
+        if (writeOffset + 4 <= buffer.capacity() && buffer.getInt(writeOffset) != 0) {
+            byte[] zeros = new byte[8192];
+            for (int position = writeOffset; position < buffer.capacity(); position += zeros.length) {
+                buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+            }
+        }
+        commit();
+    }
+
+    private boolean loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        if (index.remaining() % INDEX_ENTRY_BYTES != 0) {
+            return false;
+        }
+        int count = index.remaining() / INDEX_ENTRY_BYTES;
+        Block[] loaded = new Block[Math.max(64, count)];
+        for (int i = 0; i < count; i++) {
+            loaded[i] = new Block(index.getLong(), index.getLong(), index.getInt(), index.getInt(),
+                    index.getLong(), index.getLong(),
+                    new long[] {index.getLong(), index.getLong(), index.getLong(), index.getLong()});
+        }
+        blocks = loaded;
+        blockCount = count;
+        if (count > 0) {
+            writeOffset = loaded[count - 1].endOffset();
+            lastSequence = loaded[count - 1].lastSequence();
+        }
+        commit();
+        return true;
+    }
+
+    private void indexRecord(long sequence, int offset, int length, long timestamp, long userId) {
+        if (openRecords == 0) {
+            openStartOffset = offset;
+            openFirstSequence = sequence;
+            openMinTimestamp = timestamp;
+            openMaxTimestamp = timestamp;
+        }
+        openMinTimestamp = Math.min(openMinTimestamp, timestamp);
+        openMaxTimestamp = Math.max(openMaxTimestamp, timestamp);
+        long hash = mix(userId);
+        int first = (int) hash & 255;
+        int second = (int) (hash >>> 8) & 255;
+        openUsers[first >>> 6] |= 1L << first;
+        openUsers[second >>> 6] |= 1L << second;
+
+        writeOffset = offset + length;
+        lastSequence = sequence;
+        if (++openRecords == BLOCK_RECORDS) {
+            closeBlock();
+        }
+    }
+
+    private void closeBlock() {
+        if (openRecords == 0) {
+            return;
+        }
+        Block block = new Block(openFirstSequence, lastSequence, openStartOffset, writeOffset,
+                openMinTimestamp, openMaxTimestamp, openUsers);
+        Block[] current = blocks;
+        int count = blockCount;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+        }
+        current[count] = block;
+        // Array first, then the count readers use to bound it
+        blocks = current;
+        blockCount = count + 1;
+        openRecords = 0;
+        openUsers = new long[4];
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset + 4, length - 4 - CHECKSUM_BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] truncate(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= MAX_FIELD_BYTES ? bytes : Arrays.copyOf(bytes, MAX_FIELD_BYTES);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bankportal.auth.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit log made of rotating {@link AuditSegment} files.
+ *
+ * Sequences start at 1 and continue across segments and restarts; each
+ * segment file is named after its first sequence. When the active segment
+ * fills up it is sealed and a new one started; past {@code maxSegments}
+ * the oldest is deleted.
+ *
+ * Appends, commits and rotation come from the single writer thread;
+ * queries may run on any thread.
+ */
+final class AuditSegmentStore {
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private volatile AuditSegment[] segments;
+    private long nextSequence;
+
+    AuditSegmentStore(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+
+        List<Long> bases;
+        try (Stream<Path> files = Files.list(directory)) {
+            bases = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(AuditSegment.LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - AuditSegment.LOG_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        List<AuditSegment> opened = new ArrayList<>(bases.size() + 1);
+        for (int i = 0; i < bases.size(); i++) {
+            opened.add(AuditSegment.open(directory, bases.get(i), segmentBytes, i == bases.size() - 1));
+        }
+        if (opened.isEmpty()) {
+            opened.add(AuditSegment.create(directory, 1, segmentBytes));
+        }
+        this.segments = opened.toArray(AuditSegment[]::new);
+        this.nextSequence = active().nextSequence();
+    }
+
+    /**
+     * Append an event, rotating to a new segment when the active one is full
+     *
+     * @return The event's sequence
+     */
+    long append(AuditEvent event) throws IOException {
+        long sequence = nextSequence;
+        if (!active().append(sequence, event)) {
+            rotate();
+            if (!active().append(sequence, event)) {
+                throw new IllegalStateException("Audit record larger than a segment");
+            }
+        }
+        nextSequence = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Make everything appended so far visible to queries
+     */
+    void commit() {
+        active().commit();
+    }
+
+    void force() {
+        active().force();
+    }
+
+    void close() throws IOException {
+        AuditSegment active = active();
+        active.seal();
+        active.force();
+    }
+
+    /**
+     * Sequence of the newest committed event, or 0 for an empty log
+     */
+    long lastSequence() {
+        return active().committedSequence();
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    long committedBytes() {
+        long bytes = 0;
+        for (AuditSegment segment : segments) {
+            bytes += segment.committedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Visit matching events in sequence order until the visitor returns false or
+     * {@code lastSequence} is passed
+     */
+    void scan(AuditQuery query, long lastSequence, Predicate<AuditEvent> visitor) {
+        AuditSegment[] snapshot = segments;
+        for (int i = 0; i < snapshot.length; i++) {
+            // Skip segments that end at or before the cursor
+            if (i + 1 < snapshot.length && snapshot[i + 1].baseSequence <= query.afterSequence() + 1) {
+                continue;
+            }
+            if (snapshot[i].baseSequence > lastSequence || !snapshot[i].scan(query, lastSequence, visitor)) {
+                return;
+            }
+        }
+    }
+
+    private AuditSegment active() {
+        AuditSegment[] current = segments;
+        return current[current.length - 1];
+    }
+
+    private void rotate() throws IOException {
+        AuditSegment full = active();
+        full.seal();
+        full.force();
+        AuditSegment next = AuditSegment.create(directory, nextSequence, segmentBytes);
+
+        AuditSegment[] current = segments;
+        int drop = Math.max(0, current.length + 1 - maxSegments);
+        AuditSegment[] rotated = Arrays.copyOfRange(current, drop, current.length + 1);
+        rotated[rotated.length - 1] = next;
+        segments = rotated;
+        for (int i = 0; i < drop; i++) {
+            current[i].delete();
+        }
+    }
+}
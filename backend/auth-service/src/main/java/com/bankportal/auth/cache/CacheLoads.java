@@ -0,0 +1,52 @@
+package com.bankportal.auth.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Read-through for caches whose loader queries the database.
+ *
+ * Caffeine's {@code Cache.get(key, loader)} runs the loader while holding the
+ * lock of the key's hash bin, and invalidating any key in that bin waits for
+ * it. Invalidations run inside the writing transaction, which holds a pooled
+ * connection, so with the pool drained each side waits for the other until
+ * the pool timeout. Here the bin lock is held only to install a pending
+ * future; the database read runs outside it, other callers for the key wait
+ * on the future, and an invalidation removes the pending entry immediately,
+ * so a value read before a concurrent write is never cached.
+ */
+public final class CacheLoads {
+
+    private CacheLoads() {
+    }
+
+    /**
+     * The cached value, or the loader's result on a miss; null results are not cached
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+        CompletableFuture<V> cached = cache.getIfPresent(key);
+        if (cached == null) {
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            cached = cache.asMap().putIfAbsent(key, loading);
+            if (cached == null) {
+                try {
+                    V value = loader.get();
+                    loading.complete(value);
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            // The loading caller has its failure; try again here rather than share it
+            return loader.get();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bankportal.auth.cache;
+
+import com.bankportal.auth.dto.UserInvalidationFeedResponse;
+import com.bankportal.auth.security.InternalApiSecret;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Exchanges invalidations with peer auth-service instances over HTTP.
+ *
+ * Local invalidations go to local subscribers and are appended to a bounded
+ * feed served at /internal/user-invalidations. Each instance polls its peers'
+ * feeds from the last cursor it saw. A poller that has fallen further behind
+ * than the feed holds, or whose peer restarted (a new feed id), clears its
+ * caches, since it can no longer tell which entries are stale.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.user-cache.invalidation", havingValue = "http")
+public class HttpPollingUserCacheInvalidationBus implements UserCacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPollingUserCacheInvalidationBus.class);
+    private static final int MAX_FEED_PAGE = 1000;
+    private static final int TIMEOUT_MILLIS = 2000;
+
+    private final RestClient restClient;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, PeerCursor> cursors = new ConcurrentHashMap<>();
+    private final String feedId = UUID.randomUUID().toString();
+    private final List<String> peers;
+    private final String[] feed;
+    private long feedSequence;
+
+    public HttpPollingUserCacheInvalidationBus(@Value("${auth.user-cache.peers:}") List<String> peers,
+                                               @Value("${auth.user-cache.feed-capacity:65536}") int feedCapacity,
+                                               InternalApiSecret internalApiSecret) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(TIMEOUT_MILLIS);
+        requestFactory.setReadTimeout(TIMEOUT_MILLIS);
+        this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeader(InternalApiSecret.HEADER, internalApiSecret.value())
+                .build();
+        this.peers = peers.stream().filter(peer -> !peer.isBlank()).toList();
+        this.feed = new String[feedCapacity];
+    }
+
+    @Override
+    public void publish(String emailKey) {
+        synchronized (this) {
+            feed[(int) (feedSequence % feed.length)] = emailKey;
+            feedSequence++;
+        }
+        listeners.forEach(listener -> listener.accept(emailKey));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void subscribeToResets(Runnable listener) {
+        resetListeners.add(listener);
+    }
+
+    /**
+     * Invalidations published on this instance after a cursor
+     */
+    public synchronized UserInvalidationFeedResponse feedSince(long since) {
+        long oldest = Math.max(0, feedSequence - feed.length);
+        if (since < oldest || since > feedSequence) {
+            return new UserInvalidationFeedResponse(feedId, feedSequence, true, List.of());
+        }
+        long end = Math.min(feedSequence, since + MAX_FEED_PAGE);
+        List<String> keys = new ArrayList<>((int) (end - since));
+        for (long seq = since; seq < end; seq++) {
+            keys.add(feed[(int) (seq % feed.length)]);
+        }
+        return new UserInvalidationFeedResponse(feedId, end, false, keys);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.user-cache.poll-interval-ms:500}")
+    public void poll() {
+        for (String peer : peers) {
+            try {
+                // A peer not polled yet is asked for a reset: changes it made before then can't be replayed
+                PeerCursor cursor = cursors.get(peer);
+                UserInvalidationFeedResponse response = restClient.get()
+                        .uri(peer + "/internal/user-invalidations?since={since}", cursor != null ? cursor.position() : -1L)
+                        .retrieve()
+                        .body(UserInvalidationFeedResponse.class);
+                if (response == null) {
+                    continue;
+                }
+                if (cursor == null || response.isReset() || !response.getFeedId().equals(cursor.feedId())) {
+                    resetListeners.forEach(Runnable::run);
+                } else {
+                    for (String key : response.getKeys()) {
+                        listeners.forEach(listener -> listener.accept(key));
+                    }
+                }
+                cursors.put(peer, new PeerCursor(response.getFeedId(), response.getCursor()));
+            } catch (Exception e) {
+                log.warn("Failed to poll user cache invalidations from {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    private record PeerCursor(String feedId, long position) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.bankportal.auth.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations to subscribers in the same JVM.
+ *
+ * The default for single-instance deployments. Tests can also share one
+ * instance between several caches to simulate a cluster. Refuses to start
+ * when peers are configured: their writes would never reach this cache.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.user-cache.invalidation", havingValue = "in-process", matchIfMissing = true)
+public class InProcessUserCacheInvalidationBus implements UserCacheInvalidationBus {
+    
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    
+    public InProcessUserCacheInvalidationBus(@Value("${auth.user-cache.peers:}") List<String> peers) {
+        if (peers.stream().anyMatch(peer -> !peer.isBlank())) {
+            throw new IllegalStateException("auth.user-cache.invalidation=in-process can't keep peers' caches "
+                    + "coherent; set auth.user-cache.invalidation=http when running several instances");
+        }
+    }
+    
+    @Override
+    public void publish(String emailKey) {
+        for (Consumer<String> listener : listeners) {
+            listener.accept(emailKey);
+        }
+    }
+    
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+    
+    @Override
+    public void subscribeToResets(Runnable listener) {
+        // Nothing is ever missed in-process
+    }
+}
@@ -0,0 +1,33 @@
+package com.bankportal.auth.cache;
+
+import com.bankportal.auth.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener that invalidates the credential cache on every User insert, update and delete,
+ * whichever code path issued the save
+ */
+@Component
+public class UserCacheEntityListener {
+    
+    private final ObjectProvider<UserCredentialCache> cache;
+    
+    // Lazy: Hibernate builds listeners while the repositories the cache depends on are still being created
+    public UserCacheEntityListener(ObjectProvider<UserCredentialCache> cache) {
+        this.cache = cache;
+    }
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(User user) {
+        UserCredentialCache userCredentialCache = cache.getIfAvailable();
+        if (userCredentialCache != null) {
+            userCredentialCache.onUserWritten(user);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bankportal.auth.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Propagates user cache invalidations between auth-service instances.
+ *
+ * Implementations are selected with auth.user-cache.invalidation. Keys are
+ * normalised emails.
+ */
+public interface UserCacheInvalidationBus {
+    
+    /**
+     * Announce that a user changed on this instance
+     */
+    void publish(String emailKey);
+    
+    /**
+     * Receive invalidations, including ones published by other instances
+     */
+    void subscribe(Consumer<String> listener);
+    
+    /**
+     * Be told to drop every entry, when invalidations from another instance may have been missed
+     */
+    void subscribeToResets(Runnable listener);
+}
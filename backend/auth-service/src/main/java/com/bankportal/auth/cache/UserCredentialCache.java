@@ -0,0 +1,114 @@
+package com.bankportal.auth.cache;
+
+import com.bankportal.auth.datasource.ReadRouting;
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Read-through cache of {@link UserCredentials}, keyed by normalised email.
+ *
+ * Lets an MFA user's verify-otp, and most repeat logins, reach the password
+ * check without a database read. Entries are bounded by count and expire
+ * after a TTL, which also caps staleness if an invalidation is ever missed.
+ *
+ * Every write to a User entity invalidates its entry through
+ * {@link UserCacheEntityListener}, immediately and again after the
+ * transaction commits, so a concurrent read cannot re-cache the old row.
+ * Invalidations are published on the {@link UserCacheInvalidationBus} for
+ * other instances. Bulk JPQL/native updates bypass entity listeners and
+ * must call {@link #invalidate(String)} themselves. Misses are loaded outside
+ * the cache's locks; see {@link CacheLoads}. With read replicas, a miss that
+ * a replica can't answer is retried on the primary (see {@link ReadRouting}).
+ */
+@Component
+public class UserCredentialCache {
+    
+    private final UserRepository userRepository;
+    private final UserCacheInvalidationBus invalidationBus;
+    private final ReadRouting readRouting;
+    private final AsyncCache<String, UserCredentials> cache;
+    
+    public UserCredentialCache(UserRepository userRepository,
+                               UserCacheInvalidationBus invalidationBus,
+                               ReadRouting readRouting,
+                               @Value("${auth.user-cache.max-entries:100000}") long maxEntries,
+                               @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                               MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.readRouting = readRouting;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.user-cache");
+        invalidationBus.subscribe(cache.synchronous()::invalidate);
+        invalidationBus.subscribeToResets(cache.synchronous()::invalidateAll);
+    }
+    
+    /**
+     * Credentials for the exact email, loading from the database on a miss.
+     * Unknown emails are not cached.
+     */
+    public Optional<UserCredentials> find(String email) {
+        UserCredentials credentials = CacheLoads.getOrLoad(cache, normalize(email), () -> load(email));
+        if (credentials == null || credentials.email().equals(email)) {
+            return Optional.ofNullable(credentials);
+        }
+        // A case variant of this email is cached; only an exact match may use the entry
+        return readRouting.find(email, () -> userRepository.findCredentialsByEmail(email));
+    }
+    
+    /**
+     * Drop the entry here and on every other instance
+     */
+    public void invalidate(String email) {
+        String key = normalize(email);
+        cache.synchronous().invalidate(key);
+        invalidationBus.publish(key);
+    }
+    
+    /**
+     * Invalidate now and, when a transaction is active, again once it commits
+     */
+    void onUserWritten(User user) {
+        if (user.getEmail() == null) {
+            return;
+        }
+        invalidate(user.getEmail());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String email = user.getEmail();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(email);
+                }
+            });
+        }
+    }
+    
+    private UserCredentials load(String email) {
+        return readRouting.find(email, () -> userRepository.findCredentialsByEmail(email)).orElse(null);
+    }
+    
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+    
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,42 @@
+package com.bankportal.auth.cache;
+
+import com.bankportal.auth.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the user fields the login and MFA flows read.
+ * Leaves out the MFA secret and OTP columns.
+ */
+public record UserCredentials(
+        Long id,
+        String email,
+        String name,
+        String passwordHash,
+        String role,
+        boolean mfaEnabled,
+        String mfaMethod,
+        LocalDateTime createdAt) {
+    
+    public static UserCredentials from(User user) {
+        return new UserCredentials(user.getId(), user.getEmail(), user.getName(), user.getPassword(),
+                user.getRole(), Boolean.TRUE.equals(user.getMfaEnabled()), user.getMfaMethod(), user.getCreatedAt());
+    }
+    
+    /**
+     * Detached, partially populated entity for read-only use (token claims, DTOs).
+     * Never save it: the omitted columns would be overwritten with nulls.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        user.setPassword(passwordHash);
+        user.setRole(role);
+        user.setMfaEnabled(mfaEnabled);
+        user.setMfaMethod(mfaMethod);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
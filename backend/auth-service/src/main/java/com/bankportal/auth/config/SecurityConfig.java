@@ -1,7 +1,9 @@
 package com.bankportal.auth.config;
 
+import com.bankportal.auth.security.InternalApiSecret;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -12,7 +14,7 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, InternalApiSecret internalApiSecret) throws Exception {
         http
             // CORS is handled by API Gateway, so we disable it here to prevent duplicate headers
             .cors(cors -> cors.disable())
@@ -21,6 +23,12 @@ public class SecurityConfig {
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
+                // Revocation feed (gateway and peers) and user cache invalidations (peers): callers send the shared secret
+                .requestMatchers("/internal/revocations", "/internal/user-invalidations")
+                    .access((authentication, context) ->
+                            new AuthorizationDecision(internalApiSecret.matches(context.getRequest())))
+                // Scraped directly by monitoring, never routed through the gateway
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             );
         
@@ -0,0 +1,203 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.audit.AuditEvent;
+import com.bankportal.auth.audit.AuditLog;
+import com.bankportal.auth.audit.AuditQuery;
+import com.bankportal.auth.dto.AuditEventDto;
+import com.bankportal.auth.security.TokenService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jwt.JWTClaimsSet;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/auth/admin/audit")
+public class AuditController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV_HEADER = "sequence,timestamp,action,status,userId,email,ipAddress\n";
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.audit.max-page-size:10000}")
+    private int maxPageSize;
+
+    /**
+     * Page through the authentication audit log, oldest first. Admin only.
+     * GET /api/auth/admin/audit?userId=&from=&to=&cursor=&limit=&format=json|ndjson|csv
+     *
+     * from/to are ISO-8601 instants (to is exclusive). Pass the previous page's nextCursor as
+     * cursor; for CSV and NDJSON, which have no trailer, use the last row's sequence. Rows are
+     * written as they are read, so exports of any size use constant memory.
+     *
+     * Each instance keeps its own log with its own sequence numbers. Query every instance
+     * directly (not through the gateway, which may pick a different one per page) and keep a
+     * cursor per instance.
+     */
+    @GetMapping
+    public void query(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                      @RequestParam(required = false) String userId,
+                      @RequestParam(required = false) String from,
+                      @RequestParam(required = false) String to,
+                      @RequestParam(defaultValue = "0") long cursor,
+                      @RequestParam(defaultValue = "1000") int limit,
+                      @RequestParam(defaultValue = "json") String format,
+                      HttpServletResponse response) throws IOException {
+        Optional<JWTClaimsSet> claims = tokenService.verifyBearer(authorization);
+        if (claims.isEmpty()) {
+            writeError(response, HttpStatus.UNAUTHORIZED, "Authentication required");
+            return;
+        }
+        if (!TokenService.ROLE_ADMIN.equals(claims.get().getClaim(TokenService.CLAIM_ROLE))) {
+            writeError(response, HttpStatus.FORBIDDEN, "Admin role required");
+            return;
+        }
+        if (!auditLog.isEnabled()) {
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Audit log is disabled");
+            return;
+        }
+
+        AuditQuery query;
+        try {
+            query = new AuditQuery(parseUserId(userId),
+                    from != null ? Instant.parse(from).toEpochMilli() : 0,
+                    to != null ? Instant.parse(to).toEpochMilli() : Long.MAX_VALUE,
+                    Math.max(0, cursor),
+                    Math.max(1, Math.min(limit, maxPageSize)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid query: " + e.getMessage());
+            return;
+        }
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"auth-audit.csv\"");
+            Writer writer = response.getWriter();
+            writer.write(CSV_HEADER);
+            auditLog.query(query, event -> writeCsvRow(writer, toDto(event)));
+            writer.flush();
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType(NDJSON);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"auth-audit.ndjson\"");
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                json.setRootValueSeparator(new SerializedString("\n"));
+                auditLog.query(query, event -> {
+                    try {
+                        json.writeObject(toDto(event));
+                        return true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeRaw('\n');
+            }
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("events");
+                long nextCursor = auditLog.query(query, event -> {
+                    try {
+                        json.writeObject(toDto(event));
+                        return true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeNumberField("nextCursor", nextCursor);
+                json.writeEndObject();
+            }
+        }
+    }
+
+    /**
+     * Accepts the "user_42" form used by UserDto as well as the bare id
+     */
+    private static Long parseUserId(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return null;
+        }
+        return Long.valueOf(userId.startsWith("user_") ? userId.substring("user_".length()) : userId);
+    }
+
+    private static AuditEventDto toDto(AuditEvent event) {
+        return AuditEventDto.builder()
+                .sequence(event.sequence())
+                .timestamp(Instant.ofEpochMilli(event.timestampMillis()).toString())
+                .action(event.type() != null ? event.type().name() : "UNKNOWN")
+                .status(event.type() != null && event.type().isSuccess() ? "success" : "failure")
+                .userId(event.userId() != 0 ? "user_" + event.userId() : null)
+                .email(event.email())
+                .ipAddress(event.ipAddress())
+                .build();
+    }
+
+    private static boolean writeCsvRow(Writer writer, AuditEventDto event) {
+        try {
+            writer.write(String.join(",",
+                    String.valueOf(event.getSequence()),
+                    event.getTimestamp(),
+                    event.getAction(),
+                    event.getStatus(),
+                    csvField(event.getUserId()),
+                    csvField(event.getEmail()),
+                    csvField(event.getIpAddress())));
+            writer.write('\n');
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quoted when needed. Emails and IPs come from clients, so a value a spreadsheet would read as a
+     * formula (leading =, +, -, @, tab or CR) gets a leading apostrophe and is shown as text.
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+}
@@ -1,14 +1,23 @@
 package com.bankportal.auth.controller;
 
 import com.bankportal.auth.dto.*;
+import com.bankportal.auth.exception.AuthError;
+import com.bankportal.auth.exception.AuthException;
+import com.bankportal.auth.exception.HashingCapacityExceededException;
+import com.bankportal.auth.security.JwtKeyRing;
+import com.bankportal.auth.security.TokenService;
 import com.bankportal.auth.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -18,6 +27,15 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+    
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private AuthErrorResponses errorResponses;
+    
     /**
      * Register a new user
      * POST /api/auth/register
@@ -27,6 +45,10 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return ResponseEntity.ok(response);
+        } catch (AuthException e) {
+            return errorResponses.of(e);
+        } catch (HashingCapacityExceededException e) {
+            return serviceBusy(e);
         } catch (Exception e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
@@ -43,6 +65,10 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (AuthException e) {
+            return errorResponses.of(e);
+        } catch (HashingCapacityExceededException e) {
+            return serviceBusy(e);
         } catch (Exception e) {
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
@@ -59,6 +85,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.verifyOtp(request);
             return ResponseEntity.ok(response);
+        } catch (AuthException e) {
+            return errorResponses.of(e);
         } catch (Exception e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
@@ -82,6 +110,51 @@ public class AuthController {
             
             AuthResponse response = authService.sendOtp(email);
             return ResponseEntity.ok(response);
+        } catch (AuthException e) {
+            return errorResponses.of(e);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Start authenticator app (TOTP) enrollment for the signed-in user
+     * POST /api/auth/mfa/totp/enroll
+     */
+    @PostMapping("/mfa/totp/enroll")
+    public ResponseEntity<?> enrollTotp(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Optional<Long> userId = authenticatedUserId(authorization);
+        if (userId.isEmpty()) {
+            return errorResponses.of(AuthError.AUTHENTICATION_REQUIRED);
+        }
+        try {
+            return ResponseEntity.ok(authService.enrollTotp(userId.get()));
+        } catch (AuthException e) {
+            return errorResponses.of(e);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Confirm TOTP enrollment with a code from the app
+     * POST /api/auth/mfa/totp/confirm
+     */
+    @PostMapping("/mfa/totp/confirm")
+    public ResponseEntity<?> confirmTotp(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                         @RequestBody Map<String, String> request) {
+        Optional<Long> userId = authenticatedUserId(authorization);
+        if (userId.isEmpty()) {
+            return errorResponses.of(AuthError.AUTHENTICATION_REQUIRED);
+        }
+        try {
+            return ResponseEntity.ok(authService.confirmTotp(userId.get(), request.get("code")));
+        } catch (AuthException e) {
+            return errorResponses.of(e);
         } catch (Exception e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
@@ -94,13 +167,26 @@ public class AuthController {
      * POST /api/auth/logout
      */
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        // In a real application, you would invalidate the token here
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            authService.logout(authorization.substring("Bearer ".length()).trim());
+        }
         Map<String, String> response = new HashMap<>();
         response.put("message", "Logout successful");
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Public keys for verifying access tokens
+     * GET /api/auth/.well-known/jwks.json
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<?> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwtKeyRing.getPublicJwks());
+    }
+    
     /**
      * Health check endpoint
      * GET /api/auth/health
@@ -113,6 +199,20 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    private Optional<Long> authenticatedUserId(String authorization) {
+        return tokenService.verifyBearer(authorization).map(claims -> Long.valueOf(claims.getSubject()));
+    }
+    
+    /**
+     * Shed load when the password hashing pool is saturated
+     */
+    private ResponseEntity<?> serviceBusy(HashingCapacityExceededException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(createErrorResponse(e.getMessage()));
+    }
+    
     /**
      * Create error response
      */
@@ -0,0 +1,60 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.exception.AuthError;
+import com.bankportal.auth.exception.AuthException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Error responses for {@link AuthException}: {"error": message, "code": error code} with the error's status.
+ *
+ * Bodies for default messages are serialized once at startup and written
+ * as bytes; only failures with a per-request message are serialized per call.
+ */
+@Component
+public class AuthErrorResponses {
+
+    private final ObjectMapper objectMapper;
+    private final Map<AuthError, byte[]> defaultBodies = new EnumMap<>(AuthError.class);
+
+    public AuthErrorResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (AuthError error : AuthError.values()) {
+            defaultBodies.put(error, serialize(error, error.getDefaultMessage()));
+        }
+    }
+
+    public ResponseEntity<byte[]> of(AuthError error) {
+        return of(AuthException.of(error));
+    }
+
+    public ResponseEntity<byte[]> of(AuthException e) {
+        AuthError error = e.getError();
+        byte[] body = e.hasDefaultMessage() ? defaultBodies.get(error) : serialize(error, e.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(error.getStatus())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (e.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(body);
+    }
+
+    private byte[] serialize(AuthError error, String message) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("error", message);
+        body.put("code", error.name());
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize error response", e);
+        }
+    }
+}
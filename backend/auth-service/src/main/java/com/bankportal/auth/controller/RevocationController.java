@@ -0,0 +1,28 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.dto.RevocationFeedResponse;
+import com.bankportal.auth.security.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/internal/revocations")
+// Service-to-service only: not matched by the gateway's /api/auth/** route, and callers must send InternalApiSecret
+public class RevocationController {
+    
+    @Autowired
+    private TokenRevocationService revocationService;
+    
+    /**
+     * Revocations made on this instance after a cursor
+     * GET /internal/revocations?since={cursor}
+     */
+    @GetMapping
+    public ResponseEntity<RevocationFeedResponse> feed(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(revocationService.feedSince(since));
+    }
+}
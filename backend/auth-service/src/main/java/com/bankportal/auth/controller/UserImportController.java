@@ -0,0 +1,134 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.dto.ImportSummary;
+import com.bankportal.auth.security.TokenService;
+import com.bankportal.auth.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jwt.JWTClaimsSet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/auth/admin/users")
+public class UserImportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Bulk import users from an NDJSON or CSV body. Admin only.
+     * POST /api/auth/admin/users/import
+     *
+     * Responds with NDJSON: one result per row as it is processed, then a summary line. The 200 and
+     * its headers go out once the CSV header has been checked, ahead of the first chunk's hashing.
+     */
+    @PostMapping("/import")
+    public void importUsers(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        Optional<JWTClaimsSet> claims = tokenService.verifyBearer(authorization);
+        if (claims.isEmpty()) {
+            writeError(response, HttpStatus.UNAUTHORIZED, "Authentication required");
+            return;
+        }
+        if (!TokenService.ROLE_ADMIN.equals(claims.get().getClaim(TokenService.CLAIM_ROLE))) {
+            writeError(response, HttpStatus.FORBIDDEN, "Admin role required");
+            return;
+        }
+
+        UserImportService.Format format = formatOf(request.getContentType());
+        if (format == null) {
+            writeError(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Content-Type must be " + NDJSON + " or " + CSV);
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(),
+                request.getCharacterEncoding() != null ? request.getCharacterEncoding() : StandardCharsets.UTF_8.name()));
+        ImportSummary summary;
+        try {
+            summary = userImportService.importUsers(reader, format, () -> startImportResponse(response),
+                    result -> writeLine(response, result));
+        } catch (IllegalArgumentException e) {
+            // Only the CSV header is checked before the headers are sent
+            if (response.isCommitted()) {
+                throw e;
+            }
+            writeError(response, HttpStatus.BAD_REQUEST, e.getMessage());
+            return;
+        }
+        writeLine(response, Map.of("summary", summary));
+    }
+
+    /**
+     * Send the headers before the first chunk is hashed, so a long import isn't taken for a hung one
+     */
+    private static void startImportResponse(HttpServletResponse response) {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UserImportService.Format formatOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        if (CSV.includes(mediaType)) {
+            return UserImportService.Format.CSV;
+        }
+        if (NDJSON.includes(mediaType) || MediaType.APPLICATION_JSON.includes(mediaType)) {
+            return UserImportService.Format.NDJSON;
+        }
+        return null;
+    }
+
+    private void writeLine(HttpServletResponse response, Object value) {
+        try {
+            Writer writer = response.getWriter();
+            writer.write(objectMapper.writeValueAsString(value));
+            writer.write('\n');
+            // Rows complete a chunk at a time, each after seconds of hashing; let the client see progress
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write import report", e);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+}
@@ -0,0 +1,30 @@
+package com.bankportal.auth.controller;
+
+import com.bankportal.auth.cache.HttpPollingUserCacheInvalidationBus;
+import com.bankportal.auth.dto.UserInvalidationFeedResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/internal/user-invalidations")
+@ConditionalOnProperty(name = "auth.user-cache.invalidation", havingValue = "http")
+// Service-to-service only: not matched by the gateway's /api/auth/** route, and callers must send InternalApiSecret
+public class UserInvalidationController {
+    
+    @Autowired
+    private HttpPollingUserCacheInvalidationBus invalidationBus;
+    
+    /**
+     * User cache invalidations published on this instance after a cursor
+     * GET /internal/user-invalidations?since={cursor}
+     */
+    @GetMapping
+    public ResponseEntity<UserInvalidationFeedResponse> feed(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(invalidationBus.feedSince(since));
+    }
+}
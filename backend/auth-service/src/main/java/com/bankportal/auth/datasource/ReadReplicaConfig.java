@@ -0,0 +1,91 @@
+package com.bankportal.auth.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read/write split: read-only transactions on replicas, everything else on the primary.
+ *
+ * The application's DataSource is a {@link LazyConnectionDataSourceProxy}
+ * over the primary pool. It only takes a physical connection at the first
+ * statement, once the transaction's read-only flag is known, and then asks
+ * {@link ReplicaRoutingDataSource} for read-only ones. UserRepository's
+ * lookups and Spring Data's inherited finders are read-only transactions;
+ * saves, modifying queries, read-write transactions and JdbcTemplate calls
+ * outside a transaction stay on the primary.
+ *
+ * Each replica gets its own Hikari pool with the primary's settings,
+ * including data-source properties such as prepareThreshold.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.datasource.read-routing", havingValue = "replicas")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (properties.getName() != null) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                         @Value("${auth.datasource.replica-urls}") String replicaUrls,
+                                         @Value("${auth.datasource.max-replica-lag-ms:1000}") long maxLagMillis,
+                                         @Value("${auth.datasource.replica-check-timeout-ms:1000}") long checkTimeoutMillis,
+                                         MeterRegistry meterRegistry) {
+        List<String> urls = Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("auth.datasource.read-routing=replicas needs auth.datasource.replica-urls");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i));
+            config.setPoolName("replica-" + (i + 1));
+            config.setReadOnly(true);
+            // A slow replica fails over to the primary instead of holding requests for the full timeout
+            config.setConnectionTimeout(Math.max(250, checkTimeoutMillis));
+            // Start even while a replica is down; the monitor keeps it out of rotation
+            config.setInitializationFailTimeout(-1);
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaMonitor(replicas, maxLagMillis, checkTimeoutMillis, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaMonitor replicaMonitor,
+                                 MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicaMonitor, meterRegistry));
+        dataSource.setDefaultAutoCommit(primary.isAutoCommit());
+        return dataSource;
+    }
+}
@@ -0,0 +1,117 @@
+package com.bankportal.auth.datasource;
+
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Where reads go when read replicas are configured.
+ *
+ * Read-only transactions go to a replica unless the calling thread is inside
+ * {@link #onPrimary}. Lookups by email go through {@link #read} or
+ * {@link #find}, which keep a user on the primary for a short window after
+ * this instance wrote their row (registration, enrollment, rehash), so they
+ * see their own writes while replicas lag. Read-modify-write paths load the
+ * row {@link #onPrimary} so a stale replica copy is never saved back.
+ *
+ * With auth.datasource.read-routing=primary every read is on the primary
+ * and these methods just run the lookup.
+ */
+@Component
+public class ReadRouting {
+
+    /** Recent writes expire after seconds, so this only bounds a burst of registrations */
+    private static final long MAX_TRACKED_WRITES = 100_000;
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean replicas;
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadRouting(@Value("${auth.datasource.read-routing:primary}") String mode,
+                       @Value("${auth.datasource.read-your-writes-seconds:5}") long readYourWritesSeconds) {
+        this.replicas = "replicas".equals(mode);
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_WRITES)
+                .expireAfterWrite(Duration.ofSeconds(readYourWritesSeconds))
+                .build();
+    }
+
+    /**
+     * Run work with every connection it opens taken from the primary
+     */
+    public <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    public void onPrimary(Runnable work) {
+        onPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run a lookup for the user with this email, on the primary if their row was written recently.
+     * A lookup that fails on a replica (a connection broken mid-query, a replica shutting down)
+     * is repeated on the primary; lookups have no side effects, so running one twice is safe.
+     * A broken connection can also fail the rollback, which then surfaces as a TransactionException
+     * in place of the query's DataAccessException.
+     */
+    public <T> T read(String email, Supplier<T> lookup) {
+        if (!replicas || isPrimaryRequired()) {
+            return lookup.get();
+        }
+        if (recentWrites.getIfPresent(UserCredentialCache.normalize(email)) != null) {
+            return onPrimary(lookup);
+        }
+        try {
+            return lookup.get();
+        } catch (DataAccessException | TransactionException e) {
+            return onPrimary(lookup);
+        }
+    }
+
+    /**
+     * Like {@link #read}, but a lookup that finds nothing on a replica is repeated on the primary:
+     * the row may have been written through another instance and not replicated yet
+     */
+    public <T> Optional<T> find(String email, Supplier<Optional<T>> lookup) {
+        Optional<T> found = read(email, lookup);
+        if (found.isEmpty() && replicas && !isPrimaryRequired()) {
+            return onPrimary(lookup);
+        }
+        return found;
+    }
+
+    /**
+     * Keep this user's reads on the primary for the read-your-writes window
+     */
+    public void recordWrite(String email) {
+        if (replicas && email != null) {
+            recentWrites.put(UserCredentialCache.normalize(email), Boolean.TRUE);
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
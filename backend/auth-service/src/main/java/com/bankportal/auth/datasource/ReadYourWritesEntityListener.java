@@ -0,0 +1,27 @@
+package com.bankportal.auth.datasource;
+
+import com.bankportal.auth.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener that keeps a user's reads on the primary for a while after any write to their row
+ */
+@Component
+public class ReadYourWritesEntityListener {
+
+    private final ReadRouting readRouting;
+
+    public ReadYourWritesEntityListener(ReadRouting readRouting) {
+        this.readRouting = readRouting;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(User user) {
+        readRouting.recordWrite(user.getEmail());
+    }
+}
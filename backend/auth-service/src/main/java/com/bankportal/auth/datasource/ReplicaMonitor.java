@@ -0,0 +1,153 @@
+package com.bankportal.auth.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Health and replication lag of each read replica.
+ *
+ * Every check interval each replica runs one query reporting its replay lag;
+ * a replica whose WAL receiver isn't streaming counts as caught up only as
+ * far as its last replayed transaction.
+ * A replica is used for reads only while that query succeeds within the
+ * check timeout and the lag is within the limit; a connection failure
+ * between checks takes it out of rotation until the next good check.
+ * A server that is not in recovery (the primary itself, or a stand-in
+ * Postgres in development) reports no lag.
+ */
+public class ReplicaMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaMonitor.class);
+
+    /**
+     * Milliseconds since the last replayed transaction, or 0 when everything received has been replayed
+     * and the WAL receiver is streaming, so an idle primary doesn't make its replicas look stale.
+     * A replica cut off from the primary has replayed all it received but can't know what it's missing,
+     * so it is measured by the age of its last transaction and leaves rotation once that passes the limit.
+     * Null if nothing was ever replayed.
+     */
+    static final String LAG_QUERY = "SELECT CASE "
+            + "WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "AND EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final int checkTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaMonitor(List<HikariDataSource> dataSources, long maxLagMillis, long checkTimeoutMillis,
+                          MeterRegistry meterRegistry) {
+        this.replicas = dataSources.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLagMillis;
+        this.checkTimeoutSeconds = (int) Math.max(1, (checkTimeoutMillis + 999) / 1000);
+        for (Replica replica : replicas) {
+            Gauge.builder("auth.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .description("Replication lag at the last check, in milliseconds; -1 if unknown")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("auth.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica receives reads")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * A replica in rotation, round-robin, or null if none is healthy
+     */
+    Replica next() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take a replica out of rotation after it failed to hand out a connection
+     */
+    void markFailed(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica {} failed ({}); reading from the primary until it recovers",
+                    replica.name(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.datasource.replica-check-interval-ms:1000}")
+    public void check() {
+        for (Replica replica : replicas) {
+            long lag = measureLag(replica);
+            replica.lagMillis = lag;
+            boolean healthy = lag >= 0 && lag <= maxLagMillis;
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Read replica {} in rotation (lag {} ms)", replica.name(), lag);
+                } else if (lag >= 0) {
+                    log.warn("Read replica {} is {} ms behind (limit {} ms); reading from the primary",
+                            replica.name(), lag, maxLagMillis);
+                }
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private long measureLag(Replica replica) {
+        try (Connection connection = replica.dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(checkTimeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                double lag = resultSet.getDouble(1);
+                return resultSet.wasNull() ? -1 : Math.round(lag);
+            }
+        } catch (SQLException e) {
+            if (replica.healthy) {
+                log.warn("Read replica {} failed its health check ({}); reading from the primary",
+                        replica.name(), e.getMessage());
+            }
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+
+    static final class Replica {
+        private final HikariDataSource dataSource;
+        /** Out of rotation until the first check passes */
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        HikariDataSource dataSource() {
+            return dataSource;
+        }
+
+        String name() {
+            return dataSource.getPoolName();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankportal.auth.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connections for read-only transactions: a healthy replica in turn, or the
+ * primary when none is healthy, a replica refuses the connection, or the
+ * caller asked for the primary through {@link ReadRouting#onPrimary}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaMonitor replicas;
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaMonitor replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.primaryReads = readCounter(meterRegistry, "primary");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRouting.isPrimaryRequired()) {
+            ReplicaMonitor.Replica replica = replicas.next();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.dataSource().getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replicas.markFailed(replica, e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Pools are configured with their credentials; per-call credentials always go to the primary
+        return primary.getConnection(username, password);
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("auth.datasource.reads")
+                .description("Connections opened for read-only transactions, by where they went")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bankportal.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuditEventDto {
+    private long sequence;
+    private String timestamp;
+    private String action;
+    private String status; // "success" or "failure"
+    private String userId;
+    private String email;
+    private String ipAddress;
+}
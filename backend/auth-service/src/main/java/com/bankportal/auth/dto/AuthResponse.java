@@ -13,5 +13,9 @@ public class AuthResponse {
     private String token;
     private UserDto user;
     private boolean mfaRequired;
+    /** "totp" when the code comes from an authenticator app */
+    private String mfaMethod;
+    /** Pass back with a TOTP code to verify-otp */
+    private String mfaToken;
     private String message;
 }
@@ -0,0 +1,21 @@
+package com.bankportal.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+    
+    public enum Status { IMPORTED, DUPLICATE, EXISTS, INVALID, FAILED }
+    
+    /** 1-based line in the uploaded file (the CSV header is line 1) */
+    private long line;
+    private String email;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.bankportal.auth.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportSummary {
+    private long rows;
+    private long imported;
+    private long duplicates;
+    private long existing;
+    private long invalid;
+    private long failed;
+    private long elapsedMillis;
+    
+    public void count(ImportRowResult.Status status) {
+        rows++;
+        switch (status) {
+            case IMPORTED -> imported++;
+            case DUPLICATE -> duplicates++;
+            case EXISTS -> existing++;
+            case INVALID -> invalid++;
+            case FAILED -> failed++;
+        }
+    }
+}
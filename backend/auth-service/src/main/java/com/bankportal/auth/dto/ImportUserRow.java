@@ -0,0 +1,15 @@
+package com.bankportal.auth.dto;
+
+import lombok.Data;
+
+/**
+ * One user in a bulk import. Supply either a plaintext password, which is
+ * validated and hashed, or an existing Argon2i hash in passwordHash.
+ */
+@Data
+public class ImportUserRow {
+    private String name;
+    private String email;
+    private String password;
+    private String passwordHash;
+}
@@ -0,0 +1,17 @@
+package com.bankportal.auth.dto;
+
+import com.bankportal.common.security.RevokedToken;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevocationFeedResponse {
+    private long cursor;
+    private boolean reset;
+    private List<RevokedToken> tokens;
+}
@@ -0,0 +1,18 @@
+package com.bankportal.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotpEnrollment {
+    /** Base32 secret for manual entry */
+    private String secret;
+    /** otpauth:// URI for a QR code */
+    private String provisioningUri;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.bankportal.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserInvalidationFeedResponse {
+    private String feedId;
+    private long cursor;
+    private boolean reset;
+    private List<String> keys;
+}
@@ -6,4 +6,6 @@ import lombok.Data;
 public class VerifyOtpRequest {
     private String email;
     private String code;
+    /** The mfaToken from login; required for TOTP */
+    private String mfaToken;
 }
@@ -0,0 +1,43 @@
+package com.bankportal.auth.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Why an auth request was refused: a stable code for clients, the HTTP status and the default message.
+ * Codes are part of the API; rename messages freely, never codes.
+ */
+public enum AuthError {
+
+    EMAIL_ALREADY_REGISTERED(HttpStatus.CONFLICT, "Email already registered"),
+    WEAK_PASSWORD(HttpStatus.BAD_REQUEST, "Password validation failed"),
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Invalid email or password"),
+    USER_NOT_FOUND(HttpStatus.UNAUTHORIZED, "User not found"),
+    AUTHENTICATION_REQUIRED(HttpStatus.UNAUTHORIZED, "Authentication required"),
+    MFA_SESSION_EXPIRED(HttpStatus.UNAUTHORIZED, "Login session expired. Please sign in again."),
+    ACCOUNT_LOCKED(HttpStatus.LOCKED, "Account temporarily locked. Please try again later."),
+    OTP_NOT_FOUND(HttpStatus.UNAUTHORIZED, "No OTP found. Please request a new one."),
+    OTP_EXPIRED(HttpStatus.UNAUTHORIZED, "OTP has expired. Please request a new one."),
+    OTP_INVALID(HttpStatus.UNAUTHORIZED, "Invalid OTP code."),
+    OTP_COOLDOWN(HttpStatus.TOO_MANY_REQUESTS, "Please wait before requesting another OTP"),
+    TOTP_IN_USE(HttpStatus.BAD_REQUEST, "Use the code from your authenticator app"),
+    TOTP_ALREADY_ENABLED(HttpStatus.CONFLICT, "Authenticator app is already enabled"),
+    TOTP_ENROLLMENT_NOT_STARTED(HttpStatus.CONFLICT, "Start authenticator app enrollment first"),
+    /** Wrong code while confirming enrollment; the caller is signed in, so this is not a 401 */
+    TOTP_CODE_INVALID(HttpStatus.BAD_REQUEST, "Invalid code.");
+
+    private final HttpStatus status;
+    private final String defaultMessage;
+
+    AuthError(HttpStatus status, String defaultMessage) {
+        this.status = status;
+        this.defaultMessage = defaultMessage;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bankportal.auth.exception;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An expected auth failure: wrong password, bad OTP, lockout, cooldown, duplicate email.
+ *
+ * These are most of the traffic under credential stuffing, so the exception
+ * carries no stack trace and failures with the default message are shared
+ * instances; throwing one allocates nothing. Only failures whose message
+ * carries a number (attempts left, seconds to wait) are created per request.
+ */
+public class AuthException extends RuntimeException {
+
+    private static final Map<AuthError, AuthException> SHARED = new EnumMap<>(AuthError.class);
+
+    static {
+        for (AuthError error : AuthError.values()) {
+            SHARED.put(error, new AuthException(error, error.getDefaultMessage(), 0));
+        }
+    }
+
+    private final AuthError error;
+    private final int retryAfterSeconds;
+
+    public AuthException(AuthError error, String message) {
+        this(error, message, 0);
+    }
+
+    public AuthException(AuthError error, String message, int retryAfterSeconds) {
+        super(message, null, false, false);
+        this.error = error;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * The shared failure with the error's default message
+     */
+    public static AuthException of(AuthError error) {
+        return SHARED.get(error);
+    }
+
+    public AuthError getError() {
+        return error;
+    }
+
+    /**
+     * Seconds the client should wait before retrying, or 0 for no hint
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * True if this is the shared instance, whose message is the error's default
+     */
+    public boolean hasDefaultMessage() {
+        return this == SHARED.get(error);
+    }
+}
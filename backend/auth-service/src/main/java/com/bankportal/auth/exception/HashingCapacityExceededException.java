@@ -0,0 +1,20 @@
+package com.bankportal.auth.exception;
+
+/**
+ * Thrown when the password hashing pool cannot accept more work.
+ * Callers should answer 503 with a Retry-After hint instead of queueing.
+ * Thrown on every request while overloaded, so it carries no stack trace.
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+    
+    private final int retryAfterSeconds;
+    
+    public HashingCapacityExceededException(int retryAfterSeconds) {
+        super("Service is busy. Please try again shortly.", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,5 +1,7 @@
 package com.bankportal.auth.model;
 
+import com.bankportal.auth.cache.UserCacheEntityListener;
+import com.bankportal.auth.datasource.ReadYourWritesEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners({UserCacheEntityListener.class, ReadYourWritesEntityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
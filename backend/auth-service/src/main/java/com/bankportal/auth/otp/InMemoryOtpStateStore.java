@@ -0,0 +1,129 @@
+package com.bankportal.auth.otp;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OTP state kept in memory, off the users table.
+ *
+ * Every transition runs inside ConcurrentHashMap.compute, which locks only the
+ * user's bin, so users never contend with each other. An entry removes itself
+ * (returns null from compute) once nothing in it is still in force: no
+ * pending code, no lockout and no cooldown. A periodic sweep clears entries
+ * that simply went idle.
+ *
+ * State is lost on restart. The worst case is that a pending code must be
+ * re-requested or a lockout ends early. Use the jpa store when lockouts must
+ * survive restarts.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStateStore implements OtpStateStore {
+    
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+    private final OtpPolicy policy;
+    
+    @Autowired
+    public InMemoryOtpStateStore(OtpPolicy policy) {
+        this.policy = policy;
+    }
+    
+    @Override
+    public IssueResult issue(String email, String code, boolean enforceCooldown) {
+        long now = System.currentTimeMillis();
+        IssueResult[] result = new IssueResult[1];
+        states.compute(email, (key, current) -> {
+            State state = current == null ? null : current.unlockIfExpired(now);
+            if (state != null && state.lockedUntil > now) {
+                result[0] = IssueResult.LOCKED;
+                return state;
+            }
+            if (enforceCooldown && state != null && state.lastRequestAt + policy.getCooldownMillis() > now) {
+                long elapsedSeconds = (now - state.lastRequestAt) / 1000;
+                result[0] = IssueResult.cooldown(policy.getCooldownMillis() / 1000 - elapsedSeconds);
+                return state;
+            }
+            result[0] = IssueResult.ISSUED;
+            return new State(code, now + policy.getValidityMillis(), 0, 0, now);
+        });
+        return result[0];
+    }
+    
+    @Override
+    public VerifyResult verify(String email, String code) {
+        long now = System.currentTimeMillis();
+        VerifyResult[] result = new VerifyResult[1];
+        states.compute(email, (key, current) -> {
+            if (current == null) {
+                result[0] = VerifyResult.NO_OTP;
+                return null;
+            }
+            State state = current.unlockIfExpired(now);
+            if (state.lockedUntil > now) {
+                result[0] = VerifyResult.LOCKED;
+                return state;
+            }
+            if (state.code == null) {
+                result[0] = VerifyResult.NO_OTP;
+                return state.retainIfActive(now, policy);
+            }
+            if (now > state.expiresAt) {
+                result[0] = VerifyResult.EXPIRED;
+                return state;
+            }
+            if (!state.code.equals(code)) {
+                int attempts = state.attempts + 1;
+                if (attempts >= policy.getMaxAttempts()) {
+                    result[0] = VerifyResult.LOCKED_NOW;
+                    return new State(state.code, state.expiresAt, attempts, now + policy.getLockMillis(), state.lastRequestAt);
+                }
+                result[0] = VerifyResult.invalid(policy.getMaxAttempts() - attempts);
+                return new State(state.code, state.expiresAt, attempts, 0, state.lastRequestAt);
+            }
+            result[0] = VerifyResult.VERIFIED;
+            // Code consumed; keep only the resend cooldown
+            return new State(null, 0, 0, 0, state.lastRequestAt).retainIfActive(now, policy);
+        });
+        return result[0];
+    }
+    
+    /**
+     * Number of users with live OTP state
+     */
+    public int size() {
+        return states.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${auth.otp.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        states.forEach((email, state) ->
+                states.computeIfPresent(email, (key, current) -> current.retainIfActive(now, policy)));
+    }
+    
+    /**
+     * Immutable per-user state; times are epoch millis, 0 means unset
+     */
+    private record State(String code, long expiresAt, int attempts, long lockedUntil, long lastRequestAt) {
+        
+        /**
+         * A lapsed lockout clears the failed attempt count, as the DB-backed flow always did
+         */
+        State unlockIfExpired(long now) {
+            return lockedUntil != 0 && lockedUntil <= now
+                    ? new State(code, expiresAt, 0, 0, lastRequestAt)
+                    : this;
+        }
+        
+        State retainIfActive(long now, OtpPolicy policy) {
+            boolean pending = code != null && expiresAt > now;
+            boolean locked = lockedUntil > now;
+            boolean coolingDown = lastRequestAt + policy.getCooldownMillis() > now;
+            return pending || locked || coolingDown ? this : null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bankportal.auth.otp;
+
+import com.bankportal.auth.datasource.ReadRouting;
+import com.bankportal.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP state persisted in the otp_* columns of the users table.
+ *
+ * Survives restarts and is shared by every instance. Each transition is one
+ * conditional UPDATE that checks and changes the row atomically in SQL, so
+ * the common paths cost a single round trip and concurrent verifications
+ * can't lose attempts. Only when an update matches nothing is the row read
+ * to report why, on the primary so a lagging replica can't contradict the update.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.otp.store", havingValue = "jpa")
+public class JpaOtpStateStore implements OtpStateStore {
+    
+    /** Re-run a verification whose row changed between the update and the follow-up read */
+    private static final int MAX_VERIFY_ROUNDS = 3;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OtpPolicy policy;
+    
+    @Autowired
+    private ReadRouting readRouting;
+    
+    @Override
+    public IssueResult issue(String email, String code, boolean enforceCooldown) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cooldownStart = now.minusNanos(policy.getCooldownMillis() * 1_000_000);
+        if (userRepository.issueOtp(email, code, now.plusNanos(policy.getValidityMillis() * 1_000_000),
+                now, enforceCooldown, cooldownStart) == 1) {
+            return IssueResult.ISSUED;
+        }
+        
+        Optional<UserRepository.OtpColumns> found = readRouting.onPrimary(() -> userRepository.findOtpColumnsByEmail(email));
+        if (found.isEmpty() || isLocked(found.get(), now) || found.get().getLastOtpRequest() == null) {
+            return IssueResult.LOCKED;
+        }
+        long elapsedSeconds = Duration.between(found.get().getLastOtpRequest(), now).getSeconds();
+        return IssueResult.cooldown(Math.max(1, policy.getCooldownMillis() / 1000 - elapsedSeconds));
+    }
+    
+    @Override
+    public VerifyResult verify(String email, String code) {
+        for (int round = 0; round < MAX_VERIFY_ROUNDS; round++) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<UserRepository.OtpAttempt> attempt = userRepository.attemptOtp(email, code, now,
+                    policy.getMaxAttempts(), now.plusMinutes(policy.getLockMinutes()));
+            if (attempt.isPresent()) {
+                if (attempt.get().getVerified()) {
+                    return VerifyResult.VERIFIED;
+                }
+                int attempts = attempt.get().getAttempts();
+                return attempts >= policy.getMaxAttempts()
+                        ? VerifyResult.LOCKED_NOW
+                        : VerifyResult.invalid(policy.getMaxAttempts() - attempts);
+            }
+            
+            Optional<UserRepository.OtpColumns> found = readRouting.onPrimary(() -> userRepository.findOtpColumnsByEmail(email));
+            if (found.isEmpty()) {
+                return VerifyResult.NO_OTP;
+            }
+            UserRepository.OtpColumns otp = found.get();
+            if (isLocked(otp, now)) {
+                return VerifyResult.LOCKED;
+            }
+            if (otp.getOtpCode() == null || otp.getOtpExpiry() == null) {
+                return VerifyResult.NO_OTP;
+            }
+            if (now.isAfter(otp.getOtpExpiry())) {
+                return VerifyResult.EXPIRED;
+            }
+            // A pending, valid OTP: a new code was issued between the statements; go again
+        }
+        return VerifyResult.NO_OTP;
+    }
+    
+    private static boolean isLocked(UserRepository.OtpColumns otp, LocalDateTime now) {
+        return otp.getOtpLockedUntil() != null && !now.isAfter(otp.getOtpLockedUntil());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bankportal.auth.otp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * OTP lifetime, resend cooldown and lockout rules shared by every OtpStateStore.
+ */
+@Component
+public class OtpPolicy {
+    
+    private final long validityMillis;
+    private final long cooldownMillis;
+    private final int maxAttempts;
+    private final long lockMillis;
+    
+    public OtpPolicy(@Value("${auth.otp.validity-seconds:300}") long validitySeconds,
+                     @Value("${auth.otp.cooldown-seconds:60}") long cooldownSeconds,
+                     @Value("${auth.otp.max-attempts:3}") int maxAttempts,
+                     @Value("${auth.otp.lock-minutes:15}") long lockMinutes) {
+        this.validityMillis = validitySeconds * 1000;
+        this.cooldownMillis = cooldownSeconds * 1000;
+        this.maxAttempts = maxAttempts;
+        this.lockMillis = lockMinutes * 60_000;
+    }
+    
+    public long getValidityMillis() {
+        return validityMillis;
+    }
+    
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    public long getLockMillis() {
+        return lockMillis;
+    }
+    
+    public long getLockMinutes() {
+        return lockMillis / 60_000;
+    }
+}
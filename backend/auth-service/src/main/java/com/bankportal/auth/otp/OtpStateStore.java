@@ -0,0 +1,54 @@
+package com.bankportal.auth.otp;
+
+/**
+ * Holds per-user OTP state: the pending code, failed attempts, lockout and
+ * last request time.
+ *
+ * Each operation is one atomic transition, so concurrent verify calls for the
+ * same user can't lose attempt increments. Implementations are selected with
+ * auth.otp.store ("memory" or "jpa").
+ */
+public interface OtpStateStore {
+    
+    /**
+     * Store a new code and reset attempts, unless the user is locked out or
+     * (when enforceCooldown is set) asked for a code too recently
+     */
+    IssueResult issue(String email, String code, boolean enforceCooldown);
+    
+    /**
+     * Check a submitted code, counting failures and locking after too many
+     */
+    VerifyResult verify(String email, String code);
+    
+    enum IssueStatus { ISSUED, LOCKED, COOLDOWN }
+    
+    enum VerifyStatus { VERIFIED, LOCKED, NO_OTP, EXPIRED, INVALID, LOCKED_NOW }
+    
+    /**
+     * @param retryAfterSeconds seconds until another code may be requested (COOLDOWN only)
+     */
+    record IssueResult(IssueStatus status, long retryAfterSeconds) {
+        public static final IssueResult ISSUED = new IssueResult(IssueStatus.ISSUED, 0);
+        public static final IssueResult LOCKED = new IssueResult(IssueStatus.LOCKED, 0);
+        
+        public static IssueResult cooldown(long retryAfterSeconds) {
+            return new IssueResult(IssueStatus.COOLDOWN, retryAfterSeconds);
+        }
+    }
+    
+    /**
+     * @param remainingAttempts attempts left before lockout (INVALID only)
+     */
+    record VerifyResult(VerifyStatus status, int remainingAttempts) {
+        public static final VerifyResult VERIFIED = new VerifyResult(VerifyStatus.VERIFIED, 0);
+        public static final VerifyResult LOCKED = new VerifyResult(VerifyStatus.LOCKED, 0);
+        public static final VerifyResult NO_OTP = new VerifyResult(VerifyStatus.NO_OTP, 0);
+        public static final VerifyResult EXPIRED = new VerifyResult(VerifyStatus.EXPIRED, 0);
+        public static final VerifyResult LOCKED_NOW = new VerifyResult(VerifyStatus.LOCKED_NOW, 0);
+        
+        public static VerifyResult invalid(int remainingAttempts) {
+            return new VerifyResult(VerifyStatus.INVALID, remainingAttempts);
+        }
+    }
+}
@@ -1,13 +1,124 @@
 package com.bankportal.auth.repository;
 
+import com.bankportal.auth.cache.UserCredentials;
 import com.bankportal.auth.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Lookups are read-only transactions so that, with read replicas configured, they run on a replica.
+    // Inherited finders (findById, count) are read-only already.
+    
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
+    
+    @Transactional(readOnly = true)
     boolean existsByEmail(String email);
+    
+    /**
+     * Every registered email, fetched in batches. Must be consumed inside a transaction and closed.
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.email from User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamAllEmails();
+    
+    @Transactional(readOnly = true)
+    @Query("select u.email from User u where u.createdAt >= :since")
+    List<String> findEmailsCreatedSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * Login and profile fields only; skips the MFA secret and OTP columns and the persistence context
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.bankportal.auth.cache.UserCredentials(u.id, u.email, u.name, u.password, u.role, "
+            + "coalesce(u.mfaEnabled, false), u.mfaMethod, u.createdAt) from User u where u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+    
+    /**
+     * Encrypted TOTP secret only; empty if the user has none
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.mfaSecret from User u where u.email = :email and u.mfaSecret is not null")
+    Optional<String> findMfaSecretByEmail(@Param("email") String email);
+    
+    /**
+     * OTP columns only, used to explain why a conditional OTP update matched no row
+     */
+    @Transactional(readOnly = true)
+    Optional<OtpColumns> findOtpColumnsByEmail(String email);
+    
+    // OTP transitions below are single conditional statements, so concurrent requests
+    // can't lose each other's updates. They touch only otp_* columns: no dirty checking,
+    // no updated_at bump, and nothing the credential cache holds.
+    
+    /**
+     * Store a new code unless the account is locked or, when enforced, still in its cooldown.
+     * A lapsed lock is cleared along the way.
+     *
+     * @return 1 if the code was issued, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.otpCode = :code, u.otpExpiry = :expiry, u.otpAttempts = 0, "
+            + "u.otpLockedUntil = null, u.lastOtpRequest = :now "
+            + "where u.email = :email "
+            + "and (u.otpLockedUntil is null or u.otpLockedUntil < :now) "
+            + "and (:enforceCooldown = false or u.lastOtpRequest is null or u.lastOtpRequest <= :cooldownStart)")
+    int issueOtp(@Param("email") String email,
+                 @Param("code") String code,
+                 @Param("expiry") LocalDateTime expiry,
+                 @Param("now") LocalDateTime now,
+                 @Param("enforceCooldown") boolean enforceCooldown,
+                 @Param("cooldownStart") LocalDateTime cooldownStart);
+    
+    /**
+     * Check a code against a pending, unexpired OTP on an unlocked account, in one statement.
+     * A match consumes the OTP. A mismatch counts an attempt (a lapsed lock restarts the count)
+     * and locks the account once the limit is reached. SET expressions see the old row,
+     * RETURNING sees the new one.
+     *
+     * @return the outcome, or empty if there was no pending OTP to check against
+     */
+    @Transactional
+    @Query(value = "UPDATE users SET "
+            + "otp_code = CASE WHEN otp_code = :code THEN NULL ELSE otp_code END, "
+            + "otp_expiry = CASE WHEN otp_code = :code THEN NULL ELSE otp_expiry END, "
+            + "otp_attempts = CASE WHEN otp_code = :code THEN 0 "
+            + "WHEN otp_locked_until IS NOT NULL THEN 1 ELSE COALESCE(otp_attempts, 0) + 1 END, "
+            + "otp_locked_until = CASE WHEN otp_code <> :code AND (CASE WHEN otp_locked_until IS NOT NULL THEN 1 "
+            + "ELSE COALESCE(otp_attempts, 0) + 1 END) >= :maxAttempts THEN CAST(:lockUntil AS timestamp) ELSE NULL END "
+            + "WHERE email = :email AND otp_code IS NOT NULL AND otp_expiry >= :now "
+            + "AND (otp_locked_until IS NULL OR otp_locked_until < :now) "
+            + "RETURNING otp_code IS NULL AS verified, otp_attempts AS attempts", nativeQuery = true)
+    Optional<OtpAttempt> attemptOtp(@Param("email") String email,
+                                    @Param("code") String code,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("maxAttempts") int maxAttempts,
+                                    @Param("lockUntil") LocalDateTime lockUntil);
+    
+    interface OtpAttempt {
+        boolean getVerified();
+        int getAttempts();
+    }
+    
+    interface OtpColumns {
+        String getOtpCode();
+        LocalDateTime getOtpExpiry();
+        LocalDateTime getOtpLockedUntil();
+        LocalDateTime getLastOtpRequest();
+    }
 }
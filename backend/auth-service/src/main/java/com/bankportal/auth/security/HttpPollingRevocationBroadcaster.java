@@ -0,0 +1,83 @@
+package com.bankportal.auth.security;
+
+import com.bankportal.auth.dto.RevocationFeedResponse;
+import com.bankportal.common.security.RevokedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Pulls revocations from peer auth-service instances.
+ *
+ * Every instance already serves its own revocations at /internal/revocations,
+ * so publishing is a no-op. This broadcaster polls each peer's feed from the
+ * last cursor it saw and hands new entries to subscribers.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.revocation.broadcast", havingValue = "http")
+public class HttpPollingRevocationBroadcaster implements RevocationBroadcaster {
+    
+    private static final Logger log = LoggerFactory.getLogger(HttpPollingRevocationBroadcaster.class);
+    private static final int TIMEOUT_MILLIS = 2000;
+    
+    private final RestClient restClient;
+    private final List<Consumer<RevokedToken>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+    private final List<String> peers;
+    
+    public HttpPollingRevocationBroadcaster(@Value("${auth.revocation.peers:}") List<String> peers,
+                                            InternalApiSecret internalApiSecret) {
+        // Polls run on the shared scheduler: a hung peer must not hold it
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(TIMEOUT_MILLIS);
+        requestFactory.setReadTimeout(TIMEOUT_MILLIS);
+        this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeader(InternalApiSecret.HEADER, internalApiSecret.value())
+                .build();
+        this.peers = peers;
+    }
+    
+    @Override
+    public void publish(RevokedToken token) {
+        // Peers pull from this instance's feed
+    }
+    
+    @Override
+    public void subscribe(Consumer<RevokedToken> listener) {
+        listeners.add(listener);
+    }
+    
+    @Scheduled(fixedDelayString = "${auth.revocation.poll-interval-ms:1000}")
+    public void poll() {
+        for (String peer : peers) {
+            try {
+                long since = cursors.getOrDefault(peer, 0L);
+                RevocationFeedResponse feed = restClient.get()
+                        .uri(peer + "/internal/revocations?since={since}", since)
+                        .retrieve()
+                        .body(RevocationFeedResponse.class);
+                if (feed == null) {
+                    continue;
+                }
+                for (RevokedToken token : feed.getTokens()) {
+                    listeners.forEach(listener -> listener.accept(token));
+                }
+                cursors.put(peer, feed.getCursor());
+            } catch (Exception e) {
+                log.warn("Failed to poll revocations from {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+}
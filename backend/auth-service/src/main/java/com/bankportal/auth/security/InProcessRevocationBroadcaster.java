@@ -0,0 +1,34 @@
+package com.bankportal.auth.security;
+
+import com.bankportal.common.security.RevokedToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers revocations to subscribers in the same JVM.
+ *
+ * The default for single-instance deployments. Tests can also share one
+ * instance between several revocation services to simulate a cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.revocation.broadcast", havingValue = "in-process", matchIfMissing = true)
+public class InProcessRevocationBroadcaster implements RevocationBroadcaster {
+    
+    private final List<Consumer<RevokedToken>> listeners = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public void publish(RevokedToken token) {
+        for (Consumer<RevokedToken> listener : listeners) {
+            listener.accept(token);
+        }
+    }
+    
+    @Override
+    public void subscribe(Consumer<RevokedToken> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bankportal.auth.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret for the /internal feeds, which list revoked token ids and the
+ * emails of recently written users, so they must not be readable by anyone
+ * who can reach the port. Peers and the gateway send it in {@link #HEADER}.
+ *
+ * Comes from auth.internal.secret and must be the same on every instance and
+ * on the gateway (gateway.auth.internal-secret); the service refuses to start
+ * without one.
+ */
+@Component
+public class InternalApiSecret {
+
+    public static final String HEADER = "X-Internal-Secret";
+    private static final int MIN_LENGTH = 16;
+
+    private final String value;
+    private final byte[] bytes;
+
+    public InternalApiSecret(@Value("${auth.internal.secret:}") String value) {
+        if (value == null || value.strip().length() < MIN_LENGTH) {
+            throw new IllegalStateException("auth.internal.secret (INTERNAL_API_SECRET) must be set to the same value, "
+                    + "at least " + MIN_LENGTH + " characters, on every instance and the gateway");
+        }
+        this.value = value.strip();
+        this.bytes = this.value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether the request carries the secret; compared in constant time
+     */
+    public boolean matches(HttpServletRequest request) {
+        String presented = request.getHeader(HEADER);
+        return presented != null && MessageDigest.isEqual(bytes, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * For requests to peers' feeds
+     */
+    public String value() {
+        return value;
+    }
+}
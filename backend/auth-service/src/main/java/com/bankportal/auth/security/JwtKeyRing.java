@@ -0,0 +1,142 @@
+package com.bankportal.auth.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotating, in-memory ES256 key ring for access tokens.
+ *
+ * The ring always holds the current signing key, the next key (published
+ * ahead of use so verifier caches are warm when rotation happens) and
+ * retired keys that may still have unexpired tokens in circulation.
+ * Readers see an immutable snapshot swapped atomically on rotation, so
+ * signing and verification never lock.
+ */
+@Component
+public class JwtKeyRing {
+    
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+    
+    private final Duration tokenTtl;
+    private volatile Snapshot snapshot;
+    
+    public JwtKeyRing(@Value("${auth.jwt.ttl-seconds:900}") long ttlSeconds) {
+        this.tokenTtl = Duration.ofSeconds(ttlSeconds);
+        ECKey current = generateKey();
+        this.snapshot = Snapshot.of(current, generateKey(), List.of());
+    }
+    
+    /**
+     * Promote the next key to signing key and retire the current one
+     */
+    @Scheduled(fixedDelayString = "${auth.jwt.rotation-interval-seconds:3600}",
+            initialDelayString = "${auth.jwt.rotation-interval-seconds:3600}",
+            timeUnit = TimeUnit.SECONDS)
+    public void rotate() {
+        Snapshot previous = snapshot;
+        Instant now = Instant.now();
+        
+        List<RetiredKey> retired = new ArrayList<>();
+        retired.add(new RetiredKey(previous.signingKey(), now.plus(tokenTtl)));
+        for (RetiredKey key : previous.retired()) {
+            if (key.retainUntil().isAfter(now)) {
+                retired.add(key);
+            }
+        }
+        
+        snapshot = Snapshot.of(previous.nextKey(), generateKey(), retired);
+        log.info("Rotated JWT signing key to {} ({} retired key(s) still published)",
+                snapshot.signingKey().getKeyID(), retired.size());
+    }
+    
+    public String getSigningKeyId() {
+        return snapshot.signingKey().getKeyID();
+    }
+    
+    public JWSSigner getSigner() {
+        return snapshot.signer();
+    }
+    
+    /**
+     * Verifier for a key id, or null if the key is unknown or has been dropped
+     */
+    public JWSVerifier getVerifier(String keyId) {
+        return keyId == null ? null : snapshot.verifiers().get(keyId);
+    }
+    
+    /**
+     * Public JWK set in JSON object form, as served from the JWKS endpoint
+     */
+    public Map<String, Object> getPublicJwks() {
+        return snapshot.publicJwks();
+    }
+    
+    private static ECKey generateKey() {
+        try {
+            return new ECKeyGenerator(Curve.P_256)
+                    .keyID(UUID.randomUUID().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unable to generate JWT signing key", e);
+        }
+    }
+    
+    private record RetiredKey(ECKey key, Instant retainUntil) {
+    }
+    
+    private record Snapshot(ECKey signingKey,
+                            ECKey nextKey,
+                            List<RetiredKey> retired,
+                            JWSSigner signer,
+                            Map<String, JWSVerifier> verifiers,
+                            Map<String, Object> publicJwks) {
+        
+        static Snapshot of(ECKey signingKey, ECKey nextKey, List<RetiredKey> retired) {
+            try {
+                List<ECKey> published = new ArrayList<>();
+                published.add(signingKey);
+                published.add(nextKey);
+                retired.forEach(key -> published.add(key.key()));
+                
+                Map<String, JWSVerifier> verifiers = new HashMap<>();
+                for (ECKey key : published) {
+                    verifiers.put(key.getKeyID(), new ECDSAVerifier(key.toPublicJWK()));
+                }
+                
+                JWKSet publicSet = new JWKSet(new ArrayList<>(published)).toPublicJWKSet();
+                return new Snapshot(signingKey, nextKey, List.copyOf(retired),
+                        new ECDSASigner(signingKey),
+                        Collections.unmodifiableMap(verifiers),
+                        Collections.unmodifiableMap(publicSet.toJSONObject(true)));
+            } catch (JOSEException e) {
+                throw new IllegalStateException("Unable to build JWT key ring", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.bankportal.auth.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verification keys of the other auth-service instances.
+ *
+ * Each instance signs with its own key ring, so a token issued by a peer is
+ * unknown to {@link JwtKeyRing} here. Peer JWKS are fetched on a fixed
+ * interval; an unknown key id triggers an early refresh, throttled so forged
+ * key ids cannot turn into a flood of requests to the peers.
+ */
+@Component
+public class PeerJwksCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerJwksCache.class);
+    private static final String JWKS_PATH = "/api/auth/.well-known/jwks.json";
+    private static final int TIMEOUT_MILLIS = 2000;
+
+    private final RestClient restClient;
+    private final List<String> peers;
+    private final long minRefreshGapMillis;
+    private final AtomicLong lastRefreshAt = new AtomicLong();
+    private final Map<String, Map<String, JWSVerifier>> keysByPeer = new HashMap<>();
+    private volatile Map<String, JWSVerifier> verifiers = Collections.emptyMap();
+
+    public PeerJwksCache(@Value("${auth.jwt.peers:}") List<String> peers,
+                         @Value("${auth.jwt.peer-min-refresh-gap-seconds:10}") long minRefreshGapSeconds) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(TIMEOUT_MILLIS);
+        requestFactory.setReadTimeout(TIMEOUT_MILLIS);
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.peers = peers.stream().filter(peer -> !peer.isBlank()).toList();
+        this.minRefreshGapMillis = minRefreshGapSeconds * 1000;
+    }
+
+    /**
+     * Verifier for a peer's key id, or null if no peer publishes it
+     */
+    public JWSVerifier getVerifier(String keyId) {
+        if (keyId == null || peers.isEmpty()) {
+            return null;
+        }
+        JWSVerifier verifier = verifiers.get(keyId);
+        if (verifier != null) {
+            return verifier;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastRefreshAt.get();
+        if (now - last < minRefreshGapMillis || !lastRefreshAt.compareAndSet(last, now)) {
+            return null;
+        }
+        return refresh().get(keyId);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwt.peer-refresh-seconds:300}", timeUnit = TimeUnit.SECONDS)
+    public void scheduledRefresh() {
+        if (!peers.isEmpty()) {
+            lastRefreshAt.set(System.currentTimeMillis());
+            refresh();
+        }
+    }
+
+    /**
+     * Fetch every peer's JWKS and swap in the merged key map; a peer that
+     * can't be reached keeps its previously fetched keys
+     */
+    private synchronized Map<String, JWSVerifier> refresh() {
+        for (String peer : peers) {
+            try {
+                String json = restClient.get()
+                        .uri(peer + JWKS_PATH)
+                        .retrieve()
+                        .body(String.class);
+                if (json != null) {
+                    keysByPeer.put(peer, toVerifiers(json));
+                }
+            } catch (Exception e) {
+                log.warn("Failed to fetch JWKS from {}: {}", peer, e.getMessage());
+            }
+        }
+        Map<String, JWSVerifier> merged = new HashMap<>();
+        keysByPeer.values().forEach(merged::putAll);
+        verifiers = Collections.unmodifiableMap(merged);
+        return verifiers;
+    }
+
+    private static Map<String, JWSVerifier> toVerifiers(String json) throws ParseException, JOSEException {
+        Map<String, JWSVerifier> keys = new HashMap<>();
+        for (JWK jwk : JWKSet.parse(json).getKeys()) {
+            if (jwk instanceof ECKey ecKey && jwk.getKeyID() != null) {
+                keys.put(jwk.getKeyID(), new ECDSAVerifier(ecKey));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,23 @@
+package com.bankportal.auth.security;
+
+import com.bankportal.common.security.RevokedToken;
+
+import java.util.function.Consumer;
+
+/**
+ * Propagates token revocations between auth-service instances.
+ *
+ * Implementations are selected with auth.revocation.broadcast.
+ */
+public interface RevocationBroadcaster {
+    
+    /**
+     * Announce a revocation made on this instance
+     */
+    void publish(RevokedToken token);
+    
+    /**
+     * Receive revocations, including ones made on other instances
+     */
+    void subscribe(Consumer<RevokedToken> listener);
+}
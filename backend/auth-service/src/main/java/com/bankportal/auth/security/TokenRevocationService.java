@@ -0,0 +1,91 @@
+package com.bankportal.auth.security;
+
+import com.bankportal.auth.dto.RevocationFeedResponse;
+import com.bankportal.common.security.RevocationSet;
+import com.bankportal.common.security.RevokedToken;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks revoked access tokens until they expire naturally.
+ *
+ * Local revocations are also appended to a bounded feed that the gateway and
+ * peer instances poll with a cursor. A poller that has fallen further behind
+ * than the feed holds gets a full snapshot instead (reset = true).
+ */
+@Service
+public class TokenRevocationService {
+    
+    private static final int MAX_FEED_PAGE = 1000;
+    
+    @Autowired
+    private RevocationBroadcaster broadcaster;
+    
+    @Value("${auth.revocation.feed-capacity:65536}")
+    private int feedCapacity;
+    
+    private final RevocationSet revoked;
+    private RevokedToken[] feed;
+    private long feedSequence;
+    
+    public TokenRevocationService(@Value("${auth.jwt.ttl-seconds:900}") long ttlSeconds,
+                                  @Value("${auth.revocation.expected-per-bucket:10000}") long expectedPerBucket) {
+        // Four expiry buckets per token lifetime keeps stale filters short-lived
+        this.revoked = new RevocationSet(Math.max(1000, ttlSeconds * 1000 / 4), expectedPerBucket, 0.01);
+    }
+    
+    @PostConstruct
+    public void init() {
+        feed = new RevokedToken[feedCapacity];
+        broadcaster.subscribe(revoked::add);
+    }
+    
+    /**
+     * Revoke a token until its expiry
+     */
+    public void revoke(String tokenId, long expiresAtMillis) {
+        RevokedToken token = new RevokedToken(tokenId, expiresAtMillis);
+        if (revoked.add(token)) {
+            synchronized (this) {
+                feed[(int) (feedSequence % feed.length)] = token;
+                feedSequence++;
+            }
+            broadcaster.publish(token);
+        }
+    }
+    
+    public boolean isRevoked(String tokenId) {
+        return revoked.isRevoked(tokenId);
+    }
+    
+    /**
+     * Revocations made on this instance after the given cursor
+     */
+    public synchronized RevocationFeedResponse feedSince(long since) {
+        long oldest = Math.max(0, feedSequence - feed.length);
+        if (since < oldest || since > feedSequence) {
+            return new RevocationFeedResponse(feedSequence, true, revoked.snapshot());
+        }
+        long end = Math.min(feedSequence, since + MAX_FEED_PAGE);
+        List<RevokedToken> tokens = new ArrayList<>((int) (end - since));
+        for (long seq = since; seq < end; seq++) {
+            tokens.add(feed[(int) (seq % feed.length)]);
+        }
+        return new RevocationFeedResponse(end, false, tokens);
+    }
+    
+    public int size() {
+        return revoked.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        revoked.purgeExpired();
+    }
+}
@@ -0,0 +1,147 @@
+package com.bankportal.auth.security;
+
+import com.bankportal.auth.model.User;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and verifies compact ES256 access tokens.
+ *
+ * Tokens are self-contained: subject (user id), role, MFA state and expiry
+ * travel in the claims, so any service holding the published JWKS can
+ * validate them without calling back into auth-service.
+ */
+@Service
+public class TokenService {
+    
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_MFA_ENABLED = "mfa";
+    public static final String CLAIM_AUTH_METHODS = "amr";
+    
+    public static final String ROLE_ADMIN = "admin";
+    
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final List<String> PASSWORD_ONLY = List.of("pwd");
+    private static final List<String> PASSWORD_AND_OTP = List.of("pwd", "otp");
+    
+    @Autowired
+    private JwtKeyRing keyRing;
+    
+    @Autowired
+    private PeerJwksCache peerKeys;
+    
+    @Autowired
+    private TokenRevocationService revocationService;
+    
+    @Value("${auth.jwt.issuer:bank-portal-auth}")
+    private String issuer;
+    
+    @Value("${auth.jwt.ttl-seconds:900}")
+    private long ttlSeconds;
+    
+    /**
+     * Issue a signed access token for the user
+     *
+     * @param user The authenticated user
+     * @param mfaCompleted Whether a second factor was verified for this session
+     * @return Compact serialized JWT
+     */
+    public String issue(User user, boolean mfaCompleted) {
+        long now = System.currentTimeMillis();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(String.valueOf(user.getId()))
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(new Date(now))
+                .expirationTime(new Date(now + ttlSeconds * 1000))
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_ROLE, user.getRole())
+                .claim(CLAIM_MFA_ENABLED, Boolean.TRUE.equals(user.getMfaEnabled()))
+                .claim(CLAIM_AUTH_METHODS, mfaCompleted ? PASSWORD_AND_OTP : PASSWORD_ONLY)
+                .build();
+        
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .type(JOSEObjectType.JWT)
+                .keyID(keyRing.getSigningKeyId())
+                .build();
+        
+        SignedJWT jwt = new SignedJWT(header, claims);
+        try {
+            jwt.sign(keyRing.getSigner());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unable to sign access token", e);
+        }
+        return jwt.serialize();
+    }
+    
+    /**
+     * Verify signature, issuer, expiry and revocation status of a token issued by any instance
+     *
+     * @param token Compact serialized JWT
+     * @return The claims if the token is valid, empty otherwise
+     */
+    public Optional<JWTClaimsSet> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            if (!JWSAlgorithm.ES256.equals(jwt.getHeader().getAlgorithm())) {
+                return Optional.empty();
+            }
+            // Tokens issued by another instance carry one of that instance's keys
+            String keyId = jwt.getHeader().getKeyID();
+            JWSVerifier verifier = keyRing.getVerifier(keyId);
+            if (verifier == null) {
+                verifier = peerKeys.getVerifier(keyId);
+            }
+            if (verifier == null || !jwt.verify(verifier)) {
+                return Optional.empty();
+            }
+            
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            Date expiry = claims.getExpirationTime();
+            if (!issuer.equals(claims.getIssuer()) || expiry == null || expiry.getTime() <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            if (revocationService.isRevoked(claims.getJWTID())) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (ParseException | JOSEException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Verify the token carried in an Authorization header
+     *
+     * @param authorization Header value, "Bearer &lt;token&gt;"
+     * @return The claims if a valid token is present, empty otherwise
+     */
+    public Optional<JWTClaimsSet> verifyBearer(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        return verify(authorization.substring(BEARER_PREFIX.length()).trim());
+    }
+    
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+}
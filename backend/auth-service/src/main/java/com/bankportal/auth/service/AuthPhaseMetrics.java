@@ -0,0 +1,69 @@
+package com.bankportal.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the phases of the login, registration and OTP flows, published as
+ * auth.phase.time tagged by phase. Each carries a percentile histogram so tail
+ * latency can be aggregated across instances and attributed to a phase: a slow
+ * p99 login shows up as either lookup, verify, otp or token.
+ */
+@Component
+public class AuthPhaseMetrics {
+
+    /** Email filter, credential cache and database lookup */
+    private final Timer lookup;
+    /** Argon2 verification, including the dummy hash for unknown emails and time queued for the pool */
+    private final Timer verify;
+    /** Argon2 hashing of a new or upgraded password */
+    private final Timer hash;
+    /** Writing the user row on registration or rehash */
+    private final Timer persist;
+    /** Issuing or checking an OTP against the state store */
+    private final Timer otp;
+    /** Signing the access token */
+    private final Timer token;
+
+    public AuthPhaseMetrics(MeterRegistry meterRegistry) {
+        this.lookup = timer(meterRegistry, "lookup");
+        this.verify = timer(meterRegistry, "verify");
+        this.hash = timer(meterRegistry, "hash");
+        this.persist = timer(meterRegistry, "persist");
+        this.otp = timer(meterRegistry, "otp");
+        this.token = timer(meterRegistry, "token");
+    }
+
+    public Timer lookup() {
+        return lookup;
+    }
+
+    public Timer verify() {
+        return verify;
+    }
+
+    public Timer hash() {
+        return hash;
+    }
+
+    public Timer persist() {
+        return persist;
+    }
+
+    public Timer otp() {
+        return otp;
+    }
+
+    public Timer token() {
+        return token;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("auth.phase.time")
+                .description("Time spent in one phase of an authentication flow")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,18 +1,29 @@
 package com.bankportal.auth.service;
 
+import com.bankportal.auth.audit.AuditEventType;
+import com.bankportal.auth.audit.AuditLog;
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.bankportal.auth.cache.UserCredentials;
+import com.bankportal.auth.datasource.ReadRouting;
 import com.bankportal.auth.dto.*;
+import com.bankportal.auth.exception.AuthError;
+import com.bankportal.auth.exception.AuthException;
+import com.bankportal.auth.exception.HashingCapacityExceededException;
 import com.bankportal.auth.model.User;
+import com.bankportal.auth.otp.OtpPolicy;
+import com.bankportal.auth.otp.OtpStateStore;
 import com.bankportal.auth.repository.UserRepository;
+import com.bankportal.auth.security.TokenRevocationService;
+import com.bankportal.auth.security.TokenService;
+import com.bankportal.auth.totp.MfaChallenge;
+import com.bankportal.auth.totp.TotpService;
 import com.bankportal.auth.util.PasswordValidator;
-import de.mkammerer.argon2.Argon2;
-import de.mkammerer.argon2.Argon2Factory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -20,16 +31,52 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
     
-    private final Argon2 argon2 = Argon2Factory.create();
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private OtpStateStore otpStateStore;
+    
+    @Autowired
+    private OtpPolicy otpPolicy;
+    
+    @Autowired
+    private EmailMembershipFilter emailMembershipFilter;
+    
+    @Autowired
+    private UserCredentialCache userCredentialCache;
+    
+    @Autowired
+    private AuditLog auditLog;
+    
+    @Autowired
+    private AuthPhaseMetrics phaseMetrics;
+    
+    @Autowired
+    private TotpService totpService;
+    
+    @Autowired
+    private MfaChallenge mfaChallenge;
+    
+    @Autowired
+    private ReadRouting readRouting;
+    
     private final SecureRandom secureRandom = new SecureRandom();
     
     /**
      * Register a new user
      */
     public AuthResponse register(RegisterRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already registered");
+        // Check if user already exists (the filter rules out most new emails without a query)
+        if (phaseMetrics.lookup().record(() -> emailMembershipFilter.mightExist(request.getEmail())
+                && readRouting.read(request.getEmail(), () -> userRepository.existsByEmail(request.getEmail())))) {
+            throw AuthException.of(AuthError.EMAIL_ALREADY_REGISTERED);
         }
         
         // Validate password strength
@@ -37,7 +84,7 @@ public class AuthService {
             PasswordValidator.validate(request.getPassword());
         
         if (!validation.isValid()) {
-            throw new RuntimeException("Password validation failed: " + validation.getErrorMessage());
+            throw new AuthException(AuthError.WEAK_PASSWORD, "Password validation failed: " + validation.getErrorMessage());
         }
         
         // Create new user
@@ -49,10 +96,22 @@ public class AuthService {
         user.setMfaEnabled(false);
         
         // Save user
-        user = userRepository.save(user);
+        User unsaved = user;
+        try {
+            user = phaseMetrics.persist().record(() -> userRepository.save(unsaved));
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently, or on another instance before this one's filter saw it
+            if (userRepository.existsByEmail(request.getEmail())) {
+                emailMembershipFilter.add(request.getEmail());
+                throw AuthException.of(AuthError.EMAIL_ALREADY_REGISTERED);
+            }
+            throw e;
+        }
+        emailMembershipFilter.add(user.getEmail());
+        auditLog.record(AuditEventType.REGISTER, user.getId(), user.getEmail());
         
         // Generate token
-        String token = generateToken();
+        String token = generateToken(user, false);
         
         // Convert to DTO
         UserDto userDto = convertToDto(user);
@@ -69,29 +128,43 @@ public class AuthService {
      * Login user
      */
     public AuthResponse login(LoginRequest request) {
-        // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+        // Find user by email; unknown emails still pay for a hash, so timing differs only by the skipped lookup
+        User user = findUser(request.getEmail()).orElse(null);
+        if (user == null) {
+            phaseMetrics.verify().record(() -> passwordHashingService.verifyDummy(request.getPassword()));
+            auditLog.record(AuditEventType.LOGIN_FAILURE, null, request.getEmail());
+            throw AuthException.of(AuthError.INVALID_CREDENTIALS);
+        }
         
         // Verify password
         if (!verifyPassword(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid email or password");
+            auditLog.record(AuditEventType.LOGIN_FAILURE, user.getId(), user.getEmail());
+            throw AuthException.of(AuthError.INVALID_CREDENTIALS);
         }
         
+        // Upgrade hashes created under an older cost policy
+        rehashIfNeeded(user, request.getPassword());
+        
         // Check if MFA is enabled
         if (user.getMfaEnabled() != null && user.getMfaEnabled()) {
-            // Check if account is locked
-            if (isAccountLocked(user)) {
-                throw new RuntimeException("Account temporarily locked. Please try again later.");
+            // Authenticator app users have nothing to send or store; the challenge ties the code to this login
+            if (usesTotp(user)) {
+                return AuthResponse.builder()
+                        .mfaRequired(true)
+                        .mfaMethod(TotpService.METHOD_TOTP)
+                        .mfaToken(mfaChallenge.issue(user.getId()))
+                        .message("Enter the code from your authenticator app")
+                        .build();
             }
             
-            // Generate and send OTP
+            // Generate and send OTP (refused while the account is locked)
             String otp = generateOtp();
-            user.setOtpCode(otp);
-            user.setOtpExpiry(LocalDateTime.now().plusMinutes(5));
-            user.setOtpAttempts(0); // Reset attempts when new OTP is generated
-            user.setLastOtpRequest(LocalDateTime.now());
-            userRepository.save(user);
+            OtpStateStore.IssueResult issued = phaseMetrics.otp().record(() -> otpStateStore.issue(user.getEmail(), otp, false));
+            if (issued.status() == OtpStateStore.IssueStatus.LOCKED) {
+                auditLog.record(AuditEventType.LOGIN_FAILURE, user.getId(), user.getEmail());
+                throw AuthException.of(AuthError.ACCOUNT_LOCKED);
+            }
+            auditLog.record(AuditEventType.OTP_SENT, user.getId(), user.getEmail());
             
             // In production, send OTP via email or SMS
             // DO NOT log OTP in production
@@ -104,7 +177,8 @@ public class AuthService {
         }
         
         // Generate token
-        String token = generateToken();
+        String token = generateToken(user, false);
+        auditLog.record(AuditEventType.LOGIN_SUCCESS, user.getId(), user.getEmail());
         
         // Convert to DTO
         UserDto userDto = convertToDto(user);
@@ -122,50 +196,39 @@ public class AuthService {
      */
     public AuthResponse verifyOtp(VerifyOtpRequest request) {
         // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Check if account is locked
-        if (isAccountLocked(user)) {
-            throw new RuntimeException("Account temporarily locked due to too many failed attempts. Please try again later.");
-        }
-        
-        // Check if OTP exists
-        if (user.getOtpCode() == null || user.getOtpExpiry() == null) {
-            throw new RuntimeException("No OTP found. Please request a new one.");
+        User user = findUser(request.getEmail()).orElse(null);
+        if (user == null) {
+            auditLog.record(AuditEventType.OTP_FAILURE, null, request.getEmail());
+            throw AuthException.of(AuthError.USER_NOT_FOUND);
         }
         
-        // Check if OTP is expired
-        if (LocalDateTime.now().isAfter(user.getOtpExpiry())) {
-            throw new RuntimeException("OTP has expired. Please request a new one.");
-        }
-        
-        // Verify OTP
-        if (!user.getOtpCode().equals(request.getCode())) {
-            // Increment failed attempts
-            user.setOtpAttempts((user.getOtpAttempts() != null ? user.getOtpAttempts() : 0) + 1);
-            
-            // Lock account after 3 failed attempts
-            if (user.getOtpAttempts() >= 3) {
-                user.setOtpLockedUntil(LocalDateTime.now().plusMinutes(15));
-                userRepository.save(user);
-                throw new RuntimeException("Too many failed attempts. Account locked for 15 minutes.");
+        // Check the code; attempts and lockout are tracked by the OTP state store, or in memory for TOTP
+        OtpStateStore.VerifyResult result;
+        if (usesTotp(user)) {
+            if (!mfaChallenge.verify(request.getMfaToken(), user.getId())) {
+                auditLog.record(AuditEventType.OTP_FAILURE, user.getId(), user.getEmail());
+                throw AuthException.of(AuthError.MFA_SESSION_EXPIRED);
             }
-            
-            userRepository.save(user);
-            int remainingAttempts = 3 - user.getOtpAttempts();
-            throw new RuntimeException("Invalid OTP code. " + remainingAttempts + " attempt(s) remaining.");
+            result = phaseMetrics.otp().record(() -> totpService.verify(user.getEmail(), request.getCode()));
+        } else {
+            result = phaseMetrics.otp().record(() -> otpStateStore.verify(user.getEmail(), request.getCode()));
+        }
+        auditLog.record(switch (result.status()) {
+            case VERIFIED -> AuditEventType.OTP_VERIFIED;
+            case LOCKED_NOW -> AuditEventType.LOCKOUT;
+            default -> AuditEventType.OTP_FAILURE;
+        }, user.getId(), user.getEmail());
+        switch (result.status()) {
+            case LOCKED -> throw AuthException.of(AuthError.ACCOUNT_LOCKED);
+            case NO_OTP -> throw AuthException.of(AuthError.OTP_NOT_FOUND);
+            case EXPIRED -> throw AuthException.of(AuthError.OTP_EXPIRED);
+            case LOCKED_NOW -> throw new AuthException(AuthError.ACCOUNT_LOCKED, "Too many failed attempts. Account locked for " + otpPolicy.getLockMinutes() + " minutes.");
+            case INVALID -> throw new AuthException(AuthError.OTP_INVALID, "Invalid OTP code. " + result.remainingAttempts() + " attempt(s) remaining.");
+            case VERIFIED -> { }
         }
-        
-        // OTP is valid - reset security fields
-        user.setOtpCode(null);
-        user.setOtpExpiry(null);
-        user.setOtpAttempts(0);
-        user.setOtpLockedUntil(null);
-        userRepository.save(user);
         
         // Generate token
-        String token = generateToken();
+        String token = generateToken(user, true);
         
         // Convert to DTO
         UserDto userDto = convertToDto(user);
@@ -183,34 +246,22 @@ public class AuthService {
      */
     public AuthResponse sendOtp(String email) {
         // Find user by email
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Check if account is locked
-        if (isAccountLocked(user)) {
-            throw new RuntimeException("Account temporarily locked. Please try again later.");
-        }
-        
-        // Check cooldown period (60 seconds between OTP requests)
-        if (user.getLastOtpRequest() != null) {
-            long secondsSinceLastRequest = java.time.Duration.between(
-                user.getLastOtpRequest(), 
-                LocalDateTime.now()
-            ).getSeconds();
-            
-            if (secondsSinceLastRequest < 60) {
-                long remainingSeconds = 60 - secondsSinceLastRequest;
-                throw new RuntimeException("Please wait " + remainingSeconds + " seconds before requesting another OTP");
-            }
+        User user = findUser(email)
+                .orElseThrow(() -> AuthException.of(AuthError.USER_NOT_FOUND));
+        if (usesTotp(user)) {
+            throw AuthException.of(AuthError.TOTP_IN_USE);
         }
         
-        // Generate OTP
+        // Generate OTP; refused while locked or within the cooldown between requests
         String otp = generateOtp();
-        user.setOtpCode(otp);
-        user.setOtpExpiry(LocalDateTime.now().plusMinutes(5));
-        user.setLastOtpRequest(LocalDateTime.now());
-        user.setOtpAttempts(0); // Reset attempts when new OTP is generated
-        userRepository.save(user);
+        OtpStateStore.IssueResult result = phaseMetrics.otp().record(() -> otpStateStore.issue(user.getEmail(), otp, true));
+        if (result.status() == OtpStateStore.IssueStatus.LOCKED) {
+            throw AuthException.of(AuthError.ACCOUNT_LOCKED);
+        }
+        if (result.status() == OtpStateStore.IssueStatus.COOLDOWN) {
+            throw new AuthException(AuthError.OTP_COOLDOWN, "Please wait " + result.retryAfterSeconds() + " seconds before requesting another OTP", (int) result.retryAfterSeconds());
+        }
+        auditLog.record(AuditEventType.OTP_SENT, user.getId(), user.getEmail());
         
         // In production, send OTP via email or SMS
         // DO NOT log OTP in production - this is for development only
@@ -222,58 +273,157 @@ public class AuthService {
     }
     
     /**
-     * Hash password using Argon2
+     * Start authenticator app enrollment: store a new encrypted secret and return it for the app.
+     * MFA is unchanged until the user proves the app works with {@link #confirmTotp}.
      */
-    private String hashPassword(String password) {
-        return argon2.hash(10, 65536, 1, password.toCharArray());
+    public TotpEnrollment enrollTotp(Long userId) {
+        // Loaded from the primary: a stale replica copy would be saved back over newer columns
+        User user = readRouting.onPrimary(() -> userRepository.findById(userId))
+                .orElseThrow(() -> AuthException.of(AuthError.USER_NOT_FOUND));
+        if (usesTotp(user)) {
+            throw AuthException.of(AuthError.TOTP_ALREADY_ENABLED);
+        }
+        if (TotpService.METHOD_TOTP.equals(user.getMfaMethod())) {
+            // The old secret is unreadable; emailed codes protect the account until the new app is confirmed
+            user.setMfaMethod(null);
+        }
+        byte[] secret = totpService.newSecret();
+        user.setMfaSecret(totpService.encrypt(secret));
+        userRepository.save(user);
+        
+        return TotpEnrollment.builder()
+                .secret(TotpService.base32(secret))
+                .provisioningUri(totpService.provisioningUri(user.getEmail(), secret))
+                .message("Add the key to your authenticator app, then confirm with a code")
+                .build();
     }
     
     /**
-     * Verify password
+     * Finish enrollment with a code from the app; from then on login asks for TOTP codes
      */
-    private boolean verifyPassword(String password, String hash) {
-        return argon2.verify(hash, password.toCharArray());
+    public AuthResponse confirmTotp(Long userId, String code) {
+        User user = readRouting.onPrimary(() -> userRepository.findById(userId))
+                .orElseThrow(() -> AuthException.of(AuthError.USER_NOT_FOUND));
+        if (usesTotp(user)) {
+            throw AuthException.of(AuthError.TOTP_ALREADY_ENABLED);
+        }
+        OtpStateStore.VerifyResult result = totpService.verify(user.getEmail(), code);
+        switch (result.status()) {
+            case NO_OTP -> throw AuthException.of(AuthError.TOTP_ENROLLMENT_NOT_STARTED);
+            case LOCKED -> throw AuthException.of(AuthError.ACCOUNT_LOCKED);
+            case LOCKED_NOW -> throw new AuthException(AuthError.ACCOUNT_LOCKED, "Too many failed attempts. Locked for " + otpPolicy.getLockMinutes() + " minutes.");
+            case INVALID, EXPIRED -> throw new AuthException(AuthError.TOTP_CODE_INVALID, "Invalid code. " + result.remainingAttempts() + " attempt(s) remaining.");
+            case VERIFIED -> { }
+        }
+        user.setMfaMethod(TotpService.METHOD_TOTP);
+        user.setMfaEnabled(true);
+        user = userRepository.save(user);
+        auditLog.record(AuditEventType.TOTP_ENROLLED, user.getId(), user.getEmail());
+        
+        return AuthResponse.builder()
+                .user(convertToDto(user))
+                .mfaRequired(false)
+                .message("Authenticator app enabled")
+                .build();
     }
     
     /**
-     * Generate OTP (6 digits)
+     * Logout: revoke the presented token until it would have expired.
+     * Invalid or already expired tokens need no revocation.
      */
-    private String generateOtp() {
-        int otp = 100000 + secureRandom.nextInt(900000);
-        return String.valueOf(otp);
+    public void logout(String token) {
+        tokenService.verify(token).ifPresent(claims -> {
+            tokenRevocationService.revoke(claims.getJWTID(), claims.getExpirationTime().getTime());
+            auditLog.record(AuditEventType.LOGOUT, parseUserId(claims.getSubject()),
+                    (String) claims.getClaim(TokenService.CLAIM_EMAIL));
+        });
     }
     
     /**
-     * Generate authentication token
+     * Look up a user for the auth flows: the membership filter rules out unknown emails, then
+     * the credential cache answers before the database. The result is read-only; load the
+     * entity by id before saving changes. A filter miss returns without the lookup's latency;
+     * see {@link EmailMembershipFilter} for why that timing difference is accepted.
      */
-    private String generateToken() {
-        return "token_" + UUID.randomUUID().toString();
+    private Optional<User> findUser(String email) {
+        return phaseMetrics.lookup().record(() -> {
+            if (!emailMembershipFilter.mightExist(email)) {
+                return Optional.<User>empty();
+            }
+            return userCredentialCache.find(email).map(UserCredentials::toUser);
+        });
     }
     
     /**
-     * Check if account is locked due to failed OTP attempts
+     * A TOTP user whose secret can't be decrypted (the encryption key was replaced) is treated as an
+     * emailed-OTP user, so they can still sign in and enroll again
      */
-    private boolean isAccountLocked(User user) {
-        if (user.getOtpLockedUntil() == null) {
-            return false;
+    private boolean usesTotp(User user) {
+        return Boolean.TRUE.equals(user.getMfaEnabled()) && TotpService.METHOD_TOTP.equals(user.getMfaMethod())
+                && !totpService.hasUnreadableSecret(user.getEmail());
+    }
+    
+    private static Long parseUserId(String subject) {
+        try {
+            return subject != null ? Long.valueOf(subject) : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
-        
-        // Check if lock period has expired
-        if (LocalDateTime.now().isAfter(user.getOtpLockedUntil())) {
-            // Auto-unlock account
-            user.setOtpLockedUntil(null);
-            user.setOtpAttempts(0);
-            userRepository.save(user);
-            return false;
+    }
+    
+    /**
+     * Hash password using Argon2 on the bounded hashing pool
+     */
+    private String hashPassword(String password) {
+        return phaseMetrics.hash().record(() -> passwordHashingService.hash(password));
+    }
+    
+    /**
+     * Verify password on the bounded hashing pool
+     */
+    private boolean verifyPassword(String password, String hash) {
+        return phaseMetrics.verify().record(() -> passwordHashingService.verify(hash, password));
+    }
+    
+    /**
+     * Re-hash and persist the password when the stored hash uses outdated Argon2 parameters.
+     * Skipped when the hashing pool is saturated; the next login will try again.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return;
         }
-        
-        return true;
+        try {
+            String newHash = hashPassword(password);
+            phaseMetrics.persist().record(() -> readRouting.onPrimary(() ->
+                    userRepository.findById(user.getId()).ifPresent(entity -> {
+                        entity.setPassword(newHash);
+                        userRepository.save(entity);
+                    })));
+        } catch (HashingCapacityExceededException e) {
+            // Not worth failing a valid login over
+        }
+    }
+    
+    /**
+     * Generate OTP (6 digits)
+     */
+    String generateOtp() {
+        int otp = 100000 + secureRandom.nextInt(900000);
+        return String.valueOf(otp);
+    }
+    
+    /**
+     * Generate signed access token
+     */
+    String generateToken(User user, boolean mfaCompleted) {
+        return phaseMetrics.token().record(() -> tokenService.issue(user, mfaCompleted));
     }
     
     /**
      * Convert User entity to UserDto
      */
-    private UserDto convertToDto(User user) {
+    UserDto convertToDto(User user) {
         return UserDto.builder()
                 .id("user_" + user.getId())
                 .email(user.getEmail())
@@ -0,0 +1,215 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.cache.UserCacheInvalidationBus;
+import com.bankportal.auth.repository.UserRepository;
+import com.bankportal.common.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over every registered email.
+ *
+ * A "no" is definite, so login and registration can skip the users table for
+ * emails that were never registered, which is most of a credential-stuffing
+ * run. A "maybe" falls through to the database as before. Emails are
+ * normalised (trimmed, lower-cased) before hashing, so case variants of a
+ * registered email also read as "maybe".
+ *
+ * The filter is built by streaming the users table, then kept current four
+ * ways: registrations on this instance are added immediately, registrations on
+ * other instances arrive with their user cache invalidation (within
+ * auth.user-cache.poll-interval-ms when auth.user-cache.invalidation=http), a
+ * periodic incremental scan catches any the bus missed, and a periodic full
+ * rebuild restores the false-positive rate as the table grows. Until the first
+ * build completes every lookup answers "maybe".
+ *
+ * A "no" can therefore be wrong for an email registered on another instance
+ * moments ago. The gateway sends registration and login for one email to the
+ * same instance, and registration falls back on the unique constraint, so this
+ * only affects clients that bypass the gateway.
+ *
+ * Skipping the lookup makes a failed login for an unknown email return a
+ * little sooner than one for a registered email, by a cache or database read
+ * against a password hash both paths pay for. That leak is accepted: the API
+ * already tells registered emails apart outright (registration refuses them,
+ * and sending an OTP to an unknown email is an error), and padding the miss
+ * with a query would hand the database back the credential-stuffing load the
+ * filter exists to shed. Enumeration is bounded by the gateway rate limits.
+ */
+@Component
+public class EmailMembershipFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailMembershipFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final long minCapacity;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalMillis;
+    private final long overlapMillis;
+
+    private volatile Generation current;
+    /** Filter being built; registrations are mirrored into it so none are lost in the swap */
+    private volatile Generation pending;
+    private LocalDateTime lastScanStartedAt;
+    private long lastRebuildAt;
+
+    private final Counter skippedLookups;
+
+    public EmailMembershipFilter(UserRepository userRepository,
+                                 TransactionOperations transactionOperations,
+                                 UserCacheInvalidationBus invalidationBus,
+                                 @Value("${auth.email-filter.enabled:true}") boolean enabled,
+                                 @Value("${auth.email-filter.expected-emails:1000000}") long minCapacity,
+                                 @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${auth.email-filter.rebuild-interval-minutes:60}") long rebuildIntervalMinutes,
+                                 @Value("${auth.email-filter.scan-overlap-seconds:60}") long overlapSeconds,
+                                 MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMillis = TimeUnit.MINUTES.toMillis(rebuildIntervalMinutes);
+        this.overlapMillis = TimeUnit.SECONDS.toMillis(overlapSeconds);
+
+        this.skippedLookups = Counter.builder("auth.email-filter.skipped-lookups")
+                .description("User lookups answered from the filter without querying the database")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.email-filter.size.bytes", this,
+                filter -> filter.current == null ? 0 : filter.current.filter.sizeInBytes());
+        meterRegistry.gauge("auth.email-filter.false-positive.rate", this,
+                filter -> filter.current == null ? 1.0 : filter.current.filter.expectedFalsePositiveRate());
+        meterRegistry.gauge("auth.email-filter.entries", this,
+                filter -> filter.current == null ? 0 : filter.current.entries.get());
+
+        // Every user write is announced, including registrations; adding an existing email is a no-op
+        invalidationBus.subscribe(this::add);
+    }
+
+    /**
+     * False only when the email is certainly not registered
+     */
+    public boolean mightExist(String email) {
+        Generation generation = current;
+        if (generation == null || email == null) {
+            return true;
+        }
+        if (generation.filter.mightContain(normalize(email))) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Record a newly registered email. Call after the user row is committed.
+     */
+    public void add(String email) {
+        String key = normalize(email);
+        Generation generation = current;
+        if (generation != null) {
+            generation.add(key);
+        }
+        Generation building = pending;
+        if (building != null) {
+            building.add(key);
+        }
+    }
+
+    /**
+     * Build the filter on the first run and on the rebuild interval (or once it outgrows its
+     * capacity); otherwise add users created since the last scan
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${auth.email-filter.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Generation generation = current;
+            long now = System.currentTimeMillis();
+            if (generation == null || now - lastRebuildAt >= rebuildIntervalMillis
+                    || generation.entries.get() > generation.capacity) {
+                rebuild();
+            } else {
+                scanRecent(generation);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Email filter refresh failed; lookups fall back to the database until the next run", e);
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        long capacity = Math.max(minCapacity, userRepository.count() * 2);
+        Generation building = new Generation(BloomFilter.create(capacity, falsePositiveRate), capacity);
+        // Publish before scanning: a registration committed after the scan's snapshot is mirrored in
+        pending = building;
+        LocalDateTime scanStartedAt = LocalDateTime.now();
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(email -> building.add(normalize(email)));
+                }
+            });
+            current = building;
+        } finally {
+            pending = null;
+        }
+        lastScanStartedAt = scanStartedAt;
+        lastRebuildAt = System.currentTimeMillis();
+        log.info("Email filter built with {} entries ({} KiB, capacity {}) in {} ms",
+                building.entries.get(), building.filter.sizeInBytes() / 1024, capacity,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Re-reads a window overlapping the previous scan, so rows committed late or stamped by a
+     * slightly skewed clock on another instance are not missed; re-adding is harmless
+     */
+    private void scanRecent(Generation generation) {
+        LocalDateTime scanStartedAt = LocalDateTime.now();
+        LocalDateTime since = lastScanStartedAt.minusNanos(TimeUnit.MILLISECONDS.toNanos(overlapMillis));
+        for (String email : userRepository.findEmailsCreatedSince(since)) {
+            generation.add(normalize(email));
+        }
+        lastScanStartedAt = scanStartedAt;
+    }
+
+    static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Generation {
+        private final BloomFilter filter;
+        private final long capacity;
+        private final AtomicLong entries = new AtomicLong();
+
+        private Generation(BloomFilter filter, long capacity) {
+            this.filter = filter;
+            this.capacity = capacity;
+        }
+
+        private void add(String key) {
+            long hash = BloomFilter.hash(key);
+            if (!filter.mightContain(hash)) {
+                filter.put(hash);
+                entries.incrementAndGet();
+            }
+        }
+    }
+}
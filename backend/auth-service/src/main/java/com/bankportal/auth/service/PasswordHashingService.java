@@ -0,0 +1,335 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.exception.HashingCapacityExceededException;
+import de.mkammerer.argon2.Argon2;
+import de.mkammerer.argon2.Argon2Factory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs Argon2 hashing on a dedicated, bounded pool.
+ *
+ * Every Argon2 call allocates its full memory cost natively, so the number of
+ * concurrent hashes is capped by a memory budget as well as the core count.
+ * Requests beyond the wait queue are rejected immediately so the controller
+ * can shed load with a 503 instead of piling up request threads.
+ *
+ * The iteration count is calibrated at startup so one hash costs roughly the
+ * configured target latency on the current hardware, unless it is pinned.
+ * Calibration lands on slightly different counts across instances and
+ * restarts, so stored hashes are only upgraded when they are weaker than the
+ * policy, never rewritten for being merely different.
+ * A dummy hash under the same policy lets callers spend the cost of a real
+ * verify when there is no stored hash to check against.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final int CALIBRATION_SAMPLES = 3;
+    private static final int MIN_ITERATIONS = 2;
+    private static final long BULK_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /** What {@link Argon2Factory#create()} produces */
+    private static final String HASH_VARIANT = "argon2i";
+    private static final int CURRENT_VERSION = 19;
+
+    private final Argon2 argon2 = Argon2Factory.create();
+    private final Argon2Policy policy;
+    private final Future<String> dummyHash;
+    private final ThreadPoolExecutor executor;
+    private final int concurrency;
+    private final int retryAfterSeconds;
+
+    private final Timer hashQueueTimer;
+    private final Timer hashComputeTimer;
+    private final Timer verifyQueueTimer;
+    private final Timer verifyComputeTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(
+            @Value("${auth.hashing.memory-kib:65536}") int memoryKib,
+            @Value("${auth.hashing.iterations:0}") int pinnedIterations,
+            @Value("${auth.hashing.max-parallelism:4}") int maxParallelism,
+            @Value("${auth.hashing.target-millis:250}") long targetMillis,
+            @Value("${auth.hashing.memory-budget-mb:512}") long memoryBudgetMb,
+            @Value("${auth.hashing.max-concurrency:0}") int maxConcurrency,
+            @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.hashing.retry-after-seconds:1}") int retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parallelism = Math.max(1, Math.min(cores, maxParallelism));
+        int iterations = pinnedIterations > 0
+                ? pinnedIterations
+                : calibrateIterations(memoryKib, parallelism, targetMillis);
+        this.policy = new Argon2Policy(iterations, memoryKib, parallelism);
+        this.concurrency = computeConcurrency(policy, memoryBudgetMb, maxConcurrency);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(
+                concurrency, concurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+        // Computed on the pool so it does not hold up startup; the first unknown-email login waits for it
+        this.dummyHash = executor.submit(() -> argon2.hash(iterations, memoryKib, parallelism,
+                Long.toHexString(System.nanoTime()).toCharArray()));
+
+        this.hashQueueTimer = timer(meterRegistry, "auth.hashing.queue.time", "hash");
+        this.hashComputeTimer = timer(meterRegistry, "auth.hashing.compute.time", "hash");
+        this.verifyQueueTimer = timer(meterRegistry, "auth.hashing.queue.time", "verify");
+        this.verifyComputeTimer = timer(meterRegistry, "auth.hashing.compute.time", "verify");
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Hash requests rejected because the wait queue was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.hashing.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        log.info("Argon2 policy {} ({}); pool sized to {} thread(s) ({} MiB budget), queue capacity {}",
+                policy, pinnedIterations > 0 ? "pinned" : "calibrated for " + targetMillis + " ms",
+                concurrency, memoryBudgetMb, queueCapacity);
+    }
+
+    /**
+     * Hash password using Argon2
+     */
+    public String hash(String password) {
+        return execute(() -> argon2.hash(policy.iterations(), policy.memoryKib(), policy.parallelism(),
+                        password.toCharArray()),
+                hashQueueTimer, hashComputeTimer);
+    }
+
+    /**
+     * Verify password against an encoded Argon2 hash
+     */
+    public boolean verify(String hash, String password) {
+        return execute(() -> argon2.verify(hash, password.toCharArray()),
+                verifyQueueTimer, verifyComputeTimer);
+    }
+
+    /**
+     * Verify the password against a throwaway hash on the same pool and policy as a real verify,
+     * so a lookup that found no user takes as long (and can be shed the same way) as one that did
+     */
+    public void verifyDummy(String password) {
+        verify(await(dummyHash), password);
+    }
+
+    /**
+     * Check whether an encoded hash is weaker than the current policy: fewer iterations, less memory,
+     * an older Argon2 version, another variant, or a format this service can't read
+     */
+    public boolean needsRehash(String hash) {
+        return isWeakerThan(hash, policy);
+    }
+
+    static boolean isWeakerThan(String hash, Argon2Policy policy) {
+        // $argon2i$v=19$m=65536,t=3,p=4$salt$hash; hashes from before version 19 have no v= part
+        String[] parts = hash == null ? new String[0] : hash.split("\\$");
+        if (parts.length < 5 || !parts[0].isEmpty() || !HASH_VARIANT.equals(parts[1])) {
+            return true;
+        }
+        int version = parts[2].startsWith("v=") ? parseInt(parts[2].substring(2)) : 16;
+        String[] parameters = parts[parts[2].startsWith("v=") ? 3 : 2].split(",");
+        int memoryKib = -1;
+        int iterations = -1;
+        for (String parameter : parameters) {
+            if (parameter.startsWith("m=")) {
+                memoryKib = parseInt(parameter.substring(2));
+            } else if (parameter.startsWith("t=")) {
+                iterations = parseInt(parameter.substring(2));
+            }
+        }
+        return version < CURRENT_VERSION || memoryKib < policy.memoryKib() || iterations < policy.iterations();
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public Argon2Policy getPolicy() {
+        return policy;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hash a batch of passwords for bulk work such as imports. At most {@code parallelism} of them
+     * are on the pool at once (0 means half the pool), and a full wait queue makes the batch wait
+     * instead of failing, so bulk hashing yields to interactive logins.
+     *
+     * @return Encoded hashes in the same order as the passwords
+     */
+    public List<String> hashAll(List<String> passwords, int parallelism) {
+        int window = parallelism > 0 ? parallelism : Math.max(1, concurrency / 2);
+        List<Future<String>> futures = new ArrayList<>(passwords.size());
+        List<String> hashes = new ArrayList<>(passwords.size());
+        while (hashes.size() < passwords.size()) {
+            while (futures.size() < passwords.size() && futures.size() - hashes.size() < window) {
+                String password = passwords.get(futures.size());
+                try {
+                    futures.add(submit(() -> argon2.hash(policy.iterations(), policy.memoryKib(), policy.parallelism(),
+                            password.toCharArray()), hashQueueTimer, hashComputeTimer));
+                } catch (RejectedExecutionException e) {
+                    break; // queue full: wait for our oldest hash (or briefly) and try again
+                }
+            }
+            if (hashes.size() < futures.size()) {
+                hashes.add(await(futures.get(hashes.size())));
+            } else {
+                LockSupport.parkNanos(BULK_RETRY_NANOS);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Submit work to the pool and wait for it, recording queue and compute time separately
+     */
+    private <T> T execute(Callable<T> work, Timer queueTimer, Timer computeTimer) {
+        Future<T> future;
+        try {
+            future = submit(work, queueTimer, computeTimer);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+        return await(future);
+    }
+
+    private <T> Future<T> submit(Callable<T> work, Timer queueTimer, Timer computeTimer) {
+        long submittedAt = System.nanoTime();
+        return executor.submit(() -> {
+            long startedAt = System.nanoTime();
+            queueTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                return work.call();
+            } finally {
+                computeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hash", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    /**
+     * Pick the iteration count whose measured cost is closest to the target without exceeding it.
+     * Argon2 time grows linearly with iterations, so one measured pass is enough to extrapolate.
+     */
+    private int calibrateIterations(int memoryKib, int parallelism, long targetMillis) {
+        char[] probe = "calibration-probe".toCharArray();
+        argon2.hash(1, memoryKib, parallelism, probe); // warm up native code and page in memory
+
+        long perIterationNanos = measure(1, memoryKib, parallelism, probe);
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int iterations = (int) Math.max(MIN_ITERATIONS, targetNanos / Math.max(1, perIterationNanos));
+
+        // Correct for fixed per-hash overhead by stepping down until we are within the target
+        while (iterations > MIN_ITERATIONS && measure(iterations, memoryKib, parallelism, probe) > targetNanos) {
+            iterations--;
+        }
+        return iterations;
+    }
+
+    /**
+     * Median wall time of a hash with the given parameters
+     */
+    private long measure(int iterations, int memoryKib, int parallelism, char[] probe) {
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            argon2.hash(iterations, memoryKib, parallelism, probe);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    /**
+     * Concurrency is the smallest of the cores available per hash, the memory budget divided by
+     * the per-hash memory cost, and the configured cap (0 means no cap)
+     */
+    private static int computeConcurrency(Argon2Policy policy, long memoryBudgetMb, int maxConcurrency) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long byMemory = (memoryBudgetMb * 1024) / policy.memoryKib();
+        int byCores = Math.max(1, cores / policy.parallelism());
+        int limit = (int) Math.min(byCores, Math.max(1, byMemory));
+        if (maxConcurrency > 0) {
+            limit = Math.min(limit, maxConcurrency);
+        }
+        return Math.max(1, limit);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String operation) {
+        return Timer.builder(name)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Argon2 cost parameters currently used for new hashes
+     */
+    public record Argon2Policy(int iterations, int memoryKib, int parallelism) {
+        @Override
+        public String toString() {
+            return "t=" + iterations + ", m=" + memoryKib + " KiB, p=" + parallelism;
+        }
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "argon2-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.bankportal.auth.dto.ImportRowResult;
+import com.bankportal.auth.dto.ImportRowResult.Status;
+import com.bankportal.auth.dto.ImportSummary;
+import com.bankportal.auth.dto.ImportUserRow;
+import com.bankportal.auth.util.PasswordValidator;
+import com.bankportal.common.util.BloomFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk user import from NDJSON or CSV.
+ *
+ * Rows are read one line at a time and processed in fixed-size chunks, so
+ * memory stays flat however large the upload is. Per chunk: rows are
+ * validated, duplicate emails within the upload are dropped, emails already
+ * registered are found with one query (only for those the membership filter
+ * can't rule out), the remaining passwords are hashed in parallel on the
+ * shared hashing pool, and the chunk is written with one INSERT.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    public enum Format { NDJSON, CSV }
+
+    /** Hashes produced by PasswordHashingService (Argon2i, PHC string format) */
+    private static final String ACCEPTED_HASH_PREFIX = "$argon2i$";
+    private static final int MAX_EMAIL_LENGTH = 255;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final String FIND_EXISTING_SQL = "SELECT email FROM users WHERE email = ANY(?)";
+
+    // One statement per chunk; ids come from the identity column's sequence. A concurrent
+    // registration of the same email is skipped rather than failing the chunk.
+    private static final String INSERT_SQL = "INSERT INTO users "
+            + "(email, name, password, role, mfa_enabled, otp_attempts, created_at, updated_at) "
+            + "SELECT r.email, r.name, r.password, 'user', false, 0, ?, ? "
+            + "FROM unnest(?, ?, ?) AS r(email, name, password) "
+            + "ON CONFLICT (email) DO NOTHING RETURNING email";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private EmailMembershipFilter emailMembershipFilter;
+
+    @Autowired
+    private UserCredentialCache userCredentialCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${auth.import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    @Value("${auth.import.expected-rows:1000000}")
+    private long expectedRows;
+
+    /**
+     * Import every row of the upload, reporting each row's outcome as its chunk completes
+     *
+     * @param reader The upload, one record per line (CSV starts with a header line)
+     * @param format How to parse the lines
+     * @param accepted Called once the CSV header has been checked, before any row is read
+     * @param report Receives one result per data row, in line order within each chunk
+     * @return Totals for the whole upload
+     * @throws IllegalArgumentException if the CSV header is missing or incomplete; nothing has been imported
+     */
+    public ImportSummary importUsers(BufferedReader reader, Format format, Runnable accepted,
+                                     Consumer<ImportRowResult> report) {
+        long startedAt = System.currentTimeMillis();
+        ImportSummary summary = new ImportSummary();
+        Consumer<ImportRowResult> counted = result -> {
+            summary.count(result.getStatus());
+            report.accept(result);
+        };
+
+        // Emails seen earlier in this upload; a "maybe" is settled by the existence query
+        BloomFilter seen = BloomFilter.create(expectedRows, 0.001);
+        Set<String> chunkEmails = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+        List<ImportRowResult> rejected = new ArrayList<>();
+
+        try {
+            RowParser parser = format == Format.CSV ? new CsvRowParser(reader.readLine()) : new NdjsonRowParser();
+            accepted.run();
+            long lineNumber = format == Format.CSV ? 1 : 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (chunk.size() + rejected.size() >= batchSize) {
+                    flush(chunk, rejected, seen, counted);
+                    chunkEmails.clear();
+                }
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ImportUserRow row;
+                try {
+                    row = parser.parse(line);
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new ImportRowResult(lineNumber, null, Status.INVALID, e.getMessage()));
+                    continue;
+                }
+
+                String problem = validate(row);
+                if (problem != null) {
+                    rejected.add(new ImportRowResult(lineNumber, row.getEmail(), Status.INVALID, problem));
+                } else if (!chunkEmails.add(row.getEmail())) {
+                    rejected.add(new ImportRowResult(lineNumber, row.getEmail(), Status.DUPLICATE,
+                            "Email appears earlier in the import"));
+                } else {
+                    chunk.add(new PendingRow(lineNumber, row));
+                }
+            }
+            flush(chunk, rejected, seen, counted);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import", e);
+        }
+
+        summary.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        log.info("User import finished: {} rows, {} imported, {} duplicates, {} existing, {} invalid, {} failed in {} ms",
+                summary.getRows(), summary.getImported(), summary.getDuplicates(), summary.getExisting(),
+                summary.getInvalid(), summary.getFailed(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    private void flush(List<PendingRow> chunk, List<ImportRowResult> rejected, BloomFilter seen,
+                       Consumer<ImportRowResult> report) {
+        List<ImportRowResult> results = new ArrayList<>(chunk.size() + rejected.size());
+        results.addAll(rejected);
+        rejected.clear();
+
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, seen, results);
+            chunk.clear();
+        }
+
+        results.sort(Comparator.comparingLong(ImportRowResult::getLine));
+        results.forEach(report);
+    }
+
+    private void insertChunk(List<PendingRow> chunk, BloomFilter seen, List<ImportRowResult> results) {
+        // Settle which emails are taken before spending any hashing time on them
+        List<String> candidates = new ArrayList<>();
+        for (PendingRow row : chunk) {
+            if (seen.mightContain(normalize(row.email())) || emailMembershipFilter.mightExist(row.email())) {
+                candidates.add(row.email());
+            }
+        }
+        Set<String> existing = candidates.isEmpty()
+                ? Set.of()
+                : new HashSet<>(jdbcTemplate.query(con -> {
+                    PreparedStatement statement = con.prepareStatement(FIND_EXISTING_SQL);
+                    statement.setArray(1, con.createArrayOf("text", candidates.toArray()));
+                    return statement;
+                }, (rs, rowNum) -> rs.getString(1)));
+
+        List<PendingRow> toInsert = new ArrayList<>(chunk.size());
+        List<String> plaintext = new ArrayList<>();
+        for (PendingRow row : chunk) {
+            if (existing.contains(row.email())) {
+                results.add(seen.mightContain(normalize(row.email()))
+                        ? new ImportRowResult(row.line(), row.email(), Status.DUPLICATE, "Email appears earlier in the import")
+                        : new ImportRowResult(row.line(), row.email(), Status.EXISTS, "Email already registered"));
+            } else {
+                toInsert.add(row);
+                if (row.user().getPassword() != null) {
+                    plaintext.add(row.user().getPassword());
+                }
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = passwordHashingService.hashAll(plaintext, hashParallelism);
+        String[] emails = new String[toInsert.size()];
+        String[] names = new String[toInsert.size()];
+        String[] passwords = new String[toInsert.size()];
+        int nextHash = 0;
+        for (int i = 0; i < toInsert.size(); i++) {
+            ImportUserRow user = toInsert.get(i).user();
+            emails[i] = user.getEmail();
+            names[i] = user.getName();
+            passwords[i] = user.getPassword() != null ? hashes.get(nextHash++) : user.getPasswordHash();
+        }
+
+        Set<String> inserted;
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            inserted = new HashSet<>(jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement(INSERT_SQL);
+                statement.setTimestamp(1, now);
+                statement.setTimestamp(2, now);
+                statement.setArray(3, con.createArrayOf("text", emails));
+                statement.setArray(4, con.createArrayOf("text", names));
+                statement.setArray(5, con.createArrayOf("text", passwords));
+                return statement;
+            }, (rs, rowNum) -> rs.getString(1)));
+        } catch (DataAccessException e) {
+            log.warn("User import chunk of {} rows failed", toInsert.size(), e);
+            for (PendingRow row : toInsert) {
+                results.add(new ImportRowResult(row.line(), row.email(), Status.FAILED, "Insert failed"));
+            }
+            return;
+        }
+
+        for (PendingRow row : toInsert) {
+            if (inserted.contains(row.email())) {
+                seen.put(normalize(row.email()));
+                emailMembershipFilter.add(row.email());
+                // Rows written with SQL skip the entity listener; this also tells the other instances' filters
+                userCredentialCache.invalidate(row.email());
+                results.add(new ImportRowResult(row.line(), row.email(), Status.IMPORTED, null));
+            } else {
+                results.add(new ImportRowResult(row.line(), row.email(), Status.EXISTS, "Email already registered"));
+            }
+        }
+    }
+
+    /**
+     * @return Why the row can't be imported, or null if it can
+     */
+    private static String validate(ImportUserRow row) {
+        String email = row.getEmail();
+        if (email == null || email.isBlank()) {
+            return "Email is required";
+        }
+        if (email.length() > MAX_EMAIL_LENGTH || email.indexOf('@') < 1 || !email.equals(email.strip())) {
+            return "Invalid email";
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (row.getName().length() > MAX_NAME_LENGTH) {
+            return "Name is too long";
+        }
+
+        if ((row.getPassword() == null) == (row.getPasswordHash() == null)) {
+            return "Exactly one of password and passwordHash is required";
+        }
+        if (row.getPasswordHash() != null) {
+            return row.getPasswordHash().startsWith(ACCEPTED_HASH_PREFIX)
+                    ? null
+                    : "passwordHash must be an Argon2i hash";
+        }
+        PasswordValidator.ValidationResult validation = PasswordValidator.validate(row.getPassword());
+        if (!validation.isValid()) {
+            return "Password validation failed: " + validation.getErrorMessage();
+        }
+        return null;
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingRow(long line, ImportUserRow user) {
+        String email() {
+            return user.getEmail();
+        }
+    }
+
+    private interface RowParser {
+        /**
+         * @throws IllegalArgumentException if the line is malformed
+         */
+        ImportUserRow parse(String line);
+    }
+
+    private class NdjsonRowParser implements RowParser {
+        @Override
+        public ImportUserRow parse(String line) {
+            try {
+                ImportUserRow row = objectMapper.readValue(line, ImportUserRow.class);
+                if (row == null) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                row.setPassword(emptyToNull(row.getPassword()));
+                row.setPasswordHash(emptyToNull(row.getPasswordHash()));
+                return row;
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * CSV with a header row naming the columns (email, name, and password or passwordHash) in any order.
+     * Fields may be double-quoted, with "" for a literal quote; records can't span lines.
+     */
+    static class CsvRowParser implements RowParser {
+        private final int emailColumn;
+        private final int nameColumn;
+        private final int passwordColumn;
+        private final int passwordHashColumn;
+        private final int columnCount;
+
+        CsvRowParser(String header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV header row is missing");
+            }
+            List<String> columns = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            columns.replaceAll(column -> column.strip().toLowerCase(Locale.ROOT));
+            this.emailColumn = columns.indexOf("email");
+            this.nameColumn = columns.indexOf("name");
+            this.passwordColumn = columns.indexOf("password");
+            this.passwordHashColumn = columns.indexOf("passwordhash");
+            this.columnCount = columns.size();
+            if (emailColumn < 0 || nameColumn < 0 || (passwordColumn < 0 && passwordHashColumn < 0)) {
+                throw new IllegalArgumentException("CSV header must name email, name and password or passwordHash columns");
+            }
+        }
+
+        @Override
+        public ImportUserRow parse(String line) {
+            List<String> fields = split(line);
+            if (fields.size() != columnCount) {
+                throw new IllegalArgumentException("Expected " + columnCount + " fields, found " + fields.size());
+            }
+            ImportUserRow row = new ImportUserRow();
+            row.setEmail(emptyToNull(fields.get(emailColumn)));
+            row.setName(emptyToNull(fields.get(nameColumn)));
+            row.setPassword(passwordColumn < 0 ? null : emptyToNull(fields.get(passwordColumn)));
+            row.setPasswordHash(passwordHashColumn < 0 ? null : emptyToNull(fields.get(passwordHashColumn)));
+            return row;
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
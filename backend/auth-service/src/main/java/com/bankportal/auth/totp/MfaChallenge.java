@@ -0,0 +1,74 @@
+package com.bankportal.auth.totp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Short-lived proof that a user passed the password step, handed out by login
+ * and required with a TOTP code.
+ *
+ * An emailed code proves this by itself, since it is only sent after the
+ * password check; a TOTP code does not. The challenge is an HMAC over the
+ * user id and expiry, so any instance can check it without shared state or
+ * a database write.
+ */
+@Component
+public class MfaChallenge {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final TotpSecretCipher cipher;
+    private final long ttlMillis;
+
+    public MfaChallenge(TotpSecretCipher cipher,
+                        @Value("${auth.totp.challenge-ttl-seconds:300}") long ttlSeconds) {
+        this.cipher = cipher;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public String issue(long userId) {
+        String payload = userId + "." + (System.currentTimeMillis() + ttlMillis);
+        return payload + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * Whether the challenge was issued to this user and has not expired
+     */
+    public boolean verify(String challenge, long userId) {
+        if (challenge == null) {
+            return false;
+        }
+        int macStart = challenge.lastIndexOf('.');
+        int expiryStart = challenge.indexOf('.');
+        if (expiryStart <= 0 || macStart <= expiryStart) {
+            return false;
+        }
+        String payload = challenge.substring(0, macStart);
+        byte[] expected = ENCODER.encode(mac(payload));
+        if (!MessageDigest.isEqual(expected, challenge.substring(macStart + 1).getBytes(StandardCharsets.US_ASCII))) {
+            return false;
+        }
+        try {
+            return Long.parseLong(challenge, 0, expiryStart, 10) == userId
+                    && Long.parseLong(challenge, expiryStart + 1, macStart, 10) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cipher.challengeKey());
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign MFA challenge", e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bankportal.auth.totp;
+
+import com.bankportal.auth.cache.CacheLoads;
+import com.bankportal.auth.cache.UserCacheInvalidationBus;
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.bankportal.auth.datasource.ReadRouting;
+import com.bankportal.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Decrypted TOTP keys, keyed by normalised email.
+ *
+ * A TOTP check then costs one HMAC per time step in the window and no
+ * database read or AES decryption. Entries are dropped on the same
+ * invalidations as the credential cache, so a new enrollment on any
+ * instance is picked up everywhere. A secret the configured key can't
+ * decrypt is cached as unreadable rather than failing every lookup.
+ */
+@Component
+public class TotpKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TotpKeyCache.class);
+
+    private final UserRepository userRepository;
+    private final TotpSecretCipher cipher;
+    private final ReadRouting readRouting;
+    private final AsyncCache<String, CachedKey> cache;
+
+    public TotpKeyCache(UserRepository userRepository,
+                        TotpSecretCipher cipher,
+                        ReadRouting readRouting,
+                        UserCacheInvalidationBus invalidationBus,
+                        @Value("${auth.totp.key-cache.max-entries:100000}") long maxEntries,
+                        @Value("${auth.totp.key-cache.ttl-minutes:60}") long ttlMinutes,
+                        MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cipher = cipher;
+        this.readRouting = readRouting;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.totp.key-cache");
+        invalidationBus.subscribe(cache.synchronous()::invalidate);
+        invalidationBus.subscribeToResets(cache.synchronous()::invalidateAll);
+    }
+
+    /**
+     * The user's TOTP key, or empty if no secret is stored or it is unreadable
+     */
+    public Optional<Key> find(String email) {
+        CachedKey cached = lookup(email);
+        return cached != null ? Optional.ofNullable(cached.key()) : Optional.empty();
+    }
+
+    /**
+     * True if a secret is stored but can't be decrypted with the configured key
+     */
+    public boolean isUnreadable(String email) {
+        CachedKey cached = lookup(email);
+        return cached != null && cached.key() == null;
+    }
+
+    private CachedKey lookup(String email) {
+        CachedKey cached = CacheLoads.getOrLoad(cache, UserCredentialCache.normalize(email), () -> load(email));
+        if (cached != null && !cached.email().equals(email)) {
+            // A case variant of this email is cached; only an exact match may use the entry
+            cached = load(email);
+        }
+        return cached;
+    }
+
+    private CachedKey load(String email) {
+        return readRouting.find(email, () -> userRepository.findMfaSecretByEmail(email))
+                .map(secret -> new CachedKey(email, decrypt(secret)))
+                .orElse(null);
+    }
+
+    private Key decrypt(String secret) {
+        try {
+            return new SecretKeySpec(cipher.decrypt(secret), TotpService.HMAC_ALGORITHM);
+        } catch (TotpSecretCipher.UnreadableSecretException e) {
+            log.warn("A stored TOTP secret can't be decrypted with the configured key; "
+                    + "that user gets emailed codes until they enroll again");
+            return null;
+        }
+    }
+
+    /** key is null when the stored secret is unreadable */
+    private record CachedKey(String email, Key key) {
+    }
+}
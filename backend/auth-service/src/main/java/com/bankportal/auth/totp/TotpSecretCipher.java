@@ -0,0 +1,117 @@
+package com.bankportal.auth.totp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts TOTP secrets for the mfa_secret column with AES-256-GCM.
+ *
+ * The key comes from auth.totp.encryption-key (base64, 32 bytes) and must be
+ * the same on every instance; without one the service refuses to start unless
+ * auth.totp.allow-ephemeral-key is set for local development. Stored values
+ * are "v1:" followed by the base64 of IV and ciphertext, so the format can
+ * change later. The same key also derives the HMAC key for MFA challenges.
+ */
+@Component
+public class TotpSecretCipher {
+
+    private static final Logger log = LoggerFactory.getLogger(TotpSecretCipher.class);
+    private static final String VERSION_PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+    private final SecretKey challengeKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public TotpSecretCipher(@Value("${auth.totp.encryption-key:}") String encodedKey,
+                            @Value("${auth.totp.allow-ephemeral-key:false}") boolean allowEphemeralKey) {
+        byte[] keyBytes;
+        if (encodedKey == null || encodedKey.isBlank()) {
+            if (!allowEphemeralKey) {
+                throw new IllegalStateException("auth.totp.encryption-key (TOTP_ENCRYPTION_KEY) must be set to the same "
+                        + "base64 32-byte key on every instance; set auth.totp.allow-ephemeral-key=true "
+                        + "only for local development");
+            }
+            log.warn("auth.totp.encryption-key is not set; using a random key, so TOTP enrollments "
+                    + "will not survive a restart or work across instances");
+            keyBytes = new byte[32];
+            secureRandom.nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(encodedKey.trim());
+            if (keyBytes.length != 32) {
+                throw new IllegalArgumentException("auth.totp.encryption-key must be 32 bytes, base64 encoded");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+        this.challengeKey = new SecretKeySpec(hmac(keyBytes, "mfa-challenge"), "HmacSHA256");
+    }
+
+    public String encrypt(byte[] secret) {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] ciphertext = cipher.doFinal(secret);
+            return VERSION_PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt TOTP secret", e);
+        }
+    }
+
+    /**
+     * @throws UnreadableSecretException If the value was not written with this key
+     */
+    public byte[] decrypt(String stored) {
+        if (stored == null || !stored.startsWith(VERSION_PREFIX)) {
+            throw new UnreadableSecretException("Unrecognised TOTP secret format", null);
+        }
+        try {
+            byte[] data = Base64.getDecoder().decode(stored.substring(VERSION_PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+            return cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new UnreadableSecretException("Unable to decrypt TOTP secret", e);
+        }
+    }
+
+    SecretKey challengeKey() {
+        return challengeKey;
+    }
+
+    /**
+     * A stored secret that this key can't read, e.g. one written under a key that has since been replaced
+     */
+    public static class UnreadableSecretException extends IllegalStateException {
+        UnreadableSecretException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String label) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.bankportal.auth.totp;
+
+import com.bankportal.auth.cache.UserCredentialCache;
+import com.bankportal.auth.otp.OtpPolicy;
+import com.bankportal.auth.otp.OtpStateStore.VerifyResult;
+import com.eatthepath.otp.HmacOneTimePasswordGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * RFC 6238 time-based codes (SHA-1, 6 digits, 30 second steps), checked
+ * entirely in memory.
+ *
+ * A code is accepted for the current step or up to auth.totp.window steps
+ * either side, to allow for clock drift. Each user's last accepted step is
+ * remembered until it leaves the window, so a code can be used only once and
+ * never after a newer one. Failed attempts lock the user out under the same
+ * OtpPolicy as emailed codes. None of this state touches the database; like
+ * the in-memory OTP store it is per instance and lost on restart.
+ */
+@Service
+public class TotpService {
+
+    public static final String METHOD_TOTP = "totp";
+    static final String HMAC_ALGORITHM = "HmacSHA1";
+
+    private static final int SECRET_BYTES = 20;
+    private static final int DIGITS = 6;
+    private static final long STEP_SECONDS = 30;
+    private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+    /** The generator's Mac is guarded by a lock; one per thread keeps verifications from contending */
+    private static final ThreadLocal<HmacOneTimePasswordGenerator> GENERATOR = ThreadLocal.withInitial(() -> {
+        try {
+            return new HmacOneTimePasswordGenerator(DIGITS);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final TotpKeyCache keyCache;
+    private final TotpSecretCipher cipher;
+    private final OtpPolicy policy;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final String issuer;
+    private final int window;
+    private final Cache<String, Long> lastAcceptedSteps;
+    private final Cache<String, Failures> failures;
+
+    public TotpService(TotpKeyCache keyCache,
+                       TotpSecretCipher cipher,
+                       OtpPolicy policy,
+                       @Value("${auth.totp.issuer:Bank Portal}") String issuer,
+                       @Value("${auth.totp.window:1}") int window) {
+        this.keyCache = keyCache;
+        this.cipher = cipher;
+        this.policy = policy;
+        this.issuer = issuer;
+        this.window = Math.max(0, window);
+        this.lastAcceptedSteps = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(STEP_SECONDS * (2L * this.window + 1)))
+                .build();
+        this.failures = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(policy.getLockMillis()))
+                .build();
+    }
+
+    /**
+     * A new random secret, to be shown to the user once and stored encrypted
+     */
+    public byte[] newSecret() {
+        byte[] secret = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(secret);
+        return secret;
+    }
+
+    public String encrypt(byte[] secret) {
+        return cipher.encrypt(secret);
+    }
+
+    /**
+     * Base32, as authenticator apps expect for manual entry
+     */
+    public static String base32(byte[] bytes) {
+        StringBuilder encoded = new StringBuilder((bytes.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes) {
+            buffer = (buffer << 8) | (b & 0xff);
+            bits += 8;
+            while (bits >= 5) {
+                encoded.append(BASE32[(buffer >> (bits - 5)) & 31]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            encoded.append(BASE32[(buffer << (5 - bits)) & 31]);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * otpauth:// URI for rendering as a QR code
+     */
+    public String provisioningUri(String email, byte[] secret) {
+        String label = encode(issuer) + ":" + encode(email);
+        return "otpauth://totp/" + label + "?secret=" + base32(secret) + "&issuer=" + encode(issuer)
+                + "&algorithm=SHA1&digits=" + DIGITS + "&period=" + STEP_SECONDS;
+    }
+
+    /**
+     * True if the user's stored secret was written under a different encryption key.
+     * Such a user can't verify TOTP codes and must enroll again.
+     */
+    public boolean hasUnreadableSecret(String email) {
+        return keyCache.isUnreadable(email);
+    }
+
+    /**
+     * Check a code against the user's stored secret, with replay protection and lockout.
+     * NO_OTP means no readable secret is stored.
+     */
+    public VerifyResult verify(String email, String code) {
+        String key = UserCredentialCache.normalize(email);
+        long now = System.currentTimeMillis();
+        Failures current = failures.getIfPresent(key);
+        if (current != null && current.lockedUntil() > now) {
+            return VerifyResult.LOCKED;
+        }
+        Optional<Key> totpKey = keyCache.find(email);
+        if (totpKey.isEmpty()) {
+            return VerifyResult.NO_OTP;
+        }
+
+        long step = matchingStep(totpKey.get(), code, now);
+        if (step >= 0 && accept(key, step)) {
+            failures.invalidate(key);
+            return VerifyResult.VERIFIED;
+        }
+        Failures updated = failures.asMap().compute(key, (k, previous) -> {
+            int attempts = (previous == null || previous.lockedUntil() != 0 ? 0 : previous.attempts()) + 1;
+            return new Failures(attempts, attempts >= policy.getMaxAttempts() ? now + policy.getLockMillis() : 0);
+        });
+        if (updated.lockedUntil() != 0) {
+            return VerifyResult.LOCKED_NOW;
+        }
+        return VerifyResult.invalid(policy.getMaxAttempts() - updated.attempts());
+    }
+
+    /**
+     * The time step within the window whose code matches, or -1
+     */
+    private long matchingStep(Key totpKey, String code, long nowMillis) {
+        int submitted = parse(code);
+        if (submitted < 0) {
+            return -1;
+        }
+        long current = nowMillis / 1000 / STEP_SECONDS;
+        long matched = -1;
+        // Check every step, so the time taken doesn't reveal which one matched
+        for (long step = current - window; step <= current + window; step++) {
+            if (generate(totpKey, step) == submitted) {
+                matched = step;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Record the step as used unless it, or a later one, already was
+     */
+    private boolean accept(String key, long step) {
+        boolean[] accepted = new boolean[1];
+        lastAcceptedSteps.asMap().compute(key, (k, last) -> {
+            if (last != null && last >= step) {
+                return last;
+            }
+            accepted[0] = true;
+            return step;
+        });
+        return accepted[0];
+    }
+
+    private static int generate(Key totpKey, long step) {
+        try {
+            return GENERATOR.get().generateOneTimePassword(totpKey, step);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("Invalid TOTP key", e);
+        }
+    }
+
+    private static int parse(String code) {
+        if (code == null) {
+            return -1;
+        }
+        String trimmed = code.trim();
+        if (trimmed.length() != DIGITS) {
+            return -1;
+        }
+        for (int i = 0; i < DIGITS; i++) {
+            if (trimmed.charAt(i) < '0' || trimmed.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(trimmed);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private record Failures(int attempts, long lockedUntil) {
+    }
+}
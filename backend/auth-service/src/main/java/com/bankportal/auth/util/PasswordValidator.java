@@ -1,122 +1,202 @@
 package com.bankportal.auth.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Password validation utility for enforcing strong password policies.
- * 
+ *
  * Requirements:
  * - Minimum 12 characters
  * - At least 1 uppercase letter (A-Z)
  * - At least 1 lowercase letter (a-z)
  * - At least 1 digit (0-9)
  * - At least 1 special character (!@#$%^&*()_+-=[]{}|;:,.<>?)
+ *
+ * A password is checked in a single pass over its characters using a lookup
+ * table of character classes. The outcome is an error bitmask; every possible
+ * mask has one shared, immutable {@link ValidationResult}, so validation does
+ * not allocate.
  */
 public class PasswordValidator {
-    
+
     private static final int MIN_LENGTH = 12;
-    private static final Pattern UPPERCASE_PATTERN = Pattern.compile("[A-Z]");
-    private static final Pattern LOWERCASE_PATTERN = Pattern.compile("[a-z]");
-    private static final Pattern DIGIT_PATTERN = Pattern.compile("[0-9]");
-    private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{}|;:,.<>?]");
-    
+    private static final String SPECIAL_CHARACTERS = "!@#$%^&*()_+-=[]{}|;:,.<>?";
+
+    // Error bits, also the bits of the character class table
+    public static final int ERROR_REQUIRED = 1;
+    public static final int ERROR_LENGTH = 1 << 1;
+    public static final int ERROR_UPPERCASE = 1 << 2;
+    public static final int ERROR_LOWERCASE = 1 << 3;
+    public static final int ERROR_DIGIT = 1 << 4;
+    public static final int ERROR_SPECIAL = 1 << 5;
+
+    private static final int CHARACTER_CLASS_ERRORS = ERROR_UPPERCASE | ERROR_LOWERCASE | ERROR_DIGIT | ERROR_SPECIAL;
+    private static final int RULE_COUNT = 5;
+
+    private static final String[] ERROR_MESSAGES = {
+        "Password is required",
+        "Password must be at least " + MIN_LENGTH + " characters long",
+        "Password must contain at least one uppercase letter (A-Z)",
+        "Password must contain at least one lowercase letter (a-z)",
+        "Password must contain at least one digit (0-9)",
+        "Password must contain at least one special character (" + SPECIAL_CHARACTERS + ")"
+    };
+
+    /** Error bits cleared by each ASCII character */
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+
+    /** One shared result per error mask */
+    private static final ValidationResult[] RESULTS = new ValidationResult[1 << ERROR_MESSAGES.length];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) CHARACTER_CLASSES[c] = ERROR_UPPERCASE;
+        for (char c = 'a'; c <= 'z'; c++) CHARACTER_CLASSES[c] = ERROR_LOWERCASE;
+        for (char c = '0'; c <= '9'; c++) CHARACTER_CLASSES[c] = ERROR_DIGIT;
+        for (int i = 0; i < SPECIAL_CHARACTERS.length(); i++) {
+            CHARACTER_CLASSES[SPECIAL_CHARACTERS.charAt(i)] = ERROR_SPECIAL;
+        }
+
+        for (int mask = 0; mask < RESULTS.length; mask++) {
+            int strength = (mask & ERROR_REQUIRED) != 0 ? 0 : RULE_COUNT - Integer.bitCount(mask);
+            RESULTS[mask] = new ValidationResult(mask, strength);
+        }
+    }
+
     /**
      * Result of password validation
      */
     public static class ValidationResult {
         private final boolean valid;
-        private final List<String> errors;
-        
-        public ValidationResult(boolean valid, List<String> errors) {
-            this.valid = valid;
-            this.errors = errors;
+        private final int errorMask;
+        private final int strength;
+        private volatile List<String> errors;
+
+        private ValidationResult(int errorMask, int strength) {
+            this.valid = errorMask == 0;
+            this.errorMask = errorMask;
+            this.strength = strength;
         }
-        
+
         public boolean isValid() {
             return valid;
         }
-        
+
+        /**
+         * Bitmask of failed rules (see the ERROR_* constants)
+         */
+        public int getErrorMask() {
+            return errorMask;
+        }
+
+        /**
+         * Strength score from 0 (weakest) to 5 (strongest)
+         */
+        public int getStrength() {
+            return strength;
+        }
+
+        /**
+         * Error messages, built on first access
+         */
         public List<String> getErrors() {
-            return errors;
+            List<String> result = errors;
+            if (result == null) {
+                result = buildErrors(errorMask);
+                errors = result;
+            }
+            return result;
         }
-        
+
         public String getErrorMessage() {
-            return String.join("; ", errors);
+            return String.join("; ", getErrors());
         }
     }
-    
+
     /**
      * Validate password against strong password policy
-     * 
+     *
      * @param password The password to validate
      * @return ValidationResult containing validation status and any errors
      */
     public static ValidationResult validate(String password) {
-        List<String> errors = new ArrayList<>();
-        
-        if (password == null || password.isEmpty()) {
-            errors.add("Password is required");
-            return new ValidationResult(false, errors);
-        }
-        
-        if (password.length() < MIN_LENGTH) {
-            errors.add("Password must be at least " + MIN_LENGTH + " characters long");
-        }
-        
-        if (!UPPERCASE_PATTERN.matcher(password).find()) {
-            errors.add("Password must contain at least one uppercase letter (A-Z)");
-        }
-        
-        if (!LOWERCASE_PATTERN.matcher(password).find()) {
-            errors.add("Password must contain at least one lowercase letter (a-z)");
-        }
-        
-        if (!DIGIT_PATTERN.matcher(password).find()) {
-            errors.add("Password must contain at least one digit (0-9)");
-        }
-        
-        if (!SPECIAL_CHAR_PATTERN.matcher(password).find()) {
-            errors.add("Password must contain at least one special character (!@#$%^&*()_+-=[]{}|;:,.<>?)");
+        return RESULTS[scan(password)];
+    }
+
+    /**
+     * Validate many passwords, e.g. for bulk user onboarding
+     *
+     * @param passwords The passwords to validate
+     * @return One ValidationResult per password, in iteration order
+     */
+    public static List<ValidationResult> validateAll(Collection<String> passwords) {
+        List<ValidationResult> results = new ArrayList<>(passwords.size());
+        for (String password : passwords) {
+            results.add(RESULTS[scan(password)]);
         }
-        
-        return new ValidationResult(errors.isEmpty(), errors);
+        return results;
     }
-    
+
     /**
      * Calculate password strength score (0-5)
-     * 
+     *
      * @param password The password to evaluate
      * @return Score from 0 (weakest) to 5 (strongest)
      */
     public static int calculateStrength(String password) {
-        if (password == null || password.isEmpty()) {
-            return 0;
-        }
-        
-        int score = 0;
-        
-        if (password.length() >= MIN_LENGTH) score++;
-        if (UPPERCASE_PATTERN.matcher(password).find()) score++;
-        if (LOWERCASE_PATTERN.matcher(password).find()) score++;
-        if (DIGIT_PATTERN.matcher(password).find()) score++;
-        if (SPECIAL_CHAR_PATTERN.matcher(password).find()) score++;
-        
-        return score;
+        return RESULTS[scan(password)].getStrength();
     }
-    
+
     /**
      * Get password strength label
-     * 
+     *
      * @param password The password to evaluate
      * @return Strength label: "Weak", "Medium", or "Strong"
      */
     public static String getStrengthLabel(String password) {
         int strength = calculateStrength(password);
-        
+
         if (strength <= 2) return "Weak";
         if (strength <= 4) return "Medium";
         return "Strong";
     }
+
+    /**
+     * Single pass over the password that returns the mask of failed rules.
+     * Stops early once every character class has been seen.
+     */
+    private static int scan(String password) {
+        if (password == null || password.isEmpty()) {
+            return ERROR_REQUIRED;
+        }
+
+        int length = password.length();
+        int missing = CHARACTER_CLASS_ERRORS;
+        for (int i = 0; i < length && missing != 0; i++) {
+            char c = password.charAt(i);
+            if (c < 128) {
+                missing &= ~CHARACTER_CLASSES[c];
+            }
+        }
+
+        if (length < MIN_LENGTH) {
+            missing |= ERROR_LENGTH;
+        }
+        return missing;
+    }
+
+    private static List<String> buildErrors(int errorMask) {
+        if (errorMask == 0) {
+            return Collections.emptyList();
+        }
+        List<String> errors = new ArrayList<>(Integer.bitCount(errorMask));
+        for (int bit = 0; bit < ERROR_MESSAGES.length; bit++) {
+            if ((errorMask & (1 << bit)) != 0) {
+                errors.add(ERROR_MESSAGES[bit]);
+            }
+        }
+        return Collections.unmodifiableList(errors);
+    }
 }
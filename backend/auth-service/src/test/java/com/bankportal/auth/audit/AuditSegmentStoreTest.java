@@ -0,0 +1,175 @@
+package com.bankportal.auth.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSegmentStoreTest {
+
+    /** Room for about 88 records of {@link AuditSegmentTest#event} */
+    private static final int SMALL_SEGMENT_BYTES = 4096;
+    private static final AuditQuery ALL = new AuditQuery(null, 0, Long.MAX_VALUE, 0, Integer.MAX_VALUE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rotatesFullSegmentsAndDeletesTheOldest() throws IOException {
+        AuditSegmentStore store = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 3);
+        append(store, 1000);
+
+        assertThat(store.segmentCount()).isEqualTo(3);
+        assertThat(files(AuditSegment.LOG_SUFFIX)).hasSize(3);
+        assertThat(files(AuditSegment.INDEX_SUFFIX)).hasSize(2);
+        List<Long> sequences = AuditSegmentTest.sequences(scan(store, ALL));
+        assertThat(sequences.get(sequences.size() - 1)).isEqualTo(1000);
+        assertThat(sequences).isEqualTo(LongStream.rangeClosed(sequences.get(0), 1000).boxed().toList());
+        assertThat(sequences.get(0)).isGreaterThan(1000 - 3 * 88);
+    }
+
+    @Test
+    void cursorsPageThroughEverySegmentWithoutGapsOrRepeats() throws IOException {
+        AuditSegmentStore store = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+        append(store, 1000);
+
+        for (int pageSize : new int[] {1, 50, 88, 89, 333}) {
+            List<Long> seen = new ArrayList<>();
+            long cursor = 0;
+            List<AuditEvent> page;
+            while (!(page = page(store, cursor, pageSize)).isEmpty()) {
+                assertThat(page.size()).isLessThanOrEqualTo(pageSize);
+                seen.addAll(AuditSegmentTest.sequences(page));
+                cursor = page.get(page.size() - 1).sequence();
+            }
+            assertThat(seen).isEqualTo(LongStream.rangeClosed(1, 1000).boxed().toList());
+        }
+    }
+
+    @Test
+    void sequencesContinueAfterARestart() throws IOException {
+        AuditSegmentStore store = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+        append(store, 500);
+        store.close();
+
+        AuditSegmentStore reopened = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+        assertThat(reopened.lastSequence()).isEqualTo(500);
+        assertThat(reopened.append(AuditSegmentTest.event(501))).isEqualTo(501);
+        reopened.commit();
+
+        assertThat(AuditSegmentTest.sequences(scan(reopened, ALL)))
+                .isEqualTo(LongStream.rangeClosed(1, 501).boxed().toList());
+        assertThat(AuditSegmentTest.sequences(page(reopened, 499, 10))).containsExactly(500L, 501L);
+    }
+
+    @Test
+    void sequencesContinueAfterACrash() throws IOException {
+        AuditSegmentStore store = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+        append(store, 500);
+        store.force(); // not closed: the active segment has no index
+
+        AuditSegmentStore reopened = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+
+        assertThat(reopened.lastSequence()).isEqualTo(500);
+        assertThat(reopened.append(AuditSegmentTest.event(501))).isEqualTo(501);
+    }
+
+    @Test
+    void emptyLogStartsAtSequenceOne() throws IOException {
+        AuditSegmentStore store = new AuditSegmentStore(directory, SMALL_SEGMENT_BYTES, 100);
+
+        assertThat(store.lastSequence()).isZero();
+        assertThat(scan(store, ALL)).isEmpty();
+        assertThat(store.append(AuditSegmentTest.event(1))).isEqualTo(1);
+    }
+
+    @Test
+    void queriesRunSafelyWhileTheWriterAppends() throws Exception {
+        // One segment growing past 64, 128 and 256 index blocks while readers scan it
+        AuditSegmentStore store = new AuditSegmentStore(directory, 1 << 20, 100);
+        int records = 20_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                results.add(readers.submit(() -> {
+                    int scans = 0;
+                    while (writing.get()) {
+                        long end = store.lastSequence();
+                        long after = end == 0 ? 0 : ThreadLocalRandom.current().nextLong(end);
+                        List<Long> sequences = AuditSegmentTest.sequences(
+                                scan(store, new AuditQuery(null, 0, Long.MAX_VALUE, after, Integer.MAX_VALUE), end));
+                        assertThat(sequences).isEqualTo(LongStream.rangeClosed(after + 1, end).boxed().toList());
+                        scans++;
+                    }
+                    return scans;
+                }));
+            }
+            for (int i = 1; i <= records; i++) {
+                store.append(AuditSegmentTest.event(i));
+                if (i % 10 == 0) {
+                    store.commit();
+                }
+            }
+            writing.set(false);
+            for (Future<Integer> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isPositive();
+            }
+        } finally {
+            writing.set(false);
+            readers.shutdownNow();
+        }
+        assertThat(store.lastSequence()).isEqualTo(records);
+    }
+
+    private static void append(AuditSegmentStore store, int count) throws IOException {
+        for (int i = 1; i <= count; i++) {
+            assertThat(store.append(AuditSegmentTest.event(i))).isEqualTo(i);
+            if (i % 16 == 0) {
+                store.commit();
+            }
+        }
+        store.commit();
+    }
+
+    /** One page, cut at the limit as {@link AuditLog#query} cuts it */
+    private static List<AuditEvent> page(AuditSegmentStore store, long after, int limit) {
+        List<AuditEvent> events = new ArrayList<>();
+        store.scan(new AuditQuery(null, 0, Long.MAX_VALUE, after, limit), store.lastSequence(), event -> {
+            events.add(event);
+            return events.size() < limit;
+        });
+        return events;
+    }
+
+    private static List<AuditEvent> scan(AuditSegmentStore store, AuditQuery query) {
+        return scan(store, query, store.lastSequence());
+    }
+
+    private static List<AuditEvent> scan(AuditSegmentStore store, AuditQuery query, long lastSequence) {
+        List<AuditEvent> events = new ArrayList<>();
+        store.scan(query, lastSequence, events::add);
+        return events;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).toList();
+        }
+    }
+}
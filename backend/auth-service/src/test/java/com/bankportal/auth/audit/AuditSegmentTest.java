@@ -0,0 +1,179 @@
+package com.bankportal.auth.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSegmentTest {
+
+    private static final int SEGMENT_BYTES = 1 << 20;
+    private static final long T0 = 1_700_000_000_000L;
+    /** Every record below is this long: 31 header bytes, "u@x", "10.0.0.1" and the checksum */
+    private static final int RECORD_BYTES = 31 + 3 + 8 + 4;
+    private static final AuditQuery ALL = new AuditQuery(null, 0, Long.MAX_VALUE, 0, Integer.MAX_VALUE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsBecomeVisibleOnCommit() throws IOException {
+        AuditSegment segment = AuditSegment.create(directory, 1, SEGMENT_BYTES);
+        segment.append(1, new AuditEvent(0, T0, AuditEventType.LOGIN_FAILURE, 0, "a@example.com", null));
+        segment.append(2, new AuditEvent(0, T0 + 1, AuditEventType.OTP_SENT, 7, "é".repeat(200), "10.0.0.1"));
+
+        assertThat(scan(segment, ALL)).isEmpty();
+
+        segment.commit();
+        List<AuditEvent> events = scan(segment, ALL);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0)).isEqualTo(new AuditEvent(1, T0, AuditEventType.LOGIN_FAILURE, 0, "a@example.com", null));
+        // Fields are cut to 255 bytes, here mid-character
+        assertThat(events.get(1).email()).startsWith("é".repeat(127)).hasSize(128);
+        assertThat(events.get(1).ipAddress()).isEqualTo("10.0.0.1");
+        assertThat(segment.committedSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void recoveryDropsATornTailAndClearsIt() throws IOException {
+        AuditSegment segment = write(AuditSegment.create(directory, 1, SEGMENT_BYTES), 1, 100);
+        segment.force();
+        // A crash halfway through the next record: its length made it to disk, the rest didn't
+        writeFile(segment.logFile, 100 * RECORD_BYTES, ByteBuffer.allocate(12).putInt(RECORD_BYTES).putLong(101).flip());
+
+        AuditSegment recovered = AuditSegment.open(directory, 1, SEGMENT_BYTES, true);
+
+        assertThat(recovered.committedSequence()).isEqualTo(100);
+        assertThat(recovered.nextSequence()).isEqualTo(101);
+        assertThat(readFile(segment.logFile, 100 * RECORD_BYTES, 12)).containsOnly(0);
+        assertThat(sequences(scan(recovered, ALL))).hasSize(100).endsWith(100L);
+    }
+
+    @Test
+    void recoveryStopsAtTheFirstRecordWithABadChecksum() throws IOException {
+        AuditSegment segment = write(AuditSegment.create(directory, 1, SEGMENT_BYTES), 1, 100);
+        segment.force();
+        // Flip the email of record 71
+        writeFile(segment.logFile, 70 * RECORD_BYTES + 31, ByteBuffer.wrap(new byte[] {'X'}));
+
+        AuditSegment recovered = AuditSegment.open(directory, 1, SEGMENT_BYTES, true);
+
+        assertThat(recovered.committedSequence()).isEqualTo(70);
+        recovered.append(71, event(71));
+        recovered.commit();
+        assertThat(sequences(scan(recovered, ALL))).hasSize(71).endsWith(71L);
+    }
+
+    @Test
+    void sealedSegmentsAnswerTheSameFromTheirIndexAsFromAScan() throws IOException {
+        AuditSegment segment = write(AuditSegment.create(directory, 1, SEGMENT_BYTES), 1, 1000);
+        segment.seal();
+        segment.force();
+        List<AuditQuery> queries = List.of(ALL,
+                new AuditQuery(3L, 0, Long.MAX_VALUE, 0, Integer.MAX_VALUE),
+                new AuditQuery(null, T0 + 100, T0 + 650, 0, Integer.MAX_VALUE),
+                new AuditQuery(5L, T0 + 100, T0 + 650, 400, Integer.MAX_VALUE));
+
+        AuditSegment indexed = AuditSegment.open(directory, 1, SEGMENT_BYTES, false);
+        Files.write(segment.indexFile, new byte[] {1, 2, 3}); // not a whole entry: unusable
+        AuditSegment scanned = AuditSegment.open(directory, 1, SEGMENT_BYTES, false);
+        Files.delete(segment.indexFile);
+        AuditSegment unindexed = AuditSegment.open(directory, 1, SEGMENT_BYTES, false);
+
+        for (AuditQuery query : queries) {
+            List<AuditEvent> expected = scan(segment, query);
+            assertThat(expected).isNotEmpty();
+            assertThat(scan(indexed, query)).isEqualTo(expected);
+            assertThat(scan(scanned, query)).isEqualTo(expected);
+            assertThat(scan(unindexed, query)).isEqualTo(expected);
+        }
+        assertThat(indexed.nextSequence()).isEqualTo(1001);
+        assertThat(unindexed.nextSequence()).isEqualTo(1001);
+    }
+
+    @Test
+    void userAndTimeQueriesSkipBlocksTheIndexRulesOut() throws IOException {
+        AuditSegment segment = AuditSegment.create(directory, 1, SEGMENT_BYTES);
+        // Four blocks: each holds one user, over its own stretch of time
+        for (int i = 0; i < 4 * AuditSegment.BLOCK_RECORDS; i++) {
+            int block = i / AuditSegment.BLOCK_RECORDS;
+            segment.append(i + 1, new AuditEvent(0, T0 + block * 1000L + i, AuditEventType.LOGIN_SUCCESS,
+                    100 + block, "u@x", "10.0.0.1"));
+        }
+        segment.commit();
+        segment.force();
+        // Rewrite a record in block 1 to user 100 and one in block 2 to block 0's time. Only the
+        // records change: a query that reads the skipped blocks would return them.
+        writeFile(segment.logFile, (AuditSegment.BLOCK_RECORDS + 5) * RECORD_BYTES + 20,
+                ByteBuffer.allocate(8).putLong(100).flip());
+        writeFile(segment.logFile, (2 * AuditSegment.BLOCK_RECORDS + 5) * RECORD_BYTES + 12,
+                ByteBuffer.allocate(8).putLong(T0 + 10).flip());
+
+        assertThat(scan(segment, new AuditQuery(100L, 0, Long.MAX_VALUE, 0, Integer.MAX_VALUE)))
+                .hasSize(AuditSegment.BLOCK_RECORDS)
+                .allSatisfy(event -> assertThat(event.sequence()).isLessThanOrEqualTo(AuditSegment.BLOCK_RECORDS));
+        assertThat(scan(segment, new AuditQuery(null, T0, T0 + 1000, 0, Integer.MAX_VALUE)))
+                .hasSize(AuditSegment.BLOCK_RECORDS);
+        // Without the user filter block 1 is read, and the rewritten record shows up
+        assertThat(scan(segment, ALL)).filteredOn(event -> event.userId() == 100).hasSize(AuditSegment.BLOCK_RECORDS + 1);
+    }
+
+    @Test
+    void scansPastTheInitialBlockCapacity() throws IOException {
+        int records = 200 * AuditSegment.BLOCK_RECORDS + 10;
+        AuditSegment segment = write(AuditSegment.create(directory, 1, SEGMENT_BYTES), 1, records);
+
+        List<Long> sequences = sequences(scan(segment, ALL));
+
+        assertThat(sequences).hasSize(records);
+        assertThat(sequences.get(records - 1)).isEqualTo(records);
+        assertThat(sequences(scan(segment, new AuditQuery(null, 0, Long.MAX_VALUE, records - 5, 100))))
+                .containsExactly((long) records - 4, (long) records - 3, (long) records - 2, (long) records - 1,
+                        (long) records);
+    }
+
+    static AuditEvent event(long sequence) {
+        return new AuditEvent(0, T0 + sequence, AuditEventType.LOGIN_SUCCESS, sequence % 7, "u@x", "10.0.0.1");
+    }
+
+    private static AuditSegment write(AuditSegment segment, long first, int count) {
+        for (long sequence = first; sequence < first + count; sequence++) {
+            assertThat(segment.append(sequence, event(sequence))).isTrue();
+        }
+        segment.commit();
+        return segment;
+    }
+
+    private static List<AuditEvent> scan(AuditSegment segment, AuditQuery query) {
+        List<AuditEvent> events = new ArrayList<>();
+        segment.scan(query, Long.MAX_VALUE, events::add);
+        return events;
+    }
+
+    static List<Long> sequences(List<AuditEvent> events) {
+        return events.stream().map(AuditEvent::sequence).toList();
+    }
+
+    private static void writeFile(Path file, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static byte[] readFile(Path file, long position, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(bytes, position);
+        }
+        return bytes.array();
+    }
+}
@@ -0,0 +1,294 @@
+package com.bankportal.auth.datasource;
+
+import com.bankportal.auth.support.TestPostgres;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read/write routing against a primary and two replica stand-ins: three databases on one PostgreSQL
+ * server, each holding a marker row naming it.
+ *
+ * The stand-ins aren't in recovery, so each replica database shadows the replication functions the
+ * lag query calls (pg_is_in_recovery, pg_stat_wal_receiver and friends) with ones reading a table the
+ * test controls.
+ */
+class ReplicaRoutingTest {
+
+    private static final String LAG_STUB = """
+            CREATE SCHEMA lagstub;
+            CREATE TABLE lagstub.state (receive_lsn pg_lsn, replay_lsn pg_lsn, replayed_at timestamptz,
+                receiver_status text);
+            INSERT INTO lagstub.state VALUES ('0/10', '0/10', now(), 'streaming');
+            CREATE FUNCTION lagstub.pg_is_in_recovery() RETURNS boolean LANGUAGE sql AS 'SELECT true';
+            CREATE FUNCTION lagstub.pg_last_wal_receive_lsn() RETURNS pg_lsn LANGUAGE sql
+                AS 'SELECT receive_lsn FROM lagstub.state';
+            CREATE FUNCTION lagstub.pg_last_wal_replay_lsn() RETURNS pg_lsn LANGUAGE sql
+                AS 'SELECT replay_lsn FROM lagstub.state';
+            CREATE FUNCTION lagstub.pg_last_xact_replay_timestamp() RETURNS timestamptz LANGUAGE sql
+                AS 'SELECT replayed_at FROM lagstub.state';
+            CREATE VIEW lagstub.pg_stat_wal_receiver AS
+                SELECT receiver_status AS status FROM lagstub.state WHERE receiver_status IS NOT NULL;
+            """;
+
+    private static String primaryUrl;
+    private static List<String> replicaUrls;
+
+    private HikariDataSource primary;
+    private ReplicaMonitor monitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeAll
+    static void createDatabases() {
+        TestPostgres.assumeAvailable();
+        primaryUrl = TestPostgres.freshDatabase("routing_primary");
+        replicaUrls = List.of(TestPostgres.freshDatabase("routing_replica_1"), TestPostgres.freshDatabase("routing_replica_2"));
+
+        JdbcTemplate primaryJdbc = direct(primaryUrl);
+        primaryJdbc.execute("CREATE TABLE marker (name text)");
+        primaryJdbc.update("INSERT INTO marker VALUES ('primary')");
+        primaryJdbc.execute("CREATE TABLE accounts (email text)");
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            JdbcTemplate replicaJdbc = direct(replicaUrls.get(i));
+            replicaJdbc.execute("CREATE TABLE marker (name text)");
+            replicaJdbc.update("INSERT INTO marker VALUES (?)", "replica-" + (i + 1));
+            replicaJdbc.execute("CREATE TABLE accounts (email text)");
+            replicaJdbc.execute(LAG_STUB);
+            // pg_catalog named after lagstub, so the stubs win for new sessions
+            replicaJdbc.execute("ALTER DATABASE routing_replica_" + (i + 1) + " SET search_path = lagstub, pg_catalog, public");
+        }
+    }
+
+    @BeforeEach
+    void startRouting() {
+        primary = new HikariDataSource();
+        primary.setJdbcUrl(primaryUrl);
+        primary.setMaximumPoolSize(4);
+        primary.setPoolName("primary");
+        primary.addDataSourceProperty("prepareThreshold", "0");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReadReplicaConfig config = new ReadReplicaConfig();
+        monitor = config.replicaMonitor(primary, String.join(",", replicaUrls), 1000, 1000, meterRegistry);
+        DataSource routing = config.dataSource(primary, monitor, meterRegistry);
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+
+        for (int i = 1; i <= replicaUrls.size(); i++) {
+            setReplicaState(i, "'0/10'", "'0/10'", "now()");
+        }
+        direct(primaryUrl).update("DELETE FROM accounts");
+    }
+
+    @AfterEach
+    void stopRouting() {
+        monitor.close();
+        primary.close();
+        for (int i = 1; i <= replicaUrls.size(); i++) {
+            direct(primaryUrl).execute("ALTER DATABASE routing_replica_" + i + " WITH ALLOW_CONNECTIONS true");
+        }
+    }
+
+    @Test
+    void readsStayOnThePrimaryUntilTheFirstCheck() {
+        assertThat(readOnlyMarker()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() {
+        monitor.check();
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            seen.add(readOnlyMarker());
+        }
+        assertThat(seen).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void writesAndReadWriteTransactionsUseThePrimary() {
+        monitor.check();
+
+        String inReadWrite = readWrite.execute(status -> marker());
+        assertThat(inReadWrite).isEqualTo("primary");
+        assertThat(marker()).isEqualTo("primary");
+        jdbcTemplate.update("INSERT INTO accounts VALUES ('written@example.com')");
+        assertThat(direct(primaryUrl).queryForObject("SELECT count(*) FROM accounts", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void laggingReplicaLeavesRotationUntilItCatchesUp() {
+        // Behind on replay, last replayed transaction 5 s ago
+        setReplicaState(1, "'0/20'", "'0/10'", "now() - interval '5 seconds'");
+        monitor.check();
+        for (int i = 0; i < 4; i++) {
+            assertThat(readOnlyMarker()).isEqualTo("replica-2");
+        }
+
+        setReplicaState(1, "'0/20'", "'0/20'", "now() - interval '5 seconds'");
+        monitor.check();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            seen.add(readOnlyMarker());
+        }
+        // Fully replayed: an idle primary doesn't make its replica look stale
+        assertThat(seen).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void disconnectedReplicaLeavesRotationOnceItsLastReplayIsTooOld() {
+        // Replayed everything it received, but the WAL receiver is gone: no telling what it's missing
+        setReplicaReceiver(1, null);
+        setReplicaState(1, "'0/20'", "'0/20'", "now()");
+        monitor.check();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            seen.add(readOnlyMarker());
+        }
+        assertThat(seen).containsExactlyInAnyOrder("replica-1", "replica-2");
+
+        setReplicaState(1, "'0/20'", "'0/20'", "now() - interval '5 seconds'");
+        monitor.check();
+        for (int i = 0; i < 4; i++) {
+            assertThat(readOnlyMarker()).isEqualTo("replica-2");
+        }
+
+        // Reconnecting brings it back without a new transaction to replay
+        setReplicaReceiver(1, "streaming");
+        monitor.check();
+        seen.clear();
+        for (int i = 0; i < 4; i++) {
+            seen.add(readOnlyMarker());
+        }
+        assertThat(seen).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenEveryReplicaIsBehind() {
+        setReplicaState(1, "'0/20'", "'0/10'", "now() - interval '5 seconds'");
+        setReplicaState(2, "'0/20'", "'0/10'", "now() - interval '5 seconds'");
+        monitor.check();
+
+        assertThat(readOnlyMarker()).isEqualTo("primary");
+    }
+
+    @Test
+    void unreachableReplicasFailOverToThePrimary() {
+        monitor.check();
+        ReadRouting readRouting = new ReadRouting("replicas", 5);
+        refuseConnections(1);
+        refuseConnections(2);
+
+        // A pooled connection broken mid-query is retried on the primary; once the pool has to
+        // open a new connection, the failure takes the replica out of rotation
+        for (int i = 0; i < 4; i++) {
+            assertThat(readRouting.read("user@example.com", this::readOnlyMarker)).isEqualTo("primary");
+        }
+        monitor.check();
+        assertThat(readOnlyMarker()).isEqualTo("primary");
+
+        direct(primaryUrl).execute("ALTER DATABASE routing_replica_1 WITH ALLOW_CONNECTIONS true");
+        monitor.check();
+        assertThat(readOnlyMarker()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void recentWritersReadTheirOwnWritesFromThePrimary() {
+        monitor.check();
+        ReadRouting readRouting = new ReadRouting("replicas", 5);
+
+        readRouting.recordWrite("New.User@Example.com");
+
+        assertThat(readRouting.read("new.user@example.com", this::readOnlyMarker)).isEqualTo("primary");
+        assertThat(readRouting.read("someone.else@example.com", this::readOnlyMarker)).startsWith("replica-");
+    }
+
+    @Test
+    void missingRowOnAReplicaIsLookedUpOnThePrimary() {
+        monitor.check();
+        ReadRouting readRouting = new ReadRouting("replicas", 5);
+        // Written through another instance, not replicated yet
+        direct(primaryUrl).update("INSERT INTO accounts VALUES ('elsewhere@example.com')");
+
+        Optional<String> found = readRouting.find("elsewhere@example.com", () -> readOnly.execute(status ->
+                jdbcTemplate.queryForList("SELECT email FROM accounts WHERE email = ?", String.class,
+                        "elsewhere@example.com").stream().findFirst()));
+
+        assertThat(found).contains("elsewhere@example.com");
+    }
+
+    @Test
+    void onPrimaryOverridesReplicaRouting() {
+        monitor.check();
+        ReadRouting readRouting = new ReadRouting("replicas", 5);
+
+        assertThat(readRouting.onPrimary(this::readOnlyMarker)).isEqualTo("primary");
+        assertThat(readOnlyMarker()).startsWith("replica-");
+    }
+
+    /**
+     * Unpooled connections for setup and inspection, outside the routing under test
+     */
+    private static JdbcTemplate direct(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url));
+    }
+
+    @Test
+    void replicaPoolsInheritThePrimarysDriverSettings() {
+        monitor.check();
+
+        HikariDataSource replica = monitor.next().dataSource();
+        // prepareThreshold=0 for transaction-mode poolers must reach the replicas too
+        assertThat(replica.getDataSourceProperties()).containsEntry("prepareThreshold", "0");
+        assertThat(replica.isReadOnly()).isTrue();
+    }
+
+    private String readOnlyMarker() {
+        return readOnly.execute(status -> marker());
+    }
+
+    private String marker() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private void setReplicaState(int replica, String receiveLsn, String replayLsn, String replayedAt) {
+        direct(replicaUrls.get(replica - 1)).update(
+                "UPDATE lagstub.state SET receive_lsn = " + receiveLsn + ", replay_lsn = " + replayLsn
+                        + ", replayed_at = " + replayedAt);
+    }
+
+    private void setReplicaReceiver(int replica, String status) {
+        direct(replicaUrls.get(replica - 1)).update("UPDATE lagstub.state SET receiver_status = ?", status);
+    }
+
+    /**
+     * Take a replica down: no new sessions, existing ones terminated
+     */
+    private void refuseConnections(int replica) {
+        JdbcTemplate admin = direct(primaryUrl);
+        admin.execute("ALTER DATABASE routing_replica_" + replica + " WITH ALLOW_CONNECTIONS false");
+        admin.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE datname = ?",
+                Boolean.class, "routing_replica_" + replica);
+    }
+}
@@ -0,0 +1,149 @@
+package com.bankportal.auth.otp;
+
+import com.bankportal.auth.cache.UserCacheEntityListener;
+import com.bankportal.auth.datasource.ReadRouting;
+import com.bankportal.auth.datasource.ReadYourWritesEntityListener;
+import com.bankportal.auth.model.User;
+import com.bankportal.auth.repository.UserRepository;
+import com.bankportal.auth.support.TestPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements per OTP transition, counted with Hibernate statistics against PostgreSQL.
+ *
+ * Each "before" case replays what the store used to do, a read of the whole
+ * User followed by a full-entity save in one transaction, next to the
+ * single conditional statement that replaced it.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "auth.otp.store=jpa",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaOtpStateStore.class, OtpPolicy.class, ReadRouting.class,
+        UserCacheEntityListener.class, ReadYourWritesEntityListener.class})
+// Each repository call commits on its own, as in the service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaOtpStateStoreTest {
+
+    private static final String EMAIL = "otp@example.com";
+
+    @Autowired
+    private JpaOtpStateStore store;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void requirePostgres() {
+        TestPostgres.assumeAvailable();
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", TestPostgres::jdbcUrl);
+    }
+
+    @BeforeEach
+    void createUser() {
+        userRepository.deleteAll();
+        User user = new User();
+        user.setName("Otp User");
+        user.setEmail(EMAIL);
+        user.setPassword("$argon2i$hash");
+        user.setRole("user");
+        user.setMfaEnabled(true);
+        userRepository.save(user);
+    }
+
+    @Test
+    void issueTakesOneStatementInsteadOfTwo() {
+        long before = statements(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.findByEmail(EMAIL).orElseThrow();
+            user.setOtpCode("111111");
+            user.setOtpExpiry(LocalDateTime.now().plusMinutes(5));
+            user.setOtpAttempts(0);
+            user.setLastOtpRequest(LocalDateTime.now());
+            userRepository.save(user);
+        }));
+        long after = statements(() -> assertThat(store.issue(EMAIL, "222222", false)).isEqualTo(OtpStateStore.IssueResult.ISSUED));
+
+        assertThat(before).isEqualTo(2);
+        assertThat(after).isEqualTo(1);
+    }
+
+    @Test
+    void verifyTakesOneStatementInsteadOfTwo() {
+        store.issue(EMAIL, "123456", false);
+
+        long before = statements(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.findByEmail(EMAIL).orElseThrow();
+            user.setOtpAttempts(user.getOtpAttempts() + 1);
+            userRepository.save(user);
+        }));
+        long wrong = statements(() -> assertThat(store.verify(EMAIL, "000000")).isEqualTo(OtpStateStore.VerifyResult.invalid(1)));
+        long right = statements(() -> assertThat(store.verify(EMAIL, "123456")).isEqualTo(OtpStateStore.VerifyResult.VERIFIED));
+
+        assertThat(before).isEqualTo(2);
+        assertThat(wrong).isEqualTo(1);
+        assertThat(right).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWrongGuessesAreAllCounted() throws Exception {
+        store.issue(EMAIL, "123456", false);
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<?>[] guesses = new CompletableFuture<?>[2];
+        for (int i = 0; i < guesses.length; i++) {
+            guesses[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                store.verify(EMAIL, "000000");
+            });
+        }
+        start.countDown();
+        CompletableFuture.allOf(guesses).get();
+
+        assertThat(userRepository.findOtpColumnsByEmail(EMAIL).orElseThrow().getOtpCode()).isEqualTo("123456");
+        assertThat(userRepository.findByEmail(EMAIL).orElseThrow().getOtpAttempts()).isEqualTo(2);
+    }
+
+    private long statements(Runnable work) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        work.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
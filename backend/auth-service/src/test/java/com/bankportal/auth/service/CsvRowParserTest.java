@@ -0,0 +1,68 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.dto.ImportUserRow;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRowParserTest {
+
+    @Test
+    void readsColumnsInAnyOrder() {
+        UserImportService.CsvRowParser parser = new UserImportService.CsvRowParser("\uFEFF Name ,PASSWORD,email");
+
+        ImportUserRow row = parser.parse("Ada Lovelace,secret,ada@example.com");
+
+        assertThat(row.getEmail()).isEqualTo("ada@example.com");
+        assertThat(row.getName()).isEqualTo("Ada Lovelace");
+        assertThat(row.getPassword()).isEqualTo("secret");
+        assertThat(row.getPasswordHash()).isNull();
+    }
+
+    @Test
+    void unquotesFieldsHoldingCommasAndQuotes() {
+        UserImportService.CsvRowParser parser = new UserImportService.CsvRowParser("email,name,passwordHash");
+
+        ImportUserRow row = parser.parse("\"a@example.com\",\"Smith, \"\"Jo\"\"\",\"$argon2i$v=19$m=65536,t=3,p=4$c2FsdA$aGFzaA\"");
+
+        assertThat(row.getEmail()).isEqualTo("a@example.com");
+        assertThat(row.getName()).isEqualTo("Smith, \"Jo\"");
+        assertThat(row.getPasswordHash()).isEqualTo("$argon2i$v=19$m=65536,t=3,p=4$c2FsdA$aGFzaA");
+    }
+
+    @Test
+    void keepsQuotesInsideUnquotedFieldsAndTreatsEmptyFieldsAsMissing() {
+        UserImportService.CsvRowParser parser = new UserImportService.CsvRowParser("email,name,password,passwordHash");
+
+        ImportUserRow row = parser.parse("b@example.com,O\"Neil,,\"\"");
+
+        assertThat(row.getName()).isEqualTo("O\"Neil");
+        assertThat(row.getPassword()).isNull();
+        assertThat(row.getPasswordHash()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedRows() {
+        UserImportService.CsvRowParser parser = new UserImportService.CsvRowParser("email,name,password");
+
+        assertThatThrownBy(() -> parser.parse("c@example.com,Cy"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected 3 fields, found 2");
+        assertThatThrownBy(() -> parser.parse("c@example.com,Cy,pw,extra"))
+                .hasMessage("Expected 3 fields, found 4");
+        assertThatThrownBy(() -> parser.parse("c@example.com,\"Cy,pw"))
+                .hasMessage("Unterminated quoted field");
+    }
+
+    @Test
+    void rejectsAMissingOrIncompleteHeader() {
+        assertThatThrownBy(() -> new UserImportService.CsvRowParser(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV header row is missing");
+        assertThatThrownBy(() -> new UserImportService.CsvRowParser("email,name"))
+                .hasMessageContaining("password or passwordHash");
+        assertThatThrownBy(() -> new UserImportService.CsvRowParser("name,password"))
+                .hasMessageContaining("email");
+    }
+}
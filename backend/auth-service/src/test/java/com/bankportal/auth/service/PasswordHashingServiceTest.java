@@ -0,0 +1,51 @@
+package com.bankportal.auth.service;
+
+import com.bankportal.auth.service.PasswordHashingService.Argon2Policy;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashingServiceTest {
+
+    private static final Argon2Policy POLICY = new Argon2Policy(4, 65536, 2);
+    private static final String SALT_AND_HASH = "$c2FsdHNhbHRzYWx0$aGFzaGhhc2hoYXNoaGFzaA";
+
+    @Test
+    void sameParametersDoNotNeedRehash() {
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 65536, 4, 2), POLICY)).isFalse();
+    }
+
+    @Test
+    void strongerHashesFromAnotherCalibrationAreKept() {
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 65536, 5, 2), POLICY)).isFalse();
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 131072, 4, 2), POLICY)).isFalse();
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 65536, 4, 4), POLICY)).isFalse();
+    }
+
+    @Test
+    void fewerIterationsOrLessMemoryNeedRehash() {
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 65536, 3, 2), POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=19", 32768, 6, 2), POLICY)).isTrue();
+    }
+
+    @Test
+    void olderVersionOrOtherVariantNeedRehash() {
+        assertThat(PasswordHashingService.isWeakerThan("$argon2i$m=65536,t=4,p=2" + SALT_AND_HASH, POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2i", "v=16", 65536, 4, 2), POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan(hash("argon2id", "v=19", 65536, 4, 2), POLICY)).isTrue();
+    }
+
+    @Test
+    void unreadableHashesNeedRehash() {
+        assertThat(PasswordHashingService.isWeakerThan(null, POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan("", POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan("$2a$10$abcdefghijklmnopqrstuv", POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan("$argon2i$v=19$m=lots,t=4,p=2" + SALT_AND_HASH, POLICY)).isTrue();
+        assertThat(PasswordHashingService.isWeakerThan("$argon2i$v=19$p=2" + SALT_AND_HASH, POLICY)).isTrue();
+    }
+
+    private static String hash(String variant, String version, int memoryKib, int iterations, int parallelism) {
+        return "$" + variant + "$" + version + "$m=" + memoryKib + ",t=" + iterations + ",p=" + parallelism
+                + SALT_AND_HASH;
+    }
+}
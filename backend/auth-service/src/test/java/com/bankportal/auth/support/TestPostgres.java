@@ -0,0 +1,76 @@
+package com.bankportal.auth.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Assumptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The PostgreSQL server for tests that need real PostgreSQL SQL (UPDATE ... RETURNING, ON CONFLICT).
+ *
+ * An embedded server from the Maven repository, started once per JVM, or the server given with
+ * -Dtest.postgres.url (a JDBC URL with credentials). Tests use the "postgres" database and create
+ * their own schema, or a fresh database of their own from {@link #freshDatabase}. PostgreSQL refuses to run as root, so as root without an external server
+ * these tests are skipped.
+ */
+public final class TestPostgres {
+
+    private static final String URL_PROPERTY = "test.postgres.url";
+
+    private static String jdbcUrl;
+
+    private TestPostgres() {
+    }
+
+    /**
+     * Skip the calling test class when no server can be had; call from {@code @BeforeAll}
+     */
+    public static void assumeAvailable() {
+        Assumptions.assumeTrue(System.getProperty(URL_PROPERTY) != null || !"root".equals(System.getProperty("user.name")),
+                "PostgreSQL won't run as root; pass -D" + URL_PROPERTY + "=<jdbc url> to run these tests");
+    }
+
+    public static synchronized String jdbcUrl() {
+        if (jdbcUrl == null) {
+            jdbcUrl = System.getProperty(URL_PROPERTY);
+        }
+        if (jdbcUrl == null) {
+            try {
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        postgres.close();
+                    } catch (IOException ignored) {
+                        // the JVM is exiting anyway
+                    }
+                }));
+                jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return jdbcUrl;
+    }
+
+    /**
+     * JDBC URL of a newly created, empty database on the same server; an older one of that name is dropped
+     */
+    public static String freshDatabase(String name) {
+        String url = jdbcUrl();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + name + " WITH (FORCE)");
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create test database " + name, e);
+        }
+        int query = url.indexOf('?');
+        String base = query < 0 ? url : url.substring(0, query);
+        return base.substring(0, base.lastIndexOf('/') + 1) + name + (query < 0 ? "" : url.substring(query));
+    }
+}
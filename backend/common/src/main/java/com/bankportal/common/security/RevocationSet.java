@@ -0,0 +1,139 @@
+package com.bankportal.common.security;
+
+import com.bankportal.common.util.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact in-memory set of revoked token ids that forgets entries once the
+ * token would have expired anyway.
+ *
+ * Ids are grouped into buckets by expiry time. Each bucket has a Bloom filter
+ * in front of a shared exact map. The common "not revoked" answer comes from
+ * the filters alone: one hash, then one cache line per live bucket. A filter
+ * hit is confirmed against the exact map. A bucket and its filter are dropped
+ * as a whole once every token in it has expired, so the filters never need to
+ * support deletion.
+ */
+public final class RevocationSet {
+
+    private final long bucketMillis;
+    private final long expectedPerBucket;
+    private final double falsePositiveRate;
+    private final Map<String, Long> exact = new ConcurrentHashMap<>();
+    private volatile Bucket[] buckets = new Bucket[0];
+
+    /**
+     * @param bucketMillis      width of an expiry bucket, e.g. a quarter of the token TTL
+     * @param expectedPerBucket revocations expected per bucket, for filter sizing
+     * @param falsePositiveRate target false-positive rate of each bucket filter
+     */
+    public RevocationSet(long bucketMillis, long expectedPerBucket, double falsePositiveRate) {
+        this.bucketMillis = bucketMillis;
+        this.expectedPerBucket = expectedPerBucket;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Record a revocation. Returns false if the token has already expired or was already revoked.
+     */
+    public boolean add(RevokedToken token) {
+        long now = System.currentTimeMillis();
+        if (token.tokenId() == null || token.expiresAtMillis() <= now) {
+            return false;
+        }
+        if (exact.putIfAbsent(token.tokenId(), token.expiresAtMillis()) != null) {
+            return false;
+        }
+        bucketFor(token.expiresAtMillis()).filter().put(token.tokenId());
+        return true;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long hash = BloomFilter.hash(tokenId);
+        for (Bucket bucket : buckets) {
+            if (bucket.endsAtMillis() > now && bucket.filter().mightContain(hash)) {
+                Long expiresAt = exact.get(tokenId);
+                return expiresAt != null && expiresAt > now;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop expired entries and buckets. Call periodically.
+     */
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        exact.values().removeIf(expiresAt -> expiresAt <= now);
+        synchronized (this) {
+            List<Bucket> live = new ArrayList<>();
+            for (Bucket bucket : buckets) {
+                if (bucket.endsAtMillis() > now) {
+                    live.add(bucket);
+                }
+            }
+            if (live.size() != buckets.length) {
+                buckets = live.toArray(new Bucket[0]);
+            }
+        }
+    }
+
+    /**
+     * Live revocations, e.g. to seed a peer that fell too far behind
+     */
+    public List<RevokedToken> snapshot() {
+        long now = System.currentTimeMillis();
+        List<RevokedToken> tokens = new ArrayList<>();
+        exact.forEach((id, expiresAt) -> {
+            if (expiresAt > now) {
+                tokens.add(new RevokedToken(id, expiresAt));
+            }
+        });
+        return tokens;
+    }
+
+    public int size() {
+        return exact.size();
+    }
+
+    public long filterSizeInBytes() {
+        long bytes = 0;
+        for (Bucket bucket : buckets) {
+            bytes += bucket.filter().sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private Bucket bucketFor(long expiresAtMillis) {
+        long endsAt = (expiresAtMillis / bucketMillis + 1) * bucketMillis;
+        for (Bucket bucket : buckets) {
+            if (bucket.endsAtMillis() == endsAt) {
+                return bucket;
+            }
+        }
+        synchronized (this) {
+            for (Bucket bucket : buckets) {
+                if (bucket.endsAtMillis() == endsAt) {
+                    return bucket;
+                }
+            }
+            Bucket created = new Bucket(endsAt, BloomFilter.create(expectedPerBucket, falsePositiveRate));
+            Bucket[] grown = new Bucket[buckets.length + 1];
+            System.arraycopy(buckets, 0, grown, 0, buckets.length);
+            grown[buckets.length] = created;
+            buckets = grown;
+            return created;
+        }
+    }
+
+    private record Bucket(long endsAtMillis, BloomFilter filter) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.bankportal.common.security;
+
+/**
+ * A revoked access token, identified by its jti.
+ *
+ * @param tokenId         jti of the revoked token
+ * @param expiresAtMillis the token's own exp; the revocation is irrelevant after it
+ */
+public record RevokedToken(String tokenId, long expiresAtMillis) {
+}
@@ -0,0 +1,133 @@
+package com.bankportal.common.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Concurrent, cache-blocked Bloom filter.
+ *
+ * All probe bits for one key fall inside a single 512-bit block (one cache
+ * line), so a membership check costs one cache miss at most. Inserts set
+ * bits with atomic OR and never lock; lookups use opaque reads. The filter
+ * can answer "maybe" for keys never added, but never "no" for a key that was.
+ *
+ * Callers that check the same key against several filters can hash once with
+ * {@link #hash(CharSequence)} and use the hash-based overloads.
+ */
+public final class BloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+
+    private final long[] words;
+    private final int blockCount;
+    private final int hashCount;
+
+    private BloomFilter(int blockCount, int hashCount) {
+        this.words = new long[blockCount * BLOCK_WORDS];
+        this.blockCount = blockCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Size a filter for the expected number of keys and target false-positive rate
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        double bits = -n * Math.log(p) / (Math.log(2) * Math.log(2));
+        int hashCount = (int) Math.max(1, Math.min(16, Math.round(bits / n * Math.log(2))));
+        long blocks = Math.max(1, (long) Math.ceil(bits / BLOCK_BITS));
+        if (blocks * BLOCK_WORDS > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedInsertions + " keys");
+        }
+        return new BloomFilter((int) blocks, hashCount);
+    }
+
+    /**
+     * 64-bit hash of a key, usable with the hash-based overloads. Computed from the
+     * characters alone, so equal keys hash the same whatever CharSequence holds them,
+     * and with 64-bit state throughout rather than widened from String.hashCode().
+     */
+    public static long hash(CharSequence key) {
+        // FNV-1a over UTF-16 units, then a finaliser to spread the low-entropy bits
+        long h = 0xcbf29ce484222325L ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    public void put(CharSequence key) {
+        put(hash(key));
+    }
+
+    public void put(long hash) {
+        int base = blockOffset(hash);
+        int probe = (int) hash;
+        int step = (int) (hash >>> 16) | 1;
+        for (int i = 0; i < hashCount; i++, probe += step) {
+            int bit = probe & (BLOCK_BITS - 1); // position inside the 512-bit block
+            long mask = 1L << bit;
+            int index = base + (bit >>> 6);
+            if (((long) WORDS.getOpaque(words, index) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, index, mask);
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        return mightContain(hash(key));
+    }
+
+    public boolean mightContain(long hash) {
+        int base = blockOffset(hash);
+        int probe = (int) hash;
+        int step = (int) (hash >>> 16) | 1;
+        for (int i = 0; i < hashCount; i++, probe += step) {
+            int bit = probe & (BLOCK_BITS - 1);
+            if (((long) WORDS.getOpaque(words, base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Heap footprint of the bit array
+     */
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * Current false-positive probability estimated from the fraction of bits set.
+     * Scans the whole array; meant for metrics, not the request path.
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) {
+            set += Long.bitCount((long) WORDS.getOpaque(words, i));
+        }
+        double fill = (double) set / ((long) words.length * Long.SIZE);
+        return Math.pow(fill, hashCount);
+    }
+
+    private int blockOffset(long hash) {
+        // Multiply-shift range reduction of the high 32 bits onto [0, blockCount);
+        // probe positions use the low bits (double hashing inside the block)
+        int block = (int) (((hash >>> 32) * blockCount) >>> 32);
+        return block * BLOCK_WORDS;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bankportal.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free ring buffer for many producers and a single consumer.
+ *
+ * Producers claim a slot with one CAS on the tail and publish the element
+ * with an ordered store; {@link #offer} never blocks and returns false when
+ * the buffer is full, so callers on a latency-sensitive path can count the
+ * drop and move on. The consumer drains in batches, clearing each slot
+ * before advancing the head so a producer that sees free space always finds
+ * an empty slot.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add an element without blocking. Safe from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Hand up to {@code limit} elements to the consumer, oldest first. Only one thread may drain.
+     * Stops early at a slot that has been claimed but not yet published.
+     *
+     * @return how many elements were drained
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long position = head.get();
+        int drained = 0;
+        try {
+            while (drained < limit) {
+                int index = (int) position & mask;
+                E element = slots.get(index);
+                if (element == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                position++;
+                drained++;
+                consumer.accept(element);
+            }
+        } finally {
+            if (drained > 0) {
+                head.lazySet(position);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of buffered elements
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(mask + 1, tail.get() - head.get()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,162 @@
+package com.bankportal.common.security;
+
+import com.bankportal.common.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationSetTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    void revokedTokensAreReportedUntilTheyExpire() {
+        RevocationSet set = new RevocationSet(HOUR, 10_000, 0.01);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        assertThat(set.add(new RevokedToken("jti-1", expiresAt))).isTrue();
+
+        assertThat(set.isRevoked("jti-1")).isTrue();
+        assertThat(set.isRevoked("jti-2")).isFalse();
+        assertThat(set.isRevoked(null)).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.snapshot()).containsExactly(new RevokedToken("jti-1", expiresAt));
+    }
+
+    @Test
+    void duplicateExpiredAndAnonymousRevocationsAreRejected() {
+        RevocationSet set = new RevocationSet(HOUR, 10_000, 0.01);
+        long now = System.currentTimeMillis();
+
+        assertThat(set.add(new RevokedToken("jti-1", now + 60_000))).isTrue();
+        assertThat(set.add(new RevokedToken("jti-1", now + 60_000))).isFalse();
+        assertThat(set.add(new RevokedToken("jti-2", now - 1))).isFalse();
+        assertThat(set.add(new RevokedToken(null, now + 60_000))).isFalse();
+
+        assertThat(set.isRevoked("jti-2")).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredTokensStopCountingBeforeTheirBucketIsPurged() throws InterruptedException {
+        // One bucket outlives the token by up to an hour; the exact expiry still decides
+        RevocationSet set = new RevocationSet(HOUR, 10_000, 0.01);
+        set.add(new RevokedToken("short", System.currentTimeMillis() + 100));
+        set.add(new RevokedToken("long", System.currentTimeMillis() + 60_000));
+        assertThat(set.isRevoked("short")).isTrue();
+
+        Thread.sleep(150);
+
+        assertThat(set.isRevoked("short")).isFalse();
+        assertThat(set.isRevoked("long")).isTrue();
+        assertThat(set.snapshot()).extracting(RevokedToken::tokenId).containsExactly("long");
+        assertThat(set.size()).isEqualTo(2);
+
+        set.purgeExpired();
+
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.isRevoked("long")).isTrue();
+    }
+
+    @Test
+    void purgeDropsBucketsOnceEveryTokenInThemHasExpired() throws InterruptedException {
+        long bucketMillis = 50;
+        RevocationSet set = new RevocationSet(bucketMillis, 10_000, 0.01);
+        long expiresAt = System.currentTimeMillis() + 100;
+        set.add(new RevokedToken("soon", expiresAt));
+        set.add(new RevokedToken("later", System.currentTimeMillis() + 60_000));
+        long twoBuckets = set.filterSizeInBytes();
+        assertThat(twoBuckets).isPositive();
+
+        long bucketEndsAt = (expiresAt / bucketMillis + 1) * bucketMillis;
+        Thread.sleep(bucketEndsAt - System.currentTimeMillis() + 20);
+        set.purgeExpired();
+
+        assertThat(set.filterSizeInBytes()).isEqualTo(twoBuckets / 2);
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.isRevoked("soon")).isFalse();
+        assertThat(set.isRevoked("later")).isTrue();
+    }
+
+    @Test
+    void filterFalsePositivesAreCheckedAgainstTheExactSet() {
+        // A one-key filter loaded with 2,000 keys says "maybe" to nearly everything
+        RevocationSet set = new RevocationSet(HOUR, 1, 0.5);
+        BloomFilter sameFilter = BloomFilter.create(1, 0.5);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 2_000; i++) {
+            set.add(new RevokedToken("revoked-" + i, expiresAt));
+            sameFilter.put("revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000; i++) {
+            String tokenId = "live-" + i;
+            if (sameFilter.mightContain(tokenId)) {
+                falsePositives++;
+            }
+            assertThat(set.isRevoked(tokenId)).isFalse();
+        }
+        assertThat(falsePositives).isGreaterThan(900);
+        for (int i = 0; i < 2_000; i++) {
+            assertThat(set.isRevoked("revoked-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void concurrentRevocationsAreAllVisibleAndNeverLeakToOtherTokens() throws Exception {
+        // Short buckets, so writers race to create new ones while readers walk the array
+        RevocationSet set = new RevocationSet(1_000, 1_000, 0.01);
+        long base = System.currentTimeMillis() + 60_000;
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                // Every writer revokes the same ids; each is accepted exactly once
+                for (int i = 0; i < 10_000; i++) {
+                    if (set.add(new RevokedToken("jti-" + i, base + (i % 40) * 1_000L + thread))) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(executor.submit(() -> {
+                int wrong = 0;
+                for (int i = 0; writing.get(); i = (i + 1) % 10_000) {
+                    if (set.isRevoked("other-" + i)) {
+                        wrong++;
+                    }
+                }
+                return wrong;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<Integer> reader : readers) {
+            assertThat(reader.get(30, TimeUnit.SECONDS)).isZero();
+        }
+        executor.shutdown();
+
+        assertThat(accepted.get()).isEqualTo(10_000);
+        assertThat(set.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(set.isRevoked("jti-" + i)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bankportal.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverAnswersNoForAnAddedKey() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.02);
+    }
+
+    @Test
+    void hashDependsOnlyOnTheCharacters() {
+        String key = "alice@example.com";
+        assertThat(BloomFilter.hash(new StringBuilder(key))).isEqualTo(BloomFilter.hash(key));
+        assertThat(BloomFilter.hash(key.subSequence(0, 5))).isEqualTo(BloomFilter.hash("alice"));
+
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        filter.put(new StringBuilder(key));
+        assertThat(filter.mightContain(key)).isTrue();
+    }
+
+    @Test
+    void hashSeparatesStringsWithEqualHashCodes() {
+        // "Aa" and "BB" share String.hashCode()
+        assertThat(BloomFilter.hash("Aa")).isNotEqualTo(BloomFilter.hash("BB"));
+        assertThat(BloomFilter.hash("AaAa")).isNotEqualTo(BloomFilter.hash("BBBB"));
+    }
+
+    @Test
+    void concurrentInsertsAreAllVisible() throws InterruptedException {
+        BloomFilter filter = BloomFilter.create(40_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.put(thread + ":" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(filter.mightContain(t + ":" + i)).isTrue();
+            }
+        }
+    }
+}
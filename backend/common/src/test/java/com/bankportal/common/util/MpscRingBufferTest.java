@@ -0,0 +1,105 @@
+package com.bankportal.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MpscRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(1).capacity()).isEqualTo(1);
+        assertThat(new MpscRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(64).capacity()).isEqualTo(64);
+        assertThatThrownBy(() -> new MpscRingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refusesOffersWhenFullUntilDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 1)).isEqualTo(1);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.drain(drained::add, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void drainsAtMostTheLimitOldestFirst() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(16);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer("e" + i);
+        }
+        List<String> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 3)).isEqualTo(3);
+        assertThat(drained).containsExactly("e0", "e1", "e2");
+        assertThat(buffer.size()).isEqualTo(7);
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThatThrownBy(() -> new MpscRingBuffer<String>(4).offer(null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<Long> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            executor.execute(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Long> seen = new HashSet<>();
+        long[] lastPerProducer = new long[producers];
+        Arrays.fill(lastPerProducer, -1);
+        boolean[] ordered = {true};
+        while (seen.size() < producers * perProducer) {
+            int drained = buffer.drain(element -> {
+                assertThat(seen.add(element)).isTrue();
+                int producer = (int) (element / perProducer);
+                ordered[0] &= element > lastPerProducer[producer];
+                lastPerProducer[producer] = element;
+            }, 256);
+            if (drained == 0) {
+                assertThat(done.getCount() > 0 || buffer.size() > 0).isTrue();
+                Thread.onSpinWait();
+            }
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(seen).hasSize(producers * perProducer);
+        // Each producer's elements come out in the order it offered them
+        assertThat(ordered[0]).isTrue();
+        assertThat(buffer.size()).isZero();
+    }
+}
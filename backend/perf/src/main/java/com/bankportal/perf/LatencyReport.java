@@ -0,0 +1,134 @@
+package com.bankportal.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts per label, recorded from many threads.
+ * Latencies are in microseconds and reported in milliseconds.
+ */
+final class LatencyReport {
+
+    enum Outcome {
+        OK("2xx"),
+        RATE_LIMITED("429"),
+        CLIENT_ERROR("4xx"),
+        SERVER_ERROR("5xx"),
+        FAILED("io/timeout");
+
+        final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        static Outcome of(int status) {
+            if (status >= 200 && status < 300) {
+                return OK;
+            }
+            if (status == 429) {
+                return RATE_LIMITED;
+            }
+            return status < 500 ? CLIENT_ERROR : SERVER_ERROR;
+        }
+    }
+
+    private final long highestTrackableMicros;
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+
+    LatencyReport(long highestTrackableMicros) {
+        this.highestTrackableMicros = highestTrackableMicros;
+    }
+
+    void record(String label, Outcome outcome, long latencyNanos) {
+        Series s = series.computeIfAbsent(label, key -> new Series(highestTrackableMicros));
+        s.histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), highestTrackableMicros));
+        s.outcomes[outcome.ordinal()].increment();
+    }
+
+    Map<String, Series> series() {
+        return series;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-12s %9s %8s %9s %9s %9s %9s %9s   %s%n",
+                "operation", "count", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "outcomes");
+        series.forEach((label, s) -> {
+            Histogram h = s.histogram;
+            StringBuilder outcomes = new StringBuilder();
+            for (Outcome outcome : Outcome.values()) {
+                long count = s.count(outcome);
+                if (count > 0) {
+                    outcomes.append(outcome.label).append('=').append(count).append(' ');
+                }
+            }
+            out.printf("%-12s %9d %8.2f %9.1f %9.1f %9.1f %9.1f %9.1f   %s%n",
+                    label, s.total(), s.errorPercent(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue()), outcomes.toString().trim());
+        });
+    }
+
+    /**
+     * One HdrHistogram percentile distribution per label (label.hgrm), in milliseconds,
+     * for plotting or comparing runs
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")))) {
+            print(out);
+        }
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    static final class Series {
+        final Histogram histogram;
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+        Series(long highestTrackableMicros) {
+            this.histogram = new ConcurrentHistogram(highestTrackableMicros, 3);
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        long count(Outcome outcome) {
+            return outcomes[outcome.ordinal()].sum();
+        }
+
+        long total() {
+            long total = 0;
+            for (LongAdder outcome : outcomes) {
+                total += outcome.sum();
+            }
+            return total;
+        }
+
+        double errorPercent() {
+            long total = total();
+            return total == 0 ? 0 : 100.0 * (total - count(Outcome.OK)) / total;
+        }
+
+        double p99Millis() {
+            return millis(histogram.getValueAtPercentile(99));
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.bankportal.perf;
+
+import com.bankportal.perf.LatencyReport.Outcome;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ledger load test. Starts the stack with transaction-service, registers one
+ * user, opens one account and has --writers threads post transactions to it
+ * through the TLS gateway for the warmup and the measured duration.
+ *
+ * Load is closed-model: each writer sends its next posting as soon as the
+ * last one is answered, so the result is the throughput the ledger sustains
+ * with that many concurrent writers on a single account. A share of postings
+ * (--pending-percent) open as pending; writers complete about half of them
+ * later, and each completion counts as a posting. A 503 is retried with the
+ * same transaction id, as a client would. With --direct=true postings go
+ * straight to transaction-service, as the gateway would forward them, which
+ * measures the ledger without TLS and the gateway in the same process.
+ *
+ * Afterwards the account's balances must equal the sum of every confirmed
+ * posting, and paging through its history must return each transaction
+ * exactly once, newest first. Exits with status 1 if either check fails or
+ * the measured rate is below --min-postings-per-sec.
+ */
+public final class LedgerLoadTest {
+
+    private static final String CLIENT_IP = "10.250.0.1";
+    private static final int MAX_ATTEMPTS = 20;
+    private static final int PAGE_SIZE = 200;
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final URI baseUri;
+    private final URI ledgerUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyReport report;
+
+    private String token;
+    private String userId;
+    private String accountId;
+    private volatile boolean running = true;
+    private volatile long measureStart = Long.MAX_VALUE;
+    private AtomicLongArray perSecond;
+    private double postingsPerSecond;
+
+    /** Expected account state, from confirmed postings; cents */
+    private final LongAdder expectedBalance = new LongAdder();
+    private final LongAdder expectedPendingDebits = new LongAdder();
+    private final LongAdder expectedPendingCredits = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder stillPending = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder unconfirmed = new LongAdder();
+
+    private LedgerLoadTest(LoadTestOptions options) throws Exception {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .sslContext(LoadGenerator.trustGatewayCertificate())
+                .build();
+        this.baseUri = URI.create("https://localhost:" + options.gatewayPort);
+        this.ledgerUri = options.direct ? URI.create("http://localhost:" + options.transactionPort) : baseUri;
+        this.report = new LatencyReport(TimeUnit.SECONDS.toMicros(options.requestTimeout.toSeconds()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if ("root".equals(System.getProperty("user.name"))) {
+            // initdb refuses to run as root
+            System.err.println("Embedded Postgres cannot run as root; run the load test as an unprivileged user.");
+            System.exit(2);
+        }
+        // The gateway's certificate is self-signed for its own host name; the client pins it instead
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+        // All load comes from one user on one address; the per-IP limit would otherwise be the bottleneck
+        options.gatewayProperties.putIfAbsent("gateway.rate-limit.enabled", false);
+
+        List<String> failures;
+        try (PerfEnvironment environment = PerfEnvironment.startWithTransactionService(options)) {
+            LedgerLoadTest test = new LedgerLoadTest(options);
+            test.setUp();
+            System.out.printf("Running %d writers on account %s for %ds warmup + %ds measured, %d%% pending, %s%n",
+                    options.writers, test.accountId, options.warmup.toSeconds(), options.duration.toSeconds(),
+                    options.pendingPercent, options.direct ? "direct to transaction-service" : "through the gateway");
+            test.run();
+            failures = test.verify();
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private void setUp() throws IOException, InterruptedException {
+        String email = "perf-ledger-" + Long.toString(System.currentTimeMillis(), 36) + "@perf.example.com";
+        HttpResponse<String> registered = send("POST", "/api/auth/register", "{\"name\":\"Perf Ledger\",\"email\":\""
+                + email + "\",\"password\":\"" + UserSeeder.PASSWORD + "\"}");
+        token = field(registered, "token");
+        // Shown to clients as user_<id>; the gateway forwards the bare id
+        userId = objectMapper.readTree(registered.body()).get("user").get("id").asText().replace("user_", "");
+        HttpResponse<String> account = send("POST", "/api/transactions/accounts", "{\"name\":\"Perf Ledger\"}");
+        accountId = field(account, "id");
+    }
+
+    private void run() throws InterruptedException {
+        int seconds = (int) options.duration.toSeconds();
+        perSecond = new AtomicLongArray(seconds);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < options.writers; i++) {
+            Thread writer = new Thread(this::write, "ledger-load-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        Thread.sleep(options.warmup.toMillis());
+        measureStart = System.nanoTime();
+        Thread.sleep(options.duration.toMillis());
+        running = false;
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        long measured = 0;
+        long lowest = Long.MAX_VALUE;
+        for (int i = 0; i < seconds; i++) {
+            measured += perSecond.get(i);
+            lowest = Math.min(lowest, perSecond.get(i));
+        }
+        System.out.println();
+        report.print(System.out);
+        System.out.printf("%nPostings: %.0f/s sustained over %ds, lowest 1s window %d/s; %d retries%n",
+                (double) measured / seconds, seconds, lowest, retries.sum());
+        postingsPerSecond = (double) measured / seconds;
+    }
+
+    /**
+     * One writer: open transactions, and complete some of the pending ones it opened
+     */
+    private void write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ArrayDeque<Pending> pending = new ArrayDeque<>();
+        while (running) {
+            if (!pending.isEmpty() && random.nextInt(100) < options.pendingPercent / 2) {
+                Pending transaction = pending.poll();
+                if (post("complete", "/api/transactions/accounts/" + accountId + "/transactions/"
+                        + transaction.id + "/complete", "")) {
+                    addPending(transaction.debit, -transaction.amount);
+                    expectedBalance.add(transaction.debit ? -transaction.amount : transaction.amount);
+                    stillPending.decrement();
+                }
+                continue;
+            }
+            UUID id = UUID.randomUUID();
+            boolean debit = random.nextBoolean();
+            boolean isPending = random.nextInt(100) < options.pendingPercent;
+            long amount = 1 + random.nextInt(100_000);
+            String body = "{\"id\":\"" + id + "\",\"name\":\"Perf posting\",\"category\":\"Load\",\"amount\":"
+                    + amount / 100 + "." + String.format("%02d", amount % 100) + ",\"type\":\""
+                    + (debit ? "debit" : "credit") + "\",\"status\":\"" + (isPending ? "pending" : "completed") + "\"}";
+            if (post("post", "/api/transactions/accounts/" + accountId + "/transactions", body)) {
+                opened.increment();
+                if (isPending) {
+                    addPending(debit, amount);
+                    stillPending.increment();
+                    pending.add(new Pending(id, debit, amount));
+                } else {
+                    expectedBalance.add(debit ? -amount : amount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send until confirmed, retrying a 503 with the same body; true if the posting committed
+     */
+    private boolean post(String label, String path, String body) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long started = System.nanoTime();
+            Outcome outcome;
+            try {
+                outcome = Outcome.of(send("POST", path, body).statusCode());
+            } catch (IOException e) {
+                outcome = Outcome.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            long finished = System.nanoTime();
+            boolean measured = started >= measureStart;
+            if (measured) {
+                report.record(label, outcome, finished - started);
+            }
+            if (outcome == Outcome.OK) {
+                int second = (int) ((finished - measureStart) / 1_000_000_000L);
+                if (measured && second < perSecond.length()) {
+                    perSecond.incrementAndGet(second);
+                }
+                return true;
+            }
+            if (outcome == Outcome.CLIENT_ERROR) {
+                return false;
+            }
+            retries.increment();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        unconfirmed.increment();
+        return false;
+    }
+
+    private void addPending(boolean debit, long amount) {
+        (debit ? expectedPendingDebits : expectedPendingCredits).add(amount);
+    }
+
+    private List<String> verify() throws IOException, InterruptedException {
+        List<String> failures = new ArrayList<>();
+        if (unconfirmed.sum() > 0) {
+            failures.add(unconfirmed.sum() + " postings never confirmed; balances cannot be checked");
+            return failures;
+        }
+
+        JsonNode account = objectMapper.readTree(send("GET", "/api/transactions/accounts/" + accountId, null).body());
+        check(failures, "balance", expectedBalance.sum(), cents(account, "balance"));
+        check(failures, "pending debits", expectedPendingDebits.sum(), cents(account, "pendingDebits"));
+        check(failures, "pending credits", expectedPendingCredits.sum(), cents(account, "pendingCredits"));
+
+        long pages = 0;
+        long transactions = 0;
+        long pendingSeen = 0;
+        String cursor = null;
+        long started = System.nanoTime();
+        do {
+            String query = "?limit=" + PAGE_SIZE + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode page = objectMapper.readTree(send("GET",
+                    "/api/transactions/accounts/" + accountId + "/transactions" + query, null).body());
+            for (JsonNode transaction : page.get("transactions")) {
+                transactions++;
+                if ("pending".equals(transaction.get("status").asText())) {
+                    pendingSeen++;
+                }
+            }
+            JsonNode next = page.get("nextCursor");
+            if (next != null && !next.isNull() && cursor != null && Long.parseLong(next.asText()) >= Long.parseLong(cursor)) {
+                failures.add("history cursor did not move back: " + cursor + " then " + next.asText());
+                break;
+            }
+            cursor = next != null && !next.isNull() ? next.asText() : null;
+            pages++;
+        } while (cursor != null);
+        System.out.printf("History: %d transactions in %d pages of %d, %d ms%n",
+                transactions, pages, PAGE_SIZE, (System.nanoTime() - started) / 1_000_000);
+        check(failures, "transactions in history", opened.sum(), transactions);
+        check(failures, "pending transactions in history", stillPending.sum(), pendingSeen);
+
+        if (options.minPostingsPerSecond >= 0 && postingsPerSecond < options.minPostingsPerSecond) {
+            failures.add(String.format("%.0f postings/s < %.0f", postingsPerSecond, options.minPostingsPerSecond));
+        }
+        if (failures.isEmpty()) {
+            System.out.printf("Verified: balance %d, pending debits %d, pending credits %d (cents)%n",
+                    expectedBalance.sum(), expectedPendingDebits.sum(), expectedPendingCredits.sum());
+        }
+        return failures;
+    }
+
+    private static void check(List<String> failures, String what, long expected, long actual) {
+        if (expected != actual) {
+            failures.add(what + ": expected " + expected + ", got " + actual);
+        }
+    }
+
+    private static long cents(JsonNode node, String field) {
+        return node.get(field).decimalValue().movePointRight(2).longValueExact();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        boolean direct = options.direct && path.startsWith("/api/transactions/");
+        HttpRequest.Builder request = HttpRequest.newBuilder((direct ? ledgerUri : baseUri).resolve(path))
+                .timeout(options.requestTimeout)
+                .header(LoadGenerator.CLIENT_IP_HEADER, CLIENT_IP);
+        if (direct) {
+            request.header("X-User-Id", userId);
+        } else if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String field(HttpResponse<String> response, String name) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(response.uri().getPath() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get(name).asText();
+    }
+
+    private record Pending(UUID id, boolean debit, long amount) {
+    }
+}
@@ -0,0 +1,286 @@
+package com.bankportal.perf;
+
+import com.bankportal.perf.LatencyReport.Outcome;
+import com.eatthepath.otp.TimeBasedOneTimePasswordGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests start on a fixed schedule of {@code rate} per
+ * second whether or not earlier ones have finished, as real users would.
+ *
+ * Each latency is measured from the request's scheduled start, not from when
+ * it was actually sent, so a stalled server or a late generator shows up as
+ * latency instead of silently lowering the rate (coordinated omission).
+ * Requests scheduled during the warmup are sent but not recorded.
+ *
+ * Seeded users are taken round-robin from their pool, each with its own
+ * client address, so per-user limits (the gateway's per-email and per-IP
+ * limits, the OTP cooldown, TOTP replay protection) are hit only if the pool
+ * is too small for the rate; {@link #checkPools} warns when it is.
+ */
+final class LoadGenerator {
+
+    static final String CLIENT_IP_HEADER = "X-Forwarded-For";
+
+    /** Gateway login and OTP limit per email */
+    private static final int PER_EMAIL_PER_MINUTE = 5;
+    private static final long OTP_COOLDOWN_SECONDS = 60;
+    private static final long TOTP_STEP_SECONDS = 30;
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TimeBasedOneTimePasswordGenerator totp;
+    private final Key totpKey = new SecretKeySpec(UserSeeder.TOTP_SECRET, "HmacSHA1");
+    private final Operation[] schedule;
+    private final AtomicLong[] nextUser = new AtomicLong[Operation.values().length];
+    private final AtomicLong registrations = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final LatencyReport report;
+
+    LoadGenerator(LoadTestOptions options) throws GeneralSecurityException, IOException {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .sslContext(trustGatewayCertificate())
+                .connectTimeout(options.requestTimeout)
+                .build();
+        this.baseUri = URI.create("https://localhost:" + options.gatewayPort);
+        this.schedule = weightedSchedule(options.mix);
+        this.totp = new TimeBasedOneTimePasswordGenerator();
+        for (int i = 0; i < nextUser.length; i++) {
+            nextUser[i] = new AtomicLong();
+        }
+        this.report = new LatencyReport(options.requestTimeout.multipliedBy(2).toNanos() / 1000);
+    }
+
+    LatencyReport report() {
+        return report;
+    }
+
+    /**
+     * Warn about pools too small for the rate: reusing a user sooner than the
+     * server allows turns into 429s and rejected codes that measure the limits,
+     * not the service
+     */
+    void checkPools() {
+        int total = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        checkPool(Operation.LOGIN, options.passwordUsers(), 60.0 / PER_EMAIL_PER_MINUTE, total);
+        checkPool(Operation.VERIFY_OTP, options.totpUsers(), Math.max(60.0 / PER_EMAIL_PER_MINUTE, TOTP_STEP_SECONDS), total);
+        checkPool(Operation.SEND_OTP, options.emailOtpUsers(), OTP_COOLDOWN_SECONDS, total);
+    }
+
+    private void checkPool(Operation operation, int poolSize, double minReuseSeconds, int totalWeight) {
+        int weight = options.mix.getOrDefault(operation, 0);
+        if (weight == 0) {
+            return;
+        }
+        if (poolSize == 0) {
+            throw new IllegalArgumentException(operation.label + " is in the mix but no users are seeded for it");
+        }
+        double perSecond = options.rate * weight / totalWeight;
+        double reuseSeconds = poolSize / perSecond;
+        if (reuseSeconds < minReuseSeconds) {
+            System.err.printf("WARNING: %d users for %s at %.1f/s are reused every %.1fs; "
+                            + "the server limits them to once per %.0fs, so expect rejections. Seed more users.%n",
+                    poolSize, operation.label, perSecond, reuseSeconds, minReuseSeconds);
+        }
+    }
+
+    /**
+     * Run the warmup and the measured period, then wait for stragglers
+     */
+    void run() throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            dispatch(operation, intended, intended >= measureFrom);
+        }
+
+        long drainDeadline = System.nanoTime() + options.requestTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void dispatch(Operation operation, long intended, boolean measured) {
+        inFlight.incrementAndGet();
+        CompletableFuture<?> request = switch (operation) {
+            case REGISTER -> register(intended, measured);
+            case LOGIN -> login(intended, measured);
+            case SEND_OTP -> sendOtp(intended, measured);
+            case VERIFY_OTP -> loginWithTotp(intended, measured);
+        };
+        request.whenComplete((result, error) -> inFlight.decrementAndGet());
+    }
+
+    private CompletableFuture<?> register(long intended, boolean measured) {
+        long n = registrations.getAndIncrement();
+        String body = "{\"name\":\"Perf New " + n + "\",\"email\":\"perf-new-" + runId + "-" + n
+                + "@perf.example.com\",\"password\":\"" + UserSeeder.PASSWORD + "\"}";
+        // 172.16.0.0/12, so new accounts never share an address with seeded users
+        return post("/api/auth/register", body, address(172, (1 << 20) + n), Operation.REGISTER.label, intended, measured);
+    }
+
+    private CompletableFuture<?> login(long intended, boolean measured) {
+        int user = nextUser(Operation.LOGIN, options.passwordUsers());
+        String body = credentials(UserSeeder.passwordUser(user));
+        return post("/api/auth/login", body, address(10, user), Operation.LOGIN.label, intended, measured);
+    }
+
+    private CompletableFuture<?> sendOtp(long intended, boolean measured) {
+        int user = nextUser(Operation.SEND_OTP, options.emailOtpUsers());
+        String body = "{\"email\":\"" + UserSeeder.emailOtpUser(user) + "\"}";
+        return post("/api/auth/send-otp", body, address(10, (1 << 22) + user), Operation.SEND_OTP.label, intended, measured);
+    }
+
+    /**
+     * Login, then verify-otp with the mfaToken it returns and a freshly computed
+     * code. The second request is timed from when the first completed.
+     */
+    private CompletableFuture<?> loginWithTotp(long intended, boolean measured) {
+        int user = nextUser(Operation.VERIFY_OTP, options.totpUsers());
+        String email = UserSeeder.totpUser(user);
+        String ip = address(10, (2 << 22) + user);
+        return post("/api/auth/login", credentials(email), ip, "login-mfa", intended, measured)
+                .thenCompose(response -> {
+                    String mfaToken = response != null && response.statusCode() == 200
+                            ? field(response.body(), "mfaToken") : null;
+                    if (mfaToken == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    String body = "{\"email\":\"" + email + "\",\"code\":\"" + totpCode()
+                            + "\",\"mfaToken\":\"" + mfaToken + "\"}";
+                    return post("/api/auth/verify-otp", body, ip, Operation.VERIFY_OTP.label, System.nanoTime(), measured);
+                });
+    }
+
+    /**
+     * Send a request and record its outcome; completes with the response, or null on failure
+     */
+    private CompletableFuture<HttpResponse<String>> post(String path, String body, String clientIp,
+                                                         String label, long intended, boolean measured) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(options.requestTimeout)
+                .header("Content-Type", "application/json")
+                .header(CLIENT_IP_HEADER, clientIp)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long latency = System.nanoTime() - intended;
+                    if (measured) {
+                        report.record(label, error != null ? Outcome.FAILED : Outcome.of(response.statusCode()), latency);
+                    }
+                    return error != null ? null : response;
+                });
+    }
+
+    private int nextUser(Operation operation, int poolSize) {
+        return (int) (nextUser[operation.ordinal()].getAndIncrement() % poolSize);
+    }
+
+    private static String credentials(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"" + UserSeeder.PASSWORD + "\"}";
+    }
+
+    private String totpCode() {
+        try {
+            return String.format("%06d", totp.generateOneTimePassword(totpKey, Instant.now()));
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String field(String json, String name) {
+        try {
+            JsonNode value = objectMapper.readTree(json).get(name);
+            return value != null && !value.isNull() ? value.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A distinct IPv4 address per index within the /8 {@code first}
+     */
+    private static String address(int first, long index) {
+        return first + "." + ((index >> 16) & 0xff) + "." + ((index >> 8) & 0xff) + "." + (index & 0xff);
+    }
+
+    /**
+     * One slot per unit of weight, so a uniform pick follows the mix
+     */
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("--mix has no weight");
+        }
+        Operation[] slots = new Operation[total];
+        int i = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int w = 0; w < entry.getValue(); w++) {
+                slots[i++] = entry.getKey();
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Trust the gateway's self-signed certificate, read from its keystore on the classpath
+     */
+    static SSLContext trustGatewayCertificate() throws GeneralSecurityException, IOException {
+        KeyStore gatewayKeyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = LoadGenerator.class.getResourceAsStream("/api-gateway-keystore.p12")) {
+            if (in == null) {
+                throw new IllegalStateException("api-gateway-keystore.p12 not on the classpath");
+            }
+            gatewayKeyStore.load(in, "changeit".toCharArray());
+        }
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("api-gateway", gatewayKeyStore.getCertificate("api-gateway"));
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLSv1.3");
+        context.init(null, trustManagers.getTrustManagers(), null);
+        return context;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bankportal.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test. Starts embedded Postgres, auth-service and the TLS
+ * api-gateway in this JVM, seeds users, drives the configured mix through the
+ * gateway and prints p50/p90/p99/p99.9 latency and error rates per operation.
+ * Histograms are written to the output directory as .hgrm files.
+ *
+ * Exits with status 1 if --max-p99-ms or --max-error-rate is exceeded by any
+ * operation, so a run can gate a release. See README.md for options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if ("root".equals(System.getProperty("user.name"))) {
+            // initdb refuses to run as root
+            System.err.println("Embedded Postgres cannot run as root; run the load test as an unprivileged user.");
+            System.exit(2);
+        }
+        // The gateway's certificate is self-signed for its own host name; the generator pins it instead
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+
+        List<String> failures;
+        try (PerfEnvironment environment = PerfEnvironment.start(options)) {
+            long seedStart = System.nanoTime();
+            UserSeeder.seed(environment.authContext(), options);
+            System.out.printf("Seeded %d users (%d password, %d TOTP, %d email OTP) in %d ms%n",
+                    options.users, options.passwordUsers(), options.totpUsers(), options.emailOtpUsers(),
+                    (System.nanoTime() - seedStart) / 1_000_000);
+
+            LoadGenerator generator = new LoadGenerator(options);
+            generator.checkPools();
+            System.out.printf("Running %.1f req/s for %ds warmup + %ds measured, mix %s%n",
+                    options.rate, options.warmup.toSeconds(), options.duration.toSeconds(), options.mix);
+            generator.run();
+
+            LatencyReport report = generator.report();
+            System.out.println();
+            report.print(System.out);
+            report.write(options.outputDirectory);
+            System.out.println("\nHistograms written to " + options.outputDirectory.toAbsolutePath());
+            failures = checkGates(report, options);
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static List<String> checkGates(LatencyReport report, LoadTestOptions options) {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, LatencyReport.Series> entry : report.series().entrySet()) {
+            LatencyReport.Series series = entry.getValue();
+            if (options.maxP99Millis >= 0 && series.p99Millis() > options.maxP99Millis) {
+                failures.add(String.format("%s p99 %.1f ms > %.1f ms", entry.getKey(), series.p99Millis(), options.maxP99Millis));
+            }
+            if (options.maxErrorRate >= 0 && series.errorPercent() > options.maxErrorRate) {
+                failures.add(String.format("%s errors %.2f%% > %.2f%%", entry.getKey(), series.errorPercent(), options.maxErrorRate));
+            }
+        }
+        return failures;
+    }
+}
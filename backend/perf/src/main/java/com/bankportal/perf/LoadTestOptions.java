@@ -0,0 +1,119 @@
+package com.bankportal.perf;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options: {@code --name=value}. Properties for the services
+ * themselves are passed as {@code --auth:<property>=value},
+ * {@code --gateway:<property>=value} and {@code --transaction:<property>=value}.
+ */
+final class LoadTestOptions {
+
+    int users = 10_000;
+    /** Share of seeded users per kind, in percent; the rest use password only */
+    int totpUserPercent = 30;
+    int emailOtpUserPercent = 30;
+    double rate = 20;
+    Duration warmup = Duration.ofSeconds(15);
+    Duration duration = Duration.ofSeconds(60);
+    Duration requestTimeout = Duration.ofSeconds(30);
+    int gatewayPort = 8443;
+    int authPort = 8081;
+    int transactionPort = 8082;
+    Path outputDirectory = Path.of("perf-results");
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    /** Release gates; negative disables */
+    double maxP99Millis = -1;
+    double maxErrorRate = -1;
+    /** Ledger load test: concurrent writers on one account, and share of postings opened as pending, in percent */
+    int writers = 32;
+    int pendingPercent = 20;
+    double minPostingsPerSecond = -1;
+    /** Ledger load test: post to transaction-service itself rather than through the gateway */
+    boolean direct;
+    final Map<String, Object> authProperties = new LinkedHashMap<>();
+    final Map<String, Object> gatewayProperties = new LinkedHashMap<>();
+    final Map<String, Object> transactionProperties = new LinkedHashMap<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        options.mix.put(Operation.LOGIN, 55);
+        options.mix.put(Operation.VERIFY_OTP, 20);
+        options.mix.put(Operation.SEND_OTP, 10);
+        options.mix.put(Operation.REGISTER, 15);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("auth:")) {
+                options.authProperties.put(name.substring("auth:".length()), value);
+                continue;
+            }
+            if (name.startsWith("gateway:")) {
+                options.gatewayProperties.put(name.substring("gateway:".length()), value);
+                continue;
+            }
+            if (name.startsWith("transaction:")) {
+                options.transactionProperties.put(name.substring("transaction:".length()), value);
+                continue;
+            }
+            switch (name) {
+                case "users" -> options.users = Integer.parseInt(value);
+                case "totp-users" -> options.totpUserPercent = Integer.parseInt(value);
+                case "email-otp-users" -> options.emailOtpUserPercent = Integer.parseInt(value);
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+                case "request-timeout" -> options.requestTimeout = Duration.ofSeconds(Long.parseLong(value));
+                case "gateway-port" -> options.gatewayPort = Integer.parseInt(value);
+                case "auth-port" -> options.authPort = Integer.parseInt(value);
+                case "transaction-port" -> options.transactionPort = Integer.parseInt(value);
+                case "out" -> options.outputDirectory = Path.of(value);
+                case "mix" -> options.parseMix(value);
+                case "max-p99-ms" -> options.maxP99Millis = Double.parseDouble(value);
+                case "max-error-rate" -> options.maxErrorRate = Double.parseDouble(value);
+                case "writers" -> options.writers = Integer.parseInt(value);
+                case "pending-percent" -> options.pendingPercent = Integer.parseInt(value);
+                case "min-postings-per-sec" -> options.minPostingsPerSecond = Double.parseDouble(value);
+                case "direct" -> options.direct = Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.totpUserPercent + options.emailOtpUserPercent > 100) {
+            throw new IllegalArgumentException("--totp-users and --email-otp-users add up to more than 100%");
+        }
+        return options;
+    }
+
+    /**
+     * "login:55,verify-otp:20,send-otp:10,register:15"; weights are relative
+     */
+    private void parseMix(String value) {
+        mix.clear();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry " + entry);
+            }
+            mix.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+    }
+
+    int totpUsers() {
+        return users * totpUserPercent / 100;
+    }
+
+    int emailOtpUsers() {
+        return users * emailOtpUserPercent / 100;
+    }
+
+    int passwordUsers() {
+        return users - totpUsers() - emailOtpUsers();
+    }
+}
@@ -0,0 +1,33 @@
+package com.bankportal.perf;
+
+/**
+ * Request types in the load mix. Each is recorded under its own name.
+ */
+enum Operation {
+    /** A new, unique account */
+    REGISTER("register"),
+    /** Login by a password-only user */
+    LOGIN("login"),
+    /** Resend of an emailed code to an email-OTP user */
+    SEND_OTP("send-otp"),
+    /**
+     * Login by a TOTP user followed by verify-otp with a code computed from the
+     * seeded secret; the login half is recorded as login-mfa
+     */
+    VERIFY_OTP("verify-otp");
+
+    final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.label.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+}
@@ -0,0 +1,238 @@
+package com.bankportal.perf;
+
+import com.bankportal.auth.AuthApplication;
+import com.bankportal.gateway.GatewayApplication;
+import com.bankportal.transaction.TransactionApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Embedded Postgres, auth-service and api-gateway, and optionally
+ * transaction-service, all in this JVM.
+ *
+ * The services share one classpath, so none may read another's
+ * application.properties or pick up another's auto-configuration. Each
+ * context is given its own service's application.properties, read from the
+ * jar its main class came from, with every other config location switched
+ * off; the overrides below then point them at each other and at the
+ * embedded database and keep the auto-configuration each one is not meant
+ * to have out of its context.
+ */
+final class PerfEnvironment implements AutoCloseable {
+
+    /** Auto-configuration pulled in by auth-service's dependencies that the gateway must not run */
+    private static final String GATEWAY_EXCLUDES = String.join(",",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration",
+            "org.springframework.boot.actuate.autoconfigure.security.reactive.ReactiveManagementWebSecurityAutoConfiguration");
+
+    /** Auto-configuration pulled in by auth-service's dependencies that transaction-service must not run */
+    private static final String TRANSACTION_EXCLUDES = String.join(",",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration",
+            "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration");
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext authContext;
+    private ConfigurableApplicationContext transactionContext;
+    private ConfigurableApplicationContext gatewayContext;
+
+    static PerfEnvironment start(LoadTestOptions options) throws IOException {
+        return start(options, true, false);
+    }
+
+    /**
+     * Postgres and auth-service only, for callers that run the gateway themselves
+     */
+    static PerfEnvironment startWithoutGateway(LoadTestOptions options) throws IOException {
+        return start(options, false, false);
+    }
+
+    /**
+     * Everything, with transaction-service on the same database
+     */
+    static PerfEnvironment startWithTransactionService(LoadTestOptions options) throws IOException {
+        return start(options, true, true);
+    }
+
+    private static PerfEnvironment start(LoadTestOptions options, boolean withGateway,
+                                         boolean withTransactionService) throws IOException {
+        PerfEnvironment environment = new PerfEnvironment();
+        try {
+            environment.postgres = EmbeddedPostgres.builder().start();
+            environment.authContext = startAuthService(options, environment.jdbcUrl());
+            if (withTransactionService) {
+                environment.transactionContext = startTransactionService(options, environment.jdbcUrl());
+            }
+            if (withGateway) {
+                environment.gatewayContext = startGateway(options);
+            }
+            return environment;
+        } catch (RuntimeException | IOException e) {
+            environment.close();
+            throw e;
+        }
+    }
+
+    /**
+     * JDBC URL of the embedded database, credentials included
+     */
+    String jdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres");
+    }
+
+    /**
+     * Shut the in-process auth-service down, leaving its schema and data in the database
+     */
+    void stopAuthService() {
+        if (authContext != null) {
+            authContext.close();
+            authContext = null;
+        }
+    }
+
+    ConfigurableApplicationContext authContext() {
+        return authContext;
+    }
+
+    private static ConfigurableApplicationContext startAuthService(LoadTestOptions options, String jdbcUrl) throws IOException {
+        byte[] totpKey = new byte[32];
+        new SecureRandom().nextBytes(totpKey);
+
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("server.port", options.authPort);
+        overrides.put("spring.datasource.url", jdbcUrl);
+        overrides.put("spring.jpa.show-sql", false);
+        overrides.put("spring.jpa.properties.hibernate.format_sql", false);
+        overrides.put("spring.cloud.gateway.enabled", false);
+        overrides.put("auth.audit.directory", Files.createTempDirectory("perf-audit").toString());
+        overrides.put("auth.totp.encryption-key", Base64.getEncoder().encodeToString(totpKey));
+        quietLogging(overrides);
+        overrides.putAll(options.authProperties);
+
+        return new SpringApplicationBuilder(AuthApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(merge(serviceProperties(AuthApplication.class), overrides))
+                .run();
+    }
+
+    private static ConfigurableApplicationContext startTransactionService(LoadTestOptions options, String jdbcUrl) throws IOException {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("server.port", options.transactionPort);
+        overrides.put("spring.datasource.url", jdbcUrl + "&reWriteBatchedInserts=true");
+        overrides.put("spring.autoconfigure.exclude", TRANSACTION_EXCLUDES);
+        overrides.put("spring.cloud.gateway.enabled", false);
+        quietLogging(overrides);
+        overrides.putAll(options.transactionProperties);
+
+        return new SpringApplicationBuilder(TransactionApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(merge(serviceProperties(TransactionApplication.class), overrides))
+                .run();
+    }
+
+    private static ConfigurableApplicationContext startGateway(LoadTestOptions options) throws IOException {
+        String authBase = "http://localhost:" + options.authPort;
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("server.port", options.gatewayPort);
+        overrides.put("spring.autoconfigure.exclude", GATEWAY_EXCLUDES);
+        overrides.put("spring.cloud.discovery.client.simple.instances.auth-service[0].uri", authBase);
+        overrides.put("spring.cloud.discovery.client.simple.instances.transaction-service[0].uri",
+                "http://localhost:" + options.transactionPort);
+        overrides.put("gateway.auth.jwks-uris", authBase + "/api/auth/.well-known/jwks.json");
+        overrides.put("gateway.auth.revocation-feed-uris", authBase + "/internal/revocations");
+        // Every simulated user sends its own address, so per-IP limits apply per user as in production
+        overrides.put("gateway.rate-limit.client-ip-header", LoadGenerator.CLIENT_IP_HEADER);
+        overrides.put("logging.level.access-log", "WARN");
+        quietLogging(overrides);
+        overrides.putAll(options.gatewayProperties);
+
+        return new SpringApplicationBuilder(GatewayApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                // Tomcat, on the classpath for auth-service, would otherwise be preferred over Netty
+                .initializers(context -> ((GenericApplicationContext) context)
+                        .registerBean(NettyReactiveWebServerFactory.class))
+                .properties(merge(serviceProperties(GatewayApplication.class), overrides))
+                .run();
+    }
+
+    private static void quietLogging(Map<String, Object> overrides) {
+        overrides.put("logging.level.root", "WARN");
+        overrides.put("logging.level.com.bankportal.auth", "INFO");
+        overrides.put("logging.level.com.bankportal.gateway", "INFO");
+        overrides.put("logging.level.com.bankportal.transaction", "INFO");
+        overrides.put("logging.level.org.springframework.security", "WARN");
+        overrides.put("logging.level.org.springframework.cloud.gateway", "WARN");
+        overrides.put("logging.level.org.springframework.context.support.PostProcessorRegistrationDelegate", "ERROR");
+        overrides.put("logging.include-application-name", false);
+        overrides.put("spring.main.banner-mode", "off");
+    }
+
+    /**
+     * The service's own application.properties, plus a config location that loads nothing else
+     */
+    private static Map<String, Object> serviceProperties(Class<?> application) throws IOException {
+        String classFile = application.getSimpleName() + ".class";
+        URL classUrl = application.getResource(classFile);
+        if (classUrl == null) {
+            throw new IllegalStateException("Cannot locate " + classFile);
+        }
+        String classPath = application.getName().replace('.', '/') + ".class";
+        String root = classUrl.toString().substring(0, classUrl.toString().length() - classPath.length());
+        Properties properties = new Properties();
+        try (InputStream in = new URL(root + "application.properties").openStream()) {
+            properties.load(in);
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        properties.forEach((key, value) -> map.put((String) key, value));
+        map.put("spring.config.location", "optional:classpath:/perf-none/");
+        return map;
+    }
+
+    private static Map<String, Object> merge(Map<String, Object> base, Map<String, Object> overrides) {
+        Map<String, Object> merged = new LinkedHashMap<>(base);
+        merged.putAll(overrides);
+        return merged;
+    }
+
+    @Override
+    public void close() {
+        if (gatewayContext != null) {
+            gatewayContext.close();
+        }
+        if (transactionContext != null) {
+            transactionContext.close();
+        }
+        if (authContext != null) {
+            authContext.close();
+        }
+        if (postgres != null) {
+            try {
+                postgres.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
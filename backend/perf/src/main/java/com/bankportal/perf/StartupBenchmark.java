@@ -0,0 +1,193 @@
+package com.bankportal.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching a service process to its first successful login.
+ *
+ * The service is started as a separate JVM, from the command given after
+ * {@code --}, so any build (plain jar, AOT with a CDS archive, native image)
+ * and any JVM flags can be compared. The benchmark supplies the embedded
+ * database and, for api-gateway, an in-process auth-service, and appends the
+ * properties that point the service at them. Each run reports when the
+ * port first answered and when a seeded user's login first returned 200.
+ *
+ * <pre>
+ * java -Dloader.main=com.bankportal.perf.StartupBenchmark -jar perf/target/perf.jar --service=auth-service --runs=5 \
+ *      -- java -XX:SharedArchiveFile=auth-service/target/auth-service.jsa -Dspring.aot.enabled=true \
+ *         -jar auth-service/target/auth-service-0.0.1-SNAPSHOT.jar
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("Usage: StartupBenchmark [--service=auth-service|api-gateway] [--runs=5] [--timeout=120]"
+                    + " [--auth:<property>=<value>] -- <command that starts the service>");
+            System.exit(2);
+        }
+        List<String> command = List.of(args).subList(separator + 1, args.length);
+        String service = "auth-service";
+        int runs = 5;
+        Duration timeout = Duration.ofSeconds(120);
+        List<String> environmentArgs = new ArrayList<>();
+        for (String arg : List.of(args).subList(0, separator)) {
+            if (arg.startsWith("--service=")) {
+                service = arg.substring("--service=".length());
+            } else if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = Duration.ofSeconds(Long.parseLong(arg.substring("--timeout=".length())));
+            } else {
+                environmentArgs.add(arg);
+            }
+        }
+        if (!service.equals("auth-service") && !service.equals("api-gateway")) {
+            throw new IllegalArgumentException("--service must be auth-service or api-gateway");
+        }
+        if ("root".equals(System.getProperty("user.name"))) {
+            System.err.println("Embedded Postgres cannot run as root; run the benchmark as an unprivileged user.");
+            System.exit(2);
+        }
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+
+        LoadTestOptions options = LoadTestOptions.parse(environmentArgs.toArray(String[]::new));
+        options.users = 1;
+        options.totpUserPercent = 0;
+        options.emailOtpUserPercent = 0;
+
+        long[] ready = new long[runs];
+        long[] firstLogin = new long[runs];
+        try (PerfEnvironment environment = PerfEnvironment.startWithoutGateway(options)) {
+            // The schema and seeded user outlive the in-process service; an auth-service under test replaces it
+            UserSeeder.seed(environment.authContext(), options);
+            boolean gateway = service.equals("api-gateway");
+            if (!gateway) {
+                environment.stopAuthService();
+            }
+            List<String> fullCommand = new ArrayList<>(command);
+            fullCommand.addAll(gateway ? gatewayArgs(options) : authArgs(options, environment.jdbcUrl()));
+            URI loginUri = URI.create(gateway
+                    ? "https://localhost:" + options.gatewayPort + "/api/auth/login"
+                    : "http://localhost:" + options.authPort + "/api/auth/login");
+            HttpClient client = HttpClient.newBuilder()
+                    .sslContext(LoadGenerator.trustGatewayCertificate())
+                    .connectTimeout(Duration.ofSeconds(1))
+                    .build();
+
+            System.out.println("Command: " + String.join(" ", fullCommand));
+            for (int run = 0; run < runs; run++) {
+                long[] result = measure(fullCommand, client, loginUri, timeout, run);
+                ready[run] = result[0];
+                firstLogin[run] = result[1];
+                System.out.printf("run %d: port answered after %d ms, first login after %d ms%n",
+                        run + 1, ready[run], firstLogin[run]);
+            }
+        }
+
+        System.out.printf("%nfirst login: min %d ms, median %d ms, max %d ms (port answered: median %d ms)%n",
+                min(firstLogin), median(firstLogin), max(firstLogin), median(ready));
+        System.exit(0);
+    }
+
+    /**
+     * Start the service, poll login until it succeeds, then stop the service.
+     * Returns milliseconds until the first response of any kind and until the first 200.
+     */
+    private static long[] measure(List<String> command, HttpClient client, URI loginUri,
+                                  Duration timeout, int run) throws IOException, InterruptedException {
+        Path log = Files.createTempFile("startup-run-" + (run + 1) + "-", ".log");
+        HttpRequest login = HttpRequest.newBuilder(loginUri)
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + UserSeeder.passwordUser(0)
+                        + "\",\"password\":\"" + UserSeeder.PASSWORD + "\"}"))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            long ready = -1;
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + process.exitValue() + "; see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(login, HttpResponse.BodyHandlers.discarding());
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (ready < 0) {
+                        ready = elapsed;
+                    }
+                    if (response.statusCode() == 200) {
+                        Files.deleteIfExists(log);
+                        return new long[] {ready, elapsed};
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            throw new IllegalStateException("No successful login within " + timeout.toSeconds() + "s; see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static List<String> authArgs(LoadTestOptions options, String jdbcUrl) throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=" + options.authPort);
+        args.add("--spring.datasource.url=" + jdbcUrl);
+        args.add("--auth.audit.directory=" + Files.createTempDirectory("startup-audit"));
+        options.authProperties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return args;
+    }
+
+    private static List<String> gatewayArgs(LoadTestOptions options) {
+        String authBase = "http://localhost:" + options.authPort;
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=" + options.gatewayPort);
+        args.add("--spring.cloud.discovery.client.simple.instances.auth-service[0].uri=" + authBase);
+        args.add("--gateway.auth.jwks-uris=" + authBase + "/api/auth/.well-known/jwks.json");
+        args.add("--gateway.auth.revocation-feed-uris=" + authBase + "/internal/revocations");
+        options.gatewayProperties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return args;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long min(long[] values) {
+        return Arrays.stream(values).min().orElse(0);
+    }
+
+    private static long max(long[] values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+}
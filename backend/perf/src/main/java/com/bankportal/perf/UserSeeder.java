@@ -0,0 +1,78 @@
+package com.bankportal.perf;
+
+import com.bankportal.auth.service.EmailMembershipFilter;
+import com.bankportal.auth.service.PasswordHashingService;
+import com.bankportal.auth.totp.TotpSecretCipher;
+import com.bankportal.auth.totp.TotpService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inserts the users the load test logs in as, straight into the users table.
+ *
+ * Hashing one password per user would take longer than most runs, so every
+ * seeded user shares one hash, made by the service's own hashing policy, and
+ * every TOTP user shares one secret, encrypted by the service's own cipher.
+ * Neither matters to the server: it verifies the hash per login and tracks
+ * TOTP replay and lockout per user.
+ */
+final class UserSeeder {
+
+    static final String PASSWORD = "Perf-Str0ng!Pass#1";
+
+    /** Fixed so the generator can compute codes; any 20 bytes will do */
+    static final byte[] TOTP_SECRET = "perf-totp-secret-20b".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String INSERT = """
+            INSERT INTO users (email, name, password, role, mfa_enabled, mfa_method, mfa_secret,
+                               otp_attempts, created_at, updated_at)
+            SELECT ? || n || ?, 'Perf User ' || n, ?, 'user', ?, ?, ?, 0, now(), now()
+            FROM generate_series(?, ?) AS n
+            """;
+
+    private UserSeeder() {
+    }
+
+    static String passwordUser(int index) {
+        return "perf-password-" + index + "@perf.example.com";
+    }
+
+    static String totpUser(int index) {
+        return "perf-totp-" + index + "@perf.example.com";
+    }
+
+    static String emailOtpUser(int index) {
+        return "perf-email-otp-" + index + "@perf.example.com";
+    }
+
+    static void seed(ConfigurableApplicationContext authContext, LoadTestOptions options) {
+        JdbcTemplate jdbc = authContext.getBean(JdbcTemplate.class);
+        String hash = authContext.getBean(PasswordHashingService.class).hash(PASSWORD);
+        String encryptedSecret = authContext.getBean(TotpSecretCipher.class).encrypt(TOTP_SECRET);
+
+        insert(jdbc, "perf-password-", options.passwordUsers(), hash, false, null, null);
+        insert(jdbc, "perf-totp-", options.totpUsers(), hash, true, TotpService.METHOD_TOTP, encryptedSecret);
+        insert(jdbc, "perf-email-otp-", options.emailOtpUsers(), hash, true, null, null);
+
+        // The filter would find these on its next scan; add them now so the first requests hit
+        EmailMembershipFilter filter = authContext.getBean(EmailMembershipFilter.class);
+        for (int i = 0; i < options.passwordUsers(); i++) {
+            filter.add(passwordUser(i));
+        }
+        for (int i = 0; i < options.totpUsers(); i++) {
+            filter.add(totpUser(i));
+        }
+        for (int i = 0; i < options.emailOtpUsers(); i++) {
+            filter.add(emailOtpUser(i));
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbc, String prefix, int count, String hash,
+                               boolean mfaEnabled, String mfaMethod, String mfaSecret) {
+        if (count > 0) {
+            jdbc.update(INSERT, prefix, "@perf.example.com", hash, mfaEnabled, mfaMethod, mfaSecret, 0, count - 1);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankportal.transaction;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class TransactionApplication {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(TransactionApplication.class, args);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bankportal.transaction.category;
+
+import java.time.Instant;
+
+/**
+ * A user's rule: transactions whose name contains the keyword, in any case, get the category.
+ * Rules are ordered by position; when several match, the first wins.
+ */
+public record CategoryRule(long id,
+                           long ownerId,
+                           String keyword,
+                           String category,
+                           boolean enabled,
+                           long position,
+                           Instant createdAt) {
+}
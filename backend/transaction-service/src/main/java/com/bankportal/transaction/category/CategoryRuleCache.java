@@ -0,0 +1,109 @@
+package com.bankportal.transaction.category;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each user's rules compiled into a {@link CompiledRuleSet}, keyed by user and tagged with the rule-set version.
+ *
+ * Every rule change bumps the user's version. A cached rule set is used as
+ * long as the version in the database still matches it, and that check is
+ * made at most once per recheck interval, so postings don't pay a query each;
+ * a change made through another instance shows up here within the interval.
+ * Changes made through this instance drop the entry when they commit. Entries
+ * are bounded by the size of their compiled tables.
+ */
+@Component
+public class CategoryRuleCache {
+
+    private final CategoryRuleRepository repository;
+    private final long recheckNanos;
+    private final Cache<Long, Entry> cache;
+    private final Timer compileTimer;
+
+    public CategoryRuleCache(CategoryRuleRepository repository,
+                             @Value("${category.cache.max-size-mb:64}") long maxSizeMb,
+                             @Value("${category.cache.recheck-interval-ms:1000}") long recheckMillis,
+                             MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.recheckNanos = TimeUnit.MILLISECONDS.toNanos(recheckMillis);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024)
+                .weigher((Long ownerId, Entry entry) -> (int) Math.max(1, entry.ruleSet.sizeInBytes() / 1024))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "category.rule-cache");
+        this.compileTimer = Timer.builder("category.rules.compile")
+                .description("Time to load and compile one user's rules")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's rules, at most one recheck interval behind a change made elsewhere
+     */
+    public CompiledRuleSet get(long ownerId) {
+        return get(ownerId, recheckNanos);
+    }
+
+    /**
+     * The user's rules as of now
+     */
+    public CompiledRuleSet getCurrent(long ownerId) {
+        return get(ownerId, 0);
+    }
+
+    /**
+     * Drop the user's entry now and again once the current transaction commits,
+     * so a read between the change and the commit cannot keep the old rules
+     */
+    public void invalidateAfterCommit(long ownerId) {
+        cache.invalidate(ownerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(ownerId);
+                }
+            });
+        }
+    }
+
+    private CompiledRuleSet get(long ownerId, long maxAgeNanos) {
+        Entry entry = cache.getIfPresent(ownerId);
+        long now = System.nanoTime();
+        if (entry != null && maxAgeNanos > 0 && now - entry.checkedAt < maxAgeNanos) {
+            return entry.ruleSet;
+        }
+        // Version first, then rules: the rules are never older than the version they are tagged with
+        long version = repository.currentVersion(ownerId);
+        if (entry != null && entry.ruleSet.version() == version) {
+            entry.checkedAt = now;
+            return entry.ruleSet;
+        }
+        long started = System.nanoTime();
+        CompiledRuleSet ruleSet = CompiledRuleSet.compile(version, repository.findRules(ownerId));
+        compileTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        cache.put(ownerId, new Entry(ruleSet, now));
+        return ruleSet;
+    }
+
+    private static final class Entry {
+
+        private final CompiledRuleSet ruleSet;
+        private volatile long checkedAt;
+
+        Entry(CompiledRuleSet ruleSet, long checkedAt) {
+            this.ruleSet = ruleSet;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
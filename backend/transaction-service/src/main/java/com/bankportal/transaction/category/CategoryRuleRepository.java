@@ -0,0 +1,124 @@
+package com.bankportal.transaction.category;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * SQL for category rules, rule-set versions and the categories rules assign to ledger transactions.
+ * Ledger entries keep the category they were posted with; a re-categorized transaction's
+ * category is kept beside them in transaction_categories.
+ */
+@Repository
+public class CategoryRuleRepository {
+
+    private static final String RULE_COLUMNS = "id, owner_id, keyword, category, enabled, position, created_at";
+
+    private static final String UPSERT_CATEGORY = """
+            INSERT INTO transaction_categories (transaction_id, category, rule_set_version, updated_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (transaction_id)
+            DO UPDATE SET category = EXCLUDED.category, rule_set_version = EXCLUDED.rule_set_version, updated_at = now()""";
+
+    private static final RowMapper<CategoryRule> RULE_MAPPER = (rs, rowNum) -> new CategoryRule(
+            rs.getLong("id"),
+            rs.getLong("owner_id"),
+            rs.getString("keyword"),
+            rs.getString("category"),
+            rs.getBoolean("enabled"),
+            rs.getLong("position"),
+            rs.getTimestamp("created_at").toInstant());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The user's rules in priority order
+     */
+    public List<CategoryRule> findRules(long ownerId) {
+        return jdbcTemplate.query("SELECT " + RULE_COLUMNS + " FROM category_rules WHERE owner_id = ? ORDER BY position, id",
+                RULE_MAPPER, ownerId);
+    }
+
+    public int countRules(long ownerId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM category_rules WHERE owner_id = ?", Integer.class, ownerId);
+    }
+
+    /**
+     * Add a rule ahead of the user's existing rules
+     */
+    public CategoryRule insertFirst(long ownerId, String keyword, String category, boolean enabled) {
+        return jdbcTemplate.queryForObject("INSERT INTO category_rules (owner_id, keyword, category, enabled, position)"
+                        + " SELECT ?, ?, ?, ?, COALESCE(MIN(position), 0) - 1 FROM category_rules WHERE owner_id = ?"
+                        + " RETURNING " + RULE_COLUMNS,
+                RULE_MAPPER, ownerId, keyword, category, enabled, ownerId);
+    }
+
+    /**
+     * Update the rule's fields that are not null
+     */
+    public Optional<CategoryRule> update(long ownerId, long ruleId, String keyword, String category, Boolean enabled) {
+        return jdbcTemplate.query("UPDATE category_rules"
+                        + " SET keyword = COALESCE(?, keyword), category = COALESCE(?, category), enabled = COALESCE(?, enabled)"
+                        + " WHERE id = ? AND owner_id = ? RETURNING " + RULE_COLUMNS,
+                RULE_MAPPER, keyword, category, enabled, ruleId, ownerId).stream().findFirst();
+    }
+
+    public boolean delete(long ownerId, long ruleId) {
+        return jdbcTemplate.update("DELETE FROM category_rules WHERE id = ? AND owner_id = ?", ruleId, ownerId) > 0;
+    }
+
+    /**
+     * Start a new rule-set version; the row lock also serializes rule changes per user until commit
+     */
+    public long nextVersion(long ownerId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO category_rule_sets (owner_id, version) VALUES (?, 1)
+                ON CONFLICT (owner_id) DO UPDATE SET version = category_rule_sets.version + 1
+                RETURNING version""", Long.class, ownerId);
+    }
+
+    /**
+     * The user's current rule-set version, 0 if the user never had rules
+     */
+    public long currentVersion(long ownerId) {
+        return jdbcTemplate.queryForList("SELECT version FROM category_rule_sets WHERE owner_id = ?", Long.class, ownerId)
+                .stream().findFirst().orElse(0L);
+    }
+
+    /**
+     * A chunk of an account's transactions, newest first, with the category each shows now
+     */
+    public List<CategorizedTransaction> findTransactions(long accountId, long beforeId, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT e.id, e.transaction_id, e.name, COALESCE(c.category, e.category) AS category
+                        FROM ledger_entries e
+                        LEFT JOIN transaction_categories c ON c.transaction_id = e.transaction_id
+                        WHERE e.account_id = ? AND e.kind <> 'SETTLED' AND e.id < ?
+                        ORDER BY e.id DESC LIMIT ?""",
+                (rs, rowNum) -> new CategorizedTransaction(rs.getLong("id"), rs.getObject("transaction_id", UUID.class),
+                        rs.getString("name"), rs.getString("category")),
+                accountId, beforeId, limit);
+    }
+
+    public void saveCategories(List<CategorizedTransaction> transactions, long ruleSetVersion) {
+        jdbcTemplate.batchUpdate(UPSERT_CATEGORY, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setObject(1, transaction.transactionId());
+            ps.setString(2, transaction.category());
+            ps.setLong(3, ruleSetVersion);
+        });
+    }
+
+    /**
+     * A ledger transaction's name and category, for re-categorizing
+     *
+     * @param entryId Id of the opening entry, the keyset for paging
+     */
+    public record CategorizedTransaction(long entryId, UUID transactionId, String name, String category) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.bankportal.transaction.category;
+
+import java.util.List;
+
+/**
+ * A user's enabled rules as of one rule-set version, compiled into a single {@link KeywordMatcher}
+ */
+public final class CompiledRuleSet {
+
+    private final long version;
+    private final KeywordMatcher matcher;
+    private final String[] categories;
+
+    private CompiledRuleSet(long version, KeywordMatcher matcher, String[] categories) {
+        this.version = version;
+        this.matcher = matcher;
+        this.categories = categories;
+    }
+
+    /**
+     * @param rules In position order; disabled rules are left out
+     */
+    public static CompiledRuleSet compile(long version, List<CategoryRule> rules) {
+        List<CategoryRule> enabled = rules.stream().filter(CategoryRule::enabled).toList();
+        return new CompiledRuleSet(version,
+                KeywordMatcher.compile(enabled.stream().map(CategoryRule::keyword).toList()),
+                enabled.stream().map(CategoryRule::category).toArray(String[]::new));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * The category of the first rule whose keyword occurs in the name, or null if none does
+     */
+    public String categorize(String name) {
+        if (name == null || categories.length == 0) {
+            return null;
+        }
+        int rule = matcher.firstMatch(name);
+        return rule < 0 ? null : categories[rule];
+    }
+
+    public long sizeInBytes() {
+        return matcher.sizeInBytes() + 8L * categories.length;
+    }
+}
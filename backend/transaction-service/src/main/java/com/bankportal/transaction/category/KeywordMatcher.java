@@ -0,0 +1,182 @@
+package com.bankportal.transaction.category;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Finds which of many keywords occur in a text, case-insensitively, in one pass over the text.
+ *
+ * The keywords are compiled into an Aho-Corasick automaton, flattened into a
+ * complete transition table so each character costs one table lookup however
+ * many keywords there are. Characters are first mapped to classes: one per
+ * distinct character in the keywords, plus class 0 for every other character,
+ * which always leads back to the start state. Each state records the
+ * lowest-index keyword that ends there, directly or as a suffix, so the scan
+ * only tracks a minimum and can stop as soon as keyword 0 is seen.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public final class KeywordMatcher {
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final int ASCII = 128;
+
+    private final int[] asciiClasses;
+    /** Sorted non-ASCII characters of the keywords, and their classes */
+    private final char[] otherChars;
+    private final int[] otherClasses;
+    private final int alphabetSize;
+    /** state * alphabetSize + class -> next state */
+    private final int[] transitions;
+    /** Lowest keyword index matched on reaching the state, or NO_MATCH */
+    private final int[] bestMatch;
+
+    private KeywordMatcher(int[] asciiClasses, char[] otherChars, int[] otherClasses, int alphabetSize,
+                           int[] transitions, int[] bestMatch) {
+        this.asciiClasses = asciiClasses;
+        this.otherChars = otherChars;
+        this.otherClasses = otherClasses;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.bestMatch = bestMatch;
+    }
+
+    /**
+     * @param keywords In priority order; blank keywords never match
+     */
+    public static KeywordMatcher compile(List<String> keywords) {
+        String[] folded = new String[keywords.size()];
+        TreeSet<Character> alphabet = new TreeSet<>();
+        int maxStates = 1;
+        for (int i = 0; i < folded.length; i++) {
+            String keyword = keywords.get(i);
+            folded[i] = keyword == null || keyword.isBlank() ? "" : fold(keyword);
+            for (int j = 0; j < folded[i].length(); j++) {
+                alphabet.add(folded[i].charAt(j));
+            }
+            maxStates += folded[i].length();
+        }
+
+        // Class 0 is every character that appears in no keyword
+        int[] asciiClasses = new int[ASCII];
+        char[] otherChars = new char[alphabet.size()];
+        int[] otherClasses = new int[alphabet.size()];
+        int others = 0;
+        int alphabetSize = 1;
+        for (char c : alphabet) {
+            if (c < ASCII) {
+                asciiClasses[c] = alphabetSize;
+            } else {
+                otherChars[others] = c;
+                otherClasses[others++] = alphabetSize;
+            }
+            alphabetSize++;
+        }
+        otherChars = Arrays.copyOf(otherChars, others);
+        otherClasses = Arrays.copyOf(otherClasses, others);
+        for (char c = 'A'; c <= 'Z'; c++) {
+            asciiClasses[c] = asciiClasses[Character.toLowerCase(c)];
+        }
+
+        // Trie; -1 marks a missing edge until the automaton fills it in
+        int[] transitions = new int[maxStates * alphabetSize];
+        Arrays.fill(transitions, -1);
+        int[] bestMatch = new int[maxStates];
+        Arrays.fill(bestMatch, NO_MATCH);
+        int states = 1;
+        for (int i = 0; i < folded.length; i++) {
+            if (folded[i].isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int j = 0; j < folded[i].length(); j++) {
+                int edge = state * alphabetSize + classOf(folded[i].charAt(j), asciiClasses, otherChars, otherClasses);
+                if (transitions[edge] < 0) {
+                    transitions[edge] = states++;
+                }
+                state = transitions[edge];
+            }
+            bestMatch[state] = Math.min(bestMatch[state], i);
+        }
+
+        // Breadth-first, so a state's failure link is complete before its children need it
+        int[] failure = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int child = transitions[c];
+            if (child < 0) {
+                transitions[c] = 0;
+            } else {
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            bestMatch[state] = Math.min(bestMatch[state], bestMatch[failure[state]]);
+            for (int c = 0; c < alphabetSize; c++) {
+                int edge = state * alphabetSize + c;
+                int fallback = transitions[failure[state] * alphabetSize + c];
+                if (transitions[edge] < 0) {
+                    transitions[edge] = fallback;
+                } else {
+                    failure[transitions[edge]] = fallback;
+                    queue.add(transitions[edge]);
+                }
+            }
+        }
+
+        return new KeywordMatcher(asciiClasses, otherChars, otherClasses, alphabetSize,
+                Arrays.copyOf(transitions, states * alphabetSize), Arrays.copyOf(bestMatch, states));
+    }
+
+    /**
+     * Index of the highest-priority keyword occurring anywhere in the text, or -1 if none does
+     */
+    public int firstMatch(CharSequence text) {
+        int best = NO_MATCH;
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int characterClass = c < ASCII ? asciiClasses[c] : classOf(fold(c), asciiClasses, otherChars, otherClasses);
+            state = transitions[state * alphabetSize + characterClass];
+            if (bestMatch[state] < best) {
+                best = bestMatch[state];
+                if (best == 0) {
+                    return 0;
+                }
+            }
+        }
+        return best == NO_MATCH ? -1 : best;
+    }
+
+    /**
+     * Approximate heap size of the compiled tables
+     */
+    public long sizeInBytes() {
+        return 4L * (asciiClasses.length + otherClasses.length + transitions.length + bestMatch.length)
+                + 2L * otherChars.length;
+    }
+
+    private static int classOf(char c, int[] asciiClasses, char[] otherChars, int[] otherClasses) {
+        if (c < ASCII) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? otherClasses[index] : 0;
+    }
+
+    private static String fold(String s) {
+        StringBuilder folded = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            folded.append(fold(s.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,141 @@
+package com.bankportal.transaction.controller;
+
+import com.bankportal.transaction.dto.CategorizeRequest;
+import com.bankportal.transaction.dto.CategoryRuleRequest;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.service.CategoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Category rules, and categorizing transactions with them. The caller is the user
+ * the gateway forwarded as X-User-Id.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+// CORS is handled by API Gateway - do not add @CrossOrigin here
+public class CategoryController {
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    @Autowired
+    private CategoryService categoryService;
+
+    /**
+     * The caller's rules, first match first
+     * GET /api/transactions/category-rules
+     */
+    @GetMapping("/category-rules")
+    public ResponseEntity<?> getRules(@RequestHeader(value = USER_ID_HEADER, required = false) String userId) {
+        try {
+            return ResponseEntity.ok(categoryService.getRules(requireUser(userId)));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Add a rule ahead of the others
+     * POST /api/transactions/category-rules
+     */
+    @PostMapping("/category-rules")
+    public ResponseEntity<?> createRule(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                        @RequestBody CategoryRuleRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(categoryService.createRule(requireUser(userId), request));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Change a rule; omitted fields are unchanged
+     * PUT /api/transactions/category-rules/{ruleId}
+     */
+    @PutMapping("/category-rules/{ruleId}")
+    public ResponseEntity<?> updateRule(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                        @PathVariable long ruleId,
+                                        @RequestBody CategoryRuleRequest request) {
+        try {
+            return ResponseEntity.ok(categoryService.updateRule(requireUser(userId), ruleId, request));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * DELETE /api/transactions/category-rules/{ruleId}
+     */
+    @DeleteMapping("/category-rules/{ruleId}")
+    public ResponseEntity<?> deleteRule(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                        @PathVariable long ruleId) {
+        try {
+            categoryService.deleteRule(requireUser(userId), ruleId);
+            return ResponseEntity.noContent().build();
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Categorize a batch of transaction names with the caller's rules
+     * POST /api/transactions/categorize
+     */
+    @PostMapping("/categorize")
+    public ResponseEntity<?> categorize(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                        @RequestBody CategorizeRequest request) {
+        try {
+            return ResponseEntity.ok(categoryService.categorize(requireUser(userId), request.getTransactions()));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Apply the caller's rules to their whole transaction history
+     * POST /api/transactions/recategorize
+     */
+    @PostMapping("/recategorize")
+    public ResponseEntity<?> recategorize(@RequestHeader(value = USER_ID_HEADER, required = false) String userId) {
+        try {
+            return ResponseEntity.ok(categoryService.recategorize(requireUser(userId)));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    private static long requireUser(String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+        try {
+            return Long.parseLong(userId);
+        } catch (NumberFormatException e) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+    }
+
+    private ResponseEntity<?> errorResponse(TransactionException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(createErrorResponse(e.getMessage()));
+    }
+
+    /**
+     * Create error response
+     */
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
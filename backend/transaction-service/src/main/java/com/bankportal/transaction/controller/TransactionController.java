@@ -0,0 +1,158 @@
+package com.bankportal.transaction.controller;
+
+import com.bankportal.transaction.dto.CreateAccountRequest;
+import com.bankportal.transaction.dto.PostTransactionRequest;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accounts and their ledgers. The caller is the user the gateway verified and
+ * forwarded as X-User-Id; accounts of other users are reported as not found.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+// CORS is handled by API Gateway - do not add @CrossOrigin here
+public class TransactionController {
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * Open an account
+     * POST /api/transactions/accounts
+     */
+    @PostMapping("/accounts")
+    public ResponseEntity<?> createAccount(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                           @RequestBody CreateAccountRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(transactionService.createAccount(requireUser(userId), request.getName()));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * The caller's accounts with their balances
+     * GET /api/transactions/accounts
+     */
+    @GetMapping("/accounts")
+    public ResponseEntity<?> getAccounts(@RequestHeader(value = USER_ID_HEADER, required = false) String userId) {
+        try {
+            return ResponseEntity.ok(transactionService.getAccounts(requireUser(userId)));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * One account with its balances
+     * GET /api/transactions/accounts/{accountId}
+     */
+    @GetMapping("/accounts/{accountId}")
+    public ResponseEntity<?> getAccount(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                        @PathVariable long accountId) {
+        try {
+            return ResponseEntity.ok(transactionService.getAccount(requireUser(userId), accountId));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Post a transaction
+     * POST /api/transactions/accounts/{accountId}/transactions
+     */
+    @PostMapping("/accounts/{accountId}/transactions")
+    public ResponseEntity<?> postTransaction(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                             @PathVariable long accountId,
+                                             @RequestBody PostTransactionRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(transactionService.postTransaction(requireUser(userId), accountId, request));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Complete a pending transaction
+     * POST /api/transactions/accounts/{accountId}/transactions/{transactionId}/complete
+     */
+    @PostMapping("/accounts/{accountId}/transactions/{transactionId}/complete")
+    public ResponseEntity<?> completeTransaction(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                                 @PathVariable long accountId,
+                                                 @PathVariable String transactionId) {
+        try {
+            return ResponseEntity.ok(transactionService.completeTransaction(requireUser(userId), accountId, transactionId));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Transaction history, newest first
+     * GET /api/transactions/accounts/{accountId}/transactions?cursor=&limit=
+     */
+    @GetMapping("/accounts/{accountId}/transactions")
+    public ResponseEntity<?> getTransactions(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                             @PathVariable long accountId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(transactionService.getTransactions(requireUser(userId), accountId, cursor, limit));
+        } catch (TransactionException e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Health check
+     * GET /api/transactions/health
+     */
+    @GetMapping("/health")
+    public ResponseEntity<?> health() {
+        Map<String, String> health = new HashMap<>();
+        health.put("status", "UP");
+        health.put("service", "transaction-service");
+        return ResponseEntity.ok(health);
+    }
+
+    private static long requireUser(String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+        try {
+            return Long.parseLong(userId);
+        } catch (NumberFormatException e) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+    }
+
+    private ResponseEntity<?> errorResponse(TransactionException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(createErrorResponse(e.getMessage()));
+    }
+
+    /**
+     * Create error response
+     */
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
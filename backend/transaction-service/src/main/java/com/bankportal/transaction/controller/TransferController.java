@@ -0,0 +1,176 @@
+package com.bankportal.transaction.controller;
+
+import com.bankportal.transaction.dto.ImportSummary;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.service.TransferService;
+import com.bankportal.transaction.transfer.TransferFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk export and import of the caller's transactions. Both stream: neither
+ * the history nor the upload is ever held in memory.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+// CORS is handled by API Gateway - do not add @CrossOrigin here
+public class TransferController {
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Export the caller's transactions, account by account, oldest first
+     * GET /api/transactions/export?format=csv|ndjson|binary&accountId=&from=&to=
+     *
+     * from/to are ISO-8601 instants (to is exclusive). The response is chunked and its headers
+     * are sent before the query runs. An export that fails part way is cut off without a final
+     * chunk; a binary export also lacks its end marker.
+     */
+    @GetMapping("/export")
+    public void exportTransactions(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                   @RequestParam(defaultValue = "csv") String format,
+                                   @RequestParam(required = false) Long accountId,
+                                   @RequestParam(required = false) String from,
+                                   @RequestParam(required = false) String to,
+                                   HttpServletResponse response) throws IOException {
+        try {
+            long user = requireUser(userId);
+            TransferFormat transferFormat = TransferFormat.fromName(format);
+            if (transferFormat == null) {
+                throw new TransactionException(HttpStatus.BAD_REQUEST, "Format must be csv, ndjson or binary");
+            }
+            Instant fromInstant = parseInstant(from, "from");
+            Instant toInstant = parseInstant(to, "to");
+            transferService.exportTransactions(user, accountId, fromInstant, toInstant, transferFormat, () -> {
+                response.setContentType(transferFormat.mediaType().toString());
+                if (transferFormat != TransferFormat.BINARY) {
+                    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                }
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + transferFormat.extension() + "\"");
+                response.flushBuffer();
+                return response.getOutputStream();
+            });
+        } catch (TransactionException e) {
+            writeError(response, e);
+        }
+    }
+
+    /**
+     * Import transactions into an account from a CSV, NDJSON or binary body, chosen by Content-Type
+     * (text/csv, application/x-ndjson, application/octet-stream)
+     * POST /api/transactions/accounts/{accountId}/import
+     *
+     * Responds with NDJSON while the upload is read: one result for each row that was not recorded,
+     * then a summary line. Importing the same file again is safe.
+     */
+    @PostMapping("/accounts/{accountId}/import")
+    public void importTransactions(@RequestHeader(value = USER_ID_HEADER, required = false) String userId,
+                                   @PathVariable long accountId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        try {
+            long user = requireUser(userId);
+            TransferFormat format = TransferFormat.fromContentType(request.getContentType());
+            if (format == null) {
+                throw new TransactionException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                        "Content-Type must be text/csv, application/x-ndjson or application/octet-stream");
+            }
+            ImportSummary summary = transferService.importTransactions(user, accountId, format,
+                    request.getInputStream(), () -> startImportResponse(response),
+                    result -> writeLine(response, result));
+            writeLine(response, Map.of("summary", summary));
+        } catch (TransactionException e) {
+            writeError(response, e);
+        }
+    }
+
+    /**
+     * Send the headers before reading the upload, so a long import isn't taken for a hung one
+     */
+    private static void startImportResponse(HttpServletResponse response) {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLine(HttpServletResponse response, Object value) {
+        try {
+            Writer writer = response.getWriter();
+            writer.write(objectMapper.writeValueAsString(value));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write import report", e);
+        }
+    }
+
+    private static long requireUser(String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+        try {
+            return Long.parseLong(userId);
+        } catch (NumberFormatException e) {
+            throw new TransactionException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+    }
+
+    private static Instant parseInstant(String value, String name) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Invalid " + name + ": expected an ISO-8601 instant");
+        }
+    }
+
+    /**
+     * Answer a refusal; only reached before the response has started
+     */
+    private void writeError(HttpServletResponse response, TransactionException e) throws IOException {
+        response.setStatus(e.getStatus().value());
+        if (e.getRetryAfterSeconds() > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), createErrorResponse(e.getMessage()));
+    }
+
+    /**
+     * Create error response
+     */
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
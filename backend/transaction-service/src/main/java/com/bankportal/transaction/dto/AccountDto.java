@@ -0,0 +1,24 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDto {
+    private String id;
+    private String name;
+    /** Completed transactions only */
+    private BigDecimal balance;
+    private BigDecimal pendingDebits;
+    private BigDecimal pendingCredits;
+    /** Balance less pending debits */
+    private BigDecimal availableBalance;
+    private String createdAt;
+}
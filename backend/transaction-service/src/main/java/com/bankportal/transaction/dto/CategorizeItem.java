@@ -0,0 +1,18 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorizeItem {
+    /** Echoed back, for matching results to requests */
+    private String id;
+    private String name;
+    /** Null in requests; in responses, null if no rule matched */
+    private String category;
+}
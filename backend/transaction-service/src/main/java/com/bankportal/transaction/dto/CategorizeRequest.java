@@ -0,0 +1,10 @@
+package com.bankportal.transaction.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CategorizeRequest {
+    private List<CategorizeItem> transactions;
+}
@@ -0,0 +1,18 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorizeResponse {
+    /** The rule-set version the categories came from */
+    private Long ruleSetVersion;
+    private List<CategorizeItem> transactions;
+}
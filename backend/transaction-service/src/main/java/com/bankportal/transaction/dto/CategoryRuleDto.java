@@ -0,0 +1,18 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRuleDto {
+    private String id;
+    private String keyword;
+    private String category;
+    private Boolean enabled;
+    private String createdAt;
+}
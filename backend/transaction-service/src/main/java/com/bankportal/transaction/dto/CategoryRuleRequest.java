@@ -0,0 +1,12 @@
+package com.bankportal.transaction.dto;
+
+import lombok.Data;
+
+@Data
+public class CategoryRuleRequest {
+    /** Matched case-insensitively anywhere in a transaction's name */
+    private String keyword;
+    private String category;
+    /** Defaults to true for a new rule */
+    private Boolean enabled;
+}
@@ -0,0 +1,8 @@
+package com.bankportal.transaction.dto;
+
+import lombok.Data;
+
+@Data
+public class CreateAccountRequest {
+    private String name;
+}
@@ -0,0 +1,22 @@
+package com.bankportal.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+
+    /** RECORDED includes rows recorded by an earlier import of the same file */
+    public enum Status { RECORDED, INVALID, CONFLICT, FAILED }
+
+    /** 1-based line in the uploaded file (the CSV header is line 1), or record for binary */
+    private long line;
+    private String id;
+    private Status status;
+    private String message;
+}
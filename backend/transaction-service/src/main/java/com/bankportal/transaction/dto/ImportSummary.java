@@ -0,0 +1,23 @@
+package com.bankportal.transaction.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportSummary {
+    private long rows;
+    private long recorded;
+    private long invalid;
+    private long conflicts;
+    private long failed;
+    private long elapsedMillis;
+
+    public void count(ImportRowResult.Status status) {
+        rows++;
+        switch (status) {
+            case RECORDED -> recorded++;
+            case INVALID -> invalid++;
+            case CONFLICT -> conflicts++;
+            case FAILED -> failed++;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.bankportal.transaction.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class PostTransactionRequest {
+    /** Optional client-chosen UUID; a retry with the same id returns the recorded transaction */
+    private String id;
+    private String name;
+    private String category;
+    /** Positive, at most two decimal places */
+    private BigDecimal amount;
+    /** debit or credit */
+    private String type;
+    /** completed (default) or pending */
+    private String status;
+}
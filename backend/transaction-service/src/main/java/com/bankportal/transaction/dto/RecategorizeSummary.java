@@ -0,0 +1,21 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecategorizeSummary {
+    private Long ruleSetVersion;
+    /** Transactions in the user's history */
+    private Long scanned;
+    /** Transactions some rule matched */
+    private Long matched;
+    /** Matched transactions whose category changed */
+    private Long updated;
+    private Long elapsedMs;
+}
@@ -0,0 +1,24 @@
+package com.bankportal.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDto {
+    private String id;
+    private String accountId;
+    private String name;
+    private String category;
+    private BigDecimal amount;
+    private String type;
+    private String status;
+    private String createdAt;
+    private String completedAt;
+}
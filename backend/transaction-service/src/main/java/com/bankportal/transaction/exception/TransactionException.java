@@ -0,0 +1,35 @@
+package com.bankportal.transaction.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request the ledger refused, with the status to answer. Expected failures
+ * (unknown account, conflicting transaction id, a full writer buffer) carry no
+ * stack trace.
+ */
+public class TransactionException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final int retryAfterSeconds;
+
+    public TransactionException(HttpStatus status, String message) {
+        this(status, message, 0);
+    }
+
+    public TransactionException(HttpStatus status, String message, int retryAfterSeconds) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Seconds the client should wait before retrying, or 0 for no hint
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
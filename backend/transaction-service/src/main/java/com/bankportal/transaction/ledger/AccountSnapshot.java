@@ -0,0 +1,24 @@
+package com.bankportal.transaction.ledger;
+
+import java.time.Instant;
+
+/**
+ * An account with its balance snapshot, as of entry {@code lastEntryId}. Amounts are in cents.
+ *
+ * @param postedBalance completed transactions only
+ * @param pendingDebits pending debits, held against the available balance
+ * @param pendingCredits pending credits, not yet available
+ */
+public record AccountSnapshot(long id,
+                              long ownerId,
+                              String name,
+                              long postedBalance,
+                              long pendingDebits,
+                              long pendingCredits,
+                              long lastEntryId,
+                              Instant createdAt) {
+
+    public long availableBalance() {
+        return postedBalance - pendingDebits;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankportal.transaction.ledger;
+
+public enum Direction {
+    DEBIT,
+    CREDIT;
+
+    /**
+     * The amount as a change to the balance
+     */
+    public long signed(long amount) {
+        return this == CREDIT ? amount : -amount;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankportal.transaction.ledger;
+
+/**
+ * What a ledger entry records
+ */
+public enum EntryKind {
+    /** A transaction that completed when it was posted */
+    POSTED,
+    /** A transaction that is not completed yet; held against the available balance */
+    PENDING,
+    /** Completion of an earlier PENDING entry with the same transaction id */
+    SETTLED
+}
@@ -0,0 +1,18 @@
+package com.bankportal.transaction.ledger;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One row of the append-only ledger. Amounts are in cents.
+ */
+public record LedgerEntry(long id,
+                          long accountId,
+                          UUID transactionId,
+                          EntryKind kind,
+                          Direction direction,
+                          long amount,
+                          String name,
+                          String category,
+                          Instant createdAt) {
+}
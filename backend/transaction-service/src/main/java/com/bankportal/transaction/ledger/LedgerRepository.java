@@ -0,0 +1,294 @@
+package com.bankportal.transaction.ledger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * SQL for the ledger tables. Entries are only ever inserted; the account row holds the balance snapshot.
+ */
+@Repository
+public class LedgerRepository {
+
+    private static final String ENTRY_COLUMNS =
+            "e.id, e.account_id, e.transaction_id, e.kind, e.direction, e.amount, e.name, e.category, e.created_at";
+
+    private static final String ACCOUNT_COLUMNS =
+            "id, owner_id, name, posted_balance, pending_debits, pending_credits, last_entry_id, created_at";
+
+    /** A transaction's opening entry, settling time and current category; the account id is the first parameter */
+    private static final String SELECT_TRANSACTIONS = """
+            SELECT e.id, e.account_id, e.transaction_id, e.kind, e.direction, e.amount, e.name,
+                   COALESCE(c.category, e.category) AS category, e.created_at, s.created_at AS settled_at
+            FROM ledger_entries e
+            LEFT JOIN ledger_entries s ON s.transaction_id = e.transaction_id AND s.kind = 'SETTLED'
+            LEFT JOIN transaction_categories c ON c.transaction_id = e.transaction_id
+            WHERE e.account_id = ? AND e.kind <> 'SETTLED'""";
+
+    /**
+     * One statement per batch. Rows go in (transaction_id, kind) order, so two instances appending
+     * the same ids wait on each other in one order rather than deadlock. An id another instance has
+     * recorded since the batch was validated is skipped rather than failing the statement; the
+     * RETURNING list tells the writer which rows went in.
+     */
+    private static final String INSERT_ENTRIES = """
+            INSERT INTO ledger_entries (id, account_id, transaction_id, kind, direction, amount, name, category, created_at)
+            SELECT r.id, r.account_id, r.transaction_id, r.kind, r.direction, r.amount, r.name, r.category,
+                   r.created_at::timestamptz
+            FROM unnest(?, ?, ?, ?, ?, ?, ?, ?, ?)
+                AS r(id, account_id, transaction_id, kind, direction, amount, name, category, created_at)
+            ORDER BY r.transaction_id, r.kind
+            ON CONFLICT (transaction_id, kind) DO NOTHING
+            RETURNING id""";
+
+    private static final String APPLY_CHANGE = """
+            UPDATE ledger_accounts
+            SET posted_balance = posted_balance + ?, pending_debits = pending_debits + ?,
+                pending_credits = pending_credits + ?, last_entry_id = GREATEST(last_entry_id, ?)
+            WHERE id = ?""";
+
+    private static final RowMapper<AccountSnapshot> ACCOUNT_MAPPER = (rs, rowNum) -> new AccountSnapshot(
+            rs.getLong("id"),
+            rs.getLong("owner_id"),
+            rs.getString("name"),
+            rs.getLong("posted_balance"),
+            rs.getLong("pending_debits"),
+            rs.getLong("pending_credits"),
+            rs.getLong("last_entry_id"),
+            rs.getTimestamp("created_at").toInstant());
+
+    private static final RowMapper<LedgerTransaction> TRANSACTION_MAPPER = (rs, rowNum) -> {
+        Timestamp settledAt = rs.getTimestamp("settled_at");
+        return new LedgerTransaction(mapEntry(rs), settledAt != null ? settledAt.toInstant() : null);
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public AccountSnapshot createAccount(long ownerId, String name) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO ledger_accounts (owner_id, name) VALUES (?, ?)", new String[] {"id"});
+            ps.setLong(1, ownerId);
+            ps.setString(2, name);
+            return ps;
+        }, keys);
+        return findAccount(keys.getKey().longValue()).orElseThrow();
+    }
+
+    /**
+     * The account and its balance snapshot, in one primary-key lookup
+     */
+    public Optional<AccountSnapshot> findAccount(long accountId) {
+        return jdbcTemplate.query("SELECT " + ACCOUNT_COLUMNS + " FROM ledger_accounts WHERE id = ?",
+                ACCOUNT_MAPPER, accountId).stream().findFirst();
+    }
+
+    public List<AccountSnapshot> findAccountsByOwner(long ownerId) {
+        return jdbcTemplate.query("SELECT " + ACCOUNT_COLUMNS + " FROM ledger_accounts WHERE owner_id = ? ORDER BY id",
+                ACCOUNT_MAPPER, ownerId);
+    }
+
+    public Optional<Long> findOwnerId(long accountId) {
+        return jdbcTemplate.queryForList("SELECT owner_id FROM ledger_accounts WHERE id = ?", Long.class, accountId)
+                .stream().findFirst();
+    }
+
+    /**
+     * A page of an account's transactions, newest first: opening entries with id below {@code beforeId},
+     * each with the time its settling entry was appended, if any, and the category rules last gave it
+     */
+    public List<LedgerTransaction> findTransactions(long accountId, long beforeId, int limit) {
+        return jdbcTemplate.query(SELECT_TRANSACTIONS + " AND e.id < ? ORDER BY e.id DESC LIMIT ?",
+                TRANSACTION_MAPPER, accountId, beforeId, limit);
+    }
+
+    /**
+     * Every transaction of the account recorded in [from, to), oldest first, handed to the consumer as
+     * it is read. Rows come from a server-side cursor {@code fetchSize} at a time, in the order of the
+     * history index, so the first arrives before the query has finished and memory doesn't grow with
+     * the account. Must run in a transaction, which the cursor needs.
+     *
+     * @param from Inclusive, or null for the first transaction
+     * @param to Exclusive, or null for the last
+     */
+    public void streamTransactions(long accountId, Instant from, Instant to, int fetchSize,
+                                   Consumer<LedgerTransaction> consumer) {
+        String sql = SELECT_TRANSACTIONS
+                + (from != null ? " AND e.created_at >= ?" : "")
+                + (to != null ? " AND e.created_at < ?" : "")
+                + " ORDER BY e.id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            int parameter = 1;
+            ps.setLong(parameter++, accountId);
+            if (from != null) {
+                ps.setTimestamp(parameter++, Timestamp.from(from));
+            }
+            if (to != null) {
+                ps.setTimestamp(parameter, Timestamp.from(to));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(TRANSACTION_MAPPER.mapRow(rs, 0)));
+    }
+
+    /**
+     * Every entry, of any account, for the given transaction ids
+     */
+    public List<LedgerEntry> findEntries(Collection<UUID> transactionIds) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT " + ENTRY_COLUMNS + " FROM ledger_entries e WHERE e.transaction_id = ANY(?)");
+            Array ids = connection.createArrayOf("uuid", transactionIds.toArray());
+            ps.setArray(1, ids);
+            return ps;
+        }, (rs, rowNum) -> mapEntry(rs));
+    }
+
+    /**
+     * Allocate {@code count} entry ids in one round trip, ascending
+     */
+    public long[] nextEntryIds(int count) {
+        long[] ids = jdbcTemplate.queryForList(
+                        "SELECT nextval('ledger_entry_seq') FROM generate_series(1, ?)", Long.class, count)
+                .stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * @return Ids of the entries inserted; an entry whose transaction id and kind were already
+     *         recorded is left out
+     */
+    public Set<Long> insertEntries(List<LedgerEntry> entries) {
+        int size = entries.size();
+        Long[] ids = new Long[size];
+        Long[] accountIds = new Long[size];
+        UUID[] transactionIds = new UUID[size];
+        String[] kinds = new String[size];
+        String[] directions = new String[size];
+        Long[] amounts = new Long[size];
+        String[] names = new String[size];
+        String[] categories = new String[size];
+        String[] createdAt = new String[size];
+        for (int i = 0; i < size; i++) {
+            LedgerEntry entry = entries.get(i);
+            ids[i] = entry.id();
+            accountIds[i] = entry.accountId();
+            transactionIds[i] = entry.transactionId();
+            kinds[i] = entry.kind().name();
+            directions[i] = entry.direction().name();
+            amounts[i] = entry.amount();
+            names[i] = entry.name();
+            categories[i] = entry.category();
+            createdAt[i] = entry.createdAt().toString(); // ISO-8601 in UTC, read back exactly by timestamptz
+        }
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_ENTRIES);
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            ps.setArray(2, connection.createArrayOf("bigint", accountIds));
+            ps.setArray(3, connection.createArrayOf("uuid", transactionIds));
+            ps.setArray(4, connection.createArrayOf("text", kinds));
+            ps.setArray(5, connection.createArrayOf("text", directions));
+            ps.setArray(6, connection.createArrayOf("bigint", amounts));
+            ps.setArray(7, connection.createArrayOf("text", names));
+            ps.setArray(8, connection.createArrayOf("text", categories));
+            ps.setArray(9, connection.createArrayOf("text", createdAt));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1)));
+    }
+
+    /**
+     * Add each account's net change to its snapshot. Rows are updated in account id order, the
+     * same on every instance, so batches touching the same accounts queue rather than deadlock.
+     */
+    public void applyBalanceChanges(Map<Long, BalanceChange> changes) {
+        List<BalanceChange> ordered = changes.values().stream()
+                .sorted(Comparator.comparingLong(change -> change.accountId))
+                .toList();
+        jdbcTemplate.batchUpdate(APPLY_CHANGE, ordered, ordered.size(), (ps, change) -> {
+            ps.setLong(1, change.posted);
+            ps.setLong(2, change.pendingDebits);
+            ps.setLong(3, change.pendingCredits);
+            ps.setLong(4, change.lastEntryId);
+            ps.setLong(5, change.accountId);
+        });
+    }
+
+    private static LedgerEntry mapEntry(ResultSet rs) throws SQLException {
+        Instant createdAt = rs.getTimestamp("created_at").toInstant();
+        return new LedgerEntry(
+                rs.getLong("id"),
+                rs.getLong("account_id"),
+                rs.getObject("transaction_id", UUID.class),
+                EntryKind.valueOf(rs.getString("kind")),
+                Direction.valueOf(rs.getString("direction")),
+                rs.getLong("amount"),
+                rs.getString("name"),
+                rs.getString("category"),
+                createdAt);
+    }
+
+    /**
+     * Net change to one account's snapshot from one batch
+     */
+    public static final class BalanceChange {
+
+        private final long accountId;
+        private long posted;
+        private long pendingDebits;
+        private long pendingCredits;
+        private long lastEntryId;
+
+        public BalanceChange(long accountId) {
+            this.accountId = accountId;
+        }
+
+        /**
+         * Fold one appended entry into the change. A SETTLED entry moves its amount from pending to posted.
+         */
+        public void add(LedgerEntry entry) {
+            long signed = entry.direction().signed(entry.amount());
+            switch (entry.kind()) {
+                case POSTED -> posted += signed;
+                case PENDING -> addPending(entry.direction(), entry.amount());
+                case SETTLED -> {
+                    addPending(entry.direction(), -entry.amount());
+                    posted += signed;
+                }
+            }
+            lastEntryId = Math.max(lastEntryId, entry.id());
+        }
+
+        private void addPending(Direction direction, long amount) {
+            if (direction == Direction.DEBIT) {
+                pendingDebits += amount;
+            } else {
+                pendingCredits += amount;
+            }
+        }
+    }
+}
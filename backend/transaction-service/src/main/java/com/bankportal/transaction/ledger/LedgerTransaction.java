@@ -0,0 +1,13 @@
+package com.bankportal.transaction.ledger;
+
+import java.time.Instant;
+
+/**
+ * A transaction as history shows it: its opening entry, and when it settled if it was pending
+ */
+public record LedgerTransaction(LedgerEntry opening, Instant settledAt) {
+
+    public boolean isCompleted() {
+        return opening.kind() == EntryKind.POSTED || settledAt != null;
+    }
+}
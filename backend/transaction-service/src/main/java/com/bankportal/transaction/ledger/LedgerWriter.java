@@ -0,0 +1,307 @@
+package com.bankportal.transaction.ledger;
+
+import com.bankportal.common.util.MpscRingBuffer;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.LedgerRepository.BalanceChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The only writer of the ledger within this instance.
+ *
+ * Request threads offer postings to a lock-free ring buffer; one writer thread
+ * drains it and appends each batch in a single database transaction: one
+ * lookup of the transaction ids involved, one block of entry ids, one INSERT,
+ * and one snapshot UPDATE per account touched. Concurrent requests on the
+ * same account therefore never contend on its row, and the commit cost is
+ * shared by everything that arrived while the previous batch was committing.
+ *
+ * Other instances run their own writer against the same tables. Snapshot rows
+ * are updated in account id order, so their batches queue rather than
+ * deadlock. If another instance records one of the batch's transaction ids
+ * between the lookup and the INSERT, the batch is rolled back and validated
+ * again against what was committed.
+ *
+ * Postings are validated in buffer order against the ledger and the rest of
+ * the batch, so a transaction can be opened and settled in the same batch.
+ * Their futures complete only after the batch commits; if it fails, every
+ * posting in it fails and nothing is appended.
+ */
+@Component
+public class LedgerWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerWriter.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final TransactionException BUSY =
+            new TransactionException(HttpStatus.SERVICE_UNAVAILABLE, "Ledger is busy. Please try again shortly.", 1);
+    private static final TransactionException UNAVAILABLE =
+            new TransactionException(HttpStatus.SERVICE_UNAVAILABLE, "Ledger is unavailable. Please try again.", 1);
+    private static final TransactionException NOT_FOUND =
+            new TransactionException(HttpStatus.NOT_FOUND, "Transaction not found");
+    private static final TransactionException ID_IN_USE =
+            new TransactionException(HttpStatus.CONFLICT, "Transaction id is already in use");
+
+    private final LedgerRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final MpscRingBuffer<Posting> buffer;
+
+    private final Counter appendedCounter;
+    private final Counter rejectedCounter;
+    private final Counter busyCounter;
+    private final Counter failedCounter;
+    private final Counter conflictCounter;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizes;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public LedgerWriter(LedgerRepository repository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${ledger.writer.buffer-capacity:16384}") int bufferCapacity,
+                        @Value("${ledger.writer.batch-size:512}") int batchSize,
+                        MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+
+        this.appendedCounter = Counter.builder("ledger.entries.appended")
+                .description("Ledger entries committed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ledger.postings.rejected")
+                .description("Postings refused on validation: unknown transaction or reused id")
+                .register(meterRegistry);
+        this.busyCounter = Counter.builder("ledger.postings.busy")
+                .description("Postings refused because the buffer was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("ledger.postings.failed")
+                .description("Postings lost to a failed batch")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("ledger.batch.conflicts")
+                .description("Batches validated again after another instance recorded one of their transaction ids")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("ledger.batch.time")
+                .description("Time to append and commit one drained batch")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("ledger.batch.size")
+                .description("Postings per committed batch")
+                .register(meterRegistry);
+        meterRegistry.gauge("ledger.buffer.size", buffer, MpscRingBuffer::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Append what is buffered, then stop
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        writer = null;
+    }
+
+    /**
+     * Queue a posting for the next batch without blocking
+     *
+     * @return The posting's result, completed once its batch has committed
+     * @throws TransactionException 503 if the buffer is full or the writer has stopped
+     */
+    public CompletableFuture<LedgerTransaction> submit(Posting posting) {
+        if (!running || !buffer.offer(posting)) {
+            busyCounter.increment();
+            throw BUSY;
+        }
+        LockSupport.unpark(writer);
+        return posting.result();
+    }
+
+    private void writeLoop() {
+        List<Posting> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Posting> batch) {
+        long started = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> append(batch));
+                    break;
+                } catch (ConcurrentAppendException e) {
+                    conflictCounter.increment();
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to append a batch of {} postings", batch.size(), e);
+            failedCounter.increment(batch.size());
+            batch.forEach(posting -> posting.result().completeExceptionally(UNAVAILABLE));
+            return;
+        }
+        batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        batch.forEach(Posting::complete);
+    }
+
+    /**
+     * Validate and append one batch; runs inside its transaction
+     */
+    private void append(List<Posting> batch) {
+        Set<UUID> transactionIds = new HashSet<>();
+        batch.forEach(posting -> transactionIds.add(posting.transactionId()));
+        Map<UUID, Recorded> recorded = new HashMap<>();
+        for (LedgerEntry entry : repository.findEntries(transactionIds)) {
+            recorded.computeIfAbsent(entry.transactionId(), id -> new Recorded()).add(entry);
+        }
+
+        // One id per posting; rejected postings leave gaps, as sequences do anyway
+        long[] ids = repository.nextEntryIds(batch.size());
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(batch.size());
+        Map<Long, BalanceChange> changes = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Posting posting = batch.get(i);
+            Recorded transaction = recorded.computeIfAbsent(posting.transactionId(), id -> new Recorded());
+            LedgerEntry entry = posting.kind() == EntryKind.SETTLED
+                    ? settle(posting, transaction, ids[i], now)
+                    : open(posting, transaction, ids[i], now);
+            if (entry == null) {
+                continue;
+            }
+            transaction.add(entry);
+            posting.accept(transaction.toTransaction());
+            entries.add(entry);
+            changes.computeIfAbsent(entry.accountId(), BalanceChange::new).add(entry);
+        }
+
+        if (!entries.isEmpty()) {
+            if (repository.insertEntries(entries).size() < entries.size()) {
+                // Outcomes decided above may be wrong; roll back and decide again
+                throw new ConcurrentAppendException();
+            }
+            repository.applyBalanceChanges(changes);
+            appendedCounter.increment(entries.size());
+        }
+    }
+
+    /**
+     * The opening entry for a new transaction, or null if the id is already recorded. Reusing
+     * an id for the same posting is a retry and returns the recorded transaction.
+     */
+    private LedgerEntry open(Posting posting, Recorded transaction, long id, Instant now) {
+        LedgerEntry opening = transaction.opening;
+        if (opening == null) {
+            return new LedgerEntry(id, posting.accountId(), posting.transactionId(), posting.kind(),
+                    posting.direction(), posting.amount(), posting.name(), posting.category(), now);
+        }
+        if (opening.accountId() == posting.accountId() && opening.kind() == posting.kind()
+                && opening.direction() == posting.direction() && opening.amount() == posting.amount()) {
+            posting.accept(transaction.toTransaction());
+        } else {
+            reject(posting, ID_IN_USE);
+        }
+        return null;
+    }
+
+    /**
+     * The settling entry for a pending transaction, or null if there is nothing to settle.
+     * Completing a transaction that is already completed returns it unchanged.
+     */
+    private LedgerEntry settle(Posting posting, Recorded transaction, long id, Instant now) {
+        LedgerEntry opening = transaction.opening;
+        if (opening == null || opening.accountId() != posting.accountId()) {
+            reject(posting, NOT_FOUND);
+            return null;
+        }
+        if (opening.kind() == EntryKind.POSTED || transaction.settled != null) {
+            posting.accept(transaction.toTransaction());
+            return null;
+        }
+        return new LedgerEntry(id, opening.accountId(), opening.transactionId(), EntryKind.SETTLED,
+                opening.direction(), opening.amount(), opening.name(), opening.category(), now);
+    }
+
+    private void reject(Posting posting, TransactionException e) {
+        rejectedCounter.increment();
+        posting.reject(e);
+    }
+
+    /**
+     * Another instance appended an entry for one of the batch's transaction ids after the lookup
+     */
+    private static final class ConcurrentAppendException extends RuntimeException {
+
+        ConcurrentAppendException() {
+            super("Transaction id recorded concurrently by another writer", null, false, false);
+        }
+    }
+
+    /**
+     * What the ledger, including earlier postings in the batch, holds for one transaction id
+     */
+    private static final class Recorded {
+
+        private LedgerEntry opening;
+        private LedgerEntry settled;
+
+        void add(LedgerEntry entry) {
+            if (entry.kind() == EntryKind.SETTLED) {
+                settled = entry;
+            } else {
+                opening = entry;
+            }
+        }
+
+        LedgerTransaction toTransaction() {
+            return new LedgerTransaction(opening, settled != null ? settled.createdAt() : null);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.bankportal.transaction.ledger;
+
+import com.bankportal.transaction.exception.TransactionException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One entry waiting in the {@link LedgerWriter}'s buffer. The writer decides its outcome
+ * while appending the batch and completes {@link #result()} once the batch has committed.
+ */
+public final class Posting {
+
+    private final long accountId;
+    private final UUID transactionId;
+    private final EntryKind kind;
+    private final Direction direction;
+    private final long amount;
+    private final String name;
+    private final String category;
+    private final CompletableFuture<LedgerTransaction> result = new CompletableFuture<>();
+
+    private LedgerTransaction outcome;
+    private TransactionException rejection;
+
+    private Posting(long accountId, UUID transactionId, EntryKind kind, Direction direction,
+                    long amount, String name, String category) {
+        this.accountId = accountId;
+        this.transactionId = transactionId;
+        this.kind = kind;
+        this.direction = direction;
+        this.amount = amount;
+        this.name = name;
+        this.category = category;
+    }
+
+    /**
+     * A new transaction, completed at once or held as pending
+     *
+     * @param amount Cents, greater than zero
+     */
+    public static Posting open(long accountId, UUID transactionId, boolean pending, Direction direction,
+                               long amount, String name, String category) {
+        return new Posting(accountId, transactionId, pending ? EntryKind.PENDING : EntryKind.POSTED,
+                direction, amount, name, category);
+    }
+
+    /**
+     * Completion of a pending transaction; direction, amount and name come from its opening entry
+     */
+    public static Posting settle(long accountId, UUID transactionId) {
+        return new Posting(accountId, transactionId, EntryKind.SETTLED, null, 0, null, null);
+    }
+
+    public long accountId() {
+        return accountId;
+    }
+
+    public UUID transactionId() {
+        return transactionId;
+    }
+
+    public EntryKind kind() {
+        return kind;
+    }
+
+    public Direction direction() {
+        return direction;
+    }
+
+    public long amount() {
+        return amount;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String category() {
+        return category;
+    }
+
+    public CompletableFuture<LedgerTransaction> result() {
+        return result;
+    }
+
+    // A batch validated again after a conflict decides each outcome afresh
+
+    void accept(LedgerTransaction transaction) {
+        outcome = transaction;
+        rejection = null;
+    }
+
+    void reject(TransactionException e) {
+        rejection = e;
+        outcome = null;
+    }
+
+    /**
+     * Publish the outcome decided while appending; called after the batch commits
+     */
+    void complete() {
+        if (rejection != null) {
+            result.completeExceptionally(rejection);
+        } else {
+            result.complete(outcome);
+        }
+    }
+}
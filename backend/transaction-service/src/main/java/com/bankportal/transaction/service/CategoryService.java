@@ -0,0 +1,269 @@
+package com.bankportal.transaction.service;
+
+import com.bankportal.transaction.category.CategoryRule;
+import com.bankportal.transaction.category.CategoryRuleCache;
+import com.bankportal.transaction.category.CategoryRuleRepository;
+import com.bankportal.transaction.category.CategoryRuleRepository.CategorizedTransaction;
+import com.bankportal.transaction.category.CompiledRuleSet;
+import com.bankportal.transaction.dto.CategorizeItem;
+import com.bankportal.transaction.dto.CategorizeResponse;
+import com.bankportal.transaction.dto.CategoryRuleDto;
+import com.bankportal.transaction.dto.CategoryRuleRequest;
+import com.bankportal.transaction.dto.RecategorizeSummary;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.AccountSnapshot;
+import com.bankportal.transaction.ledger.LedgerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Category rules and categorization with them.
+ *
+ * A user's enabled rules are matched together, through the compiled rule set
+ * from {@link CategoryRuleCache}, in one pass over each transaction name.
+ * Re-categorizing a history reads it in keyset chunks and hands each chunk to
+ * a worker pool to match and save, so reading, matching and writing overlap.
+ */
+@Service
+public class CategoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryService.class);
+
+    @Autowired
+    private CategoryRuleRepository ruleRepository;
+
+    @Autowired
+    private CategoryRuleCache ruleCache;
+
+    @Autowired
+    private LedgerRepository ledgerRepository;
+
+    @Value("${category.rules.max-per-user:1000}")
+    private int maxRulesPerUser;
+
+    @Value("${category.categorize.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${category.recategorize.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${category.recategorize.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService recategorizeExecutor;
+    private final Set<Long> recategorizing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        recategorizeExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "recategorize-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recategorizeExecutor.shutdownNow();
+    }
+
+    /**
+     * The user's rules, first match first
+     */
+    public List<CategoryRuleDto> getRules(long userId) {
+        return ruleRepository.findRules(userId).stream().map(CategoryService::toDto).toList();
+    }
+
+    /**
+     * Add a rule ahead of the user's other rules
+     */
+    @Transactional
+    public CategoryRuleDto createRule(long userId, CategoryRuleRequest request) {
+        String keyword = requireText(request.getKeyword(), "Keyword");
+        String category = requireText(request.getCategory(), "Category");
+        ruleRepository.nextVersion(userId);
+        if (ruleRepository.countRules(userId) >= maxRulesPerUser) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "At most " + maxRulesPerUser + " rules per user");
+        }
+        CategoryRule rule = ruleRepository.insertFirst(userId, keyword, category,
+                request.getEnabled() == null || request.getEnabled());
+        ruleCache.invalidateAfterCommit(userId);
+        return toDto(rule);
+    }
+
+    /**
+     * Change a rule's keyword, category or enabled flag; omitted fields are unchanged
+     */
+    @Transactional
+    public CategoryRuleDto updateRule(long userId, long ruleId, CategoryRuleRequest request) {
+        String keyword = request.getKeyword() == null ? null : requireText(request.getKeyword(), "Keyword");
+        String category = request.getCategory() == null ? null : requireText(request.getCategory(), "Category");
+        ruleRepository.nextVersion(userId);
+        CategoryRule rule = ruleRepository.update(userId, ruleId, keyword, category, request.getEnabled())
+                .orElseThrow(() -> new TransactionException(HttpStatus.NOT_FOUND, "Rule not found"));
+        ruleCache.invalidateAfterCommit(userId);
+        return toDto(rule);
+    }
+
+    @Transactional
+    public void deleteRule(long userId, long ruleId) {
+        ruleRepository.nextVersion(userId);
+        if (!ruleRepository.delete(userId, ruleId)) {
+            throw new TransactionException(HttpStatus.NOT_FOUND, "Rule not found");
+        }
+        ruleCache.invalidateAfterCommit(userId);
+    }
+
+    /**
+     * The category the user's rules give a transaction name, or null if none matches
+     */
+    public String categorize(long userId, String name) {
+        return ruleCache.get(userId).categorize(name);
+    }
+
+    /**
+     * Categorize a batch of transactions that need not be in the ledger
+     */
+    public CategorizeResponse categorize(long userId, List<CategorizeItem> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "No transactions to categorize");
+        }
+        if (transactions.size() > maxBatchSize) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "At most " + maxBatchSize + " transactions per request");
+        }
+        CompiledRuleSet rules = ruleCache.getCurrent(userId);
+        List<CategorizeItem> categorized = new ArrayList<>(transactions.size());
+        for (CategorizeItem transaction : transactions) {
+            categorized.add(CategorizeItem.builder()
+                    .id(transaction.getId())
+                    .name(transaction.getName())
+                    .category(rules.categorize(transaction.getName()))
+                    .build());
+        }
+        return CategorizeResponse.builder()
+                .ruleSetVersion(rules.version())
+                .transactions(categorized)
+                .build();
+    }
+
+    /**
+     * Apply the user's current rules to every transaction in their history. Transactions no rule
+     * matches keep their category. One run per user at a time.
+     */
+    public RecategorizeSummary recategorize(long userId) {
+        if (!recategorizing.add(userId)) {
+            throw new TransactionException(HttpStatus.CONFLICT, "Re-categorization is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            CompiledRuleSet rules = ruleCache.getCurrent(userId);
+            LongAdder scanned = new LongAdder();
+            LongAdder matched = new LongAdder();
+            LongAdder updated = new LongAdder();
+            // Bounds the chunks read ahead of the workers
+            Semaphore pending = new Semaphore(parallelism * 2);
+            List<Future<?>> chunks = new ArrayList<>();
+            for (AccountSnapshot account : ledgerRepository.findAccountsByOwner(userId)) {
+                long beforeId = Long.MAX_VALUE;
+                List<CategorizedTransaction> chunk;
+                do {
+                    chunk = ruleRepository.findTransactions(account.id(), beforeId, chunkSize);
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    beforeId = chunk.get(chunk.size() - 1).entryId();
+                    pending.acquireUninterruptibly();
+                    List<CategorizedTransaction> transactions = chunk;
+                    chunks.add(recategorizeExecutor.submit(() -> {
+                        try {
+                            recategorize(transactions, rules, scanned, matched, updated);
+                        } finally {
+                            pending.release();
+                        }
+                    }));
+                } while (chunk.size() == chunkSize);
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Re-categorized {} transactions for user {} with rule set {}: {} matched, {} updated in {} ms",
+                    scanned.sum(), userId, rules.version(), matched.sum(), updated.sum(), elapsedMs);
+            return RecategorizeSummary.builder()
+                    .ruleSetVersion(rules.version())
+                    .scanned(scanned.sum())
+                    .matched(matched.sum())
+                    .updated(updated.sum())
+                    .elapsedMs(elapsedMs)
+                    .build();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Re-categorization failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Re-categorization interrupted", e);
+        } finally {
+            recategorizing.remove(userId);
+        }
+    }
+
+    private void recategorize(List<CategorizedTransaction> transactions, CompiledRuleSet rules,
+                              LongAdder scanned, LongAdder matched, LongAdder updated) {
+        List<CategorizedTransaction> changed = new ArrayList<>();
+        for (CategorizedTransaction transaction : transactions) {
+            String category = rules.categorize(transaction.name());
+            if (category == null) {
+                continue;
+            }
+            matched.increment();
+            if (!category.equals(transaction.category())) {
+                changed.add(new CategorizedTransaction(transaction.entryId(), transaction.transactionId(),
+                        transaction.name(), category));
+            }
+        }
+        if (!changed.isEmpty()) {
+            ruleRepository.saveCategories(changed, rules.version());
+        }
+        scanned.add(transactions.size());
+        updated.add(changed.size());
+    }
+
+    private static String requireText(String value, String field) {
+        if (value == null || value.isBlank() || value.trim().length() > 100) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, field + " is required (at most 100 characters)");
+        }
+        return value.trim();
+    }
+
+    private static CategoryRuleDto toDto(CategoryRule rule) {
+        return CategoryRuleDto.builder()
+                .id(String.valueOf(rule.id()))
+                .keyword(rule.keyword())
+                .category(rule.category())
+                .enabled(rule.enabled())
+                .createdAt(rule.createdAt().toString())
+                .build();
+    }
+}
@@ -0,0 +1,253 @@
+package com.bankportal.transaction.service;
+
+import com.bankportal.transaction.dto.AccountDto;
+import com.bankportal.transaction.dto.PostTransactionRequest;
+import com.bankportal.transaction.dto.TransactionDto;
+import com.bankportal.transaction.dto.TransactionPage;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.AccountSnapshot;
+import com.bankportal.transaction.ledger.Direction;
+import com.bankportal.transaction.ledger.LedgerRepository;
+import com.bankportal.transaction.ledger.LedgerTransaction;
+import com.bankportal.transaction.ledger.LedgerWriter;
+import com.bankportal.transaction.ledger.Posting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class TransactionService {
+
+    private static final TransactionException ACCOUNT_NOT_FOUND =
+            new TransactionException(HttpStatus.NOT_FOUND, "Account not found");
+
+    @Autowired
+    private LedgerRepository ledgerRepository;
+
+    @Autowired
+    private LedgerWriter ledgerWriter;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Value("${ledger.writer.commit-timeout-ms:5000}")
+    private long commitTimeoutMillis;
+
+    @Value("${ledger.history.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${ledger.history.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${ledger.accounts.owner-cache-size:100000}")
+    private int ownerCacheSize;
+
+    /** Account id to owner id; an account never changes owner, so entries never go stale */
+    private Cache<Long, Long> accountOwners;
+
+    @PostConstruct
+    public void init() {
+        accountOwners = Caffeine.newBuilder().maximumSize(ownerCacheSize).build();
+    }
+
+    /**
+     * Open an account for the user with a zero balance
+     */
+    public AccountDto createAccount(long userId, String name) {
+        if (name == null || name.isBlank() || name.length() > 100) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Account name is required (at most 100 characters)");
+        }
+        AccountSnapshot account = ledgerRepository.createAccount(userId, name.trim());
+        accountOwners.put(account.id(), userId);
+        return toDto(account);
+    }
+
+    public List<AccountDto> getAccounts(long userId) {
+        return ledgerRepository.findAccountsByOwner(userId).stream().map(TransactionService::toDto).toList();
+    }
+
+    /**
+     * The account with its balances, read from the snapshot row
+     */
+    public AccountDto getAccount(long userId, long accountId) {
+        AccountSnapshot account = ledgerRepository.findAccount(accountId)
+                .filter(snapshot -> snapshot.ownerId() == userId)
+                .orElseThrow(() -> ACCOUNT_NOT_FOUND);
+        return toDto(account);
+    }
+
+    /**
+     * Append a transaction and wait for it to commit
+     */
+    public TransactionDto postTransaction(long userId, long accountId, PostTransactionRequest request) {
+        UUID transactionId = request.getId() == null || request.getId().isBlank()
+                ? UUID.randomUUID()
+                : parseTransactionId(request.getId());
+        String name = request.getName();
+        if (name == null || name.isBlank() || name.length() > 200) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Transaction name is required (at most 200 characters)");
+        }
+        String category = request.getCategory();
+        if (category != null && category.length() > 100) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Category must be at most 100 characters");
+        }
+        long amount = toCents(request.getAmount());
+        Direction direction = parseDirection(request.getType());
+        boolean pending = parsePending(request.getStatus());
+        requireOwner(userId, accountId);
+
+        // Without a category, the user's rules pick one
+        category = category == null || category.isBlank()
+                ? categoryService.categorize(userId, name.trim())
+                : category.trim();
+        Posting posting = Posting.open(accountId, transactionId, pending, direction, amount, name.trim(), category);
+        return toDto(await(ledgerWriter.submit(posting), transactionId));
+    }
+
+    /**
+     * Complete a pending transaction by appending its settling entry. Completing a completed
+     * transaction returns it unchanged.
+     */
+    public TransactionDto completeTransaction(long userId, long accountId, String transactionId) {
+        UUID id = parseTransactionId(transactionId);
+        requireOwner(userId, accountId);
+        return toDto(await(ledgerWriter.submit(Posting.settle(accountId, id)), id));
+    }
+
+    /**
+     * A page of the account's transactions, newest first
+     *
+     * @param cursor nextCursor from the previous page, or null for the newest
+     */
+    public TransactionPage getTransactions(long userId, long accountId, String cursor, Integer limit) {
+        requireOwner(userId, accountId);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                beforeId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new TransactionException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+        List<LedgerTransaction> page = ledgerRepository.findTransactions(accountId, beforeId, pageSize);
+        String nextCursor = page.size() < pageSize ? null : String.valueOf(page.get(page.size() - 1).opening().id());
+        return TransactionPage.builder()
+                .transactions(page.stream().map(TransactionService::toDto).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Accounts of other users are reported as not found, so ids can't be probed
+     */
+    void requireOwner(long userId, long accountId) {
+        Long ownerId = accountOwners.get(accountId, id -> ledgerRepository.findOwnerId(id).orElse(null));
+        if (ownerId == null || ownerId != userId) {
+            throw ACCOUNT_NOT_FOUND;
+        }
+    }
+
+    private LedgerTransaction await(CompletableFuture<LedgerTransaction> result, UUID transactionId) {
+        try {
+            return result.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TransactionException transactionException) {
+                throw transactionException;
+            }
+            throw new IllegalStateException("Posting failed", e.getCause());
+        } catch (TimeoutException e) {
+            // It may still commit; a retry with the same id is safe either way
+            throw new TransactionException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Transaction " + transactionId + " not confirmed yet. Retry with the same id.", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Transaction " + transactionId + " not confirmed yet. Retry with the same id.", 1);
+        }
+    }
+
+    private static UUID parseTransactionId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Transaction id must be a UUID");
+        }
+    }
+
+    private static Direction parseDirection(String type) {
+        if ("debit".equalsIgnoreCase(type)) {
+            return Direction.DEBIT;
+        }
+        if ("credit".equalsIgnoreCase(type)) {
+            return Direction.CREDIT;
+        }
+        throw new TransactionException(HttpStatus.BAD_REQUEST, "Type must be debit or credit");
+    }
+
+    private static boolean parsePending(String status) {
+        if (status == null || "completed".equalsIgnoreCase(status)) {
+            return false;
+        }
+        if ("pending".equalsIgnoreCase(status)) {
+            return true;
+        }
+        throw new TransactionException(HttpStatus.BAD_REQUEST, "Status must be completed or pending");
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Amount must be greater than zero");
+        }
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Amount must be a positive number with at most two decimal places");
+        }
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static AccountDto toDto(AccountSnapshot account) {
+        return AccountDto.builder()
+                .id(String.valueOf(account.id()))
+                .name(account.name())
+                .balance(fromCents(account.postedBalance()))
+                .pendingDebits(fromCents(account.pendingDebits()))
+                .pendingCredits(fromCents(account.pendingCredits()))
+                .availableBalance(fromCents(account.availableBalance()))
+                .createdAt(account.createdAt().toString())
+                .build();
+    }
+
+    private static TransactionDto toDto(LedgerTransaction transaction) {
+        Instant settledAt = transaction.settledAt();
+        return TransactionDto.builder()
+                .id(transaction.opening().transactionId().toString())
+                .accountId(String.valueOf(transaction.opening().accountId()))
+                .name(transaction.opening().name())
+                .category(transaction.opening().category())
+                .amount(fromCents(transaction.opening().amount()))
+                .type(transaction.opening().direction().name().toLowerCase())
+                .status(transaction.isCompleted() ? "completed" : "pending")
+                .createdAt(transaction.opening().createdAt().toString())
+                .completedAt(settledAt != null ? settledAt.toString()
+                        : transaction.isCompleted() ? transaction.opening().createdAt().toString() : null)
+                .build();
+    }
+}
@@ -0,0 +1,350 @@
+package com.bankportal.transaction.service;
+
+import com.bankportal.transaction.dto.ImportRowResult;
+import com.bankportal.transaction.dto.ImportRowResult.Status;
+import com.bankportal.transaction.dto.ImportSummary;
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.AccountSnapshot;
+import com.bankportal.transaction.ledger.LedgerEntry;
+import com.bankportal.transaction.ledger.LedgerRepository;
+import com.bankportal.transaction.ledger.LedgerTransaction;
+import com.bankportal.transaction.ledger.LedgerWriter;
+import com.bankportal.transaction.ledger.Posting;
+import com.bankportal.transaction.transfer.BinaryTransactionReader;
+import com.bankportal.transaction.transfer.BinaryTransactionWriter;
+import com.bankportal.transaction.transfer.CsvTransactionReader;
+import com.bankportal.transaction.transfer.CsvTransactionWriter;
+import com.bankportal.transaction.transfer.NdjsonTransactionReader;
+import com.bankportal.transaction.transfer.NdjsonTransactionWriter;
+import com.bankportal.transaction.transfer.TransactionRecord;
+import com.bankportal.transaction.transfer.TransactionRecordReader;
+import com.bankportal.transaction.transfer.TransactionRecordWriter;
+import com.bankportal.transaction.transfer.TransferFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Streaming export and import of transactions as CSV, NDJSON or binary.
+ *
+ * An export reads each account from a database cursor and encodes rows onto
+ * the response as they arrive, so memory doesn't grow with the history and the
+ * first bytes leave before the query has finished. An export holds a
+ * connection for its whole run, so only a few run at once, leaving the rest
+ * of the pool to the ledger writer and to requests.
+ *
+ * An import decodes the upload one record at a time and hands each posting to
+ * the {@link LedgerWriter}, which appends it in a batch with whatever else is
+ * buffered. At most a fixed number are in flight, so the upload is read no
+ * faster than the ledger commits it.
+ */
+@Service
+public class TransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferService.class);
+
+    private static final TransactionException TOO_MANY_EXPORTS = new TransactionException(
+            HttpStatus.SERVICE_UNAVAILABLE, "Too many exports in progress. Please try again shortly.", 5);
+    private static final long BUSY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Autowired
+    private LedgerRepository ledgerRepository;
+
+    @Autowired
+    private LedgerWriter ledgerWriter;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ledger.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${ledger.export.max-concurrent:4}")
+    private int maxConcurrentExports;
+
+    @Value("${ledger.import.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${ledger.writer.commit-timeout-ms:5000}")
+    private long commitTimeoutMillis;
+
+    private Semaphore exports;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        exports = new Semaphore(maxConcurrentExports);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Where an export is written. Opened only once the export is going ahead, so a refusal can
+     * still be answered with a status.
+     */
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * Write the user's transactions recorded in [from, to), account by account, oldest first
+     *
+     * @param accountId One account, or null for all of the user's accounts
+     * @return How many transactions were written
+     */
+    public long exportTransactions(long userId, Long accountId, Instant from, Instant to, TransferFormat format,
+                                   ExportTarget target) throws IOException {
+        List<Long> accountIds;
+        if (accountId != null) {
+            transactionService.requireOwner(userId, accountId);
+            accountIds = List.of(accountId);
+        } else {
+            accountIds = ledgerRepository.findAccountsByOwner(userId).stream().map(AccountSnapshot::id).toList();
+        }
+        if (!exports.tryAcquire()) {
+            throw TOO_MANY_EXPORTS;
+        }
+        try {
+            long started = System.nanoTime();
+            TransactionRecordWriter writer = openWriter(format, target.open());
+            long[] count = new long[1];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (long id : accountIds) {
+                    ledgerRepository.streamTransactions(id, from, to, fetchSize, transaction -> {
+                        try {
+                            writer.write(toRecord(transaction));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count[0]++;
+                    });
+                }
+            });
+            writer.finish();
+            log.info("Exported {} transactions for user {} as {} in {} ms", count[0], userId, format,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return count[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exports.release();
+        }
+    }
+
+    /**
+     * Record every transaction in the upload on the account, reporting each row that isn't recorded.
+     * A UUID id is used as is; any other id is mapped to a UUID for the account, so importing the
+     * same file again records nothing new. Rows without an id get a new one.
+     *
+     * @param accepted Called once the account and the upload's header have been checked, before any row is read
+     * @param report Receives a result for each row that was not recorded, in upload order
+     * @return Totals for the whole upload
+     */
+    public ImportSummary importTransactions(long userId, long accountId, TransferFormat format, InputStream in,
+                                            Runnable accepted, Consumer<ImportRowResult> report) throws IOException {
+        transactionService.requireOwner(userId, accountId);
+        TransactionRecordReader reader = openReader(format, in);
+        accepted.run();
+
+        long startedAt = System.currentTimeMillis();
+        ImportSummary summary = new ImportSummary();
+        Consumer<ImportRowResult> counted = result -> {
+            summary.count(result.getStatus());
+            if (result.getStatus() != Status.RECORDED) {
+                report.accept(result);
+            }
+        };
+
+        // Rows in upload order; rejected ones wait their turn so results stay in order
+        ArrayDeque<InFlight> inFlight = new ArrayDeque<>(maxInFlight);
+        while (true) {
+            if (inFlight.size() >= maxInFlight) {
+                settle(inFlight.poll(), counted);
+            }
+            TransactionRecord record;
+            try {
+                record = reader.next();
+            } catch (IllegalArgumentException e) {
+                inFlight.add(InFlight.rejected(reader.position(), null, Status.INVALID, e.getMessage()));
+                continue;
+            } catch (TransactionException e) {
+                // The rest of the upload is unreadable; what came before it still counts
+                inFlight.add(InFlight.rejected(reader.position(), null, Status.INVALID, e.getMessage()));
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+
+            Posting posting;
+            try {
+                posting = toPosting(userId, accountId, record);
+            } catch (IllegalArgumentException e) {
+                inFlight.add(InFlight.rejected(reader.position(), record.id(), Status.INVALID, e.getMessage()));
+                continue;
+            }
+            CompletableFuture<LedgerTransaction> result = submit(posting, inFlight, counted);
+            inFlight.add(result != null
+                    ? new InFlight(reader.position(), record.id(), result, null)
+                    : InFlight.rejected(reader.position(), record.id(), Status.FAILED, "Ledger is busy"));
+        }
+        while (!inFlight.isEmpty()) {
+            settle(inFlight.poll(), counted);
+        }
+
+        summary.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        log.info("Transaction import to account {} finished: {} rows, {} recorded, {} invalid, {} conflicts, {} failed in {} ms",
+                accountId, summary.getRows(), summary.getRecorded(), summary.getInvalid(), summary.getConflicts(),
+                summary.getFailed(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * Offer the posting to the writer, settling our own earlier postings while its buffer is full
+     *
+     * @return The posting's result, or null if the buffer stayed full for the commit timeout
+     */
+    private CompletableFuture<LedgerTransaction> submit(Posting posting, ArrayDeque<InFlight> inFlight,
+                                                        Consumer<ImportRowResult> report) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(commitTimeoutMillis);
+        while (true) {
+            try {
+                return ledgerWriter.submit(posting);
+            } catch (TransactionException busy) {
+                if (!inFlight.isEmpty()) {
+                    settle(inFlight.poll(), report);
+                } else if (System.nanoTime() - deadline > 0) {
+                    return null;
+                } else {
+                    LockSupport.parkNanos(BUSY_PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    private void settle(InFlight row, Consumer<ImportRowResult> report) {
+        if (row.rejection() != null) {
+            report.accept(row.rejection());
+            return;
+        }
+        try {
+            row.result().get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+            report.accept(new ImportRowResult(row.line(), row.id(), Status.RECORDED, null));
+        } catch (ExecutionException e) {
+            boolean conflict = e.getCause() instanceof TransactionException refused
+                    && refused.getStatus() == HttpStatus.CONFLICT;
+            report.accept(new ImportRowResult(row.line(), row.id(), conflict ? Status.CONFLICT : Status.FAILED,
+                    e.getCause() instanceof TransactionException ? e.getCause().getMessage() : "Posting failed"));
+        } catch (TimeoutException e) {
+            report.accept(new ImportRowResult(row.line(), row.id(), Status.FAILED,
+                    "Not confirmed in time; importing the file again is safe"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.accept(new ImportRowResult(row.line(), row.id(), Status.FAILED, "Import interrupted"));
+        }
+    }
+
+    private Posting toPosting(long userId, long accountId, TransactionRecord record) {
+        String name = record.name() == null ? "" : record.name().strip();
+        if (name.isEmpty() || name.length() > 200) {
+            throw new IllegalArgumentException("Name is required (at most 200 characters)");
+        }
+        String category = record.category() == null ? "" : record.category().strip();
+        if (category.length() > 100) {
+            throw new IllegalArgumentException("Category must be at most 100 characters");
+        }
+        if (record.amount() <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        // Without a category, the user's rules pick one
+        return Posting.open(accountId, transactionId(accountId, record.id()), record.pending(), record.direction(),
+                record.amount(), name, category.isEmpty() ? categoryService.categorize(userId, name) : category);
+    }
+
+    private static UUID transactionId(long accountId, String id) {
+        if (id == null) {
+            return UUID.randomUUID();
+        }
+        if (id.length() == 36) {
+            try {
+                return UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                // Not a UUID after all
+            }
+        }
+        return UUID.nameUUIDFromBytes((accountId + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TransactionRecordWriter openWriter(TransferFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvTransactionWriter(out);
+            case NDJSON -> new NdjsonTransactionWriter(objectMapper.getFactory(), out);
+            case BINARY -> new BinaryTransactionWriter(out);
+        };
+    }
+
+    private TransactionRecordReader openReader(TransferFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvTransactionReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            case NDJSON -> new NdjsonTransactionReader(objectMapper.getFactory(),
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            case BINARY -> new BinaryTransactionReader(in);
+        };
+    }
+
+    private static TransactionRecord toRecord(LedgerTransaction transaction) {
+        LedgerEntry opening = transaction.opening();
+        Instant completedAt = transaction.settledAt() != null ? transaction.settledAt()
+                : transaction.isCompleted() ? opening.createdAt() : null;
+        return new TransactionRecord(opening.transactionId().toString(), opening.accountId(), opening.createdAt(),
+                completedAt, opening.name(), opening.category(), opening.amount(), opening.direction(),
+                !transaction.isCompleted());
+    }
+
+    /**
+     * An uploaded row waiting to be reported: a posting in the writer, or a row already rejected
+     */
+    private record InFlight(long line, String id, CompletableFuture<LedgerTransaction> result,
+                            ImportRowResult rejection) {
+
+        static InFlight rejected(long line, String id, Status status, String message) {
+            return new InFlight(line, id, null, new ImportRowResult(line, id, status, message));
+        }
+    }
+}
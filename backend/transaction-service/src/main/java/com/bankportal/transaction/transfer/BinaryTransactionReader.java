@@ -0,0 +1,117 @@
+package com.bankportal.transaction.transfer;
+
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.Direction;
+import org.springframework.http.HttpStatus;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.COMPLETED;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.CREDIT;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.END;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.HAS_CATEGORY;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.MAGIC;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.PENDING;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.RECORD;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.UUID_ID;
+import static com.bankportal.transaction.transfer.BinaryTransactionWriter.VERSION;
+
+/**
+ * Reads the format written by {@link BinaryTransactionWriter}. Records can't be resynchronized, so
+ * a corrupt or truncated stream stops the import at that record.
+ */
+public class BinaryTransactionReader implements TransactionRecordReader {
+
+    private final DataInputStream in;
+    private long record;
+    private boolean ended;
+
+    public BinaryTransactionReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        byte[] header = new byte[MAGIC.length + 1];
+        try {
+            this.in.readFully(header);
+        } catch (EOFException e) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Not a binary transaction export");
+        }
+        if (!Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "Not a binary transaction export");
+        }
+        if (header[MAGIC.length] != VERSION) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST,
+                    "Unsupported binary export version " + header[MAGIC.length]);
+        }
+    }
+
+    @Override
+    public TransactionRecord next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        record++;
+        try {
+            int marker = in.read();
+            if (marker == END) {
+                ended = true;
+                return null;
+            }
+            if (marker < 0) {
+                throw corrupt("Binary upload is truncated");
+            }
+            if (marker != RECORD) {
+                throw corrupt("Binary upload is corrupt");
+            }
+            int flags = in.readUnsignedByte();
+            String id = (flags & UUID_ID) != 0
+                    ? new UUID(in.readLong(), in.readLong()).toString()
+                    : in.readUTF();
+            long accountId = readVarLong();
+            long createdAt = readVarLong();
+            Instant completedAt = null;
+            if ((flags & COMPLETED) != 0) {
+                long delay = readVarLong();
+                completedAt = BinaryTransactionWriter.fromMicros(createdAt + ((delay >>> 1) ^ -(delay & 1)));
+            }
+            long amount = readVarLong();
+            String name = in.readUTF();
+            String category = (flags & HAS_CATEGORY) != 0 ? in.readUTF() : null;
+            return new TransactionRecord(id, accountId, BinaryTransactionWriter.fromMicros(createdAt), completedAt,
+                    name, category, amount, (flags & CREDIT) != 0 ? Direction.CREDIT : Direction.DEBIT,
+                    (flags & PENDING) != 0);
+        } catch (EOFException e) {
+            throw corrupt("Binary upload is truncated");
+        } catch (UTFDataFormatException e) {
+            throw corrupt("Binary upload is corrupt");
+        }
+    }
+
+    @Override
+    public long position() {
+        return record;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw corrupt("Binary upload is corrupt");
+    }
+
+    private TransactionException corrupt(String message) {
+        ended = true;
+        return new TransactionException(HttpStatus.BAD_REQUEST, message + " at record " + record);
+    }
+}
@@ -0,0 +1,180 @@
+package com.bankportal.transaction.transfer;
+
+import com.bankportal.transaction.exception.TransactionException;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CSV with a header row naming the columns in any order: name (or description), amount and type,
+ * and optionally id, category and status; others, such as the export's createdAt, are ignored.
+ * Fields may be double-quoted, with "" for a quote, and quoted fields may span lines.
+ */
+public class CsvTransactionReader implements TransactionRecordReader {
+
+    /** A longer field rejects its record, and only this much of it is kept while skipping it */
+    private static final int MAX_FIELD_LENGTH = 1000;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int offset;
+    private int limit;
+
+    private final int idColumn;
+    private final int nameColumn;
+    private final int categoryColumn;
+    private final int amountColumn;
+    private final int typeColumn;
+    private final int statusColumn;
+    private final int columnCount;
+
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private boolean fieldTooLong;
+    private boolean unterminated;
+    private long line = 1;
+    private long position;
+
+    public CsvTransactionReader(Reader reader) throws IOException {
+        this.reader = reader;
+        if (!readRecord()) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "CSV header row is missing");
+        }
+        List<String> columns = new ArrayList<>(fields);
+        if (columns.get(0).startsWith("\uFEFF")) {
+            columns.set(0, columns.get(0).substring(1));
+        }
+        columns.replaceAll(column -> column.strip().toLowerCase(Locale.ROOT));
+        this.idColumn = columns.indexOf("id");
+        this.nameColumn = columns.contains("name") ? columns.indexOf("name") : columns.indexOf("description");
+        this.categoryColumn = columns.indexOf("category");
+        this.amountColumn = columns.indexOf("amount");
+        this.typeColumn = columns.indexOf("type");
+        this.statusColumn = columns.indexOf("status");
+        this.columnCount = columns.size();
+        if (nameColumn < 0 || amountColumn < 0 || typeColumn < 0) {
+            throw new TransactionException(HttpStatus.BAD_REQUEST, "CSV header must name name, amount and type columns");
+        }
+    }
+
+    @Override
+    public TransactionRecord next() throws IOException {
+        while (true) {
+            position = line;
+            if (!readRecord()) {
+                return null;
+            }
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            if (unterminated) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            if (fieldTooLong) {
+                throw new IllegalArgumentException("Field longer than " + MAX_FIELD_LENGTH + " characters");
+            }
+            if (fields.size() != columnCount) {
+                throw new IllegalArgumentException("Expected " + columnCount + " fields, found " + fields.size());
+            }
+            return new TransactionRecord(
+                    idColumn < 0 ? null : RecordFields.emptyToNull(fields.get(idColumn)),
+                    0, null, null,
+                    fields.get(nameColumn),
+                    categoryColumn < 0 ? null : RecordFields.emptyToNull(fields.get(categoryColumn)),
+                    RecordFields.parseAmount(fields.get(amountColumn)),
+                    RecordFields.parseType(fields.get(typeColumn)),
+                    statusColumn >= 0 && RecordFields.parsePending(fields.get(statusColumn)));
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Read one record's fields
+     *
+     * @return false at the end of the input
+     */
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        fieldTooLong = false;
+        unterminated = false;
+        boolean quoted = false;
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        for (; c >= 0; c = read()) {
+            if (quoted) {
+                if (c != '"') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                } else if (peek() == '"') {
+                    offset++;
+                    append('"');
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                endField();
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    offset++;
+                }
+                line++;
+                endField();
+                return true;
+            } else {
+                append(c);
+            }
+        }
+        unterminated = quoted;
+        endField();
+        return true;
+    }
+
+    private void append(int c) {
+        if (field.length() < MAX_FIELD_LENGTH) {
+            field.append((char) c);
+        } else {
+            fieldTooLong = true;
+        }
+    }
+
+    private void endField() {
+        fields.add(field.toString());
+        field.setLength(0);
+    }
+
+    private int read() throws IOException {
+        return fill() ? buffer[offset++] : -1;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer[offset] : -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (offset < limit) {
+            return true;
+        }
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        offset = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bankportal.transaction.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV with a header row; fields holding a comma, quote or line break are quoted, with "" for a quote
+ */
+public class CsvTransactionWriter implements TransactionRecordWriter {
+
+    static final String HEADER = "id,accountId,createdAt,completedAt,name,category,amount,type,status\n";
+
+    private final Writer writer;
+
+    public CsvTransactionWriter(OutputStream out) throws IOException {
+        this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void write(TransactionRecord record) throws IOException {
+        writer.write(record.id());
+        writer.write(',');
+        writer.write(Long.toString(record.accountId()));
+        writer.write(',');
+        writer.write(record.createdAt().toString());
+        writer.write(',');
+        if (record.completedAt() != null) {
+            writer.write(record.completedAt().toString());
+        }
+        writer.write(',');
+        writeField(record.name());
+        writer.write(',');
+        writeField(record.category());
+        writer.write(',');
+        writer.write(RecordFields.formatAmount(record.amount()));
+        writer.write(',');
+        writer.write(RecordFields.formatType(record.direction()));
+        writer.write(',');
+        writer.write(RecordFields.formatStatus(record.pending()));
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+                return;
+            }
+        }
+        writer.write(value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bankportal.transaction.transfer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line with name, amount and type, and optionally id, category and status;
+ * other fields are ignored. A malformed line rejects only its own record.
+ */
+public class NdjsonTransactionReader implements TransactionRecordReader {
+
+    private final JsonFactory factory;
+    private final BufferedReader reader;
+    private long line;
+
+    public NdjsonTransactionReader(JsonFactory factory, BufferedReader reader) {
+        this.factory = factory;
+        this.reader = reader;
+    }
+
+    @Override
+    public TransactionRecord next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        String id = null;
+        String name = null;
+        String category = null;
+        String amount = null;
+        String type = null;
+        String status = null;
+        try (JsonParser parser = factory.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String scalar = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                switch (field) {
+                    case "id" -> id = scalar;
+                    case "name" -> name = scalar;
+                    case "category" -> category = scalar;
+                    case "amount" -> amount = scalar;
+                    case "type" -> type = scalar;
+                    case "status" -> status = scalar;
+                    default -> {
+                    }
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Expected one JSON object per line");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        return new TransactionRecord(RecordFields.emptyToNull(id), 0, null, null, name,
+                RecordFields.emptyToNull(category), RecordFields.parseAmount(amount),
+                RecordFields.parseType(type), RecordFields.parsePending(status));
+    }
+
+    @Override
+    public long position() {
+        return line;
+    }
+}
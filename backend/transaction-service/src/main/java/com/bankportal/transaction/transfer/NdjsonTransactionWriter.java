@@ -0,0 +1,48 @@
+package com.bankportal.transaction.transfer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+/**
+ * One JSON object per line, with the fields and values of the transaction API
+ */
+public class NdjsonTransactionWriter implements TransactionRecordWriter {
+
+    private final JsonGenerator json;
+    private boolean empty = true;
+
+    public NdjsonTransactionWriter(JsonFactory factory, OutputStream out) throws IOException {
+        this.json = factory.createGenerator(out);
+        json.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void write(TransactionRecord record) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", record.id());
+        json.writeStringField("accountId", Long.toString(record.accountId()));
+        json.writeStringField("name", record.name());
+        json.writeStringField("category", record.category());
+        json.writeFieldName("amount");
+        json.writeNumber(BigDecimal.valueOf(record.amount(), 2));
+        json.writeStringField("type", RecordFields.formatType(record.direction()));
+        json.writeStringField("status", RecordFields.formatStatus(record.pending()));
+        json.writeStringField("createdAt", record.createdAt().toString());
+        json.writeStringField("completedAt", record.completedAt() != null ? record.completedAt().toString() : null);
+        json.writeEndObject();
+        empty = false;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!empty) {
+            json.writeRaw('\n');
+        }
+        json.flush();
+    }
+}
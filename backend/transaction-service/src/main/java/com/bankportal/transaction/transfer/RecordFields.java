@@ -0,0 +1,71 @@
+package com.bankportal.transaction.transfer;
+
+import com.bankportal.transaction.ledger.Direction;
+
+import java.math.BigDecimal;
+
+/**
+ * Field values shared by the text formats, written as the transaction API writes them
+ */
+final class RecordFields {
+
+    private RecordFields() {
+    }
+
+    static String formatAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    static String formatType(Direction direction) {
+        return direction == Direction.CREDIT ? "credit" : "debit";
+    }
+
+    static String formatStatus(boolean pending) {
+        return pending ? "pending" : "completed";
+    }
+
+    /**
+     * @return Cents
+     */
+    static long parseAmount(String amount) {
+        if (amount == null || amount.isBlank()) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        try {
+            long cents = new BigDecimal(amount.strip()).movePointRight(2).longValueExact();
+            if (cents > 0) {
+                return cents;
+            }
+        } catch (ArithmeticException | NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Amount must be a positive number with at most two decimal places");
+    }
+
+    static Direction parseType(String type) {
+        if ("debit".equalsIgnoreCase(type)) {
+            return Direction.DEBIT;
+        }
+        if ("credit".equalsIgnoreCase(type)) {
+            return Direction.CREDIT;
+        }
+        throw new IllegalArgumentException("Type must be debit or credit");
+    }
+
+    /**
+     * @return Whether the status is pending; a missing status is completed
+     */
+    static boolean parsePending(String status) {
+        if (status == null || status.isEmpty() || "completed".equalsIgnoreCase(status)) {
+            return false;
+        }
+        if ("pending".equalsIgnoreCase(status)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Status must be completed or pending");
+    }
+
+    static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bankportal.transaction.transfer;
+
+import com.bankportal.transaction.ledger.Direction;
+
+import java.time.Instant;
+
+/**
+ * One transaction as it is exported or imported. Amounts are in cents.
+ *
+ * @param id Transaction id: a UUID on export; any text on import, or null for a new id
+ * @param accountId Account it was exported from; not read on import
+ * @param createdAt When it was recorded; not read on import
+ * @param completedAt When it completed, or null while pending; not read on import
+ */
+public record TransactionRecord(String id,
+                                long accountId,
+                                Instant createdAt,
+                                Instant completedAt,
+                                String name,
+                                String category,
+                                long amount,
+                                Direction direction,
+                                boolean pending) {
+}
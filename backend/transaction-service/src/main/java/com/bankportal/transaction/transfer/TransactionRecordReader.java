@@ -0,0 +1,22 @@
+package com.bankportal.transaction.transfer;
+
+import java.io.IOException;
+
+/**
+ * Decodes records from an upload one at a time
+ */
+public interface TransactionRecordReader {
+
+    /**
+     * @return The next record, or null at the end of the upload
+     * @throws IllegalArgumentException if the record is invalid; the reader has moved past it
+     * @throws com.bankportal.transaction.exception.TransactionException 400 if the rest of the upload can't be read
+     */
+    TransactionRecord next() throws IOException;
+
+    /**
+     * Where the last record returned or rejected starts: its 1-based line for text formats
+     * (a CSV header is line 1), or its 1-based index for binary
+     */
+    long position();
+}
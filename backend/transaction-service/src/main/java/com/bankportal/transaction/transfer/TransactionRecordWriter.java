@@ -0,0 +1,17 @@
+package com.bankportal.transaction.transfer;
+
+import java.io.IOException;
+
+/**
+ * Encodes records onto an output stream as they are written, holding at most a buffer's worth
+ */
+public interface TransactionRecordWriter {
+
+    void write(TransactionRecord record) throws IOException;
+
+    /**
+     * Write the trailer, if the format has one, and flush. Not called when an export fails, so a
+     * truncated binary export is told apart from a complete one.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,69 @@
+package com.bankportal.transaction.transfer;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formats for exporting and importing transactions
+ */
+public enum TransferFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** See {@link BinaryTransactionWriter} */
+    BINARY("application/octet-stream", "bin");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    TransferFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * @return The format with this name (csv, ndjson or binary), or null
+     */
+    public static TransferFormat fromName(String name) {
+        return switch (name == null ? "" : name.toLowerCase(Locale.ROOT)) {
+            case "csv" -> CSV;
+            case "ndjson", "jsonl" -> NDJSON;
+            case "binary", "bin" -> BINARY;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return The format of an upload with this Content-Type, or null
+     */
+    public static TransferFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (CSV.mediaType.includes(type)) {
+            return CSV;
+        }
+        if (NDJSON.mediaType.includes(type) || MediaType.APPLICATION_JSON.includes(type)) {
+            return NDJSON;
+        }
+        if (BINARY.mediaType.includes(type)) {
+            return BINARY;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+-- Ledger schema; every statement is idempotent and runs at startup
+
+-- One row per account, with its balance snapshot. The writer adds each batch's net change in the
+-- same transaction that appends the entries, so a balance read is a primary-key lookup.
+CREATE TABLE IF NOT EXISTS ledger_accounts (
+    id              BIGSERIAL PRIMARY KEY,
+    owner_id        BIGINT       NOT NULL,
+    name            VARCHAR(100) NOT NULL,
+    -- Amounts are in cents
+    posted_balance  BIGINT       NOT NULL DEFAULT 0,
+    pending_debits  BIGINT       NOT NULL DEFAULT 0,
+    pending_credits BIGINT       NOT NULL DEFAULT 0,
+    -- Latest entry reflected in the snapshot
+    last_entry_id   BIGINT       NOT NULL DEFAULT 0,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ledger_accounts_owner ON ledger_accounts (owner_id);
+
+-- Append-only: entries are never updated or deleted. A transaction opens with a POSTED (completed) or
+-- PENDING entry; a pending one is completed by a later SETTLED entry for the same transaction_id.
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id             BIGINT       PRIMARY KEY,
+    account_id     BIGINT       NOT NULL REFERENCES ledger_accounts (id),
+    transaction_id UUID         NOT NULL,
+    kind           VARCHAR(8)   NOT NULL CHECK (kind IN ('POSTED', 'PENDING', 'SETTLED')),
+    direction      VARCHAR(6)   NOT NULL CHECK (direction IN ('DEBIT', 'CREDIT')),
+    amount         BIGINT       NOT NULL CHECK (amount > 0),
+    name           VARCHAR(200) NOT NULL,
+    category       VARCHAR(100),
+    created_at     TIMESTAMPTZ  NOT NULL,
+    UNIQUE (transaction_id, kind)
+);
+
+-- The writer takes the ids for a whole batch in one query; CACHE keeps each nextval off the shared sequence page
+CREATE SEQUENCE IF NOT EXISTS ledger_entry_seq CACHE 100;
+
+-- History pages: a transaction's opening entries, newest first, keyset-paginated on id
+CREATE INDEX IF NOT EXISTS ledger_entries_history ON ledger_entries (account_id, id DESC) WHERE kind <> 'SETTLED';
+
+-- Category rules: a transaction whose name contains the keyword, in any case, gets the category.
+-- Lowest position first; new rules take the front.
+CREATE TABLE IF NOT EXISTS category_rules (
+    id         BIGSERIAL PRIMARY KEY,
+    owner_id   BIGINT       NOT NULL,
+    keyword    VARCHAR(100) NOT NULL,
+    category   VARCHAR(100) NOT NULL,
+    enabled    BOOLEAN      NOT NULL DEFAULT TRUE,
+    position   BIGINT       NOT NULL,
+    created_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS category_rules_owner ON category_rules (owner_id, position);
+
+-- Bumped with every rule change; compiled rule sets are cached per version
+CREATE TABLE IF NOT EXISTS category_rule_sets (
+    owner_id BIGINT PRIMARY KEY,
+    version  BIGINT NOT NULL
+);
+
+-- Categories assigned by re-categorizing, which take precedence over the category a transaction was posted with.
+-- Ledger entries themselves are never updated.
+CREATE TABLE IF NOT EXISTS transaction_categories (
+    transaction_id   UUID         PRIMARY KEY,
+    category         VARCHAR(100) NOT NULL,
+    rule_set_version BIGINT       NOT NULL,
+    updated_at       TIMESTAMPTZ  NOT NULL
+);
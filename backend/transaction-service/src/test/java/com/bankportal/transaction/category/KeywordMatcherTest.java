@@ -0,0 +1,93 @@
+package com.bankportal.transaction.category;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordMatcherTest {
+
+    @Test
+    void returnsTheHighestPriorityKeywordInTheText() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("uber eats", "uber", "eats"));
+
+        assertThat(matcher.firstMatch("UBER EATS 1234")).isEqualTo(0);
+        assertThat(matcher.firstMatch("Uber trip")).isEqualTo(1);
+        assertThat(matcher.firstMatch("Good eats")).isEqualTo(2);
+        assertThat(matcher.firstMatch("Grocery store")).isEqualTo(-1);
+    }
+
+    @Test
+    void findsKeywordsThatEndInsideLongerOnes() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("hers", "she", "he"));
+
+        assertThat(matcher.firstMatch("ushers")).isEqualTo(0);
+        assertThat(matcher.firstMatch("ushe")).isEqualTo(1);
+        assertThat(matcher.firstMatch("the")).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresCaseIncludingOutsideAscii() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of("café", "ÖL"));
+
+        assertThat(matcher.firstMatch("CAFÉ CENTRAL")).isEqualTo(0);
+        assertThat(matcher.firstMatch("shell öl station")).isEqualTo(1);
+        assertThat(matcher.firstMatch("cafe")).isEqualTo(-1);
+    }
+
+    @Test
+    void blankKeywordsNeverMatch() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Arrays.asList("", null, "  ", "rent"));
+
+        assertThat(matcher.firstMatch("anything")).isEqualTo(-1);
+        assertThat(matcher.firstMatch("Monthly rent")).isEqualTo(3);
+        assertThat(KeywordMatcher.compile(List.of()).firstMatch("text")).isEqualTo(-1);
+    }
+
+    @Test
+    void agreesWithANaiveSearchOnRandomInput() {
+        Random random = new Random(42);
+        String alphabet = "abcAB é";
+        for (int round = 0; round < 500; round++) {
+            List<String> keywords = new ArrayList<>();
+            for (int k = 0, count = 1 + random.nextInt(8); k < count; k++) {
+                keywords.add(randomString(random, alphabet, 1 + random.nextInt(4)));
+            }
+            KeywordMatcher matcher = KeywordMatcher.compile(keywords);
+            for (int t = 0; t < 20; t++) {
+                String text = randomString(random, alphabet, random.nextInt(20));
+                assertThat(matcher.firstMatch(text)).as("%s in %s", keywords, text)
+                        .isEqualTo(naiveFirstMatch(keywords, text));
+            }
+        }
+    }
+
+    private static int naiveFirstMatch(List<String> keywords, String text) {
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            if (!keyword.isBlank() && fold(text).contains(fold(keyword))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Per character, as the matcher folds; String.toLowerCase can change the length */
+    private static String fold(String s) {
+        StringBuilder folded = new StringBuilder(s.length());
+        s.chars().forEach(c -> folded.append(Character.toLowerCase((char) c)));
+        return folded.toString();
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder s = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return s.toString();
+    }
+}
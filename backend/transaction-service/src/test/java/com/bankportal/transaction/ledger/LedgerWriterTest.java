@@ -0,0 +1,187 @@
+package com.bankportal.transaction.ledger;
+
+import com.bankportal.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class LedgerWriterTest {
+
+    private static final long ACCOUNT = 7;
+
+    private InMemoryLedgerRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private LedgerWriter writer;
+
+    @BeforeEach
+    void startWriter() {
+        repository = new InMemoryLedgerRepository();
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new LedgerWriter(repository, mock(PlatformTransactionManager.class), 64, 16, meterRegistry);
+        writer.start();
+    }
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void opensAndSettlesATransaction() throws Exception {
+        UUID id = UUID.randomUUID();
+        LedgerTransaction opened = await(writer.submit(open(id, true, 500)));
+        assertThat(opened.isCompleted()).isFalse();
+
+        LedgerTransaction settled = await(writer.submit(Posting.settle(ACCOUNT, id)));
+        assertThat(settled.isCompleted()).isTrue();
+        assertThat(repository.entries).extracting(LedgerEntry::kind)
+                .containsExactly(EntryKind.PENDING, EntryKind.SETTLED);
+    }
+
+    @Test
+    void repeatedPostingReturnsTheRecordedTransaction() throws Exception {
+        UUID id = UUID.randomUUID();
+        LedgerTransaction first = await(writer.submit(open(id, false, 500)));
+        LedgerTransaction retried = await(writer.submit(open(id, false, 500)));
+
+        assertThat(retried.opening()).isEqualTo(first.opening());
+        assertThat(repository.entries).hasSize(1);
+    }
+
+    @Test
+    void rejectsAReusedIdWithDifferentDetails() throws Exception {
+        UUID id = UUID.randomUUID();
+        await(writer.submit(open(id, false, 500)));
+
+        assertThatThrownBy(() -> await(writer.submit(open(id, false, 900))))
+                .hasCauseInstanceOf(TransactionException.class)
+                .cause().extracting(e -> ((TransactionException) e).getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void rejectsSettlingAnUnknownTransaction() {
+        assertThatThrownBy(() -> await(writer.submit(Posting.settle(ACCOUNT, UUID.randomUUID()))))
+                .hasCauseInstanceOf(TransactionException.class)
+                .cause().extracting(e -> ((TransactionException) e).getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void revalidatesWhenAnotherInstanceRecordsTheIdFirst() throws Exception {
+        UUID id = UUID.randomUUID();
+        // Committed by another instance after this writer's lookup, before its INSERT
+        repository.concurrent.add(new LedgerEntry(1_000_000, ACCOUNT, id, EntryKind.POSTED, Direction.DEBIT,
+                900, "elsewhere", null, Instant.now()));
+
+        assertThatThrownBy(() -> await(writer.submit(open(id, false, 500))))
+                .hasCauseInstanceOf(TransactionException.class)
+                .cause().extracting(e -> ((TransactionException) e).getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(repository.entries).extracting(LedgerEntry::name).containsExactly("elsewhere");
+        assertThat(meterRegistry.counter("ledger.batch.conflicts").count()).isEqualTo(1);
+    }
+
+    @Test
+    void revalidatedRetryOfTheSamePostingSucceeds() throws Exception {
+        UUID id = UUID.randomUUID();
+        repository.concurrent.add(new LedgerEntry(1_000_000, ACCOUNT, id, EntryKind.POSTED, Direction.DEBIT,
+                500, "elsewhere", null, Instant.now()));
+
+        LedgerTransaction result = await(writer.submit(open(id, false, 500)));
+
+        assertThat(result.opening().id()).isEqualTo(1_000_000);
+        assertThat(repository.entries).hasSize(1);
+    }
+
+    @Test
+    void everyPostingOfABurstIsAppended() throws Exception {
+        List<CompletableFuture<LedgerTransaction>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(writer.submit(open(UUID.randomUUID(), false, 100)));
+        }
+        for (CompletableFuture<LedgerTransaction> result : results) {
+            await(result);
+        }
+        assertThat(repository.entries).hasSize(50);
+        assertThat(repository.entries).extracting(LedgerEntry::id).doesNotHaveDuplicates();
+    }
+
+    private static Posting open(UUID id, boolean pending, long amount) {
+        return Posting.open(ACCOUNT, id, pending, Direction.DEBIT, amount, "Coffee", null);
+    }
+
+    private static LedgerTransaction await(CompletableFuture<LedgerTransaction> result)
+            throws InterruptedException, ExecutionException {
+        try {
+            return result.get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AssertionError("Posting not completed", e);
+        }
+    }
+
+    /**
+     * The ledger tables in memory. A batch whose INSERT skips a row is treated as rolled back,
+     * as the writer then rolls back its transaction.
+     */
+    private static final class InMemoryLedgerRepository extends LedgerRepository {
+
+        private final List<LedgerEntry> entries = new ArrayList<>();
+        /** Entries another writer commits just before this writer's next INSERT */
+        private final List<LedgerEntry> concurrent = new ArrayList<>();
+        private long nextId = 1;
+
+        @Override
+        public synchronized List<LedgerEntry> findEntries(Collection<UUID> transactionIds) {
+            return entries.stream().filter(entry -> transactionIds.contains(entry.transactionId())).toList();
+        }
+
+        @Override
+        public synchronized long[] nextEntryIds(int count) {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = nextId++;
+            }
+            return ids;
+        }
+
+        @Override
+        public synchronized Set<Long> insertEntries(List<LedgerEntry> batch) {
+            entries.addAll(concurrent);
+            concurrent.clear();
+            Set<Long> inserted = new HashSet<>();
+            for (LedgerEntry entry : batch) {
+                boolean conflict = entries.stream().anyMatch(existing -> existing.transactionId().equals(entry.transactionId())
+                        && existing.kind() == entry.kind());
+                if (!conflict) {
+                    inserted.add(entry.id());
+                }
+            }
+            if (inserted.size() == batch.size()) {
+                entries.addAll(batch);
+            }
+            return inserted;
+        }
+
+        @Override
+        public void applyBalanceChanges(Map<Long, BalanceChange> changes) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.bankportal.transaction.transfer;
+
+import com.bankportal.transaction.exception.TransactionException;
+import com.bankportal.transaction.ledger.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvTransactionReaderTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2024-03-01T10:15:30Z");
+
+    @Test
+    void readsBackWhatTheWriterWrites() throws IOException {
+        List<TransactionRecord> written = List.of(
+                record("t1", "Coffee, large", "food", 450, Direction.DEBIT, false),
+                record("t2", "The \"best\" shop", null, 123456, Direction.CREDIT, true),
+                record("t3", "Line one\nline two\r\nline three", "misc", 1, Direction.DEBIT, false),
+                record("t4", "\"", "", 99, Direction.CREDIT, false));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvTransactionWriter writer = new CsvTransactionWriter(out);
+        for (TransactionRecord record : written) {
+            writer.write(record);
+        }
+        writer.finish();
+
+        List<TransactionRecord> read = readAll(new StringReader(out.toString(StandardCharsets.UTF_8)));
+
+        assertThat(read).extracting(TransactionRecord::id).containsExactly("t1", "t2", "t3", "t4");
+        assertThat(read).extracting(TransactionRecord::name).containsExactly(
+                "Coffee, large", "The \"best\" shop", "Line one\nline two\r\nline three", "\"");
+        assertThat(read).extracting(TransactionRecord::category).containsExactly("food", null, "misc", null);
+        assertThat(read).extracting(TransactionRecord::amount).containsExactly(450L, 123456L, 1L, 99L);
+        assertThat(read).extracting(TransactionRecord::direction).containsExactly(
+                Direction.DEBIT, Direction.CREDIT, Direction.DEBIT, Direction.CREDIT);
+        assertThat(read).extracting(TransactionRecord::pending).containsExactly(false, true, false, false);
+    }
+
+    @Test
+    void readsTheSameWhenTheInputArrivesOneCharacterAtATime() throws IOException {
+        String csv = "name,amount,type\r\n\"a \"\"quoted\"\" name\",1.50,debit\r\n\"multi\nline\",2,credit\r\n";
+
+        List<TransactionRecord> read = readAll(new OneCharReader(csv));
+
+        assertThat(read).extracting(TransactionRecord::name).containsExactly("a \"quoted\" name", "multi\nline");
+        assertThat(read).extracting(TransactionRecord::amount).containsExactly(150L, 200L);
+    }
+
+    @Test
+    void acceptsColumnsInAnyOrderWithAByteOrderMarkAndUnknownColumns() throws IOException {
+        String csv = "\uFEFF Type ,ignored,AMOUNT,description\ncredit,x,10,Salary\n";
+
+        List<TransactionRecord> read = readAll(new StringReader(csv));
+
+        assertThat(read).singleElement().satisfies(record -> {
+            assertThat(record.id()).isNull();
+            assertThat(record.name()).isEqualTo("Salary");
+            assertThat(record.amount()).isEqualTo(1000);
+            assertThat(record.direction()).isEqualTo(Direction.CREDIT);
+            assertThat(record.pending()).isFalse();
+        });
+    }
+
+    @Test
+    void rejectsAMissingOrIncompleteHeader() {
+        assertThatThrownBy(() -> new CsvTransactionReader(new StringReader("")))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("header row is missing");
+        assertThatThrownBy(() -> new CsvTransactionReader(new StringReader("name,amount\nRent,10\n")))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("name, amount and type");
+    }
+
+    @Test
+    void rejectsABadRecordAndCarriesOnWithTheNext() throws IOException {
+        String longName = "x".repeat(5000);
+        String csv = "name,amount,type\n"
+                + "too,few\n"
+                + "\n"
+                + "\"spans\ntwo lines\",abc,debit\n"
+                + longName + ",1,debit\n"
+                + "Rent,12.34,debit\n"
+                + "\"never closed,1,debit\n";
+        CsvTransactionReader reader = new CsvTransactionReader(new StringReader(csv));
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected 3 fields, found 2");
+        assertThat(reader.position()).isEqualTo(2);
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Amount must be");
+        assertThat(reader.position()).isEqualTo(4);
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Field longer than");
+        assertThat(reader.position()).isEqualTo(6);
+
+        TransactionRecord rent = reader.next();
+        assertThat(rent.name()).isEqualTo("Rent");
+        assertThat(rent.amount()).isEqualTo(1234);
+        assertThat(reader.position()).isEqualTo(7);
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+        assertThat(reader.position()).isEqualTo(8);
+
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownTypesAndStatuses() throws IOException {
+        CsvTransactionReader reader = new CsvTransactionReader(new StringReader(
+                "name,amount,type,status\nA,1,refund,completed\nB,1,debit,held\nC,1,DEBIT,Pending\n"));
+
+        assertThatThrownBy(reader::next).hasMessage("Type must be debit or credit");
+        assertThatThrownBy(reader::next).hasMessage("Status must be completed or pending");
+        assertThat(reader.next().pending()).isTrue();
+    }
+
+    private static TransactionRecord record(String id, String name, String category, long amount,
+                                            Direction direction, boolean pending) {
+        return new TransactionRecord(id, 7, CREATED_AT, pending ? null : CREATED_AT.plusSeconds(1),
+                name, category, amount, direction, pending);
+    }
+
+    private static List<TransactionRecord> readAll(Reader input) throws IOException {
+        CsvTransactionReader reader = new CsvTransactionReader(input);
+        List<TransactionRecord> records = new ArrayList<>();
+        for (TransactionRecord record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /** Hands out one character per read, so every lookahead crosses a buffer refill */
+    private static class OneCharReader extends Reader {
+        private final String text;
+        private int index;
+
+        OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (index >= text.length()) {
+                return -1;
+            }
+            buffer[offset] = text.charAt(index++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}